@@ -0,0 +1,467 @@
+package jp.co.comona.javamisc.sql;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+import org.h2.jdbcx.JdbcDataSource;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * end-to-end throughput benchmark of CopyRecord & InsertRecord against embedded H2 in MySQL mode.
+ * each scenario varies column count, row width, batch size & LOB size, and records rows/sec, p99 latency of an iteration & allocation.
+ * results are compared with the baseline file, a regression over the tolerance fails the run.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class RecordBenchmark {
+
+	// MARK: - Static Properties
+	private static final double DEFAULT_TOLERANCE = 0.25;
+	private static final double DEFAULT_LATENCY_TOLERANCE = 1.0;
+	private static final int DEFAULT_WARMUP = 10;
+	private static final int DEFAULT_ITERATIONS = 50;
+	private static final String KEY_ROWS_PER_SEC = ".rowsPerSec";
+	private static final String KEY_P99_MILLIS = ".p99Millis";
+	private static final String KEY_ALLOC_BYTES_PER_ROW = ".allocBytesPerRow";
+	private static final String KEY_ALLOC_MB_PER_SEC = ".allocMBPerSec";
+
+	// MARK: - Properties
+	final private Options options;
+	final private CommandLine cmd;
+	private File baselineFile = null;
+	private File reportFile = null;
+	private double tolerance = DEFAULT_TOLERANCE;
+	private double latencyTolerance = DEFAULT_LATENCY_TOLERANCE;
+	private int warmup = DEFAULT_WARMUP;
+	private int iterations = DEFAULT_ITERATIONS;
+	private boolean updateBaseline = false;
+	private final AtomicLong collectedBytes = new AtomicLong();
+	private final AtomicLong notifiedCount = new AtomicLong();
+	private long collectionOffset = 0;
+
+	// MARK: - Inner Class
+	/**
+	 * benchmark scenario.
+	 */
+	private static class Scenario {
+		private final boolean copy;
+		private final int columnCount;
+		private final int rowWidth;
+		private final int batchSize;
+		private final int lobSize;
+		private final int rows;
+
+		/**
+		 * constructor.
+		 * @param copy true for CopyRecord, false for InsertRecord.
+		 * @param columnCount number of data columns.
+		 * @param rowWidth width of string columns.
+		 * @param batchSize insert batch size.
+		 * @param lobSize LOB column size, 0 if no LOB column.
+		 * @param rows rows per iteration.
+		 */
+		private Scenario(boolean copy, int columnCount, int rowWidth, int batchSize, int lobSize, int rows) {
+			super();
+			this.copy = copy;
+			this.columnCount = columnCount;
+			this.rowWidth = rowWidth;
+			this.batchSize = batchSize;
+			this.lobSize = lobSize;
+			this.rows = rows;
+		}
+
+		/**
+		 * get scenario name, used as the key of baseline.
+		 * @return scenario name.
+		 */
+		private String getName() {
+			return (copy ? "copy" : "insert") + ".c" + columnCount + ".w" + rowWidth + ".b" + batchSize + ".lob" + lobSize;
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param options command line options.
+	 * @param cmd command line.
+	 */
+	protected RecordBenchmark(Options options, CommandLine cmd) {
+		super();
+		this.options = options;
+		this.cmd = cmd;
+	}
+
+	// MARK: - Scenarios
+	/**
+	 * create scenarios.
+	 * @return scenarios.
+	 */
+	private static List<Scenario> createScenarios() {
+		List<Scenario> scenarios = new ArrayList<>();
+		for (boolean copy : new boolean[] { false, true }) {
+			scenarios.add(new Scenario(copy, 4, 16, 100, 0, 1000));
+			scenarios.add(new Scenario(copy, 32, 16, 100, 0, 500));
+			scenarios.add(new Scenario(copy, 8, 256, 100, 0, 500));
+			scenarios.add(new Scenario(copy, 8, 64, 1, 0, 500));
+			scenarios.add(new Scenario(copy, 8, 64, 1000, 0, 2000));
+			scenarios.add(new Scenario(copy, 8, 64, 100, 65536, 100));
+		}
+		return scenarios;
+	}
+
+	// MARK: - Process
+	/**
+	 * run all scenarios, compare with baseline & write report.
+	 * @return true if no regression.
+	 * @throws Exception when error.
+	 */
+	protected boolean runBenchmarks() throws Exception {
+		listenGarbageCollections();
+		Properties baseline = loadProperties(baselineFile);
+		Map<String, String> results = new TreeMap<>();
+		List<String> regressions = new ArrayList<>();
+		System.out.println(String.format("%-32s %12s %10s %14s %12s", "scenario", "rows/sec", "p99 ms", "alloc MB/sec", "bytes/row"));
+		for (Scenario scenario : createScenarios()) {
+			double[] metrics = runScenario(scenario);
+			String name = scenario.getName();
+			results.put(name + KEY_ROWS_PER_SEC, String.format("%.1f", metrics[0]));
+			results.put(name + KEY_P99_MILLIS, String.format("%.3f", metrics[1]));
+			results.put(name + KEY_ALLOC_MB_PER_SEC, String.format("%.1f", metrics[2]));
+			results.put(name + KEY_ALLOC_BYTES_PER_ROW, String.format("%.0f", metrics[3]));
+			System.out.println(String.format("%-32s %12.1f %10.3f %14.1f %12.0f", name, metrics[0], metrics[1], metrics[2], metrics[3]));
+
+			checkRegression(regressions, baseline, name + KEY_ROWS_PER_SEC, metrics[0], tolerance, false);
+			checkRegression(regressions, baseline, name + KEY_P99_MILLIS, metrics[1], latencyTolerance, true);
+			checkRegression(regressions, baseline, name + KEY_ALLOC_BYTES_PER_ROW, metrics[3], tolerance, true);
+		}
+
+		if (reportFile != null) {
+			storeProperties(reportFile, results, "benchmark results");
+		}
+		if (updateBaseline) {
+			storeProperties(baselineFile, results, "benchmark baseline, update with ./gradlew benchmark -PupdateBaseline");
+			System.out.println("[INFO] baseline updated: " + baselineFile);
+			return true;
+		}
+		for (String regression : regressions) {
+			System.out.println("[ERROR] regression " + regression);
+		}
+		return regressions.isEmpty();
+	}
+
+	/**
+	 * run a scenario on a fresh in-memory database.
+	 * @param scenario scenario.
+	 * @return rows/sec, p99 milliseconds, allocation MB/sec & allocation bytes/row.
+	 * @throws Exception when error.
+	 */
+	private double[] runScenario(Scenario scenario) throws Exception {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL("jdbc:h2:mem:" + scenario.getName().replace('.', '_') + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+		dataSource.setUser("sa");
+		try (Connection con = dataSource.getConnection(); Statement stmt = con.createStatement()) {
+			stmt.execute(createTableSql(scenario));
+			if (scenario.copy) {
+				createInsertRequest(dataSource, scenario, "1").execute();
+			}
+
+			long[] latencies = new long[iterations];
+			long totalNanos = 0;
+			long totalAllocated = 0;
+			for (int i = -warmup; i < iterations; i++) {
+				long allocated = allocatedBytes();
+				long start = System.nanoTime();
+				RecordResult result = createRequest(dataSource, scenario).execute();
+				long elapsed = System.nanoTime() - start;
+				allocated = allocatedBytes() - allocated;
+				if (result.getRecordCount() != scenario.rows) {
+					throw new IllegalStateException(scenario.getName() + " wrote " + result.getRecordCount() + " rows, expected " + scenario.rows);
+				}
+				if (i >= 0) {
+					latencies[i] = elapsed;
+					totalNanos += elapsed;
+					totalAllocated += allocated;
+				}
+				stmt.execute(scenario.copy ? "DELETE FROM BENCH WHERE GRP = 2" : "TRUNCATE TABLE BENCH");
+			}
+			stmt.execute("DROP ALL OBJECTS");
+
+			Arrays.sort(latencies);
+			long totalRows = (long)scenario.rows * iterations;
+			double seconds = totalNanos / 1000000000.0;
+			double median = latencies[iterations / 2] / 1000000000.0;	// rows/sec by the median iteration, robust to outliers of a shared machine.
+			double p99 = latencies[Math.min(iterations - 1, (int)Math.ceil(iterations * 0.99) - 1)] / 1000000.0;
+			return new double[] { scenario.rows / median, p99, totalAllocated / seconds / (1024 * 1024), (double)totalAllocated / totalRows };
+		}
+	}
+
+	/**
+	 * create table SQL of the scenario.
+	 * data columns cycle through INT, VARCHAR, DECIMAL, TIMESTAMP & BIGINT.
+	 * @param scenario scenario.
+	 * @return create table SQL.
+	 */
+	private static String createTableSql(Scenario scenario) {
+		StringBuilder sql = new StringBuilder("CREATE TABLE BENCH (ID BIGINT AUTO_INCREMENT PRIMARY KEY, GRP INT NOT NULL");
+		for (int i = 0; i < scenario.columnCount; i++) {
+			sql.append(", C").append(i);
+			switch (i % 5) {
+				case 0:
+					sql.append(" INT NOT NULL");
+					break;
+				case 2:
+					sql.append(" DECIMAL(12,2) NOT NULL");
+					break;
+				case 3:
+					sql.append(" TIMESTAMP NOT NULL");
+					break;
+				case 4:
+					sql.append(" BIGINT NOT NULL");
+					break;
+
+				default:
+					sql.append(" VARCHAR(").append(scenario.rowWidth).append(") NOT NULL");
+					break;
+			}
+		}
+		if (scenario.lobSize > 0) {
+			sql.append(", PAYLOAD BLOB NOT NULL");
+		}
+		return sql.append(')').toString();
+	}
+
+	/**
+	 * create request of an iteration.
+	 * @param dataSource data source.
+	 * @param scenario scenario.
+	 * @return request.
+	 */
+	private static RecordRequest createRequest(JdbcDataSource dataSource, Scenario scenario) {
+		if (scenario.copy) {
+			return CopyRecordRequest.builder(dataSource, "BENCH").key("GRP", "1").replace("GRP", "2").defaultValue("ID")
+					.copies(1).batchSize(scenario.batchSize).build();
+		}
+		return createInsertRequest(dataSource, scenario, "1");
+	}
+
+	/**
+	 * create generating insert request.
+	 * @param dataSource data source.
+	 * @param scenario scenario.
+	 * @param group group column value.
+	 * @return request.
+	 */
+	private static InsertRecordRequest createInsertRequest(JdbcDataSource dataSource, Scenario scenario, String group) {
+		int length = Math.max(scenario.rowWidth, scenario.lobSize);	// string columns are capped by the column width.
+		return InsertRecordRequest.builder(dataSource, "BENCH").value("GRP", group).generate(scenario.rows)
+				.threads(1).batchSize(scenario.batchSize).stringLength(length, length).build();
+	}
+
+	// MARK: - Allocation
+	/**
+	 * listen garbage collections to sum up the collected bytes.
+	 */
+	private void listenGarbageCollections() {
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (!(gc instanceof NotificationEmitter)) {
+				continue;
+			}
+			collectionOffset += gc.getCollectionCount();
+			((NotificationEmitter)gc).addNotificationListener(new NotificationListener() {
+				@Override
+				public void handleNotification(Notification notification, Object handback) {
+					if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+						return;
+					}
+					GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData)notification.getUserData());
+					long collected = 0;
+					for (Map.Entry<String, MemoryUsage> before : info.getGcInfo().getMemoryUsageBeforeGc().entrySet()) {
+						collected += before.getValue().getUsed() - info.getGcInfo().getMemoryUsageAfterGc().get(before.getKey()).getUsed();
+					}
+					collectedBytes.addAndGet(collected);
+					notifiedCount.incrementAndGet();
+				}
+			}, null, null);
+		}
+	}
+
+	/**
+	 * get bytes allocated so far by all threads, collected bytes plus heap in use.
+	 * waits for the notifications of the collections so far, they are delivered asynchronously.
+	 * @return allocated bytes.
+	 * @throws InterruptedException when interrupted.
+	 */
+	private long allocatedBytes() throws InterruptedException {
+		long used = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+		long collections = -collectionOffset;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			if (gc instanceof NotificationEmitter) {
+				collections += gc.getCollectionCount();
+			}
+		}
+		for (int i = 0; (i < 1000) && (notifiedCount.get() < collections); i++) {
+			Thread.sleep(1);
+		}
+		return collectedBytes.get() + used;
+	}
+
+	// MARK: - Baseline
+	/**
+	 * check regression of a metric.
+	 * @param regressions regression messages, added by this method.
+	 * @param baseline baseline.
+	 * @param key metric key.
+	 * @param value measured value.
+	 * @param tolerance allowed regression ratio.
+	 * @param lowerIsBetter true if lower value is better.
+	 */
+	private static void checkRegression(List<String> regressions, Properties baseline, String key, double value, double tolerance, boolean lowerIsBetter) {
+		String base = baseline.getProperty(key);
+		if (base == null) {
+			return;
+		}
+		double baseValue = Double.parseDouble(base);
+		boolean regressed = lowerIsBetter ? value > baseValue * (1 + tolerance) : value < baseValue * (1 - tolerance);
+		if (regressed) {
+			regressions.add(String.format("%s: %.3f, baseline %.3f, tolerance %.0f%%", key, value, baseValue, tolerance * 100));
+		}
+	}
+
+	/**
+	 * load properties file.
+	 * @param file properties file.
+	 * @return properties, empty if file does not exist.
+	 * @throws IOException when I/O error.
+	 */
+	private static Properties loadProperties(File file) throws IOException {
+		Properties properties = new Properties();
+		if (file.exists()) {
+			try (InputStream in = new FileInputStream(file)) {
+				properties.load(in);
+			}
+		}
+		return properties;
+	}
+
+	/**
+	 * store values to properties file in key order.
+	 * @param file properties file.
+	 * @param values values.
+	 * @param comment header comment.
+	 * @throws IOException when I/O error.
+	 */
+	private static void storeProperties(File file, Map<String, String> values, String comment) throws IOException {
+		File parent = file.getAbsoluteFile().getParentFile();
+		if (!parent.exists() && !parent.mkdirs()) {
+			throw new IOException("can not create directory " + parent);
+		}
+		StringBuilder sb = new StringBuilder("# ").append(comment).append('\n');
+		for (Map.Entry<String, String> value : values.entrySet()) {
+			sb.append(value.getKey()).append('=').append(value.getValue()).append('\n');
+		}
+		try (OutputStream out = new FileOutputStream(file)) {
+			out.write(sb.toString().getBytes("ISO-8859-1"));
+		}
+	}
+
+	// MARK: - Check
+	/**
+	 * check arguments.
+	 * @return 0 if success, positive if help, negative if error.
+	 */
+	protected int checkArguments() {
+		if (cmd.hasOption('?')) {
+			SQLRecord.usage(options, RecordBenchmark.class.getSimpleName());
+			return 1;
+		}
+		else if (!cmd.hasOption('b')) {
+			SQLRecord.usage(options, RecordBenchmark.class.getSimpleName());
+			return -1;
+		}
+		baselineFile = new File(cmd.getOptionValue('b'));
+		if (cmd.hasOption('r')) {
+			reportFile = new File(cmd.getOptionValue('r'));
+		}
+		updateBaseline = cmd.hasOption("update-baseline");
+		try {
+			tolerance = Double.parseDouble(cmd.getOptionValue("tolerance", String.valueOf(DEFAULT_TOLERANCE)));
+			latencyTolerance = Double.parseDouble(cmd.getOptionValue("latency-tolerance", String.valueOf(DEFAULT_LATENCY_TOLERANCE)));
+			warmup = Integer.parseInt(cmd.getOptionValue("warmup", String.valueOf(DEFAULT_WARMUP)));
+			iterations = Integer.parseInt(cmd.getOptionValue("iterations", String.valueOf(DEFAULT_ITERATIONS)));
+		}
+		catch (NumberFormatException e) {
+			SQLRecord.usage(options, RecordBenchmark.class.getSimpleName());
+			System.out.println("[ERROR] " + e.getMessage());
+			return -1;
+		}
+		if ((tolerance < 0) || (latencyTolerance < 0) || (warmup < 0) || (iterations <= 0)) {
+			SQLRecord.usage(options, RecordBenchmark.class.getSimpleName());
+			System.out.println("[ERROR] tolerance, warmup & iterations must be positive numbers.");
+			return -1;
+		}
+		return 0;
+	}
+
+	// MARK: - Entry Point
+	/**
+	 * entry point.
+	 * @param args arguments array.
+	 */
+	public static void main(String[] args) {
+		Options options = new Options();
+		options.addOption("?", "help", false, "show this help");
+		options.addOption("b", "baseline", true, "baseline properties file");
+		options.addOption("r", "report", true, "[results properties file]");
+		options.addOption(null, "tolerance", true, "[allowed regression ratio of rows/sec & bytes/row, " + DEFAULT_TOLERANCE + " as default]");
+		options.addOption(null, "latency-tolerance", true, "[allowed regression ratio of p99 latency, " + DEFAULT_LATENCY_TOLERANCE + " as default]");
+		options.addOption(null, "warmup", true, "[warmup iterations per scenario, " + DEFAULT_WARMUP + " as default]");
+		options.addOption(null, "iterations", true, "[measured iterations per scenario, " + DEFAULT_ITERATIONS + " as default]");
+		options.addOption(null, "update-baseline", false, "[write the results to the baseline file instead of comparing]");
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine cmd = parser.parse(options, args);
+			RecordBenchmark benchmark = new RecordBenchmark(options, cmd);
+			int argCheck = benchmark.checkArguments();
+			if (argCheck != 0) {
+				System.exit(argCheck < 0 ? SQLRecord.ERROR_VALUE : SQLRecord.SUCCESS_VALUE);
+			}
+
+			if (!benchmark.runBenchmarks()) {
+				System.exit(SQLRecord.ERROR_VALUE);
+			}
+		}
+		catch (org.apache.commons.cli.ParseException e) {
+			e.printStackTrace(System.err);
+			SQLRecord.usage(options, RecordBenchmark.class.getSimpleName());
+			System.exit(SQLRecord.ERROR_VALUE);
+		}
+		catch (Exception e1) {
+			e1.printStackTrace(System.err);
+			System.exit(SQLRecord.ERROR_VALUE);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.PreparedStatement;
+
+/**
+ * prepared statement which knows the size of the pending batch, implemented by the bulk insert proxies.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+interface BatchStatement extends PreparedStatement {
+
+	/**
+	 * get bytes of rows added to the batch.
+	 * @return bytes, estimated if the statement is not sent as is.
+	 */
+	long getBatchBytes();
+
+	/**
+	 * set reject file, a statement failed by a row error is bisected & the failing rows are written to the file.
+	 * @param rejectWriter reject writer, null to fail the batch.
+	 */
+	void setRejectWriter(RejectWriter rejectWriter);
+}
@@ -0,0 +1,422 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * crash-safe checkpoint journal.
+ * append-only memory-mapped file of progress records, each record is forced to disk before the call returns.
+ * a position is the last committed key or input offset of a worker, the writers of a process share the journal.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CheckpointJournal implements Closeable {
+
+	// MARK: - Static Properties
+	private static final int MAGIC = 0x4a4d544a;	// "JMTJ"
+	private static final int VERSION = 1;
+	private static final int HEADER_SIZE = 16;
+	private static final int GROW_SIZE = 1024 * 1024;
+	static final byte RECORD_BOUND = 1;
+	static final byte RECORD_PREPARE = 2;
+	static final byte RECORD_COMMIT = 3;
+	private static final byte VALUE_NULL = 0;
+	private static final byte VALUE_LONG = 1;
+	private static final byte VALUE_DOUBLE = 2;
+	private static final byte VALUE_STRING = 3;
+	private static final byte VALUE_TIMESTAMP = 4;
+	private static final byte VALUE_DATE = 5;
+	private static final byte VALUE_TIME = 6;
+	private static final byte VALUE_BYTES = 7;
+	private static final byte VALUE_DECIMAL = 8;
+	private static final byte VALUE_BOOLEAN = 9;
+
+	// MARK: - Properties
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private MappedByteBuffer buffer;
+	private long sequence = 0;
+	private final Map<Integer, Object[]> bounds = new HashMap<>();
+	private final Map<Integer, Object[]> committed = new HashMap<>();
+	private final Map<Integer, Object[]> prepared = new HashMap<>();
+	private final Map<Integer, Long> preparedSequences = new HashMap<>();
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param file journal file.
+	 * @param channel journal file channel.
+	 */
+	private CheckpointJournal(RandomAccessFile file, FileChannel channel) {
+		super();
+		this.file = file;
+		this.channel = channel;
+	}
+
+	/**
+	 * open journal, create it if not exists.
+	 * @param path journal file path.
+	 * @param fingerprint fingerprint of the arguments, a journal written with other arguments is refused.
+	 * @return journal.
+	 * @throws IOException when I/O error or fingerprint mismatch.
+	 */
+	static CheckpointJournal open(File path, long fingerprint) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(path, "rw");
+		CheckpointJournal journal = new CheckpointJournal(file, file.getChannel());
+		try {
+			journal.load(fingerprint);
+		}
+		catch (IOException e) {
+			journal.close();
+			throw e;
+		}
+		return journal;
+	}
+
+	// MARK: - Getters
+	/**
+	 * get upper bound fixed by the first run.
+	 * @param worker worker id.
+	 * @return upper bound, null if none.
+	 */
+	synchronized Object[] getBound(int worker) {
+		return bounds.get(worker);
+	}
+
+	/**
+	 * get last committed position.
+	 * @param worker worker id.
+	 * @return last committed position, null if none.
+	 */
+	synchronized Object[] getCommitted(int worker) {
+		return committed.get(worker);
+	}
+
+	/**
+	 * get in-doubt position, prepared but not recorded as committed.
+	 * @param worker worker id.
+	 * @return in-doubt position, null if none.
+	 */
+	synchronized Object[] getInDoubt(int worker) {
+		return prepared.get(worker);
+	}
+
+	/**
+	 * get sequence of the in-doubt position, to be matched with the checkpoint marker.
+	 * @param worker worker id.
+	 * @return sequence, 0 if none.
+	 */
+	synchronized long getInDoubtSequence(int worker) {
+		Long seq = preparedSequences.get(worker);
+		return seq != null ? seq : 0;
+	}
+
+	/**
+	 * is anything recorded.
+	 * @return true if journal has records.
+	 */
+	synchronized boolean isResuming() {
+		return sequence > 0;
+	}
+
+	// MARK: - Write
+	/**
+	 * record upper bound of the walk.
+	 * @param worker worker id.
+	 * @param bound upper bound.
+	 * @throws IOException when I/O error.
+	 */
+	synchronized void bound(int worker, Object[] bound) throws IOException {
+		append(RECORD_BOUND, worker, bound);
+		bounds.put(worker, bound);
+	}
+
+	/**
+	 * record position about to be committed.
+	 * @param worker worker id.
+	 * @param position position.
+	 * @return sequence of the record.
+	 * @throws IOException when I/O error.
+	 */
+	synchronized long prepare(int worker, Object[] position) throws IOException {
+		long seq = append(RECORD_PREPARE, worker, position);
+		prepared.put(worker, position);
+		preparedSequences.put(worker, seq);
+		return seq;
+	}
+
+	/**
+	 * record committed position.
+	 * @param worker worker id.
+	 * @param position position.
+	 * @throws IOException when I/O error.
+	 */
+	synchronized void commit(int worker, Object[] position) throws IOException {
+		append(RECORD_COMMIT, worker, position);
+		prepared.remove(worker);
+		preparedSequences.remove(worker);
+		committed.put(worker, position);
+	}
+
+	/**
+	 * append a record & force it to disk.
+	 * @param type record type.
+	 * @param worker worker id.
+	 * @param values record values.
+	 * @return sequence of the record.
+	 * @throws IOException when I/O error.
+	 */
+	private synchronized long append(byte type, int worker, Object[] values) throws IOException {
+		byte[] body = encode(type, worker, ++sequence, values);
+		int size = 4 + body.length + 4 + 4;	// length, body, crc & terminator.
+		if (buffer.remaining() < size) {
+			remap(buffer.position() + size);
+		}
+		CRC32 crc = new CRC32();
+		crc.update(body, 0, body.length);
+		int start = buffer.position();
+		buffer.putInt(body.length);
+		buffer.put(body);
+		buffer.putInt((int)crc.getValue());
+		buffer.putInt(start + 4 + body.length + 4, 0);	// keep terminator after the last record.
+		buffer.force();
+		return sequence;
+	}
+
+	// MARK: - Load
+	/**
+	 * load journal.
+	 * @param fingerprint fingerprint of the arguments.
+	 * @throws IOException when I/O error or fingerprint mismatch.
+	 */
+	private void load(long fingerprint) throws IOException {
+		boolean created = channel.size() < HEADER_SIZE;
+		remap(Math.max(channel.size(), GROW_SIZE));
+		if (created) {
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putLong(fingerprint);
+			buffer.putInt(0);
+			buffer.position(HEADER_SIZE);
+			buffer.force();
+			return;
+		}
+
+		if ((buffer.getInt() != MAGIC) || (buffer.getInt() != VERSION)) {
+			throw new IOException("not a checkpoint journal.");
+		}
+		if (buffer.getLong() != fingerprint) {
+			throw new IOException("checkpoint journal was written with other arguments.");
+		}
+		buffer.position(HEADER_SIZE);
+		while (buffer.remaining() >= 4) {
+			int start = buffer.position();
+			int length = buffer.getInt();
+			if ((length <= 0) || (length > buffer.remaining() - 4)) {	// a torn length may be any value.
+				buffer.position(start);
+				break;
+			}
+			byte[] body = new byte[length];
+			buffer.get(body);
+			CRC32 crc = new CRC32();
+			crc.update(body, 0, length);
+			if (buffer.getInt() != (int)crc.getValue()) {
+				buffer.position(start);	// torn write, ignore the tail.
+				break;
+			}
+			decode(body);
+		}
+	}
+
+	/**
+	 * remap journal file.
+	 * @param minSize minimum mapped size.
+	 * @throws IOException when I/O error.
+	 */
+	private void remap(long minSize) throws IOException {
+		int position = buffer != null ? buffer.position() : 0;
+		long size = ((minSize + GROW_SIZE - 1) / GROW_SIZE) * GROW_SIZE;
+		buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+		buffer.position(position);
+		channel.force(true);	// the file has grown, sync its size too.
+	}
+
+	// MARK: - Codec
+	/**
+	 * encode record body.
+	 * @param type record type.
+	 * @param worker worker id.
+	 * @param seq sequence number.
+	 * @param values record values.
+	 * @return record body.
+	 */
+	private static byte[] encode(byte type, int worker, long seq, Object[] values) {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeByte(type);
+			out.writeInt(worker);
+			out.writeLong(seq);
+			out.writeShort(values.length);
+			for (Object value : values) {
+				writeValue(out, value);
+			}
+		}
+		catch (IOException e) {
+			throw new IllegalStateException(e);	// never happens on byte array.
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * decode record body.
+	 * @param body record body.
+	 * @throws IOException when broken record.
+	 */
+	private void decode(byte[] body) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+		byte type = in.readByte();
+		int worker = in.readInt();
+		sequence = in.readLong();
+		Object[] values = new Object[in.readShort()];
+		for (int i = 0; i < values.length; i++) {
+			values[i] = readValue(in);
+		}
+		switch (type) {
+			case RECORD_BOUND:
+				bounds.put(worker, values);
+				break;
+			case RECORD_PREPARE:
+				prepared.put(worker, values);
+				preparedSequences.put(worker, sequence);
+				break;
+			case RECORD_COMMIT:
+				prepared.remove(worker);
+				preparedSequences.remove(worker);
+				committed.put(worker, values);
+				break;
+
+			default:
+				throw new IOException("unknown journal record type " + type);
+		}
+	}
+
+	/**
+	 * write typed value.
+	 * @param out output.
+	 * @param value value.
+	 * @throws IOException when I/O error.
+	 */
+	private static void writeValue(DataOutputStream out, Object value) throws IOException {
+		if (value == null) {
+			out.writeByte(VALUE_NULL);
+		}
+		else if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+			out.writeByte(VALUE_LONG);
+			out.writeLong(((Number)value).longValue());
+		}
+		else if ((value instanceof Double) || (value instanceof Float)) {
+			out.writeByte(VALUE_DOUBLE);
+			out.writeDouble(((Number)value).doubleValue());
+		}
+		else if (value instanceof BigDecimal) {
+			out.writeByte(VALUE_DECIMAL);
+			out.writeUTF(value.toString());
+		}
+		else if (value instanceof Timestamp) {
+			out.writeByte(VALUE_TIMESTAMP);
+			out.writeLong(((Timestamp)value).getTime());
+			out.writeInt(((Timestamp)value).getNanos());
+		}
+		else if (value instanceof Date) {
+			out.writeByte(VALUE_DATE);
+			out.writeLong(((Date)value).getTime());
+		}
+		else if (value instanceof Time) {
+			out.writeByte(VALUE_TIME);
+			out.writeLong(((Time)value).getTime());
+		}
+		else if (value instanceof byte[]) {
+			out.writeByte(VALUE_BYTES);
+			out.writeInt(((byte[])value).length);
+			out.write((byte[])value);
+		}
+		else if (value instanceof Boolean) {
+			out.writeByte(VALUE_BOOLEAN);
+			out.writeBoolean((Boolean)value);
+		}
+		else {
+			byte[] utf8 = value.toString().getBytes(StandardCharsets.UTF_8);
+			out.writeByte(VALUE_STRING);
+			out.writeInt(utf8.length);
+			out.write(utf8);
+		}
+	}
+
+	/**
+	 * read typed value.
+	 * @param in input.
+	 * @return value.
+	 * @throws IOException when I/O error.
+	 */
+	private static Object readValue(DataInputStream in) throws IOException {
+		byte type = in.readByte();
+		switch (type) {
+			case VALUE_NULL:
+				return null;
+			case VALUE_LONG:
+				return in.readLong();
+			case VALUE_DOUBLE:
+				return in.readDouble();
+			case VALUE_DECIMAL:
+				return new BigDecimal(in.readUTF());
+			case VALUE_TIMESTAMP:
+				Timestamp timestamp = new Timestamp(in.readLong());
+				timestamp.setNanos(in.readInt());
+				return timestamp;
+			case VALUE_DATE:
+				return new Date(in.readLong());
+			case VALUE_TIME:
+				return new Time(in.readLong());
+			case VALUE_BYTES:
+			case VALUE_STRING:
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				return type == VALUE_BYTES ? bytes : new String(bytes, StandardCharsets.UTF_8);
+			case VALUE_BOOLEAN:
+				return in.readBoolean();
+
+			default:
+				throw new IOException("unknown journal value type " + type);
+		}
+	}
+
+	// MARK: - Closeable
+	/**
+	 * close journal.
+	 * @throws IOException when I/O error.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (buffer != null) {
+			buffer.force();
+		}
+		file.close();
+	}
+}
@@ -0,0 +1,109 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * checkpoint marker, journal sequence of the last chunk written in the chunk transaction of the target database.
+ * a chunk prepared in the checkpoint journal is committed if the marker has its sequence, resolves the chunk in doubt on resume.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CheckpointMarker {
+
+	// MARK: - Static Properties
+	static final String TABLE_NAME = "jmt_checkpoint";
+	private static final String SQL_CREATE = "CREATE TABLE IF NOT EXISTS " + TABLE_NAME + " (fingerprint BIGINT NOT NULL, worker INT NOT NULL, seq BIGINT NOT NULL, PRIMARY KEY (fingerprint, worker))";
+	private static final String SQL_UPDATE = "UPDATE " + TABLE_NAME + " SET seq = ? WHERE fingerprint = ? AND worker = ?";
+	private static final String SQL_INSERT = "INSERT INTO " + TABLE_NAME + " (seq, fingerprint, worker) VALUES(?, ?, ?)";
+	private static final String SQL_SELECT = "SELECT worker FROM " + TABLE_NAME + " WHERE fingerprint = ? AND seq = ?";
+	private static final String SQL_DELETE = "DELETE FROM " + TABLE_NAME + " WHERE fingerprint = ?";
+
+	// MARK: - Properties
+	private final long fingerprint;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param fingerprint fingerprint of the checkpoint journal.
+	 */
+	CheckpointMarker(long fingerprint) {
+		super();
+		this.fingerprint = fingerprint;
+	}
+
+	// MARK: - Marker
+	/**
+	 * create marker table if not exists, commit before the chunks since DDL commits implicitly on MySQL.
+	 * @param con connection.
+	 * @throws SQLException when SQL error.
+	 */
+	void create(Connection con) throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute(SQL_CREATE);
+		}
+	}
+
+	/**
+	 * write sequence of the chunk, in the transaction of the chunk.
+	 * @param con connection.
+	 * @param worker writer id.
+	 * @param seq journal sequence of the prepared chunk.
+	 * @throws SQLException when SQL error.
+	 */
+	void mark(Connection con, int worker, long seq) throws SQLException {
+		if (execute(con, SQL_UPDATE, worker, seq) == 0) {
+			execute(con, SQL_INSERT, worker, seq);
+		}
+	}
+
+	/**
+	 * is the chunk of the sequence committed, the marker of the writer has the sequence until the next chunk is committed.
+	 * @param con connection.
+	 * @param seq journal sequence of the prepared chunk.
+	 * @return true if committed.
+	 * @throws SQLException when SQL error.
+	 */
+	boolean isMarked(Connection con, long seq) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(SQL_SELECT)) {
+			ps.setLong(1, fingerprint);
+			ps.setLong(2, seq);
+			try (ResultSet rs = ps.executeQuery()) {
+				return rs.next();
+			}
+		}
+	}
+
+	/**
+	 * remove markers of the workers when the process completed.
+	 * @param con connection.
+	 * @throws SQLException when SQL error.
+	 */
+	void remove(Connection con) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(SQL_DELETE)) {
+			ps.setLong(1, fingerprint);
+			ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * execute update of the marker row.
+	 * @param con connection.
+	 * @param sql UPDATE or INSERT, sequence, fingerprint & worker parameters.
+	 * @param worker worker id.
+	 * @param seq journal sequence.
+	 * @return number of rows.
+	 * @throws SQLException when SQL error.
+	 */
+	private int execute(Connection con, String sql, int worker, long seq) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(sql)) {
+			ps.setLong(1, seq);
+			ps.setLong(2, fingerprint);
+			ps.setInt(3, worker);
+			return ps.executeUpdate();
+		}
+	}
+}
@@ -0,0 +1,238 @@
+package jp.co.comona.javamisc.sql;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * random value generator of a column, driven by the column metadata.
+ * a value is drawn from a domain of the cardinality by the distribution, then mapped to the column type.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class ColumnGenerator {
+
+	// MARK: - Static Properties
+	static final int DISTRIBUTION_UNIFORM = 0;
+	static final int DISTRIBUTION_NORMAL = 1;
+	static final int DISTRIBUTION_ZIPF = 2;
+	private static final String ALPHANUMERIC = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789";
+	private static final long BASE_EPOCH_DAY = LocalDate.of(2016, 1, 1).toEpochDay();
+	private static final long DATE_DAYS = 3650;
+	private static final long SECONDS_PER_DAY = 86400;
+
+	// MARK: - Properties
+	private final int columnType;
+	private final boolean nullable;
+	private final double nullRatio;
+	private final long cardinality;
+	private final long domain;
+	private final int distribution;
+	private final int scale;
+	private final int minLength;
+	private final int maxLength;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param meta table metadata.
+	 * @param columnIndex column index.
+	 * @param cardinality number of distinct values, 0 if unbounded.
+	 * @param distribution distribution of values.
+	 * @param nullRatio ratio of nulls for nullable column.
+	 * @param minLength minimum string length.
+	 * @param maxLength maximum string length.
+	 * @throws SQLException when SQL error.
+	 */
+	ColumnGenerator(ResultSetMetaData meta, int columnIndex, long cardinality, int distribution, double nullRatio, int minLength, int maxLength) throws SQLException {
+		super();
+		this.columnType = meta.getColumnType(columnIndex);
+		this.nullable = meta.isNullable(columnIndex) == ResultSetMetaData.columnNullable;
+		this.nullRatio = nullRatio;
+		this.cardinality = cardinality;
+		this.distribution = distribution;
+		this.scale = Math.max(meta.getScale(columnIndex), 0);
+		int precision = meta.getPrecision(columnIndex);
+		int limit = precision > 0 ? precision : Integer.MAX_VALUE;
+		this.maxLength = Math.max(Math.min(maxLength, limit), 1);
+		this.minLength = Math.min(minLength, this.maxLength);
+		long typeDomain = typeDomain(columnType, precision);
+		this.domain = cardinality > 0 ? Math.min(cardinality, typeDomain) : typeDomain;
+	}
+
+	/**
+	 * parse distribution name.
+	 * @param name distribution name.
+	 * @return distribution, negative if unknown.
+	 */
+	static int parseDistribution(String name) {
+		switch (name.toLowerCase()) {
+			case "uniform":
+				return DISTRIBUTION_UNIFORM;
+			case "normal":
+				return DISTRIBUTION_NORMAL;
+			case "zipf":
+				return DISTRIBUTION_ZIPF;
+
+			default:
+				return -1;
+		}
+	}
+
+	/**
+	 * get number of distinct values the column type can hold.
+	 * @param columnType column type.
+	 * @param precision column precision.
+	 * @return domain size.
+	 */
+	private static long typeDomain(int columnType, int precision) {
+		switch (columnType) {
+			case Types.BIT:
+			case Types.BOOLEAN:
+				return 2;
+			case Types.TINYINT:
+				return Byte.MAX_VALUE + 1L;
+			case Types.SMALLINT:
+				return Short.MAX_VALUE + 1L;
+			case Types.INTEGER:
+				return Integer.MAX_VALUE + 1L;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return ((precision > 0) && (precision < 18)) ? (long)Math.pow(10, precision) : 1000000000000000000L;
+			case Types.DATE:
+				return DATE_DAYS;
+			case Types.TIME:
+				return SECONDS_PER_DAY;
+			case Types.TIMESTAMP:
+				return DATE_DAYS * SECONDS_PER_DAY;
+
+			default:
+				return Long.MAX_VALUE;
+		}
+	}
+
+	// MARK: - Generate
+	/**
+	 * bind random value to prepared statement.
+	 * @param ps prepared statement.
+	 * @param index prepared statement index.
+	 * @throws SQLException when SQL error.
+	 */
+	void bind(PreparedStatement ps, int index) throws SQLException {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (nullable && (nullRatio > 0) && (random.nextDouble() < nullRatio)) {
+			ps.setNull(index, columnType);
+			return;
+		}
+		switch (columnType) {
+			case Types.BIT:
+			case Types.BOOLEAN:
+				ps.setBoolean(index, draw(random) == 1);
+				break;
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+				ps.setLong(index, draw(random));
+				break;
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				ps.setBigDecimal(index, BigDecimal.valueOf(draw(random), scale));
+				break;
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				ps.setDouble(index, cardinality > 0 ? draw(random) / 100.0 : random.nextDouble() * 1000000);
+				break;
+			case Types.DATE:
+				ps.setDate(index, Date.valueOf(LocalDate.ofEpochDay(BASE_EPOCH_DAY + draw(random))));
+				break;
+			case Types.TIME:
+				ps.setTime(index, Time.valueOf(LocalTime.ofSecondOfDay(draw(random))));
+				break;
+			case Types.TIMESTAMP:
+				ps.setTimestamp(index, Timestamp.valueOf(LocalDateTime.ofEpochSecond(BASE_EPOCH_DAY * SECONDS_PER_DAY + draw(random), 0, ZoneOffset.UTC)));
+				break;
+			case Types.BINARY:
+			case Types.VARBINARY:
+			case Types.LONGVARBINARY:
+			case Types.BLOB:
+				byte[] bytes = new byte[length(random)];
+				if (cardinality > 0) {
+					new Random(draw(random)).nextBytes(bytes);
+				}
+				else {
+					random.nextBytes(bytes);
+				}
+				ps.setBytes(index, bytes);
+				break;
+
+			default:
+				ps.setString(index, randomString(random));
+				break;
+		}
+	}
+
+	/**
+	 * draw a value from the domain by the distribution.
+	 * @param random random.
+	 * @return value between 0 & domain - 1.
+	 */
+	private long draw(ThreadLocalRandom random) {
+		long value;
+		switch (distribution) {
+			case DISTRIBUTION_NORMAL:
+				value = (long)(domain / 2.0 + random.nextGaussian() * domain / 6.0);
+				break;
+			case DISTRIBUTION_ZIPF:
+				value = (long)Math.pow(domain + 1.0, random.nextDouble()) - 1;	// log-uniform, zipf like with s = 1.
+				break;
+
+			default:
+				return random.nextLong(domain);
+		}
+		return Math.max(0, Math.min(domain - 1, value));
+	}
+
+	/**
+	 * get random length.
+	 * @param random random.
+	 * @return length between minimum & maximum length.
+	 */
+	private int length(ThreadLocalRandom random) {
+		return minLength + random.nextInt(maxLength - minLength + 1);
+	}
+
+	/**
+	 * create random string, the same string for the same drawn value when cardinality is bounded.
+	 * @param random random.
+	 * @return random string.
+	 */
+	private String randomString(ThreadLocalRandom random) {
+		if (cardinality > 0) {
+			SplittableRandom seeded = new SplittableRandom(draw(random));
+			char[] chars = new char[minLength + seeded.nextInt(maxLength - minLength + 1)];
+			for (int i = 0; i < chars.length; i++) {
+				chars[i] = ALPHANUMERIC.charAt(seeded.nextInt(ALPHANUMERIC.length()));
+			}
+			return new String(chars);
+		}
+		char[] chars = new char[length(random)];
+		for (int i = 0; i < chars.length; i++) {
+			chars[i] = ALPHANUMERIC.charAt(random.nextInt(ALPHANUMERIC.length()));
+		}
+		return new String(chars);
+	}
+}
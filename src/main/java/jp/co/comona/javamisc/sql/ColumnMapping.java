@@ -0,0 +1,363 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * column mapping from source rows to the insert of a target table, compiled once from both metadata.
+ * target columns are matched by name ignore case, each target column is one of
+ * replace value (template when cloning), DEFAULT (left out of the column list), NOW(), NULL, or the source column of the same name.
+ * target columns without source column are left to the default value.
+ * values are converted between string and typed columns when only one of the columns is a string.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class ColumnMapping {
+
+	// MARK: - Static Properties
+	private static final int SOURCE = 0;
+	private static final int REPLACE = 1;
+	private static final int TEMPLATE = 2;
+
+	// MARK: - Properties
+	private final List<String> targetColumns = new ArrayList<>();	// column list of the insert.
+	private final List<String> targetValues = new ArrayList<>();	// value of each column, ? if bound.
+	private final List<String> boundColumns = new ArrayList<>();
+	private final List<String> unmappedColumns = new ArrayList<>();
+	private final int[] operations;
+	private final int[] sourceIndexes;
+	private final int[] targetTypes;
+	private final boolean[] converts;
+	private final String[] names;
+	private final String[] replaceValues;
+	private final ValueTemplate[] templates;
+	private boolean literal = false;
+
+	// MARK: - Constructor
+	/**
+	 * constructor, compiles the mapping.
+	 * @param dialect SQL dialect for NOW().
+	 * @param source metadata of source rows.
+	 * @param target metadata of the target table.
+	 * @param sameTable true if the target is the source table, auto increment columns use the default value.
+	 * @param columns columns to replace value, null if none.
+	 * @param replaces replace values, null if none.
+	 * @param valueTemplates replace value templates when cloning, null if not cloning.
+	 * @param defaults columns to use default value, null if none.
+	 * @param nowColumns columns to use NOW(), null if none.
+	 * @param nulls columns to use null, null if none.
+	 * @throws SQLException when SQL error or nothing to insert.
+	 */
+	ColumnMapping(SQLDialect dialect, ResultSetMetaData source, ResultSetMetaData target, boolean sameTable, String[] columns, String[] replaces,
+			ValueTemplate[] valueTemplates, String[] defaults, String[] nowColumns, String[] nulls) throws SQLException {
+		super();
+		int count = target.getColumnCount();
+		int[] ops = new int[count];
+		int[] indexes = new int[count];
+		int[] types = new int[count];
+		boolean[] conversions = new boolean[count];
+		String[] columnNames = new String[count];
+		String[] values = new String[count];
+		ValueTemplate[] columnTemplates = new ValueTemplate[count];
+		int bound = 0;
+		for (int i = 1; i <= count; i++) {
+			String colName = target.getColumnName(i);
+			int sourceIndex = indexOf(source, colName);
+			int replace = indexOf(columns, colName);
+			String value = "" + SQLRecord.SQL_PREPARED_MARK;
+			if (replace >= 0) {
+				if (valueTemplates != null) {
+					ops[bound] = TEMPLATE;
+					columnTemplates[bound] = valueTemplates[replace];
+					if (valueTemplates[replace].needsSourceValue() && (sourceIndex == 0)) {
+						throw new SQLException("replace value template of " + colName + " needs the source column of the same name.");
+					}
+				}
+				else {
+					ops[bound] = REPLACE;
+					values[bound] = replaces[replace];
+				}
+			}
+			else if ((sameTable && target.isAutoIncrement(i)) || (indexOf(defaults, colName) >= 0)) {
+				continue;	// default value.
+			}
+			else if (indexOf(nowColumns, colName) >= 0) {
+				value = dialect.now();
+			}
+			else if (indexOf(nulls, colName) >= 0) {
+				value = SQLRecord.SQL_NULL;
+			}
+			else if (sourceIndex > 0) {
+				ops[bound] = SOURCE;
+				int sourceKind = RowBuffer.kindOf(source.getColumnType(sourceIndex));
+				int targetKind = RowBuffer.kindOf(target.getColumnType(i));
+				conversions[bound] = (sourceKind != RowBuffer.KIND_LOB) && (targetKind != RowBuffer.KIND_LOB) &&
+						((sourceKind == RowBuffer.KIND_STRING) != (targetKind == RowBuffer.KIND_STRING));
+			}
+			else {
+				continue;	// not in source, default value.
+			}
+			targetColumns.add(colName);
+			targetValues.add(value);
+			if (value.charAt(0) == SQLRecord.SQL_PREPARED_MARK) {
+				indexes[bound] = sourceIndex;
+				types[bound] = target.getColumnType(i);
+				columnNames[bound] = colName;
+				boundColumns.add(colName);
+				bound++;
+			}
+			else {
+				literal = true;
+			}
+		}
+		if (targetColumns.isEmpty()) {
+			throw new SQLException("no column to insert.");
+		}
+		for (int i = 1; i <= source.getColumnCount(); i++) {
+			if (indexOf(target, source.getColumnName(i)) == 0) {
+				unmappedColumns.add(source.getColumnName(i));
+			}
+		}
+		this.operations = Arrays.copyOf(ops, bound);
+		this.sourceIndexes = Arrays.copyOf(indexes, bound);
+		this.targetTypes = Arrays.copyOf(types, bound);
+		this.converts = Arrays.copyOf(conversions, bound);
+		this.names = Arrays.copyOf(columnNames, bound);
+		this.replaceValues = Arrays.copyOf(values, bound);
+		this.templates = Arrays.copyOf(columnTemplates, bound);
+	}
+
+	/**
+	 * find column by name ignore case.
+	 * @param meta metadata.
+	 * @param name column name.
+	 * @return column index, 0 if not found.
+	 * @throws SQLException when SQL error.
+	 */
+	private static int indexOf(ResultSetMetaData meta, String name) throws SQLException {
+		for (int i = 1; i <= meta.getColumnCount(); i++) {
+			if (meta.getColumnName(i).compareToIgnoreCase(name) == 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * find name ignore case.
+	 * @param names names, may be null.
+	 * @param name name to find.
+	 * @return index, -1 if not found.
+	 */
+	private static int indexOf(String[] names, String name) {
+		if (names != null) {
+			for (int i = 0; i < names.length; i++) {
+				if (names[i].compareToIgnoreCase(name) == 0) {
+					return i;
+				}
+			}
+		}
+		return -1;
+	}
+
+	// MARK: - Getters
+	/**
+	 * get columns in the insert.
+	 * @return column names.
+	 */
+	List<String> getTargetColumns() {
+		return targetColumns;
+	}
+
+	/**
+	 * get columns bound per row in parameter order.
+	 * @return column names.
+	 */
+	List<String> getBoundColumns() {
+		return boundColumns;
+	}
+
+	/**
+	 * get source columns not in the target table.
+	 * @return column names.
+	 */
+	List<String> getUnmappedColumns() {
+		return unmappedColumns;
+	}
+
+	/**
+	 * get source column copied as is into the target column.
+	 * @param targetColumn target column name.
+	 * @return source column index, 0 if the target column is not copied from the source without conversion.
+	 */
+	int getSourceIndex(String targetColumn) {
+		for (int i = 0; i < operations.length; i++) {
+			if ((operations[i] == SOURCE) && !converts[i] && names[i].equalsIgnoreCase(targetColumn)) {
+				return sourceIndexes[i];
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * has NOW() or NULL values in the insert.
+	 * @return true if any.
+	 */
+	boolean hasLiteral() {
+		return literal;
+	}
+
+	/**
+	 * is every bound value a source column or a replace value, no template.
+	 * @return true if the rows can be copied by INSERT ... SELECT.
+	 */
+	boolean isServerSide() {
+		for (int operation : operations) {
+			if (operation == TEMPLATE) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// MARK: - SQL
+	/**
+	 * create insert SQL, INSERT INTO target (columns) VALUES(..).
+	 * @param dialect SQL dialect to quote the columns.
+	 * @param quotedTarget quoted target table name.
+	 * @return insert SQL.
+	 */
+	String createInsertSql(SQLDialect dialect, String quotedTarget) {
+		StringBuilder sql = new StringBuilder(SQLRecord.SQL_INSERT_INTO);
+		appendColumnList(sql, dialect, quotedTarget);
+		sql.append(SQLRecord.SQL_VALUES_START);
+		for (int i = 0; i < targetValues.size(); i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			sql.append(targetValues.get(i));
+		}
+		sql.append(SQLRecord.SQL_VALUES_END);
+		return sql.toString();
+	}
+
+	/**
+	 * create server side copy SQL, INSERT INTO target (columns) SELECT .. FROM source, converted by the cast of the dialect.
+	 * replace values are bound first by bindReplaceValues().
+	 * @param dialect SQL dialect.
+	 * @param quotedTarget quoted target table name.
+	 * @param target metadata of the target table.
+	 * @param quotedSource quoted source table name.
+	 * @param source metadata of the source table.
+	 * @return insert SQL without where clause.
+	 * @throws SQLException when SQL error.
+	 */
+	String createInsertSelectSql(SQLDialect dialect, String quotedTarget, ResultSetMetaData target, String quotedSource, ResultSetMetaData source) throws SQLException {
+		StringBuilder sql = new StringBuilder(SQLRecord.SQL_INSERT_INTO);
+		appendColumnList(sql, dialect, quotedTarget);
+		sql.append(" SELECT ");
+		int bound = 0;
+		for (int i = 0; i < targetValues.size(); i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			String value = targetValues.get(i);
+			if (value.charAt(0) != SQLRecord.SQL_PREPARED_MARK) {
+				sql.append(value);
+				continue;
+			}
+			if (operations[bound] == SOURCE) {
+				String column = dialect.quote(source.getColumnName(sourceIndexes[bound]));
+				sql.append(converts[bound] ? dialect.cast(column, target.getColumnTypeName(indexOf(target, names[bound]))) : column);
+			}
+			else {
+				sql.append(value);
+			}
+			bound++;
+		}
+		sql.append(" FROM ").append(quotedSource);
+		return sql.toString();
+	}
+
+	/**
+	 * append target table & column list.
+	 * @param sql SQL.
+	 * @param dialect SQL dialect to quote the columns.
+	 * @param quotedTarget quoted target table name.
+	 */
+	private void appendColumnList(StringBuilder sql, SQLDialect dialect, String quotedTarget) {
+		sql.append(quotedTarget).append(" (");
+		for (int i = 0; i < targetColumns.size(); i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			sql.append(dialect.quote(targetColumns.get(i)));
+		}
+		sql.append(')');
+	}
+
+	// MARK: - Bind
+	/**
+	 * bind values of a staged row to the insert.
+	 * @param ps insert prepared statement.
+	 * @param buffer row buffer of source rows.
+	 * @param row row index of buffer.
+	 * @param copy copy number, from 1.
+	 * @throws Exception when error.
+	 */
+	void bind(PreparedStatement ps, RowBuffer buffer, int row, long copy) throws Exception {
+		for (int i = 0; i < operations.length; i++) {
+			int index = i + 1;
+			switch (operations[i]) {
+				case SOURCE:
+					if (!converts[i]) {
+						buffer.bind(ps, index, row, sourceIndexes[i]);
+					}
+					else if (buffer.isNull(row, sourceIndexes[i])) {
+						ps.setNull(index, targetTypes[i]);
+					}
+					else if (RowBuffer.kindOf(targetTypes[i]) == RowBuffer.KIND_STRING) {
+						ps.setString(index, buffer.getString(row, sourceIndexes[i]));
+					}
+					else {
+						SQLRecord.setColumnValue(ps, index, names[i], targetTypes[i], buffer.getString(row, sourceIndexes[i]).trim());
+					}
+					break;
+				case REPLACE:
+					SQLRecord.setColumnValue(ps, index, names[i], targetTypes[i], replaceValues[i]);
+					break;
+
+				default:
+					long sourceValue = templates[i].needsSourceValue() ? buffer.getLong(row, sourceIndexes[i]) : 0;
+					Object value = templates[i].evaluate(sourceValue, copy);
+					if ((value instanceof Long) && SQLRecord.isIntegralType(targetTypes[i])) {
+						ps.setLong(index, (Long)value);
+					}
+					else {
+						SQLRecord.setColumnValue(ps, index, names[i], targetTypes[i], value.toString());
+					}
+					break;
+			}
+		}
+	}
+
+	/**
+	 * bind replace values to the server side copy SQL.
+	 * @param ps prepared statement of createInsertSelectSql().
+	 * @return next parameter index.
+	 * @throws Exception when error.
+	 */
+	int bindReplaceValues(PreparedStatement ps) throws Exception {
+		int index = 1;
+		for (int i = 0; i < operations.length; i++) {
+			if (operations[i] == REPLACE) {
+				SQLRecord.setColumnValue(ps, index++, names[i], targetTypes[i], replaceValues[i]);
+			}
+		}
+		return index;
+	}
+}
@@ -0,0 +1,395 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+
+/**
+ * PostgreSQL COPY FROM STDIN behind the PreparedStatement interface.
+ * parameters set & added to the batch are encoded as COPY text rows, executeBatch() streams them by the copy API of the driver.
+ * the copy API is called by reflection, the PostgreSQL driver is not a compile dependency.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CopyInStatement implements InvocationHandler, RejectWriter.BatchRows {
+
+	// MARK: - Static Properties
+	private static final String PG_CONNECTION_CLASS = "org.postgresql.PGConnection";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	// MARK: - Inner Class
+	/**
+	 * byte array output stream readable without copy.
+	 */
+	private static class RowStream extends ByteArrayOutputStream {
+		/**
+		 * constructor.
+		 */
+		RowStream() {
+			super(64 * 1024);
+		}
+
+		/**
+		 * get input stream of written bytes.
+		 * @param start start offset.
+		 * @param end end offset, exclusive.
+		 * @return input stream.
+		 */
+		InputStream toInputStream(int start, int end) {
+			return new ByteArrayInputStream(buf, start, end - start);
+		}
+
+		/**
+		 * decode written bytes.
+		 * @param start start offset.
+		 * @param end end offset, exclusive.
+		 * @return string.
+		 */
+		String toString(int start, int end) {
+			return new String(buf, start, end - start, StandardCharsets.UTF_8);
+		}
+	}
+
+	// MARK: - Properties
+	private final Connection con;
+	private final String copySql;
+	private final Object copyManager;
+	private final Method copyIn;
+	private final String[] values;
+	private final RowStream rows = new RowStream();
+	private final StringBuilder line = new StringBuilder();
+	private int[] rowEnds = new int[1024];
+	private int rowCount = 0;
+	private RejectWriter rejectWriter = null;
+	private boolean closed = false;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param con connection.
+	 * @param copySql COPY ... FROM STDIN SQL.
+	 * @param parameterCount number of parameters, columns of a row.
+	 * @throws SQLException when the copy API is not available.
+	 */
+	private CopyInStatement(Connection con, String copySql, int parameterCount) throws SQLException {
+		super();
+		this.con = con;
+		this.copySql = copySql;
+		this.values = new String[parameterCount];
+		try {
+			Class<?> pgConnection = Class.forName(PG_CONNECTION_CLASS, true, con.getClass().getClassLoader());
+			copyManager = pgConnection.getMethod("getCopyAPI").invoke(con.unwrap(pgConnection));
+			copyIn = copyManager.getClass().getMethod("copyIn", String.class, InputStream.class);
+		}
+		catch (ReflectiveOperationException e) {
+			throw new SQLFeatureNotSupportedException("copy API of PostgreSQL driver is not available.", e);
+		}
+	}
+
+	/**
+	 * create COPY statement.
+	 * @param con connection.
+	 * @param copySql COPY ... FROM STDIN SQL.
+	 * @param parameterCount number of parameters, columns of a row.
+	 * @return prepared statement.
+	 * @throws SQLException when the copy API is not available.
+	 */
+	static PreparedStatement create(Connection con, String copySql, int parameterCount) throws SQLException {
+		CopyInStatement handler = new CopyInStatement(con, copySql, parameterCount);
+		return (PreparedStatement)Proxy.newProxyInstance(BatchStatement.class.getClassLoader(), new Class<?>[] { BatchStatement.class }, handler);
+	}
+
+	/**
+	 * is copy API available on the connection.
+	 * @param con connection.
+	 * @return true if available.
+	 */
+	static boolean isSupported(Connection con) {
+		try {
+			return con.isWrapperFor(Class.forName(PG_CONNECTION_CLASS, true, con.getClass().getClassLoader()));
+		}
+		catch (ClassNotFoundException | SQLException e) {
+			return false;
+		}
+	}
+
+	// MARK: - Invocation
+	/**
+	 * handle PreparedStatement method.
+	 */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		switch (name) {
+			case "addBatch":
+				addRow();
+				return null;
+			case "executeBatch":
+				int[] counts = new int[rowCount];
+				Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+				flush();
+				return counts;
+			case "execute":
+				addRow();
+				flush();
+				return false;
+			case "executeUpdate":
+				addRow();
+				return (int)flush();
+			case "executeLargeUpdate":
+				addRow();
+				return flush();
+			case "clearParameters":
+				Arrays.fill(values, null);
+				return null;
+			case "getBatchBytes":
+				return (long)rows.size();
+			case "setRejectWriter":
+				rejectWriter = (RejectWriter)args[0];
+				return null;
+			case "clearBatch":
+				rows.reset();
+				rowCount = 0;
+				return null;
+			case "close":
+				closed = true;
+				return null;
+			case "isClosed":
+				return closed;
+			case "getConnection":
+				return con;
+			case "getUpdateCount":
+				return -1;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return copySql;
+
+			default:
+				if (name.startsWith("set") && (args != null) && (args.length >= 2) && (args[0] instanceof Integer)) {
+					values[(Integer)args[0] - 1] = "setNull".equals(name) ? null : encode(args[1]);
+					return null;
+				}
+				throw new SQLFeatureNotSupportedException(name + " is not supported by COPY statement.");
+		}
+	}
+
+	// MARK: - Copy
+	/**
+	 * encode current parameters as a row.
+	 */
+	private void addRow() {
+		line.setLength(0);
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				line.append('\t');
+			}
+			line.append(values[i] != null ? values[i] : "\\N");
+		}
+		line.append('\n');
+		byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+		rows.write(bytes, 0, bytes.length);
+		if (rowCount == rowEnds.length) {
+			rowEnds = Arrays.copyOf(rowEnds, rowCount * 2);
+		}
+		rowEnds[rowCount++] = rows.size();
+	}
+
+	/**
+	 * stream encoded rows by COPY FROM STDIN.
+	 * with reject file, a copy failed by a row error is bisected.
+	 * @return number of rows copied.
+	 * @throws SQLException when SQL error.
+	 */
+	private long flush() throws SQLException {
+		if (rowCount == 0) {
+			return 0;
+		}
+		try {
+			if (rejectWriter != null) {
+				return rejectWriter.execute(con, this, 0, rowCount);
+			}
+			return copy(0, rows.size());
+		}
+		finally {
+			rows.reset();
+			rowCount = 0;
+		}
+	}
+
+	/**
+	 * stream encoded rows by COPY FROM STDIN.
+	 * @param first first row.
+	 * @param size number of rows.
+	 * @return number of rows copied.
+	 * @throws SQLException when SQL error.
+	 */
+	@Override
+	public int executeRows(int first, int size) throws SQLException {
+		return (int)copy(first > 0 ? rowEnds[first - 1] : 0, rowEnds[first + size - 1]);
+	}
+
+	/**
+	 * stream encoded bytes by COPY FROM STDIN.
+	 * @param start start offset.
+	 * @param end end offset, exclusive.
+	 * @return number of rows copied.
+	 * @throws SQLException when SQL error.
+	 */
+	private long copy(int start, int end) throws SQLException {
+		try {
+			return (Long)copyIn.invoke(copyManager, copySql, rows.toInputStream(start, end));
+		}
+		catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException)e.getCause();
+			}
+			throw new SQLException("COPY failed.", e.getCause());
+		}
+		catch (IllegalAccessException e) {
+			throw new SQLException("COPY failed.", e);
+		}
+	}
+
+	/**
+	 * get values of a row decoded from COPY text format, bytea values are left in hex format.
+	 * @param row row.
+	 * @return values, null for null.
+	 */
+	@Override
+	public Object[] getValues(int row) {
+		String[] fields = rows.toString(row > 0 ? rowEnds[row - 1] : 0, rowEnds[row] - 1).split("\t", -1);	// tabs of values are escaped.
+		Object[] decoded = new Object[fields.length];
+		for (int i = 0; i < fields.length; i++) {
+			decoded[i] = "\\N".equals(fields[i]) ? null : unescape(fields[i]);
+		}
+		return decoded;
+	}
+
+	/**
+	 * encode value in COPY text format.
+	 * @param value value.
+	 * @return encoded value, null for null.
+	 * @throws SQLException when LOB read error.
+	 */
+	private static String encode(Object value) throws SQLException {
+		if (value == null) {
+			return null;
+		}
+		if (value instanceof Blob) {
+			Blob blob = (Blob)value;
+			value = blob.getBytes(1, (int)blob.length());
+		}
+		else if (value instanceof Clob) {
+			Clob clob = (Clob)value;
+			value = clob.getSubString(1, (int)clob.length());
+		}
+		if (value instanceof byte[]) {
+			byte[] bytes = (byte[])value;
+			StringBuilder sb = new StringBuilder(bytes.length * 2 + 3);
+			sb.append("\\\\x");	// bytea hex format, the backslash is escaped in text format.
+			for (byte b : bytes) {
+				sb.append(HEX[(b >>> 4) & 0x0f]).append(HEX[b & 0x0f]);
+			}
+			return sb.toString();
+		}
+		if (value instanceof Boolean) {
+			return (Boolean)value ? "t" : "f";
+		}
+		if (value instanceof BigDecimal) {
+			return ((BigDecimal)value).toPlainString();
+		}
+		if (value instanceof Number) {
+			return value.toString();
+		}
+		return escape(value.toString());
+	}
+
+	/**
+	 * unescape backslash, tab & line breaks of text value.
+	 * @param value escaped value.
+	 * @return value.
+	 */
+	private static String unescape(String value) {
+		if (value.indexOf('\\') < 0) {
+			return value;
+		}
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if ((c == '\\') && (i + 1 < value.length())) {
+				c = value.charAt(++i);
+				if (c == 't') {
+					c = '\t';
+				}
+				else if (c == 'n') {
+					c = '\n';
+				}
+				else if (c == 'r') {
+					c = '\r';
+				}
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * escape backslash, tab & line breaks of text value.
+	 * @param value text value.
+	 * @return escaped value.
+	 */
+	private static String escape(String value) {
+		StringBuilder sb = null;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			String escaped = null;
+			switch (c) {
+				case '\\':
+					escaped = "\\\\";
+					break;
+				case '\t':
+					escaped = "\\t";
+					break;
+				case '\n':
+					escaped = "\\n";
+					break;
+				case '\r':
+					escaped = "\\r";
+					break;
+
+				default:
+					break;
+			}
+			if ((escaped != null) && (sb == null)) {
+				sb = new StringBuilder(value.length() + 8);
+				sb.append(value, 0, i);
+			}
+			if (sb != null) {
+				if (escaped != null) {
+					sb.append(escaped);
+				}
+				else {
+					sb.append(c);
+				}
+			}
+		}
+		return sb != null ? sb.toString() : value;
+	}
+}
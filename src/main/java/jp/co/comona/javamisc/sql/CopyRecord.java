@@ -1,17 +1,27 @@
 package jp.co.comona.javamisc.sql;
 
-import jp.co.comona.javamisc.Util;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Options;
 
+import java.io.File;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Types;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * copy SQL record tool.
@@ -23,11 +33,36 @@ public class CopyRecord extends SQLRecord {
 	// MARK: - Static Properties
 	private static final char REPLACE_SHORT_OPTION = 'r';
 	private static final String REPLACE_SHORT_OPTION_STR = "" + REPLACE_SHORT_OPTION;
+	private static final int DEFAULT_CLONE_BATCH_SIZE = 1000;
+	private static final int DEFAULT_EXPORT_BLOCK_SIZE = 1000;
+	private static final int KEY_SCAN_SIZE = 10000;
+	private static final int EXPORT_RANGE_SIZE = 100000;
 
 	// MARK: - Properties
 	private String[] keys = null;
 	private String[] values = null;
 	private String[] defaults = null;
+	private int chunkSize = 0;
+	private int copies = 0;
+	private int batchSize = 0;
+	private File exportFile = null;
+	private boolean columnar = false;
+	private int readers = 0;
+	private String targetTableName = null;
+	private String quotedTargetName = null;
+	private ResultSetMetaData targetMeta = null;
+	private ValueTemplate[] templates = null;
+	private ColumnMapping mapping = null;
+	private int pendingCount = 0;
+	private boolean skipExisting = false;
+	private String[] uniqueColumns = null;
+	private File divertFile = null;
+	private int keySetLimit = 0;
+	private KeySet keySet = null;
+	private int[] sourceKeyIndexes = null;
+	private int[] divertedRows = null;
+	private SnapshotWriter divertWriter = null;
+	private long skipCount = 0;
 
 	// MARK: - Constructor
 	/**
@@ -39,151 +74,680 @@ public class CopyRecord extends SQLRecord {
 		super(options, cmd);
 	}
 
+	/**
+	 * constructor for programmatic use.
+	 * @param request copy record request.
+	 */
+	CopyRecord(CopyRecordRequest request) {
+		super(request.getDataSource(), request.getTableName());
+		apply(request);
+	}
+
+	/**
+	 * apply request checked by the builder, of the programmatic use or the command line.
+	 * @param request copy record request.
+	 */
+	private void apply(CopyRecordRequest request) {
+		applyListener(request);
+		keys = request.getKeys();
+		values = request.getValues();
+		columns = request.getColumns();
+		replaces = request.getReplaces();
+		defaults = request.getDefaults();
+		nowColumns = request.getNowColumns();
+		nulls = request.getNulls();
+		chunkSize = request.getChunkSize();
+		journalFile = request.getJournalFile();
+		copies = request.getCopies();
+		batchSize = request.getBatchSize();
+		upsert = request.isUpsert();
+		updateColumns = request.getUpdateColumns();
+		exportFile = request.getExportFile();
+		columnar = request.isColumnar();
+		readers = request.getReaders();
+		targetTableName = request.getTargetTableName();
+		skipExisting = request.isSkipExisting();
+		uniqueColumns = request.getUniqueColumns();
+		divertFile = request.getDivertFile();
+		keySetLimit = request.getKeySetLimit();
+		fastLoad = request.isFastLoad();
+		rejectFile = request.getRejectFile();
+		shardDataSources = request.getShards();
+		shards = request.getShardSpecs();
+		shardKeys = request.getShardKeys();
+	}
+
 	// MARK: - Process
+	/**
+	 * get number of walker & reader connections of parallel export, taken with the connection from a pool.
+	 * all of them are held before the snapshot is taken, never waiting for a connection under the table read lock.
+	 */
+	@Override
+	protected int getParallelConnectionCount() {
+		return (exportFile != null) && (readers > 1) ? readers + 1 : 0;
+	}
+
 	/**
 	 * do process.
 	 */
 	@Override
 	protected void doProcess() throws Exception {
-		StringBuilder sql = new StringBuilder(SQL_SELECT_FROM);
-		sql.append(tableName).append(" WHERE ");
-		String key = keys[0];
-		sql.append(key).append(" = ?");
-		for (int i = 1; i < keys.length; i++) {
-			key = keys[i];
-			sql.append(' ').append(key).append(" = ?");
+		if (exportFile != null) {
+			if (readers > 1) {
+				doParallelExportProcess();
+			}
+			else {
+				doExportProcess();
+			}
+			return;
+		}
+		if (chunkSize > 0) {
+			doChunkedProcess();
+			return;
 		}
 
-		PreparedStatement ps = null;
-		ResultSet rs = null;
-		try {
-			ps = con.prepareStatement(sql.toString());
-			for (int i = 0; i < values.length; i++) {
-				key = keys[i];
-				String value = values[i];
-				setPreparedStatement(ps, i + 1, key, value);
+		prepareTemplates();
+		String insertSql = createInsertSql();
+		if ((targetTableName != null) && (copies == 0) && !upsert && !skipExisting && (rejectFile == null) && !isSharded() && mapping.isServerSide()) {
+			doInsertSelectProcess();
+			return;
+		}
+
+		String sql = SQL_SELECT_FROM + quotedTableName + " WHERE " + createKeyPredicate();
+		boolean autoCommit = con.getAutoCommit();
+		if ((copies > 0) || upsert) {
+			con.setAutoCommit(false);	// clones & upserts are committed per batch.
+		}
+		RowBuffer buffer = new RowBuffer(meta, getStagingSize());
+		prepareKeySet();
+		try (PreparedStatement ps = con.prepareStatement(sql); PreparedStatement insert = prepareBulkInsert(con, insertSql)) {
+			bindKeyValues(ps);
+			try (ResultSet rs = executeQuery(ps)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					if (buffer.isFull()) {
+						addRecords(insert, buffer);
+					}
+				}
 			}
-			rs = ps.executeQuery();
-			while (rs.next()) {
-				duplicateRecord(rs);
+			addRecords(insert, buffer);
+			flushBatch(insert);
+		}
+		catch (Exception e) {
+			if (!con.getAutoCommit()) {
+				con.rollback();
 			}
+			throw e;
 		}
 		finally {
-			if (rs != null) {
-				rs.close();
+			con.setAutoCommit(autoCommit);
+			closeKeySet();
+		}
+	}
+
+	/**
+	 * do server side copy process, rows are copied by one INSERT ... SELECT without fetching them.
+	 * @throws Exception when error.
+	 */
+	private void doInsertSelectProcess() throws Exception {
+		String sql = mapping.createInsertSelectSql(getDialect(), quotedTargetName, targetMeta, quotedTableName, meta) + " WHERE " + createKeyPredicate();
+		try (PreparedStatement ps = con.prepareStatement(sql)) {
+			bindKeyValues(ps, mapping.bindReplaceValues(ps));
+			recordCount = ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * do export process.
+	 * writes matched rows to a binary snapshot file instead of inserting, a block per batch size rows.
+	 * @throws Exception when error.
+	 */
+	private void doExportProcess() throws Exception {
+		String sql = SQL_SELECT_FROM + quotedTableName + " WHERE " + createKeyPredicate();
+		RowBuffer buffer = new RowBuffer(meta, batchSize > 0 ? batchSize : DEFAULT_EXPORT_BLOCK_SIZE);
+		try (SnapshotWriter writer = new SnapshotWriter(exportFile, meta, columnar); PreparedStatement ps = con.prepareStatement(sql)) {
+			bindKeyValues(ps);
+			try (ResultSet rs = executeQuery(ps)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					if (buffer.isFull()) {
+						writer.write(buffer);
+						buffer.clear();
+					}
+				}
+			}
+			writer.write(buffer);
+			recordCount = writer.getRowCount();
+		}
+	}
+
+	/**
+	 * do parallel export process.
+	 * reader connections join one consistent snapshot of the table & export primary key ranges in parallel, blocks of the ranges are interleaved in the file.
+	 * @throws Exception when error.
+	 */
+	private void doParallelExportProcess() throws Exception {
+		final String[] primaryKeys = loadPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			throw new Exception("parallel export requires a primary key on " + tableName);
+		}
+		final String keyPredicate = createKeyPredicate();
+		KeysetCursor boundaries = new KeysetCursor(getDialect(), quotedTableName, primaryKeys, keyPredicate);
+		int isolation = con.getTransactionIsolation();
+		List<Connection> snapshotReaders = new ArrayList<>();
+		final BlockingQueue<Connection> connections = new ArrayBlockingQueue<>(readers);
+		ExecutorService executor = Executors.newFixedThreadPool(readers);
+		try (SnapshotWriter writer = new SnapshotWriter(exportFile, meta, columnar)) {
+			Connection walker = openConnection();
+			snapshotReaders.add(walker);
+			for (int i = 0; i < readers; i++) {
+				snapshotReaders.add(openConnection());
+			}
+			if (!shareSnapshot(snapshotReaders)) {
+				warn("consistent snapshot can not be shared on this server, each reader sees its own point in time.");
+			}
+			connections.addAll(snapshotReaders.subList(1, snapshotReaders.size()));
+
+			// range boundaries are walked on the snapshot while the rows of found ranges are exported.
+			Deque<Future<Integer>> pending = new ArrayDeque<>();
+			Object[] lower = null;
+			do {
+				Object[] upper = null;
+				try (PreparedStatement ps = walker.prepareStatement(boundaries.nextBoundarySql(EXPORT_RANGE_SIZE))) {
+					boundaries.bind(ps, bindKeyValues(ps));
+					try (ResultSet rs = executeQuery(ps)) {
+						if (rs.next()) {
+							boundaries.advance(rs);
+							upper = boundaries.getLastKey();
+						}
+					}
+				}
+				final KeysetCursor cursor = new KeysetCursor(getDialect(), quotedTableName, primaryKeys, keyPredicate);
+				cursor.setLastKey(lower);
+				cursor.setUpperKey(upper);
+				pending.add(executor.submit(new Callable<Integer>() {
+					@Override
+					public Integer call() throws Exception {
+						return exportRange(connections, cursor, writer);
+					}
+				}));
+				while (pending.size() > readers * 2) {
+					getResult(pending.poll());
+				}
+				lower = upper;
+			} while (lower != null);
+			while (!pending.isEmpty()) {
+				getResult(pending.poll());
 			}
-			if (ps != null) {
-				ps.close();
+			recordCount = writer.getRowCount();
+		}
+		finally {
+			executor.shutdownNow();
+			for (Connection reader : snapshotReaders) {
+				try {
+					if (!reader.getAutoCommit()) {
+						reader.rollback();
+						reader.setAutoCommit(true);
+					}
+					reader.setTransactionIsolation(isolation);
+				}
+				finally {
+					reader.close();
+				}
 			}
 		}
 	}
 
 	/**
-	 * duplicate record.
-	 * @param rs result set.
+	 * export rows of a primary key range, a reader connection is taken while the range is read.
+	 * @param connections reader connections.
+	 * @param cursor cursor of the range.
+	 * @param writer snapshot writer shared by the readers.
+	 * @return number of rows.
 	 * @throws Exception when error.
 	 */
-	private void duplicateRecord(ResultSet rs) throws Exception {
-		StringBuilder sql = new StringBuilder(SQL_INSERT_INTO);
-		sql.append(tableName).append(SQL_VALUES_START);
-		Map<String, Integer> columnIndexMap = new HashMap<>();
-		int defaultCount = 0;
-		for (int i = 0; i < meta.getColumnCount(); i++) {
-			int columnIndex = i + 1;
-			if (i > 0) {
-				sql.append(SQL_COMMA);
+	private int exportRange(BlockingQueue<Connection> connections, KeysetCursor cursor, SnapshotWriter writer) throws Exception {
+		RowBuffer buffer = new RowBuffer(meta, batchSize > 0 ? batchSize : DEFAULT_EXPORT_BLOCK_SIZE);
+		int count = 0;
+		Connection connection = connections.take();
+		try (PreparedStatement ps = connection.prepareStatement(cursor.rangeSql("*"))) {
+			cursor.bind(ps, bindKeyValues(ps));
+			try (ResultSet rs = executeQuery(ps)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					count++;
+					if (buffer.isFull()) {
+						synchronized (writer) {
+							writer.write(buffer);
+						}
+						buffer.clear();
+					}
+				}
 			}
-			String colName = meta.getColumnName(columnIndex);
-			if (putColumnIndex(columnIndexMap, colName, columnIndex - defaultCount)) {
-				sql.append(SQL_PREPARED_MARK);
+		}
+		finally {
+			connections.add(connection);
+		}
+		synchronized (writer) {
+			writer.write(buffer);
+		}
+		return count;
+	}
+
+	/**
+	 * do chunked process.
+	 * walks matched rows by primary key with keyset pagination, each chunk is committed as its own transaction.
+	 * with checkpoint journal, the walk resumes after the last committed key of the previous run.
+	 * @throws Exception when error.
+	 */
+	private void doChunkedProcess() throws Exception {
+		String[] primaryKeys = loadPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			throw new Exception("chunked copy requires a primary key on " + tableName);
+		}
+		KeysetCursor cursor = new KeysetCursor(getDialect(), quotedTableName, primaryKeys, createKeyPredicate());
+		prepareTemplates();
+		String insertSql = createInsertSql();
+
+		CheckpointJournal journal = null;
+		CheckpointMarker marker = null;
+		boolean autoCommit = con.getAutoCommit();
+		con.setAutoCommit(false);
+		try {
+			prepareKeySet();
+			if (journalFile != null) {
+				long fingerprint = createFingerprint();
+				journal = CheckpointJournal.open(journalFile, fingerprint);
+				marker = new CheckpointMarker(fingerprint);
+				marker.create(con);
+				commit(con, 0);
+			}
+			if ((journal != null) && (journal.getBound(0) != null)) {
+				resume(journal, marker, cursor);
 			}
 			else {
-				if (isDefaultValueColumn(columnIndex)) {
-					sql.append(SQL_DEFAULT);
-					defaultCount++;
+				// fix the upper bound first, so rows copied by this run are never walked again.
+				try (PreparedStatement ps = con.prepareStatement(cursor.upperBoundSql())) {
+					bindKeyValues(ps);
+					try (ResultSet rs = executeQuery(ps)) {
+						if (!cursor.fixUpperBound(rs)) {
+							commit(con, 0);
+							return;
+						}
+					}
 				}
-				else if (isNowValueColumn(columnIndex)) {
-					sql.append(SQL_NOW);
-					defaultCount++;
+				commit(con, 0);
+				if (journal != null) {
+					journal.bound(0, cursor.getUpperKey());
 				}
-				else if (isNullValueColumn(columnIndex)) {
-					sql.append(SQL_NULL);
-					defaultCount++;
+			}
+
+			RowBuffer buffer = new RowBuffer(meta, getStagingSize());
+			try (PreparedStatement insert = prepareBulkInsert(con, insertSql)) {
+				int count;
+				do {
+					count = copyChunk(cursor, insert, buffer);
+					if ((journal != null) && (count > 0)) {
+						marker.mark(con, 0, journal.prepare(0, cursor.getLastKey()));	// committed with the chunk.
+						commit(con, count);
+						journal.commit(0, cursor.getLastKey());
+					}
+					else {
+						commit(con, count);
+					}
+				} while (count == chunkSize);
+			}
+			if (marker != null) {
+				marker.remove(con);
+				commit(con, 0);
+			}
+		}
+		catch (Exception e) {
+			con.rollback();
+			throw e;
+		}
+		finally {
+			con.setAutoCommit(autoCommit);
+			if (journal != null) {
+				journal.close();
+			}
+			closeKeySet();
+		}
+	}
+
+	/**
+	 * resume keyset walk from checkpoint journal.
+	 * the chunk in doubt, killed between the commit & the journal, is committed if the checkpoint marker has its sequence.
+	 * @param journal checkpoint journal.
+	 * @param marker checkpoint marker.
+	 * @param cursor keyset cursor.
+	 * @throws Exception when error.
+	 */
+	private void resume(CheckpointJournal journal, CheckpointMarker marker, KeysetCursor cursor) throws Exception {
+		info("resuming from checkpoint journal " + journalFile + ".");
+		Object[] inDoubt = journal.getInDoubt(0);
+		if (inDoubt != null) {
+			if (marker.isMarked(con, journal.getInDoubtSequence(0))) {
+				journal.commit(0, inDoubt);
+				info("chunk up to key " + Arrays.toString(inDoubt) + " was committed by the previous run.");
+			}
+			else {
+				info("chunk up to key " + Arrays.toString(inDoubt) + " was not committed by the previous run, copied again.");
+			}
+			commit(con, 0);
+		}
+		cursor.setUpperKey(journal.getBound(0));
+		cursor.setLastKey(journal.getCommitted(0));
+	}
+
+	/**
+	 * copy next chunk.
+	 * @param cursor keyset cursor.
+	 * @param insert insert prepared statement.
+	 * @param buffer row buffer to stage the rows.
+	 * @return number of rows copied.
+	 * @throws Exception when error.
+	 */
+	private int copyChunk(KeysetCursor cursor, PreparedStatement insert, RowBuffer buffer) throws Exception {
+		int count = 0;
+		try (PreparedStatement ps = con.prepareStatement(cursor.nextChunkSql("*", chunkSize))) {
+			cursor.bind(ps, bindKeyValues(ps));
+			try (ResultSet rs = executeQuery(ps)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					if (buffer.isFull()) {
+						addRecords(insert, buffer);
+					}
+					cursor.advance(rs);
+					count++;
 				}
-				else {
-					sql.append(SQL_PREPARED_MARK);
+			}
+		}
+		addRecords(insert, buffer);
+		flushBatch(insert);
+		return count;
+	}
+
+	/**
+	 * prepare replace value templates when cloning.
+	 */
+	private void prepareTemplates() {
+		if ((copies > 0) && (replaces != null)) {
+			templates = new ValueTemplate[replaces.length];
+			for (int i = 0; i < replaces.length; i++) {
+				templates[i] = ValueTemplate.parse(replaces[i]);
+			}
+		}
+	}
+
+	/**
+	 * add staged record copies to insert batch & clear the buffer, the batch is executed when it gets full.
+	 * rows of keys in the key set are skipped, or written to the divert file.
+	 * @param insert insert prepared statement.
+	 * @param buffer row buffer.
+	 * @throws Exception when error.
+	 */
+	private void addRecords(PreparedStatement insert, RowBuffer buffer) throws Exception {
+		int count = copies > 0 ? copies : 1;
+		int size = getBatchSize();
+		int diverted = 0;
+		for (int row = 0; row < buffer.size(); row++) {
+			if ((keySet != null) && !KeySet.hasNull(buffer, row, sourceKeyIndexes) && !keySet.add(buffer, row, sourceKeyIndexes)) {
+				divertedRows[diverted++] = row;	// the key exists, or was inserted by this copy.
+				continue;
+			}
+			for (int copy = 1; copy <= count; copy++) {
+				mapping.bind(insert, buffer, row, copy);
+				insert.addBatch();
+				if (++pendingCount >= size) {
+					flushBatch(insert);
+				}
+			}
+		}
+		if (diverted > 0) {
+			skipCount += diverted;
+			if (divertWriter != null) {
+				divertWriter.write(buffer, divertedRows, diverted);
+			}
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * load unique key values of the target table into the key set, by keyset scan of the key columns.
+	 * the key columns must be copied from the source columns as is.
+	 * @throws Exception when error, no unique key or the key set exceeds the limit.
+	 */
+	private void prepareKeySet() throws Exception {
+		if (!skipExisting) {
+			return;
+		}
+		String table = targetTableName != null ? targetTableName : tableName;
+		String[] keyColumns = uniqueColumns != null ? uniqueColumns.clone() : loadPrimaryKeys(table);
+		if (keyColumns.length == 0) {
+			throw new SQLException("skip existing requires a primary key on " + table + " or unique columns.");
+		}
+		sourceKeyIndexes = new int[keyColumns.length];
+		int[] keyIndexes = new int[keyColumns.length];
+		StringBuilder keyList = new StringBuilder();
+		StringBuilder predicate = new StringBuilder();
+		for (int i = 0; i < keyColumns.length; i++) {
+			for (int columnIndex = 1; columnIndex <= targetMeta.getColumnCount(); columnIndex++) {
+				if (targetMeta.getColumnName(columnIndex).compareToIgnoreCase(keyColumns[i]) == 0) {
+					keyColumns[i] = targetMeta.getColumnName(columnIndex);
+					sourceKeyIndexes[i] = mapping.getSourceIndex(keyColumns[i]);
+					break;
 				}
 			}
+			if (sourceKeyIndexes[i] == 0) {
+				throw new SQLException("unique column " + keyColumns[i] + " of " + table + " is not copied from " + tableName + " as is, existing keys can not be checked.");
+			}
+			keyIndexes[i] = i + 1;
+			if (i > 0) {
+				keyList.append(SQL_COMMA);
+				predicate.append(" AND ");
+			}
+			keyList.append(quote(keyColumns[i]));
+			predicate.append(quote(keyColumns[i])).append(" IS NOT NULL");
 		}
-		sql.append(SQL_VALUES_END);
-
-		// create prepared statement.
-		try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
-			defaultCount = 0;
-			for (int i = 0; i < meta.getColumnCount(); i++) {
-				int columnIndex = i + 1;
-				String colName = meta.getColumnName(columnIndex);
-				int columnType = meta.getColumnType(columnIndex);
-				if (!putColumnValue(ps, columnIndexMap, colName, columnType)) {
-					if (isDefaultValueColumn(columnIndex) || isNowValueColumn(columnIndex) || isNullValueColumn(columnIndex)) {
-						defaultCount++;
-					} else {
-						copyColumn(rs, columnIndex, ps, columnIndex - defaultCount, columnType);
+
+		long limit = keySetLimit > 0 ? keySetLimit * 1024L * 1024 : Runtime.getRuntime().maxMemory() / 4;
+		KeysetCursor cursor = new KeysetCursor(getDialect(), quotedTargetName, keyColumns, predicate.toString());
+		keySet = new KeySet();
+		RowBuffer keys = null;
+		int count;
+		do {
+			count = 0;
+			try (PreparedStatement ps = con.prepareStatement(cursor.nextChunkSql(keyList.toString(), KEY_SCAN_SIZE))) {
+				cursor.bind(ps, 1);
+				try (ResultSet rs = executeQuery(ps)) {
+					if (keys == null) {
+						keys = new RowBuffer(rs.getMetaData(), KEY_SCAN_SIZE);
+					}
+					while (rs.next()) {
+						keys.add(rs);
+						cursor.advance(rs);
+						count++;
 					}
 				}
 			}
-			ps.execute();
+			for (int row = 0; row < keys.size(); row++) {
+				keySet.add(keys, row, keyIndexes);
+			}
+			keys.clear();
+			if (keySet.getMemoryBytes() > limit) {
+				throw new SQLException("key set of " + table + " exceeds " + (limit >> 20) + " MB at " + keySet.size() + " keys, raise the key set limit.");
+			}
+		} while (count == KEY_SCAN_SIZE);
+		info(keySet.size() + " keys of " + table + " loaded into a key set of " + (keySet.getMemoryBytes() >> 10) + " KB.");
+
+		divertedRows = new int[getStagingSize()];
+		if (divertFile != null) {
+			divertWriter = new SnapshotWriter(divertFile, meta, false);
 		}
 	}
 
 	/**
-	 * copy column value from result set to prepared statement.
-	 * @param rs result set.
-	 * @param rsIndex column index of result set.
-	 * @param ps prepared statement.
-	 * @param psIndex column index if prepared statement.
-	 * @param columnType column type.
+	 * close the divert file & report rows of existing keys.
+	 * @throws Exception when error.
+	 */
+	private void closeKeySet() throws Exception {
+		if (divertWriter != null) {
+			divertWriter.close();
+			divertWriter = null;
+		}
+		if (keySet != null) {
+			info(skipCount + " rows of existing keys " + (divertFile != null ? "diverted to " + divertFile : "skipped") +
+					", key set of " + (keySet.getMemoryBytes() >> 10) + " KB, " + keySet.getCollisionCount() + " keys of the same 64 bit hash told apart by exact keys.");
+			keySet = null;
+		}
+	}
+
+	/**
+	 * execute pending insert batch.
+	 * outside of chunked copy, a transaction is committed per batch.
+	 * @param insert insert prepared statement.
 	 * @throws SQLException when SQL error.
 	 */
-	private void copyColumn(ResultSet rs, int rsIndex, PreparedStatement ps, int psIndex, int columnType) throws SQLException {
-		switch (columnType) {
-			case Types.INTEGER:
-				ps.setInt(psIndex, rs.getInt(rsIndex));
-			case Types.BIGINT:
-			case Types.DECIMAL:
-				ps.setLong(psIndex, rs.getLong(rsIndex));
-				break;
-			case Types.SMALLINT:
-			case Types.TINYINT:
-				ps.setShort(psIndex, rs.getShort(rsIndex));
-				break;
-			case Types.FLOAT:
-				ps.setFloat(psIndex, rs.getFloat(rsIndex));
-				break;
-			case Types.DOUBLE:
-			case Types.NUMERIC:
-				ps.setDouble(psIndex, rs.getDouble(rsIndex));
-				break;
-			case Types.DATE:
-				ps.setDate(psIndex, rs.getDate(rsIndex));
-				break;
-			case Types.TIMESTAMP:
-				ps.setTimestamp(psIndex, rs.getTimestamp(rsIndex));
-				break;
-			case Types.TIME:
-				ps.setTime(psIndex, rs.getTime(rsIndex));
-				break;
-			case Types.BLOB:
-				ps.setBlob(psIndex, rs.getBlob(rsIndex));
-				break;
-			case Types.CLOB:
-				ps.setClob(psIndex, rs.getClob(rsIndex));
-				break;
+	private void flushBatch(PreparedStatement insert) throws SQLException {
+		if (pendingCount > 0) {
+			executeBatch(insert, pendingCount);
+			recordCount += pendingCount;
+			if ((chunkSize == 0) && !con.getAutoCommit()) {
+				commit(con, pendingCount);
+			}
+			pendingCount = 0;
+		}
+	}
 
-			default:
-				ps.setString(psIndex, rs.getString(rsIndex));
-				break;
+	/**
+	 * get insert batch size.
+	 * @return batch size.
+	 */
+	private int getBatchSize() {
+		if (batchSize > 0) {
+			return batchSize;
+		}
+		else if ((copies > 0) || upsert || isSharded()) {
+			return DEFAULT_CLONE_BATCH_SIZE;
+		}
+		else if (chunkSize > 0) {
+			return chunkSize;
+		}
+		return 1;
+	}
+
+	/**
+	 * get number of source rows to stage at once, rows enough for an insert batch.
+	 * @return number of rows.
+	 */
+	private int getStagingSize() {
+		int size = getBatchSize();
+		if (copies > 0) {
+			return Math.max(1, size / copies);
+		}
+		return chunkSize > 0 ? Math.min(size, chunkSize) : size;
+	}
+
+	/**
+	 * append values which identify the process.
+	 */
+	@Override
+	protected void appendFingerprint(StringBuilder sb) {
+		super.appendFingerprint(sb);
+		appendFingerprint(sb, "keys", keys);
+		appendFingerprint(sb, "values", values);
+		appendFingerprint(sb, "defaults", defaults);
+		if (targetTableName != null) {
+			sb.append(";target=").append(targetTableName);
+		}
+		if (skipExisting) {
+			appendFingerprint(sb, "skip", uniqueColumns);
+		}
+		sb.append(";chunk=").append(chunkSize);
+		sb.append(";copies=").append(copies);
+	}
+
+	/**
+	 * create key predicate.
+	 * @return key predicate.
+	 * @throws SQLException when SQL error.
+	 */
+	private String createKeyPredicate() throws SQLException {
+		StringBuilder sql = new StringBuilder();
+		for (int i = 0; i < keys.length; i++) {
+			if (i > 0) {
+				sql.append(" AND ");
+			}
+			sql.append(quote(toColumnName(keys[i]))).append(" = ?");
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * bind key values to prepared statement.
+	 * @param ps prepared statement.
+	 * @return next parameter index.
+	 * @throws Exception when error.
+	 */
+	private int bindKeyValues(PreparedStatement ps) throws Exception {
+		return bindKeyValues(ps, 1);
+	}
+
+	/**
+	 * bind key values to prepared statement from the index.
+	 * @param ps prepared statement.
+	 * @param index first parameter index to bind.
+	 * @return next parameter index.
+	 * @throws Exception when error.
+	 */
+	private int bindKeyValues(PreparedStatement ps, int index) throws Exception {
+		for (int i = 0; i < values.length; i++) {
+			setPreparedStatement(ps, index + i, keys[i], values[i]);
+		}
+		return index + values.length;
+	}
+
+	/**
+	 * create insert SQL of the target table by the column mapping compiled from the metadata.
+	 * columns bound per row are set to bulkColumns unless the SQL has NOW() or null values.
+	 * @return insert SQL.
+	 * @throws SQLException when SQL error.
+	 */
+	private String createInsertSql() throws SQLException {
+		boolean sameTable = targetTableName == null;
+		if (sameTable) {
+			quotedTargetName = quotedTableName;
+			targetMeta = meta;
+		}
+		else {
+			quotedTargetName = quote(toStoredCase(targetTableName));
+			targetMeta = loadMetadata(quotedTargetName);
+		}
+		mapping = new ColumnMapping(getDialect(), meta, targetMeta, sameTable, columns, replaces, templates, defaults, nowColumns, nulls);
+		if (!sameTable) {
+			for (String colName : mapping.getUnmappedColumns()) {
+				warn("column " + colName + " is not in " + targetTableName + ", not copied.");
+			}
+		}
+		bulkColumns = mapping.hasLiteral() ? null : mapping.getBoundColumns();
+		parameterColumns = mapping.getBoundColumns();
+		StringBuilder sql = new StringBuilder(mapping.createInsertSql(getDialect(), quotedTargetName));
+		if (sameTable) {
+			appendUpsertClause(sql);
 		}
+		else {
+			appendUpsertClause(sql, targetTableName, targetMeta, mapping.getTargetColumns());
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * prepare insert statement for batches of rows into the target table.
+	 */
+	@Override
+	protected PreparedStatement prepareBulkInsert(Connection connection, String insertSql) throws SQLException {
+		return prepareBulkInsert(connection, insertSql, quotedTargetName);
 	}
 
 	/**
@@ -198,51 +762,20 @@ public class CopyRecord extends SQLRecord {
 		for (int i = 0; i < meta.getColumnCount(); i++) {
 			int columnIndex = i + 1;
 			if (key.compareToIgnoreCase(meta.getColumnName(columnIndex)) == 0) {
-				int type = meta.getColumnType(columnIndex);
-				switch (type) {
-					case Types.INTEGER:
-						ps.setInt(index, Integer.parseInt(value));
-						break;
-					case Types.BIGINT:
-					case Types.DECIMAL:
-						ps.setLong(index, Long.parseLong(value));
-						break;
-					case Types.SMALLINT:
-						ps.setShort(index, Short.parseShort(value));
-						break;
-					case Types.TINYINT:
-						short v = Short.parseShort(value);
-						if ((v > 127) || (v < -128)) {
-							throw new Exception("TINYINT out of range.");
-						}
-						ps.setInt(index, v);
-						break;
-					case Types.FLOAT:
-						ps.setFloat(index, Float.parseFloat(value));
-						break;
-					case Types.DOUBLE:
-					case Types.NUMERIC:
-						ps.setDouble(index, Double.parseDouble(value));
-						break;
-					case Types.DATE:
-						ps.setDate(index, convertDate(value));
-						break;
-					case Types.TIMESTAMP:
-						ps.setTimestamp(index, convertTimestamp(value));
-						break;
-					case Types.TIME:
-						ps.setTime(index, convertTime(value));
-						break;
-
-					default:
-						ps.setString(index, value);
-						break;
-				}
+				setColumnValue(ps, index, key, meta.getColumnType(columnIndex), value);
 				break;
 			}
 		}
 	}
 
+	/**
+	 * get table the process loads into, the target table if assigned.
+	 */
+	@Override
+	protected String getLoadTableName() {
+		return targetTableName != null ? targetTableName : tableName;
+	}
+
 	// MARK: - Check
 	/**
 	 * check arguments.
@@ -267,18 +800,19 @@ public class CopyRecord extends SQLRecord {
 		if (!checkHostName()) {
 			return -1;
 		}
+		if (!checkDialect()) {
+			return -1;
+		}
 		if (!checkUserName()) {
 			return -1;
 		}
-
-		keys = cmd.getOptionValues('k');	// key & value count check.
-		if (Util.hasDuplicateValuesIgnoreCase(keys)) {
-			usage(options);
-			duplicateValueFound("key name");
+		if (!checkUserPassword()) {
 			return -1;
 		}
-		values = cmd.getOptionValues('v');
-		if (keys.length != values.length) {
+
+		String[] keyNames = cmd.getOptionValues('k');	// key & value count check.
+		String[] keyValues = cmd.getOptionValues('v');
+		if (keyNames.length != keyValues.length) {
 			usage(options);
 			keyAndValueCountMustSame();
 			return -1;
@@ -286,70 +820,82 @@ public class CopyRecord extends SQLRecord {
 		if (!checkColumnsAndReplaces()) {
 			return -1;
 		}
-		if (!checkUserPassword()) {
+		if (!checkJournal()) {
 			return -1;
 		}
-		defaults = cmd.getOptionValues('D');	// default value columns.
-		if (defaults != null) {
-			if (Util.hasDuplicateValuesIgnoreCase(defaults)) {
-				usage(options);
-				duplicateValueFound("column name to use default value");
-				return -1;
-			}
-			if (columns != null) {
-				if (Util.hasDuplicateValuesIgnoreCase(defaults, columns)) {
-					usage(options);
-					duplicateValueFoundIn("use column name to use default value", "column name to replace value");
-					return -1;
-				}
-			}
-		}
-		if (!checkNowColumns()) {
+		if (!checkReject()) {
 			return -1;
 		}
-		if (nowColumns != null) {
-			if (defaults != null) {
-				if (Util.hasDuplicateValuesIgnoreCase(nowColumns, defaults)) {
-					usage(options);
-					duplicateValueFoundIn("use NOW() for the column", "use column name to use default value");
-					return -1;
-				}
-			}
+		String[] targets = cmd.getOptionValues("target");
+		if ((targets != null) && (targets.length > 1)) {
+			usage(options);
+			System.out.println("[ERROR] multiple target table name is not allowed.");
+			return -1;
 		}
-		if (!checkNullColumns()) {
+		int chunkSizeValue = checkPositiveNumber("chunk-size", "chunk size", 0);
+		int copiesValue = checkPositiveNumber("copies", "number of copies", 0);
+		int batchSizeValue = checkPositiveNumber("batch-size", "batch size", 0);
+		int readersValue = checkPositiveNumber("readers", "number of readers", 0);
+		int keySetLimitValue = checkPositiveNumber("key-set-limit", "key set limit", 0);
+		if ((chunkSizeValue < 0) || (copiesValue < 0) || (batchSizeValue < 0) || (readersValue < 0) || (keySetLimitValue < 0)) {
 			return -1;
 		}
-		if (nulls != null) {
-			if (defaults != null) {
-				if (Util.hasDuplicateValuesIgnoreCase(nulls, defaults)) {
-					usage(options);
-					duplicateValueFoundIn("use null for the column", "use NOW() for the column");
-					return -1;
-				}
+
+		CopyRecordRequest.Builder builder = CopyRecordRequest.commandLineBuilder(tableName);
+		for (int i = 0; i < keyNames.length; i++) {
+			builder.key(keyNames[i], keyValues[i]);
+		}
+		if (columns != null) {
+			for (int i = 0; i < columns.length; i++) {
+				builder.replace(columns[i], replaces[i]);
 			}
 		}
-
-		return 0;
-	}
-
-	/**
-	 * is default value column.
-	 * @param columnIndex column index.
-	 * @return true if use default value.
-	 * @throws SQLException when SQL error.
-	 */
-	private boolean isDefaultValueColumn(int columnIndex) throws SQLException {
-		if (meta.isAutoIncrement(columnIndex)) {
-			return true;
+		for (String column : getOptionValues("D")) {
+			builder.defaultValue(column);
 		}
-		if (defaults != null) {
-			for (String defaultColumn : defaults) {
-				if (defaultColumn.compareToIgnoreCase(meta.getColumnName(columnIndex)) == 0) {
-					return true;
-				}
+		for (String column : getOptionValues("n")) {
+			builder.now(column);
+		}
+		for (String column : getOptionValues("N")) {
+			builder.nullValue(column);
+		}
+		if (targets != null) {
+			builder.target(targets[0]);
+		}
+		builder.chunkSize(chunkSizeValue).journal(journalFile).copies(copiesValue).batchSize(batchSizeValue).readers(readersValue).reject(rejectFile);
+		if (cmd.hasOption("upsert")) {
+			builder.upsert();
+		}
+		builder.updateColumns(getOptionValues("update-column"));
+		if (cmd.hasOption("fast-load")) {
+			builder.fastLoad();
+		}
+		builder.shardSpecs(getOptionValues("shard")).shardKey(getOptionValues("shard-key"));
+		if (cmd.hasOption("skip-existing")) {
+			builder.skipExisting();
+		}
+		builder.uniqueColumns(getOptionValues("unique-column")).keySetLimit(keySetLimitValue);
+		String divert = cmd.getOptionValue("divert");
+		if (divert != null) {
+			builder.divert(new File(divert));
+		}
+		String export = cmd.getOptionValue("export");
+		if (export != null) {
+			builder.export(new File(export));
+			if (cmd.hasOption("columnar")) {
+				builder.columnar();
 			}
 		}
-		return false;
+		try {
+			apply(builder.build());
+		}
+		catch (IllegalArgumentException e) {
+			usage(options);
+			System.out.println("[ERROR] " + e.getMessage());
+			return -1;
+		}
+
+		return 0;
 	}
 
 	/**
@@ -362,15 +908,18 @@ public class CopyRecord extends SQLRecord {
 
 	// MARK: - Entry Point
 	/**
-	 * entry point.
-	 * @param args arguments array.
+	 * create command line options.
+	 * @return command line options.
 	 */
-	public static void main(String[] args) {
+	static Options createOptions() {
 		Options options = new Options();
 		options.addOption("?", "help", false, "show this help");
 		options.addOption("d", "database", true, "database name");
 		options.addOption("t", "table", true, "table name");
+		options.addOption(null, "target", true, "[table name to copy into, the table as default] columns are mapped by name");
 		options.addOption("h", "host", true, "[host name, localhost as default]");
+		options.addOption(null, "port", true, "[port number, default port of the dialect as default]");
+		options.addOption(null, "dialect", true, "[mysql or postgresql, mysql as default]");
 		options.addOption("u", "user", true, "user name");
 		options.addOption("p", "prompt", false, "[prompt password] do not set with -P");
 		options.addOption("P", "password", true, "[user password] do not set with -p");
@@ -381,6 +930,32 @@ public class CopyRecord extends SQLRecord {
 		options.addOption("D", "default-value", true, "use default value for the column");
 		options.addOption("n", "now", true, "use NOW() for the column");
 		options.addOption("N", "null", true, "use null for the column");
+		options.addOption(null, "chunk-size", true, "[copy matched rows by primary key in chunks of the size, each chunk in own transaction]");
+		options.addOption(null, "journal", true, "[checkpoint journal file to resume a killed chunked copy, the last chunk is marked in table jmt_checkpoint of the database] use with --chunk-size");
+		options.addOption(null, "copies", true, "[clone each matched row the number of times, replace values can be templates {seq}, {seq:START:STEP}, {offset:STEP}, {copy}, {uuid}, {random:MIN:MAX}]");
+		options.addOption(null, "batch-size", true, "[number of rows per insert batch, " + DEFAULT_CLONE_BATCH_SIZE + " as default with --copies, --upsert or --shard, rows per block with --export]");
+		options.addOption(null, "upsert", false, "[insert or update the row of the duplicate key, ON DUPLICATE KEY UPDATE or ON CONFLICT in batches]");
+		options.addOption(null, "update-column", true, "[column to update on duplicate key, all columns except primary key as default] use with --upsert");
+		options.addOption(null, "fast-load", false, "[disable unique & foreign key checks of the session while copying, then validate duplicate & orphaned keys] can not be used with --upsert");
+		options.addOption(null, "reject", true, "[write rows failed in a batch to the file with the SQL error, the failed batch is bisected to find them]");
+		options.addOption(null, "shard", true, "[HOST[:PORT]/DATABASE of a shard to copy into, in shard order, rows are routed by --shard-key] copied in parallel by a connection per shard");
+		options.addOption(null, "shard-key", true, "[column whose values hash to the shard, an integral value modulo the number of shards, CRC32 of others] use with --shard");
+		options.addOption(null, "skip-existing", false, "[load unique key values of the target into a compact key set & skip rows of existing keys on the client]");
+		options.addOption(null, "unique-column", true, "[column of the unique key to check, primary key as default] use with --skip-existing");
+		options.addOption(null, "divert", true, "[write skipped rows to the binary snapshot file] use with --skip-existing");
+		options.addOption(null, "key-set-limit", true, "[maximum MB of the key set, 1/4 of the max heap as default] use with --skip-existing");
+		options.addOption(null, "export", true, "[export matched rows to the binary snapshot file instead of copying]");
+		options.addOption(null, "columnar", false, "[write the snapshot in columnar layout] use with --export");
+		options.addOption(null, "readers", true, "[number of reader connections exporting primary key ranges in parallel on one consistent snapshot] use with --export");
+		return options;
+	}
+
+	/**
+	 * entry point.
+	 * @param args arguments array.
+	 */
+	public static void main(String[] args) {
+		Options options = createOptions();
 		CommandLineParser parser = new DefaultParser();
 		try {
 			CommandLine cmd = parser.parse(options, args);
@@ -0,0 +1,653 @@
+package jp.co.comona.javamisc.sql;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * programmatic copy record request.
+ * <pre>
+ * RecordResult result = CopyRecordRequest.builder(dataSource, "users")
+ *         .key("id", "1").replace("id", "2").now("created_at").build().execute();
+ * </pre>
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class CopyRecordRequest extends RecordRequest {
+
+	// MARK: - Properties
+	private final String targetTableName;
+	private final String[] keys;
+	private final String[] values;
+	private final String[] defaults;
+	private final int chunkSize;
+	private final File journalFile;
+	private final int copies;
+	private final int batchSize;
+	private final File exportFile;
+	private final boolean columnar;
+	private final int readers;
+	private final boolean upsert;
+	private final boolean fastLoad;
+	private final File rejectFile;
+	private final List<DataSource> shards;
+	private final String[] shardSpecs;
+	private final String[] shardKeys;
+	private final String[] updateColumns;
+	private final boolean skipExisting;
+	private final String[] uniqueColumns;
+	private final File divertFile;
+	private final int keySetLimit;
+
+	// MARK: - Builder
+	/**
+	 * copy record request builder.
+	 */
+	public static class Builder {
+		private final DataSource dataSource;
+		private final String tableName;
+		private final boolean commandLine;
+		private RecordListener listener = null;
+		private String targetTableName = null;
+		private final List<String> keys = new ArrayList<>();
+		private final List<String> values = new ArrayList<>();
+		private final List<String> columns = new ArrayList<>();
+		private final List<String> replaces = new ArrayList<>();
+		private final List<String> defaults = new ArrayList<>();
+		private final List<String> nowColumns = new ArrayList<>();
+		private final List<String> nulls = new ArrayList<>();
+		private boolean upsert = false;
+		private boolean fastLoad = false;
+		private File rejectFile = null;
+		private final List<DataSource> shards = new ArrayList<>();
+		private final List<String> shardSpecs = new ArrayList<>();
+		private final List<String> shardKeys = new ArrayList<>();
+		private final List<String> updateColumns = new ArrayList<>();
+		private int chunkSize = 0;
+		private File journalFile = null;
+		private int copies = 0;
+		private int batchSize = 0;
+		private File exportFile = null;
+		private boolean columnar = false;
+		private int readers = 0;
+		private boolean skipExisting = false;
+		private final List<String> uniqueColumns = new ArrayList<>();
+		private File divertFile = null;
+		private int keySetLimit = 0;
+
+		/**
+		 * constructor.
+		 * @param dataSource data source.
+		 * @param tableName table name.
+		 * @param commandLine true if built by the command line tool.
+		 */
+		private Builder(DataSource dataSource, String tableName, boolean commandLine) {
+			super();
+			this.dataSource = dataSource;
+			this.tableName = tableName;
+			this.commandLine = commandLine;
+		}
+
+		/**
+		 * listener of messages while copying, logged to java.util.logging if none.
+		 * @param listener listener.
+		 * @return this builder.
+		 */
+		public Builder listener(RecordListener listener) {
+			this.listener = listener;
+			return this;
+		}
+
+		/**
+		 * add key to select records to copy.
+		 * @param name key name.
+		 * @param value key value.
+		 * @return this builder.
+		 */
+		public Builder key(String name, String value) {
+			keys.add(name);
+			values.add(value);
+			return this;
+		}
+
+		/**
+		 * copy into another table, columns are mapped by name.
+		 * @param targetTableName target table name.
+		 * @return this builder.
+		 */
+		public Builder target(String targetTableName) {
+			this.targetTableName = targetTableName;
+			return this;
+		}
+
+		/**
+		 * add column to replace value.
+		 * @param column column name.
+		 * @param value replace value.
+		 * @return this builder.
+		 */
+		public Builder replace(String column, String value) {
+			columns.add(column);
+			replaces.add(value);
+			return this;
+		}
+
+		/**
+		 * add column to use default value.
+		 * @param column column name.
+		 * @return this builder.
+		 */
+		public Builder defaultValue(String column) {
+			defaults.add(column);
+			return this;
+		}
+
+		/**
+		 * add column to use NOW().
+		 * @param column column name.
+		 * @return this builder.
+		 */
+		public Builder now(String column) {
+			nowColumns.add(column);
+			return this;
+		}
+
+		/**
+		 * add column to use null.
+		 * @param column column name.
+		 * @return this builder.
+		 */
+		public Builder nullValue(String column) {
+			nulls.add(column);
+			return this;
+		}
+
+		/**
+		 * copy matched rows by primary key in chunks, each chunk in own transaction.
+		 * @param chunkSize chunk size.
+		 * @return this builder.
+		 */
+		public Builder chunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		/**
+		 * checkpoint journal file to resume a killed chunked copy, the last chunk is marked in table jmt_checkpoint of the database.
+		 * @param journalFile journal file.
+		 * @return this builder.
+		 */
+		public Builder journal(File journalFile) {
+			this.journalFile = journalFile;
+			return this;
+		}
+
+		/**
+		 * clone each matched row the number of times, replace values are evaluated as templates.
+		 * @param copies number of copies.
+		 * @return this builder.
+		 */
+		public Builder copies(int copies) {
+			this.copies = copies;
+			return this;
+		}
+
+		/**
+		 * number of rows per insert batch.
+		 * @param batchSize batch size.
+		 * @return this builder.
+		 */
+		public Builder batchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * export matched rows to the binary snapshot file instead of copying.
+		 * @param exportFile snapshot file.
+		 * @return this builder.
+		 */
+		public Builder export(File exportFile) {
+			this.exportFile = exportFile;
+			return this;
+		}
+
+		/**
+		 * write the snapshot in columnar layout.
+		 * @return this builder.
+		 */
+		public Builder columnar() {
+			this.columnar = true;
+			return this;
+		}
+
+		/**
+		 * export primary key ranges in parallel by reader connections on one consistent snapshot.
+		 * @param readers number of reader connections.
+		 * @return this builder.
+		 */
+		public Builder readers(int readers) {
+			this.readers = readers;
+			return this;
+		}
+
+		/**
+		 * insert or update the row of the duplicate key, by ON DUPLICATE KEY UPDATE, ON CONFLICT on PostgreSQL.
+		 * @param updateColumns columns to update on duplicate key, all columns except primary key if none.
+		 * @return this builder.
+		 */
+		public Builder upsert(String... updateColumns) {
+			this.upsert = true;
+			this.updateColumns.addAll(Arrays.asList(updateColumns));
+			return this;
+		}
+
+		/**
+		 * add columns to update on duplicate key without upsert, the command line tool checks the option by the request.
+		 * @param columns column names.
+		 * @return this builder.
+		 */
+		Builder updateColumns(String... columns) {
+			this.updateColumns.addAll(Arrays.asList(columns));
+			return this;
+		}
+
+		/**
+		 * disable unique & foreign key checks of the session while loading, then validate duplicate & orphaned keys.
+		 * execute() fails when invalid keys are found, the loaded rows are committed.
+		 * @return this builder.
+		 */
+		public Builder fastLoad() {
+			this.fastLoad = true;
+			return this;
+		}
+
+		/**
+		 * write rows failed in batches to the reject file with the SQL error, a failed batch is bisected to find them.
+		 * the other rows of the batch are written, execute() counts written rows only.
+		 * @param rejectFile reject file.
+		 * @return this builder.
+		 */
+		public Builder reject(File rejectFile) {
+			this.rejectFile = rejectFile;
+			return this;
+		}
+
+		/**
+		 * route rows to shards by the values of the shard key columns, written in parallel by a connection per shard.
+		 * an integral key value modulo the number of shards is the shard, CRC32 of the string for others.
+		 * @param dataSources data sources of the shards, in shard order.
+		 * @return this builder.
+		 */
+		public Builder shards(DataSource... dataSources) {
+			this.shards.addAll(Arrays.asList(dataSources));
+			return this;
+		}
+
+		/**
+		 * add shard key columns.
+		 * @param columns column names.
+		 * @return this builder.
+		 */
+		public Builder shardKey(String... columns) {
+			this.shardKeys.addAll(Arrays.asList(columns));
+			return this;
+		}
+
+		/**
+		 * shards of the command line tool.
+		 * @param specs HOST[:PORT]/DATABASE of the shards, in shard order.
+		 * @return this builder.
+		 */
+		Builder shardSpecs(String... specs) {
+			this.shardSpecs.addAll(Arrays.asList(specs));
+			return this;
+		}
+
+		/**
+		 * load unique key values of the target into a compact key set & skip rows of existing keys on the client.
+		 * @param uniqueColumns columns of the unique key, primary key if none.
+		 * @return this builder.
+		 */
+		public Builder skipExisting(String... uniqueColumns) {
+			this.skipExisting = true;
+			this.uniqueColumns.addAll(Arrays.asList(uniqueColumns));
+			return this;
+		}
+
+		/**
+		 * add columns of the unique key without skip existing, the command line tool checks the option by the request.
+		 * @param columns column names.
+		 * @return this builder.
+		 */
+		Builder uniqueColumns(String... columns) {
+			this.uniqueColumns.addAll(Arrays.asList(columns));
+			return this;
+		}
+
+		/**
+		 * write rows skipped by skipExisting() to the binary snapshot file.
+		 * @param divertFile snapshot file.
+		 * @return this builder.
+		 */
+		public Builder divert(File divertFile) {
+			this.divertFile = divertFile;
+			return this;
+		}
+
+		/**
+		 * limit memory of the key set of skipExisting().
+		 * @param megabytes maximum MB, 1/4 of the max heap as default.
+		 * @return this builder.
+		 */
+		public Builder keySetLimit(int megabytes) {
+			this.keySetLimit = megabytes;
+			return this;
+		}
+
+		/**
+		 * build request.
+		 * @return copy record request.
+		 * @throws IllegalArgumentException when invalid request.
+		 */
+		public CopyRecordRequest build() {
+			return new CopyRecordRequest(this);
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param builder builder.
+	 */
+	private CopyRecordRequest(Builder builder) {
+		super(builder.dataSource, builder.tableName, builder.columns, builder.replaces, builder.nowColumns, builder.nulls, builder.listener, builder.commandLine);
+		targetTableName = (builder.targetTableName == null) || builder.targetTableName.equalsIgnoreCase(builder.tableName) ? null : builder.targetTableName;
+		keys = toArray(builder.keys);
+		values = toArray(builder.values);
+		defaults = toArray(builder.defaults);
+		chunkSize = builder.chunkSize;
+		journalFile = builder.journalFile;
+		copies = builder.copies;
+		batchSize = builder.batchSize;
+		exportFile = builder.exportFile;
+		columnar = builder.columnar;
+		readers = builder.readers;
+		upsert = builder.upsert;
+		fastLoad = builder.fastLoad;
+		rejectFile = builder.rejectFile;
+		shards = builder.shards.isEmpty() ? null : new ArrayList<>(builder.shards);
+		shardSpecs = toArray(builder.shardSpecs);
+		checkShardSpecs(shardSpecs);
+		shardKeys = toArray(builder.shardKeys);
+		checkDuplicates(shardKeys, "shard key");
+		boolean sharded = (shards != null) || (shardSpecs != null);
+		if (sharded != (shardKeys != null)) {
+			throw new IllegalArgumentException("shard & shard key must be used together.");
+		}
+		updateColumns = toArray(builder.updateColumns);
+		checkDuplicates(updateColumns, "update column");
+		if ((updateColumns != null) && !upsert) {
+			throw new IllegalArgumentException("update column requires upsert.");
+		}
+		skipExisting = builder.skipExisting;
+		uniqueColumns = toArray(builder.uniqueColumns);
+		divertFile = builder.divertFile;
+		keySetLimit = builder.keySetLimit;
+		checkDuplicates(uniqueColumns, "unique column");
+		if (keys == null) {
+			throw new IllegalArgumentException("key is required.");
+		}
+		checkDuplicates(keys, "key name");
+		checkDuplicates(defaults, "column name to use default value");
+		checkDuplicates(defaults, getColumns(), "use column name to use default value", "column name to replace value");
+		checkDuplicates(getNowColumns(), defaults, "use NOW() for the column", "use column name to use default value");
+		checkDuplicates(getNulls(), defaults, "use null for the column", "use column name to use default value");
+		if (chunkSize < 0) {
+			throw new IllegalArgumentException("chunk size must be a positive number.");
+		}
+		if ((journalFile != null) && (chunkSize == 0)) {
+			throw new IllegalArgumentException("checkpoint journal requires chunk size.");
+		}
+		if ((copies < 0) || (batchSize < 0)) {
+			throw new IllegalArgumentException("number of copies & batch size must be positive numbers.");
+		}
+		if ((exportFile != null) && ((chunkSize > 0) || (copies > 0) || upsert || (getColumns() != null) || (defaults != null) ||
+				(getNowColumns() != null) || (getNulls() != null) || (builder.targetTableName != null) || skipExisting || fastLoad || (rejectFile != null))) {
+			throw new IllegalArgumentException("export can not be used with chunk size, copies, upsert, target, skip existing, fast load, reject or column value options.");
+		}
+		if (readers < 0) {
+			throw new IllegalArgumentException("number of readers must be a positive number.");
+		}
+		if ((readers > 0) && (exportFile == null)) {
+			throw new IllegalArgumentException("readers require export.");
+		}
+		if (sharded && ((chunkSize > 0) || (exportFile != null) || skipExisting || fastLoad)) {
+			throw new IllegalArgumentException("shard can not be used with chunk size, export, skip existing or fast load.");
+		}
+		if (fastLoad && upsert) {
+			throw new IllegalArgumentException("fast load can not be used with upsert.");
+		}
+		if (skipExisting && (upsert || (copies > 0))) {
+			throw new IllegalArgumentException("skip existing can not be used with upsert or copies.");
+		}
+		if (!skipExisting && ((uniqueColumns != null) || (divertFile != null) || (keySetLimit != 0))) {
+			throw new IllegalArgumentException("unique column, divert & key set limit require skip existing.");
+		}
+		if (keySetLimit < 0) {
+			throw new IllegalArgumentException("key set limit must be a positive number.");
+		}
+		if ((copies > 0) && (getReplaces() != null)) {
+			for (String replace : getReplaces()) {
+				ValueTemplate.parse(replace);
+			}
+		}
+	}
+
+	/**
+	 * create builder.
+	 * @param dataSource data source to get the connection from.
+	 * @param tableName table name.
+	 * @return builder.
+	 */
+	public static Builder builder(DataSource dataSource, String tableName) {
+		return new Builder(dataSource, tableName, false);
+	}
+
+	/**
+	 * create builder of the command line tool, the request checks the options without data source.
+	 * @param tableName table name.
+	 * @return builder.
+	 */
+	static Builder commandLineBuilder(String tableName) {
+		return new Builder(null, tableName, true);
+	}
+
+	// MARK: - Getters
+	/**
+	 * get target table name.
+	 * @return target table name, null if copied into the table.
+	 */
+	String getTargetTableName() {
+		return targetTableName;
+	}
+
+	/**
+	 * get key names.
+	 * @return key names.
+	 */
+	String[] getKeys() {
+		return keys;
+	}
+
+	/**
+	 * get key values.
+	 * @return key values.
+	 */
+	String[] getValues() {
+		return values;
+	}
+
+	/**
+	 * get column names to use default value.
+	 * @return column names, null if none.
+	 */
+	String[] getDefaults() {
+		return defaults;
+	}
+
+	/**
+	 * get chunk size.
+	 * @return chunk size, 0 if not chunked.
+	 */
+	int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * get checkpoint journal file.
+	 * @return journal file, null if none.
+	 */
+	File getJournalFile() {
+		return journalFile;
+	}
+
+	/**
+	 * get number of copies.
+	 * @return number of copies, 0 if not cloning.
+	 */
+	int getCopies() {
+		return copies;
+	}
+
+	/**
+	 * get insert batch size.
+	 * @return batch size, 0 for default.
+	 */
+	int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * get snapshot file to export.
+	 * @return snapshot file, null if not exporting.
+	 */
+	File getExportFile() {
+		return exportFile;
+	}
+
+	/**
+	 * is columnar snapshot layout.
+	 * @return true if columnar.
+	 */
+	boolean isColumnar() {
+		return columnar;
+	}
+
+	/**
+	 * get number of reader connections of parallel export.
+	 * @return number of readers, 0 if not parallel.
+	 */
+	int getReaders() {
+		return readers;
+	}
+
+	/**
+	 * is upsert mode.
+	 * @return true if upsert.
+	 */
+	boolean isUpsert() {
+		return upsert;
+	}
+
+	/**
+	 * is fast load mode.
+	 * @return true if checks of the session are disabled while loading.
+	 */
+	boolean isFastLoad() {
+		return fastLoad;
+	}
+
+	/**
+	 * get reject file of rows failed in batches.
+	 * @return reject file, null if a failed batch fails.
+	 */
+	File getRejectFile() {
+		return rejectFile;
+	}
+
+	/**
+	 * get data sources of the shards.
+	 * @return data sources in shard order, null if not sharded.
+	 */
+	List<DataSource> getShards() {
+		return shards;
+	}
+
+	/**
+	 * get shards of the command line tool.
+	 * @return HOST[:PORT]/DATABASE of the shards, null if not sharded by the command line tool.
+	 */
+	String[] getShardSpecs() {
+		return shardSpecs;
+	}
+
+	/**
+	 * get shard key columns.
+	 * @return column names, null if not sharded.
+	 */
+	String[] getShardKeys() {
+		return shardKeys;
+	}
+
+	/**
+	 * get columns to update on duplicate key.
+	 * @return column names, null for all columns except primary key.
+	 */
+	String[] getUpdateColumns() {
+		return updateColumns;
+	}
+
+	/**
+	 * is skip existing mode.
+	 * @return true if rows of existing keys are skipped.
+	 */
+	boolean isSkipExisting() {
+		return skipExisting;
+	}
+
+	/**
+	 * get columns of the unique key to check.
+	 * @return column names, null for primary key.
+	 */
+	String[] getUniqueColumns() {
+		return uniqueColumns;
+	}
+
+	/**
+	 * get snapshot file to write skipped rows.
+	 * @return snapshot file, null if skipped rows are dropped.
+	 */
+	File getDivertFile() {
+		return divertFile;
+	}
+
+	/**
+	 * get maximum MB of the key set.
+	 * @return maximum MB, 0 for default.
+	 */
+	int getKeySetLimit() {
+		return keySetLimit;
+	}
+
+	// MARK: - Process
+	/**
+	 * create SQL record tool for this request.
+	 */
+	@Override
+	SQLRecord createRecord() {
+		return new CopyRecord(this);
+	}
+}
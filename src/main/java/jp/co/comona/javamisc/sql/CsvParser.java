@@ -0,0 +1,326 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * CSV record parser over a mapped chunk.
+ * fields are kept as byte ranges of the chunk, integral values are parsed from the bytes & strings are decoded once when bound.
+ * an empty unquoted field is null, "" is an empty string, a quote in a quoted field is escaped by doubling it.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CsvParser {
+
+	// MARK: - Static Properties
+	private static final byte QUOTE = '"';
+	private static final int MAX_FAST_DIGITS = 18;
+
+	// MARK: - Properties
+	private final byte delimiter;
+	private ByteBuffer buffer = null;
+	private long base = 0;
+	private int position = 0;
+	private int limit = 0;
+	private int recordStart = 0;
+	private int fieldCount = 0;
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private boolean[] quoted = new boolean[16];
+	private boolean[] escaped = new boolean[16];
+	private byte[] scratch = new byte[1024];
+	private long longValue = 0;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param delimiter field delimiter.
+	 */
+	CsvParser(char delimiter) {
+		super();
+		this.delimiter = (byte)delimiter;
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of fields of current record.
+	 * @return number of fields.
+	 */
+	int getFieldCount() {
+		return fieldCount;
+	}
+
+	/**
+	 * get file position of current record.
+	 * @return file position.
+	 */
+	long getRecordPosition() {
+		return base + recordStart;
+	}
+
+	/**
+	 * get file position after current record, where parsing resumes.
+	 * @return file position.
+	 */
+	long getNextPosition() {
+		return base + position;
+	}
+
+	/**
+	 * is field null, an empty unquoted field.
+	 * @param field field index, from 0.
+	 * @return true if null.
+	 */
+	boolean isNull(int field) {
+		return !quoted[field] && (starts[field] == ends[field]);
+	}
+
+	/**
+	 * get field as string.
+	 * @param field field index, from 0.
+	 * @return string, null if null.
+	 */
+	String getString(int field) {
+		if (isNull(field)) {
+			return null;
+		}
+		int start = starts[field];
+		int length = ends[field] - start;
+		if (scratch.length < length) {
+			scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+		}
+		if (!escaped[field]) {
+			buffer.position(start);
+			buffer.get(scratch, 0, length);
+			return new String(scratch, 0, length, StandardCharsets.UTF_8);
+		}
+		int count = 0;
+		for (int i = start; i < ends[field]; i++) {
+			byte b = buffer.get(i);
+			scratch[count++] = b;
+			if (b == QUOTE) {
+				i++;	// skip the doubled quote.
+			}
+		}
+		return new String(scratch, 0, count, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * get all fields of current record as strings.
+	 * @return strings, null for null.
+	 */
+	String[] getStrings() {
+		String[] strings = new String[fieldCount];
+		for (int i = 0; i < fieldCount; i++) {
+			strings[i] = getString(i);
+		}
+		return strings;
+	}
+
+	// MARK: - Parse
+	/**
+	 * set the chunk to parse.
+	 * @param buffer buffer of the chunk.
+	 * @param base file position of the chunk.
+	 */
+	void reset(ByteBuffer buffer, long base) {
+		this.buffer = buffer;
+		this.base = base;
+		this.position = 0;
+		this.limit = buffer.limit();
+	}
+
+	/**
+	 * move to next record, blank lines are skipped.
+	 * @return false if no more records.
+	 * @throws IOException when the record is malformed.
+	 */
+	boolean nextRecord() throws IOException {
+		do {
+			if (position >= limit) {
+				return false;
+			}
+			parseRecord();
+		}
+		while ((fieldCount == 1) && isNull(0));
+		return true;
+	}
+
+	/**
+	 * parse a record from the position.
+	 * @throws IOException when the record is malformed.
+	 */
+	private void parseRecord() throws IOException {
+		recordStart = position;
+		fieldCount = 0;
+		while (true) {
+			if (fieldCount == starts.length) {
+				grow();
+			}
+			boolean isQuoted = (position < limit) && (buffer.get(position) == QUOTE);
+			boolean isEscaped = false;
+			int start;
+			int end;
+			if (isQuoted) {
+				start = ++position;
+				while (true) {
+					if (position >= limit) {
+						throw new IOException("unterminated quote of the record at byte " + getRecordPosition() + ".");
+					}
+					if (buffer.get(position) == QUOTE) {
+						if ((position + 1 < limit) && (buffer.get(position + 1) == QUOTE)) {
+							isEscaped = true;
+							position += 2;
+							continue;
+						}
+						break;
+					}
+					position++;
+				}
+				end = position++;
+			}
+			else {
+				start = position;
+				while ((position < limit) && (buffer.get(position) != delimiter) && (buffer.get(position) != '\n')) {
+					position++;
+				}
+				end = position;
+				if ((end > start) && (buffer.get(end - 1) == '\r')) {
+					end--;
+				}
+			}
+			starts[fieldCount] = start;
+			ends[fieldCount] = end;
+			quoted[fieldCount] = isQuoted;
+			escaped[fieldCount] = isEscaped;
+			fieldCount++;
+
+			if (position >= limit) {
+				return;
+			}
+			byte b = buffer.get(position++);
+			if (b == delimiter) {
+				continue;
+			}
+			if (b == '\r') {
+				if ((position < limit) && (buffer.get(position) == '\n')) {
+					position++;
+				}
+				return;
+			}
+			if (b == '\n') {
+				return;
+			}
+			throw new IOException("unexpected character after the quoted field of the record at byte " + getRecordPosition() + ".");
+		}
+	}
+
+	/**
+	 * grow field arrays.
+	 */
+	private void grow() {
+		int size = starts.length * 2;
+		starts = Arrays.copyOf(starts, size);
+		ends = Arrays.copyOf(ends, size);
+		quoted = Arrays.copyOf(quoted, size);
+		escaped = Arrays.copyOf(escaped, size);
+	}
+
+	/**
+	 * parse field as long from the bytes, without a string.
+	 * @param field field index, from 0.
+	 * @return true if parsed into longValue, false for other forms.
+	 */
+	private boolean parseLong(int field) {
+		int start = starts[field];
+		int end = ends[field];
+		boolean negative = (end > start) && (buffer.get(start) == '-');
+		if (negative) {
+			start++;
+		}
+		if ((end == start) || (end - start > MAX_FAST_DIGITS)) {
+			return false;
+		}
+		long value = 0;
+		for (int i = start; i < end; i++) {
+			int digit = buffer.get(i) - '0';
+			if ((digit < 0) || (digit > 9)) {
+				return false;
+			}
+			value = value * 10 + digit;
+		}
+		longValue = negative ? -value : value;
+		return true;
+	}
+
+	// MARK: - Bind
+	/**
+	 * bind field of current record to prepared statement, converted by column type.
+	 * other forms than the fast paths are converted as the column values of the command line.
+	 * @param ps prepared statement.
+	 * @param psIndex prepared statement index.
+	 * @param field field index, from 0.
+	 * @param columnName column name.
+	 * @param columnType column type.
+	 * @throws Exception when error.
+	 */
+	void bind(PreparedStatement ps, int psIndex, int field, String columnName, int columnType) throws Exception {
+		if (isNull(field)) {
+			ps.setNull(psIndex, columnType);
+			return;
+		}
+		switch (columnType) {
+			case Types.INTEGER:
+			case Types.BIGINT:
+				if (parseLong(field)) {
+					if (columnType == Types.BIGINT) {
+						ps.setLong(psIndex, longValue);
+						return;
+					}
+					if (longValue == (int)longValue) {
+						ps.setInt(psIndex, (int)longValue);
+						return;
+					}
+				}
+				break;
+			case Types.DATE:
+			case Types.TIME:
+			case Types.TIMESTAMP:
+				String value = getString(field);
+				try {
+					if (columnType == Types.DATE) {
+						ps.setDate(psIndex, Date.valueOf(value));
+					}
+					else if (columnType == Types.TIME) {
+						ps.setTime(psIndex, Time.valueOf(value));
+					}
+					else {
+						ps.setTimestamp(psIndex, Timestamp.valueOf(value));
+					}
+					return;
+				}
+				catch (IllegalArgumentException ignored) {}
+				SQLRecord.setColumnValue(ps, psIndex, columnName, columnType, value);
+				return;
+			case Types.CHAR:
+			case Types.VARCHAR:
+			case Types.LONGVARCHAR:
+			case Types.NCHAR:
+			case Types.NVARCHAR:
+			case Types.CLOB:
+				ps.setString(psIndex, getString(field));
+				return;
+
+			default:
+				break;
+		}
+		SQLRecord.setColumnValue(ps, psIndex, columnName, columnType, getString(field));
+	}
+}
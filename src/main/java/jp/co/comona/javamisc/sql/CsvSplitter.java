@@ -0,0 +1,119 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * CSV file splitter.
+ * the file is memory-mapped in windows & split into chunks of whole records, a chunk ends at a newline outside of quotes.
+ * only the quote parity is tracked, so splitting runs far ahead of the parsers of the chunks.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CsvSplitter implements Closeable {
+
+	// MARK: - Static Properties
+	private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+	// MARK: - Properties
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long fileSize;
+	private MappedByteBuffer window = null;
+	private long windowStart = 0;
+	private long position = 0;
+	private long chunkStart = 0;
+	private long chunkEnd = 0;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param file CSV file.
+	 * @throws IOException when I/O error.
+	 */
+	CsvSplitter(File file) throws IOException {
+		super();
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.fileSize = channel.size();
+	}
+
+	// MARK: - Getters
+	/**
+	 * get start of current chunk.
+	 * @return file position.
+	 */
+	long getChunkStart() {
+		return chunkStart;
+	}
+
+	/**
+	 * get end of current chunk.
+	 * @return file position, exclusive.
+	 */
+	long getChunkEnd() {
+		return chunkEnd;
+	}
+
+	// MARK: - Split
+	/**
+	 * move to next chunk.
+	 * @param size minimum size of the chunk, 1 for a single record.
+	 * @return false if no more chunks.
+	 * @throws IOException when I/O error.
+	 */
+	boolean next(long size) throws IOException {
+		if (position >= fileSize) {
+			return false;
+		}
+		chunkStart = position;
+		long target = position + size - 1;
+		boolean quoted = false;
+		while (position < fileSize) {
+			if ((window == null) || (position < windowStart) || (position >= windowStart + window.limit())) {
+				windowStart = position;
+				window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(fileSize - position, WINDOW_SIZE));
+			}
+			int limit = window.limit();
+			for (int i = (int)(position - windowStart); i < limit; i++) {
+				byte b = window.get(i);
+				if (b == '"') {
+					quoted = !quoted;
+				}
+				else if ((b == '\n') && !quoted && (windowStart + i >= target)) {
+					position = windowStart + i + 1;
+					chunkEnd = position;
+					return true;
+				}
+			}
+			position = windowStart + limit;
+		}
+		chunkEnd = fileSize;
+		return true;
+	}
+
+	/**
+	 * map a chunk, safe to call from the parser threads.
+	 * @param start start position.
+	 * @param end end position, exclusive.
+	 * @return mapped buffer.
+	 * @throws IOException when I/O error.
+	 */
+	MappedByteBuffer map(long start, long end) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+	}
+
+	// MARK: - Close
+	/**
+	 * close CSV file.
+	 * @throws IOException when I/O error.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
@@ -0,0 +1,187 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+
+/**
+ * result set metadata copied out of the result set.
+ * some drivers refuse metadata access after the result set is closed, this copy stays valid.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class DetachedMetaData implements ResultSetMetaData {
+
+	// MARK: - Properties
+	private final String[] columnNames;
+	private final String[] columnLabels;
+	private final int[] columnTypes;
+	private final String[] columnTypeNames;
+	private final String[] columnClassNames;
+	private final int[] nullables;
+	private final boolean[] autoIncrements;
+	private final boolean[] signeds;
+	private final int[] precisions;
+	private final int[] scales;
+	private final int[] displaySizes;
+	private final String[] tableNames;
+	private final String[] catalogNames;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param meta metadata to copy.
+	 * @throws SQLException when SQL error.
+	 */
+	DetachedMetaData(ResultSetMetaData meta) throws SQLException {
+		super();
+		int count = meta.getColumnCount();
+		columnNames = new String[count];
+		columnLabels = new String[count];
+		columnTypes = new int[count];
+		columnTypeNames = new String[count];
+		columnClassNames = new String[count];
+		nullables = new int[count];
+		autoIncrements = new boolean[count];
+		signeds = new boolean[count];
+		precisions = new int[count];
+		scales = new int[count];
+		displaySizes = new int[count];
+		tableNames = new String[count];
+		catalogNames = new String[count];
+		for (int i = 0; i < count; i++) {
+			int column = i + 1;
+			columnNames[i] = meta.getColumnName(column);
+			columnLabels[i] = meta.getColumnLabel(column);
+			columnTypes[i] = meta.getColumnType(column);
+			columnTypeNames[i] = meta.getColumnTypeName(column);
+			columnClassNames[i] = meta.getColumnClassName(column);
+			nullables[i] = meta.isNullable(column);
+			autoIncrements[i] = meta.isAutoIncrement(column);
+			signeds[i] = meta.isSigned(column);
+			precisions[i] = meta.getPrecision(column);
+			scales[i] = meta.getScale(column);
+			displaySizes[i] = meta.getColumnDisplaySize(column);
+			tableNames[i] = meta.getTableName(column);
+			catalogNames[i] = meta.getCatalogName(column);
+		}
+	}
+
+	// MARK: - ResultSetMetaData
+	@Override
+	public int getColumnCount() {
+		return columnNames.length;
+	}
+
+	@Override
+	public boolean isAutoIncrement(int column) {
+		return autoIncrements[column - 1];
+	}
+
+	@Override
+	public boolean isCaseSensitive(int column) {
+		return false;
+	}
+
+	@Override
+	public boolean isSearchable(int column) {
+		return true;
+	}
+
+	@Override
+	public boolean isCurrency(int column) {
+		return false;
+	}
+
+	@Override
+	public int isNullable(int column) {
+		return nullables[column - 1];
+	}
+
+	@Override
+	public boolean isSigned(int column) {
+		return signeds[column - 1];
+	}
+
+	@Override
+	public int getColumnDisplaySize(int column) {
+		return displaySizes[column - 1];
+	}
+
+	@Override
+	public String getColumnLabel(int column) {
+		return columnLabels[column - 1];
+	}
+
+	@Override
+	public String getColumnName(int column) {
+		return columnNames[column - 1];
+	}
+
+	@Override
+	public String getSchemaName(int column) {
+		return "";
+	}
+
+	@Override
+	public int getPrecision(int column) {
+		return precisions[column - 1];
+	}
+
+	@Override
+	public int getScale(int column) {
+		return scales[column - 1];
+	}
+
+	@Override
+	public String getTableName(int column) {
+		return tableNames[column - 1];
+	}
+
+	@Override
+	public String getCatalogName(int column) {
+		return catalogNames[column - 1];
+	}
+
+	@Override
+	public int getColumnType(int column) {
+		return columnTypes[column - 1];
+	}
+
+	@Override
+	public String getColumnTypeName(int column) {
+		return columnTypeNames[column - 1];
+	}
+
+	@Override
+	public boolean isReadOnly(int column) {
+		return false;
+	}
+
+	@Override
+	public boolean isWritable(int column) {
+		return true;
+	}
+
+	@Override
+	public boolean isDefinitelyWritable(int column) {
+		return false;
+	}
+
+	@Override
+	public String getColumnClassName(int column) {
+		return columnClassNames[column - 1];
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("not a wrapper for " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+}
@@ -5,9 +5,23 @@ import org.apache.commons.cli.CommandLineParser;
 import org.apache.commons.cli.DefaultParser;
 import org.apache.commons.cli.Options;
 
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
  * insert SQL record tool.
@@ -19,6 +33,35 @@ public class InsertRecord extends SQLRecord {
 	// MARK: - Static Properties
 	private static final char REPLACE_SHORT_OPTION = 'v';
 	private static final String REPLACE_SHORT_OPTION_STR = "" + REPLACE_SHORT_OPTION;
+	private static final int DEFAULT_THREADS = 4;
+	private static final int DEFAULT_BATCH_SIZE = 1000;
+	private static final int DEFAULT_MIN_LENGTH = 8;
+	private static final int DEFAULT_MAX_LENGTH = 32;
+	private static final char DEFAULT_DELIMITER = ',';
+	private static final long CSV_CHUNK_SIZE = 16L * 1024 * 1024;
+	private static final long[] NO_MORE_CHUNKS = new long[0];
+
+	// MARK: - Properties
+	private long generateCount = 0;
+	private int threads = DEFAULT_THREADS;
+	private int batchSize = DEFAULT_BATCH_SIZE;
+	private double rate = 0;
+	private double nullRatio = 0;
+	private int minLength = DEFAULT_MIN_LENGTH;
+	private int maxLength = DEFAULT_MAX_LENGTH;
+	private int defaultDistribution = ColumnGenerator.DISTRIBUTION_UNIFORM;
+	private Map<String, Long> cardinalities = new HashMap<>();
+	private Map<String, Integer> distributions = new HashMap<>();
+	private volatile boolean writerFailed = false;
+	private File snapshotFile = null;
+	private int[] fileColumns = null;	// column of the snapshot or CSV file by column index - 1, 0 if not in the file.
+	private File csvFile = null;
+	private boolean csvHeader = false;
+	private char delimiter = DEFAULT_DELIMITER;
+	private boolean sort = false;
+	private int sortMemory = 0;
+	private CheckpointJournal journal = null;
+	private CheckpointMarker marker = null;
 
 	// MARK: - Constructor
 	/**
@@ -30,15 +73,118 @@ public class InsertRecord extends SQLRecord {
 		super(options, cmd);
 	}
 
+	/**
+	 * constructor for programmatic use.
+	 * @param request insert record request.
+	 */
+	InsertRecord(InsertRecordRequest request) {
+		super(request.getDataSource(), request.getTableName());
+		apply(request);
+	}
+
+	/**
+	 * apply request checked by the builder, of the programmatic use or the command line.
+	 * @param request insert record request.
+	 */
+	private void apply(InsertRecordRequest request) {
+		applyListener(request);
+		columns = request.getColumns();
+		replaces = request.getValues();
+		nowColumns = request.getNowColumns();
+		nulls = request.getNulls();
+		generateCount = request.getGenerateCount();
+		threads = request.getThreads();
+		batchSize = request.getBatchSize();
+		rate = request.getRate();
+		nullRatio = request.getNullRatio();
+		minLength = request.getMinLength();
+		maxLength = request.getMaxLength();
+		defaultDistribution = request.getDefaultDistribution();
+		cardinalities = request.getCardinalities();
+		distributions = request.getDistributions();
+		snapshotFile = request.getSnapshotFile();
+		sort = request.isSort();
+		sortMemory = request.getSortMemory();
+		upsert = request.isUpsert();
+		updateColumns = request.getUpdateColumns();
+		fastLoad = request.isFastLoad();
+		rejectFile = request.getRejectFile();
+		shardDataSources = request.getShards();
+		shards = request.getShardSpecs();
+		shardKeys = request.getShardKeys();
+		csvFile = request.getCsvFile();
+		csvHeader = request.isCsvHeader();
+		delimiter = request.getDelimiter();
+		journalFile = request.getJournalFile();
+	}
+
 	// MARK: - Process
+	/**
+	 * get number of writer connections of --generate or --csv, taken with the connection from a pool.
+	 */
+	@Override
+	protected int getParallelConnectionCount() {
+		if (generateCount > 0) {
+			return threads;
+		}
+		return (snapshotFile == null) && (csvFile != null) ? threads : 0;
+	}
+
 	/**
 	 * do process.
 	 */
 	@Override
 	protected void doProcess() throws Exception {
-		StringBuilder sql = new StringBuilder(SQL_INSERT_INTO);
-		sql.append(tableName).append(SQL_VALUES_START);
+		if ((generateCount > 0) || (snapshotFile != null) || (csvFile != null)) {
+			openJournal();
+			try {
+				if (generateCount > 0) {
+					doGenerateProcess();
+				}
+				else if (snapshotFile != null) {
+					doSnapshotProcess();
+				}
+				else {
+					doCsvProcess();
+				}
+				if (marker != null) {
+					marker.remove(con);
+					commitMarker();
+				}
+			}
+			finally {
+				if (journal != null) {
+					journal.close();
+					journal = null;
+				}
+			}
+			return;
+		}
+
 		Map<String, Integer> columnIndexMap = new HashMap<>();
+		String sql = createInsertSql(columnIndexMap, null);
+		//System.out.println(sql);
+
+		// create prepared statement.
+		try (PreparedStatement ps = con.prepareStatement(sql)) {
+			bindColumnValues(ps, columnIndexMap);
+			ps.execute();
+			recordCount++;
+		}
+	}
+
+	/**
+	 * create insert SQL, columns bound per row are set to bulkColumns unless the SQL has NOW() or null values.
+	 * @param columnIndexMap column to prepared statement index map, filled by this method.
+	 * @param boundIndexes prepared statement index of columns bound per row (generated or replayed) by column index - 1, filled by this method, null if none.
+	 * @return insert SQL.
+	 * @throws SQLException when SQL error.
+	 */
+	private String createInsertSql(Map<String, Integer> columnIndexMap, int[] boundIndexes) throws SQLException {
+		StringBuilder sql = new StringBuilder(SQL_INSERT_INTO);
+		sql.append(quotedTableName).append(SQL_VALUES_START);
+		List<String> boundColumns = new ArrayList<>();
+		boolean literal = false;
 		int defaultCount = 0;
 		for (int i = 0; i < meta.getColumnCount(); i++) {
 			int columnIndex = i + 1;
@@ -48,37 +194,580 @@ public class InsertRecord extends SQLRecord {
 			String colName = meta.getColumnName(columnIndex);
 			if (putColumnIndex(columnIndexMap, colName, columnIndex - defaultCount)) {
 				sql.append(SQL_PREPARED_MARK);
+				boundColumns.add(colName);
 			}
 			else {
 				if (isNowValueColumn(columnIndex)) {
-					sql.append(SQL_NOW);
+					sql.append(getDialect().now());
+					literal = true;
 				}
 				else if (isNullValueColumn(columnIndex)) {
 					sql.append(SQL_NULL);
+					literal = true;
+				}
+				else if ((boundIndexes != null) && isBoundColumn(columnIndex)) {
+					sql.append(SQL_PREPARED_MARK);
+					boundColumns.add(colName);
+					boundIndexes[i] = columnIndex - defaultCount;
+					continue;
 				}
 				else {
-					sql.append(SQL_DEFAULT);
+					sql.append(getDialect().defaultValue());
 				}
 				defaultCount++;
 			}
 		}
 		sql.append(SQL_VALUES_END);
-		//System.out.println(sql.toString());
+		bulkColumns = literal ? null : boundColumns;
+		parameterColumns = boundColumns;
+		appendUpsertClause(sql);
+		return sql.toString();
+	}
 
-		// create prepared statement.
-		try (PreparedStatement ps = con.prepareStatement(sql.toString())) {
-			defaultCount = 0;
-			for (int i = 0; i < meta.getColumnCount(); i++) {
+	/**
+	 * is column bound per row, a column in the snapshot or CSV file when importing, a column without auto increment when generating.
+	 * @param columnIndex column index.
+	 * @return true if bound per row.
+	 * @throws SQLException when SQL error.
+	 */
+	private boolean isBoundColumn(int columnIndex) throws SQLException {
+		if (fileColumns != null) {
+			return fileColumns[columnIndex - 1] > 0;
+		}
+		return !meta.isAutoIncrement(columnIndex);
+	}
+
+	/**
+	 * bind column values to insert prepared statement.
+	 * @param ps insert prepared statement.
+	 * @param columnIndexMap column to prepared statement index map.
+	 * @throws Exception when error.
+	 */
+	private void bindColumnValues(PreparedStatement ps, Map<String, Integer> columnIndexMap) throws Exception {
+		for (int i = 0; i < meta.getColumnCount(); i++) {
+			int columnIndex = i + 1;
+			putColumnValue(ps, columnIndexMap, meta.getColumnName(columnIndex), meta.getColumnType(columnIndex));
+		}
+	}
+
+	/**
+	 * do generate process.
+	 * writes random rows generated from the column metadata by parallel writer connections.
+	 * @throws Exception when error.
+	 */
+	private void doGenerateProcess() throws Exception {
+		final Map<String, Integer> columnIndexMap = new HashMap<>();
+		final int[] generatedIndexes = new int[meta.getColumnCount()];
+		final String sql = createInsertSql(columnIndexMap, generatedIndexes);
+		final ColumnGenerator[] generators = new ColumnGenerator[generatedIndexes.length];
+		for (int i = 0; i < generators.length; i++) {
+			if (generatedIndexes[i] > 0) {
 				int columnIndex = i + 1;
-				String colName = meta.getColumnName(columnIndex);
-				int columnType = meta.getColumnType(columnIndex);
-				if (!putColumnValue(ps, columnIndexMap, colName, columnType)) {
-					if (isNowValueColumn(columnIndex) || isNullValueColumn(columnIndex)) {
-						defaultCount++;
+				String colName = meta.getColumnName(columnIndex).toLowerCase();
+				Long cardinality = cardinalities.get(colName);
+				Integer distribution = distributions.get(colName);
+				generators[i] = new ColumnGenerator(meta, columnIndex, cardinality != null ? cardinality : 0,
+						distribution != null ? distribution : defaultDistribution, nullRatio, minLength, maxLength);
+			}
+		}
+		final RateLimiter limiter = rate > 0 ? new RateLimiter(rate) : null;
+
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Long>> futures = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				final int writer = t;
+				final long rows = generateCount / threads + (t < generateCount % threads ? 1 : 0);
+				final long done = getCommittedCount(writer);
+				futures.add(executor.submit(new Callable<Long>() {
+					@Override
+					public Long call() throws Exception {
+						return generateRows(writer, rows, done, sql, columnIndexMap, generatedIndexes, generators, limiter);
+					}
+				}));
+			}
+			Exception error = null;
+			for (Future<Long> future : futures) {
+				try {
+					recordCount += future.get();
+				}
+				catch (ExecutionException e) {
+					writerFailed = true;
+					if (error == null) {
+						error = e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
 					}
 				}
 			}
-			ps.execute();
+			if (error != null) {
+				throw error;
+			}
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * do snapshot process.
+	 * replays rows of a binary snapshot file, values are bound straight from the memory-mapped file.
+	 * columns are matched by name, column values, NOW() & null options override the snapshot.
+	 * with sort, rows are inserted in primary key order so the table & its clustered index are appended sequentially.
+	 * @throws Exception when error.
+	 */
+	private void doSnapshotProcess() throws Exception {
+		try (SnapshotReader reader = new SnapshotReader(snapshotFile); SnapshotSorter sorter = sort ? createSorter(reader) : null) {
+			fileColumns = new int[meta.getColumnCount()];
+			for (int i = 0; i < fileColumns.length; i++) {
+				fileColumns[i] = reader.findColumn(meta.getColumnName(i + 1));
+			}
+			for (int i = 1; i <= reader.getColumnCount(); i++) {
+				if (findColumnIndex(reader.getColumnName(i)) == 0) {
+					warn("column " + reader.getColumnName(i) + " of snapshot is not in " + tableName + ", ignored.");
+				}
+			}
+			Map<String, Integer> columnIndexMap = new HashMap<>();
+			int[] boundIndexes = new int[meta.getColumnCount()];
+			String sql = createInsertSql(columnIndexMap, boundIndexes);
+			SnapshotRows rows = reader;
+			if (sorter != null) {
+				sorter.sort();
+				info("sorted by primary key" + (sorter.getRunCount() > 0 ? " through " + sorter.getRunCount() + " runs." : " in memory."));
+				rows = sorter;
+			}
+
+			long done = getCommittedCount(0);
+			long skipped = 0;
+			while ((skipped < done) && rows.next()) {
+				skipped++;	// committed by the run resumed.
+			}
+
+			boolean autoCommit = con.getAutoCommit();
+			con.setAutoCommit(false);
+			try (PreparedStatement ps = prepareBulkInsert(con, sql)) {
+				int pending = 0;
+				long written = done;
+				while (rows.next()) {
+					bindColumnValues(ps, columnIndexMap);
+					for (int i = 0; i < boundIndexes.length; i++) {
+						if (boundIndexes[i] > 0) {
+							rows.bind(ps, boundIndexes[i], fileColumns[i]);
+						}
+					}
+					ps.addBatch();
+					if (++pending == batchSize) {
+						executeBatch(ps, pending);
+						written += pending;
+						commitBatch(con, pending, 0, 0, written);
+						recordCount += pending;
+						pending = 0;
+					}
+				}
+				if (pending > 0) {
+					executeBatch(ps, pending);
+					written += pending;
+					commitBatch(con, pending, 0, 0, written);
+					recordCount += pending;
+				}
+			}
+			catch (Exception e) {
+				con.rollback();
+				throw e;
+			}
+			finally {
+				con.setAutoCommit(autoCommit);
+			}
+		}
+	}
+
+	/**
+	 * create sorter of snapshot rows by primary key.
+	 * @param reader snapshot reader.
+	 * @return sorter, null if the primary key is not in the snapshot.
+	 * @throws SQLException when SQL error.
+	 */
+	private SnapshotSorter createSorter(SnapshotReader reader) throws SQLException {
+		String[] primaryKeys = loadPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			warn(tableName + " has no primary key, rows are inserted as is.");
+			return null;
+		}
+		int[] keyColumns = new int[primaryKeys.length];
+		for (int i = 0; i < primaryKeys.length; i++) {
+			keyColumns[i] = reader.findColumn(primaryKeys[i]);
+			if (keyColumns[i] == 0) {
+				warn("primary key " + primaryKeys[i] + " is not in snapshot, rows are inserted as is.");
+				return null;
+			}
+		}
+		long memoryBudget = sortMemory > 0 ? sortMemory * 1024L * 1024 : Runtime.getRuntime().maxMemory() / 4;
+		return new SnapshotSorter(reader, keyColumns, memoryBudget, listener);
+	}
+
+	/**
+	 * do CSV process.
+	 * the memory-mapped file is split into chunks of whole records, the chunks are parsed & written in parallel by writer connections.
+	 * fields are matched to columns by the header with --csv-header, or in column order, column values, NOW() & null options override the fields.
+	 * @throws Exception when error.
+	 */
+	private void doCsvProcess() throws Exception {
+		try (final CsvSplitter splitter = new CsvSplitter(csvFile)) {
+			final int fieldCount = mapCsvColumns(splitter);
+			final Map<String, Integer> columnIndexMap = new HashMap<>();
+			final int[] boundIndexes = new int[meta.getColumnCount()];
+			final String sql = createInsertSql(columnIndexMap, boundIndexes);
+			final BlockingQueue<long[]> chunks = new ArrayBlockingQueue<>(threads * 2);
+
+			ExecutorService executor = Executors.newFixedThreadPool(threads);
+			try {
+				List<Future<Long>> futures = new ArrayList<>();
+				for (int t = 0; t < threads; t++) {
+					final int writer = t;
+					futures.add(executor.submit(new Callable<Long>() {
+						@Override
+						public Long call() throws Exception {
+							try {
+								return importChunks(writer, splitter, chunks, fieldCount, sql, columnIndexMap, boundIndexes);
+							}
+							catch (Exception e) {
+								writerFailed = true;	// the splitter stops offering chunks.
+								throw e;
+							}
+						}
+					}));
+				}
+				try {
+					for (long index = 0; !writerFailed && splitter.next(CSV_CHUNK_SIZE); index++) {
+						long start = getCommittedPosition((int)index, splitter.getChunkStart());
+						if (start < splitter.getChunkEnd()) {
+							offerChunk(chunks, new long[] { start, splitter.getChunkEnd(), index });
+						}
+					}
+				}
+				finally {
+					for (int t = 0; t < threads; t++) {
+						offerChunk(chunks, NO_MORE_CHUNKS);
+					}
+				}
+				Exception error = null;
+				for (Future<Long> future : futures) {
+					try {
+						recordCount += future.get();
+					}
+					catch (ExecutionException e) {
+						writerFailed = true;
+						if (error == null) {
+							error = e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+						}
+					}
+				}
+				if (error != null) {
+					throw error;
+				}
+			}
+			finally {
+				executor.shutdownNow();
+			}
+		}
+	}
+
+	/**
+	 * map CSV fields to columns, the header record is consumed with --csv-header.
+	 * @param splitter CSV splitter.
+	 * @return number of fields of a record.
+	 * @throws IOException when I/O error or the header is malformed.
+	 * @throws SQLException when SQL error.
+	 */
+	private int mapCsvColumns(CsvSplitter splitter) throws IOException, SQLException {
+		fileColumns = new int[meta.getColumnCount()];
+		if (!csvHeader) {
+			for (int i = 0; i < fileColumns.length; i++) {
+				fileColumns[i] = i + 1;
+			}
+			return fileColumns.length;
+		}
+		CsvParser parser = new CsvParser(delimiter);
+		if (!splitter.next(1)) {
+			throw new IOException(csvFile + " has no header.");
+		}
+		parser.reset(splitter.map(splitter.getChunkStart(), splitter.getChunkEnd()), 0);
+		if (!parser.nextRecord()) {
+			throw new IOException(csvFile + " has no header.");
+		}
+		for (int field = 0; field < parser.getFieldCount(); field++) {
+			String name = parser.getString(field);
+			int columnIndex = name != null ? findColumnIndex(name) : 0;
+			if (columnIndex == 0) {
+				warn("column " + name + " of CSV header is not in " + tableName + ", ignored.");
+			}
+			else {
+				fileColumns[columnIndex - 1] = field + 1;
+			}
+		}
+		return parser.getFieldCount();
+	}
+
+	/**
+	 * offer a chunk to the writers, gives up when a writer failed.
+	 * @param chunks chunk queue.
+	 * @param chunk start & end of the chunk.
+	 * @throws InterruptedException when interrupted.
+	 */
+	private void offerChunk(BlockingQueue<long[]> chunks, long[] chunk) throws InterruptedException {
+		while (!chunks.offer(chunk, 100, TimeUnit.MILLISECONDS)) {
+			if (writerFailed) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * parse & write chunks of CSV records by a writer connection, the last batch of a chunk is committed at the end of the chunk.
+	 * @param writer writer id.
+	 * @param splitter CSV splitter to map the chunks.
+	 * @param chunks chunk queue of start, end & index of the chunks, ends with NO_MORE_CHUNKS.
+	 * @param fieldCount number of fields of a record.
+	 * @param sql insert SQL.
+	 * @param columnIndexMap column to prepared statement index map.
+	 * @param boundIndexes prepared statement index of columns bound per row.
+	 * @return number of rows written.
+	 * @throws Exception when error.
+	 */
+	private long importChunks(int writer, CsvSplitter splitter, BlockingQueue<long[]> chunks, int fieldCount, String sql, Map<String, Integer> columnIndexMap, int[] boundIndexes) throws Exception {
+		long written = 0;
+		CsvParser parser = new CsvParser(delimiter);
+		String[] columnNames = new String[boundIndexes.length];
+		int[] columnTypes = new int[boundIndexes.length];
+		for (int i = 0; i < boundIndexes.length; i++) {
+			columnNames[i] = meta.getColumnName(i + 1);
+			columnTypes[i] = meta.getColumnType(i + 1);
+		}
+		try (Connection connection = openConnection()) {
+			boolean disabled = disableSessionChecks(connection);
+			connection.setAutoCommit(false);
+			try (PreparedStatement ps = prepareBulkInsert(connection, sql)) {
+				int pending = 0;
+				long[] chunk;
+				while (!writerFailed && ((chunk = chunks.take()) != NO_MORE_CHUNKS)) {
+					parser.reset(splitter.map(chunk[0], chunk[1]), chunk[0]);
+					while (parser.nextRecord()) {
+						String error = null;
+						if (parser.getFieldCount() != fieldCount) {
+							error = "record at byte " + parser.getRecordPosition() + " has " + parser.getFieldCount() + " fields, " + fieldCount + " expected.";
+						}
+						else {
+							try {
+								bindColumnValues(ps, columnIndexMap);
+								for (int i = 0; i < boundIndexes.length; i++) {
+									if (boundIndexes[i] > 0) {
+										parser.bind(ps, boundIndexes[i], fileColumns[i] - 1, columnNames[i], columnTypes[i]);
+									}
+								}
+							}
+							catch (Exception e) {
+								if (rejectWriter == null) {
+									throw e;
+								}
+								error = "record at byte " + parser.getRecordPosition() + ", " + e;
+							}
+						}
+						if (error != null) {
+							if (rejectWriter == null) {
+								throw new IOException(error);
+							}
+							rejectWriter.reject(parser.getStrings(), error);	// unparseable records are rejected before the batch.
+							continue;
+						}
+						ps.addBatch();
+						if (++pending == batchSize) {
+							executeBatch(ps, pending);
+							commitBatch(connection, pending, writer, (int)chunk[2], parser.getNextPosition());
+							written += pending;
+							pending = 0;
+						}
+					}
+					if (pending > 0) {
+						executeBatch(ps, pending);
+						commitBatch(connection, pending, writer, (int)chunk[2], chunk[1]);
+						written += pending;
+						pending = 0;
+					}
+				}
+			}
+			catch (Exception e) {
+				writerFailed = true;
+				connection.rollback();
+				throw e;
+			}
+			finally {
+				restoreSessionChecks(connection, disabled);
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * find column of table by name.
+	 * @param name column name.
+	 * @return column index, 0 if not found.
+	 * @throws SQLException when SQL error.
+	 */
+	private int findColumnIndex(String name) throws SQLException {
+		for (int i = 1; i <= meta.getColumnCount(); i++) {
+			if (meta.getColumnName(i).compareToIgnoreCase(name) == 0) {
+				return i;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * generate rows by own connection, a transaction is committed per batch.
+	 * @param writer writer id, journaled with the number of rows committed.
+	 * @param rows number of rows to generate.
+	 * @param done number of rows committed by the run resumed.
+	 * @param sql insert SQL.
+	 * @param columnIndexMap column to prepared statement index map.
+	 * @param generatedIndexes prepared statement index of generated columns.
+	 * @param generators column generators.
+	 * @param limiter rate limiter, null if unlimited.
+	 * @return number of rows written.
+	 * @throws Exception when error.
+	 */
+	private long generateRows(int writer, long rows, long done, String sql, Map<String, Integer> columnIndexMap, int[] generatedIndexes, ColumnGenerator[] generators, RateLimiter limiter) throws Exception {
+		long written = done;
+		try (Connection connection = openConnection()) {
+			boolean disabled = disableSessionChecks(connection);
+			connection.setAutoCommit(false);
+			try (PreparedStatement ps = prepareBulkInsert(connection, sql)) {
+				int pending = 0;
+				while ((written + pending < rows) && !writerFailed) {
+					bindColumnValues(ps, columnIndexMap);
+					for (int i = 0; i < generators.length; i++) {
+						if (generators[i] != null) {
+							generators[i].bind(ps, generatedIndexes[i]);
+						}
+					}
+					ps.addBatch();
+					if ((++pending == batchSize) || (written + pending == rows)) {
+						if (limiter != null) {
+							limiter.acquire(pending);
+						}
+						executeBatch(ps, pending);
+						written += pending;
+						commitBatch(connection, pending, writer, writer, written);
+						pending = 0;
+					}
+				}
+			}
+			catch (Exception e) {
+				writerFailed = true;
+				connection.rollback();
+				throw e;
+			}
+			finally {
+				restoreSessionChecks(connection, disabled);
+			}
+		}
+		return written - done;
+	}
+
+	// MARK: - Checkpoint
+	/**
+	 * open checkpoint journal & create the marker table, if journaling.
+	 * @throws Exception when error.
+	 */
+	private void openJournal() throws Exception {
+		if (journalFile == null) {
+			return;
+		}
+		long fingerprint = createFingerprint();
+		journal = CheckpointJournal.open(journalFile, fingerprint);
+		marker = new CheckpointMarker(fingerprint);
+		marker.create(con);
+		commitMarker();
+		if (journal.isResuming()) {
+			info("resuming from checkpoint journal " + journalFile + ".");
+		}
+	}
+
+	/**
+	 * commit the marker table change on the connection, unless auto commit.
+	 * @throws SQLException when SQL error.
+	 */
+	private void commitMarker() throws SQLException {
+		if (!con.getAutoCommit()) {
+			commit(con, 0);
+		}
+	}
+
+	/**
+	 * get committed position of a journal worker, a snapshot row count, a generator row count or a CSV offset in a chunk.
+	 * the position in doubt, killed between the commit & the journal, is committed if the checkpoint marker has its sequence.
+	 * @param worker journal worker, the writer or the CSV chunk index.
+	 * @param start position if nothing committed.
+	 * @return committed position.
+	 * @throws Exception when error.
+	 */
+	private long getCommittedPosition(int worker, long start) throws Exception {
+		if (journal == null) {
+			return start;
+		}
+		Object[] inDoubt = journal.getInDoubt(worker);
+		if ((inDoubt != null) && marker.isMarked(con, journal.getInDoubtSequence(worker))) {
+			journal.commit(worker, inDoubt);
+		}
+		Object[] committed = journal.getCommitted(worker);
+		return committed != null ? ((Number)committed[0]).longValue() : start;
+	}
+
+	/**
+	 * get number of rows committed by a writer of the run resumed.
+	 * @param writer writer id.
+	 * @return number of rows.
+	 * @throws Exception when error.
+	 */
+	private long getCommittedCount(int writer) throws Exception {
+		long done = getCommittedPosition(writer, 0);
+		if (done > 0) {
+			info("writer " + writer + " resumes after " + done + " rows.");
+		}
+		return done;
+	}
+
+	/**
+	 * commit a batch, with checkpoint journal the position after the batch is prepared, marked in the batch transaction & committed.
+	 * @param connection connection of the writer.
+	 * @param rows number of rows of the batch.
+	 * @param writer writer id of the marker.
+	 * @param worker journal worker, the writer or the CSV chunk index.
+	 * @param position position after the batch.
+	 * @throws Exception when error.
+	 */
+	private void commitBatch(Connection connection, long rows, int writer, int worker, long position) throws Exception {
+		if (journal == null) {
+			commit(connection, rows);
+			return;
+		}
+		Object[] values = { position };
+		marker.mark(connection, writer, journal.prepare(worker, values));
+		commit(connection, rows);
+		journal.commit(worker, values);
+	}
+
+	/**
+	 * append values which identify the process, positions are valid for the same input & writers only.
+	 */
+	@Override
+	protected void appendFingerprint(StringBuilder sb) {
+		super.appendFingerprint(sb);
+		if (generateCount > 0) {
+			sb.append(";generate=").append(generateCount).append(";threads=").append(threads);
+		}
+		if (snapshotFile != null) {
+			sb.append(";snapshot=").append(snapshotFile.getAbsolutePath()).append(";sort=").append(sort);
+		}
+		if (csvFile != null) {
+			sb.append(";csv=").append(csvFile.getAbsolutePath()).append(";header=").append(csvHeader).append(";delimiter=").append(delimiter);
 		}
 	}
 
@@ -106,25 +795,181 @@ public class InsertRecord extends SQLRecord {
 		if (!checkHostName()) {
 			return -1;
 		}
+		if (!checkDialect()) {
+			return -1;
+		}
 		if (!checkUserName()) {
 			return -1;
 		}
+		if (!checkUserPassword()) {
+			return -1;
+		}
 		if (!checkColumnsAndReplaces()) {
 			return -1;
 		}
-		if (!checkUserPassword()) {
+		if (!checkJournal()) {
+			return -1;
+		}
+		if (!checkReject()) {
 			return -1;
 		}
-		if (!checkNowColumns()) {
+
+		InsertRecordRequest.Builder builder = InsertRecordRequest.commandLineBuilder(tableName);
+		if (columns != null) {
+			for (int i = 0; i < columns.length; i++) {
+				builder.value(columns[i], replaces[i]);
+			}
+		}
+		for (String column : getOptionValues("n")) {
+			builder.now(column);
+		}
+		for (String column : getOptionValues("N")) {
+			builder.nullValue(column);
+		}
+		if (!checkGenerateOptions(builder)) {
 			return -1;
 		}
-		if (!checkNullColumns()) {
+		if (!checkSnapshotOptions(builder)) {
+			return -1;
+		}
+		if (!checkCsvOptions(builder)) {
+			return -1;
+		}
+		if (cmd.hasOption("upsert")) {
+			builder.upsert();
+		}
+		builder.updateColumns(getOptionValues("update-column"));
+		if (cmd.hasOption("fast-load")) {
+			builder.fastLoad();
+		}
+		builder.journal(journalFile).reject(rejectFile).shardSpecs(getOptionValues("shard")).shardKey(getOptionValues("shard-key"));
+		try {
+			apply(builder.build());
+		}
+		catch (IllegalArgumentException e) {
+			usage(options);
+			System.out.println("[ERROR] " + e.getMessage());
 			return -1;
 		}
 
 		return 0;
 	}
 
+	/**
+	 * parse synthetic data generator options into the builder.
+	 * @param builder insert record request builder.
+	 * @return true if success.
+	 */
+	private boolean checkGenerateOptions(InsertRecordRequest.Builder builder) {
+		String generate = cmd.getOptionValue("generate");
+		if (generate != null) {
+			long rows = 0;
+			try {
+				rows = Long.parseLong(generate);
+			}
+			catch (NumberFormatException ignored) {}
+			if (rows <= 0) {
+				usage(options);
+				mustBePositiveNumber("number of rows to generate");
+				return false;
+			}
+			builder.generate(rows);
+		}
+		int threadsValue = checkPositiveNumber("threads", "number of threads", DEFAULT_THREADS);
+		int batchSizeValue = checkPositiveNumber("batch-size", "batch size", DEFAULT_BATCH_SIZE);
+		if ((threadsValue < 0) || (batchSizeValue < 0)) {
+			return false;
+		}
+		builder.threads(threadsValue).batchSize(batchSizeValue);
+		try {
+			builder.rate(Double.parseDouble(cmd.getOptionValue("rate", "0")));
+			builder.nullRatio(Double.parseDouble(cmd.getOptionValue("null-ratio", "0")));
+			String[] lengths = cmd.getOptionValue("string-length", DEFAULT_MIN_LENGTH + ":" + DEFAULT_MAX_LENGTH).split(":");
+			builder.stringLength(Integer.parseInt(lengths[0]), Integer.parseInt(lengths[lengths.length - 1]));
+		}
+		catch (NumberFormatException e) {
+			usage(options);
+			invalidGenerateOption(e.getMessage());
+			return false;
+		}
+
+		Map<String, String> pairs = checkNameValuePairs("cardinality", "cardinality");
+		if (pairs == null) {
+			return false;
+		}
+		for (Map.Entry<String, String> pair : pairs.entrySet()) {
+			try {
+				builder.cardinality(pair.getKey(), Long.parseLong(pair.getValue()));
+			}
+			catch (NumberFormatException e) {
+				usage(options);
+				mustBePositiveNumber("cardinality of " + pair.getKey());
+				return false;
+			}
+		}
+		for (String value : getOptionValues("distribution")) {
+			int separator = value.indexOf('=');
+			try {
+				builder.distribution(separator < 0 ? null : value.substring(0, separator), value.substring(separator + 1));
+			}
+			catch (IllegalArgumentException e) {
+				usage(options);
+				invalidGenerateOption(e.getMessage());
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * parse snapshot replay options into the builder.
+	 * @param builder insert record request builder.
+	 * @return true if success.
+	 */
+	private boolean checkSnapshotOptions(InsertRecordRequest.Builder builder) {
+		String snapshot = cmd.getOptionValue("snapshot");
+		if (snapshot != null) {
+			builder.snapshot(new File(snapshot));
+		}
+		int sortMemoryValue = checkPositiveNumber("sort-memory", "sort memory", 0);
+		if (sortMemoryValue < 0) {
+			return false;
+		}
+		if (cmd.hasOption("sort")) {
+			builder.sort(sortMemoryValue);
+		}
+		else {
+			builder.sortMemory(sortMemoryValue);
+		}
+		return true;
+	}
+
+	/**
+	 * parse CSV import options into the builder.
+	 * @param builder insert record request builder.
+	 * @return true if success.
+	 */
+	private boolean checkCsvOptions(InsertRecordRequest.Builder builder) {
+		String csv = cmd.getOptionValue("csv");
+		if (csv != null) {
+			builder.csv(new File(csv));
+		}
+		if (cmd.hasOption("csv-header")) {
+			builder.csvHeader();
+		}
+		String delimiterValue = cmd.getOptionValue("delimiter", String.valueOf(DEFAULT_DELIMITER));
+		if (delimiterValue.equals("\\t")) {
+			delimiterValue = "\t";
+		}
+		if (delimiterValue.length() != 1) {
+			usage(options);
+			System.out.println("[ERROR] delimiter must be a single ASCII character other than quote, \\t for tab.");
+			return false;
+		}
+		builder.delimiter(delimiterValue.charAt(0));
+		return true;
+	}
+
 	/**
 	 * get replace values short option.
 	 */
@@ -135,15 +980,17 @@ public class InsertRecord extends SQLRecord {
 
 	// MARK: - Entry Point
 	/**
-	 * entry point.
-	 * @param args arguments array.
+	 * create command line options.
+	 * @return command line options.
 	 */
-	public static void main(String[] args) {
+	static Options createOptions() {
 		Options options = new Options();
 		options.addOption("?", "help", false, "show this help");
 		options.addOption("d", "database", true, "database name");
 		options.addOption("t", "table", true, "table name");
 		options.addOption("h", "host", true, "[host name, localhost as default]");
+		options.addOption(null, "port", true, "[port number, default port of the dialect as default]");
+		options.addOption(null, "dialect", true, "[mysql or postgresql, mysql as default]");
 		options.addOption("u", "user", true, "user name");
 		options.addOption("p", "prompt", false, "[prompt password] do not set with -P");
 		options.addOption("P", "password", true, "[user password] do not set with -p");
@@ -151,6 +998,36 @@ public class InsertRecord extends SQLRecord {
 		options.addOption(REPLACE_SHORT_OPTION_STR, "column-value", true, "a value for column");
 		options.addOption("n", "now", true, "use NOW() for the column");
 		options.addOption("N", "null", true, "use null for the column");
+		options.addOption(null, "upsert", false, "[insert or update the row of the duplicate key, ON DUPLICATE KEY UPDATE or ON CONFLICT]");
+		options.addOption(null, "update-column", true, "[column to update on duplicate key, all columns except primary key as default] use with --upsert");
+		options.addOption(null, "fast-load", false, "[disable unique & foreign key checks of the session while loading, then validate duplicate & orphaned keys] can not be used with --upsert");
+		options.addOption(null, "reject", true, "[write rows failed in a batch to the file with the SQL error, the failed batch is bisected to find them] also unparseable records with --csv");
+		options.addOption(null, "shard", true, "[HOST[:PORT]/DATABASE of a shard to load into, in shard order, rows are routed by --shard-key] with --generate, --snapshot or --csv, loaded in parallel by a connection per shard");
+		options.addOption(null, "shard-key", true, "[column whose values hash to the shard, an integral value modulo the number of shards, CRC32 of others] use with --shard");
+		options.addOption(null, "generate", true, "[generate the number of random rows from the column metadata]");
+		options.addOption(null, "threads", true, "[number of writer threads with --generate or --csv, " + DEFAULT_THREADS + " as default]");
+		options.addOption(null, "batch-size", true, "[number of rows per insert batch with --generate, --snapshot or --csv, " + DEFAULT_BATCH_SIZE + " as default]");
+		options.addOption(null, "rate", true, "[target rows per second with --generate, unlimited as default]");
+		options.addOption(null, "null-ratio", true, "[ratio of null for nullable columns with --generate, 0 as default]");
+		options.addOption(null, "string-length", true, "[MIN:MAX string length with --generate, " + DEFAULT_MIN_LENGTH + ":" + DEFAULT_MAX_LENGTH + " as default]");
+		options.addOption(null, "cardinality", true, "[COLUMN=N number of distinct values of the column with --generate]");
+		options.addOption(null, "distribution", true, "[COLUMN=uniform|normal|zipf, or a distribution for all columns with --generate]");
+		options.addOption(null, "snapshot", true, "[replay rows of the binary snapshot file exported by CopyRecord]");
+		options.addOption(null, "csv", true, "[import rows of the CSV file, the file is memory-mapped & parsed by parallel writers]");
+		options.addOption(null, "csv-header", false, "[the first record of the CSV file has the column names, fields are in column order as default] use with --csv");
+		options.addOption(null, "delimiter", true, "[field delimiter of the CSV file, \\t for tab, comma as default] use with --csv");
+		options.addOption(null, "sort", false, "[sort rows by primary key before inserting, rows beyond --sort-memory are sorted through temporary files] use with --snapshot");
+		options.addOption(null, "sort-memory", true, "[maximum MB of rows sorted in memory, 1/4 of the max heap as default] use with --sort");
+		options.addOption(null, "journal", true, "[checkpoint journal file to resume a killed load, the position of each writer is marked in table jmt_checkpoint of the database per batch] use with --generate, --snapshot or --csv");
+		return options;
+	}
+
+	/**
+	 * entry point.
+	 * @param args arguments array.
+	 */
+	public static void main(String[] args) {
+		Options options = createOptions();
 		CommandLineParser parser = new DefaultParser();
 		try {
 			CommandLine cmd = parser.parse(options, args);
@@ -173,6 +1050,14 @@ public class InsertRecord extends SQLRecord {
 		}
 	}
 
+	/**
+	 * show error message for invalid generator option.
+	 * @param message error message.
+	 */
+	private static void invalidGenerateOption(String message) {
+		System.out.println("[ERROR] invalid generator option, " + message);
+	}
+
 	/**
 	 * show error message for columns and replaces counts are not same.
 	 */
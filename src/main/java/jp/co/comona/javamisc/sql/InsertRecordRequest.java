@@ -0,0 +1,697 @@
+package jp.co.comona.javamisc.sql;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * programmatic insert record request.
+ * <pre>
+ * RecordResult result = InsertRecordRequest.builder(dataSource, "users")
+ *         .value("name", "foo").now("created_at").build().execute();
+ * </pre>
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class InsertRecordRequest extends RecordRequest {
+
+	// MARK: - Properties
+	private final long generateCount;
+	private final int threads;
+	private final int batchSize;
+	private final double rate;
+	private final double nullRatio;
+	private final int minLength;
+	private final int maxLength;
+	private final int defaultDistribution;
+	private final Map<String, Long> cardinalities;
+	private final Map<String, Integer> distributions;
+	private final File snapshotFile;
+	private final File csvFile;
+	private final boolean csvHeader;
+	private final char delimiter;
+	private final boolean sort;
+	private final int sortMemory;
+	private final boolean upsert;
+	private final boolean fastLoad;
+	private final File rejectFile;
+	private final List<DataSource> shards;
+	private final String[] shardSpecs;
+	private final String[] shardKeys;
+	private final String[] updateColumns;
+	private final File journalFile;
+
+	// MARK: - Builder
+	/**
+	 * insert record request builder.
+	 */
+	public static class Builder {
+		private final DataSource dataSource;
+		private final String tableName;
+		private final boolean commandLine;
+		private RecordListener listener = null;
+		private final List<String> columns = new ArrayList<>();
+		private final List<String> values = new ArrayList<>();
+		private final List<String> nowColumns = new ArrayList<>();
+		private final List<String> nulls = new ArrayList<>();
+		private boolean upsert = false;
+		private boolean fastLoad = false;
+		private File rejectFile = null;
+		private final List<DataSource> shards = new ArrayList<>();
+		private final List<String> shardSpecs = new ArrayList<>();
+		private final List<String> shardKeys = new ArrayList<>();
+		private final List<String> updateColumns = new ArrayList<>();
+		private long generateCount = 0;
+		private int threads = 4;
+		private int batchSize = 1000;
+		private double rate = 0;
+		private double nullRatio = 0;
+		private int minLength = 8;
+		private int maxLength = 32;
+		private int defaultDistribution = ColumnGenerator.DISTRIBUTION_UNIFORM;
+		private final Map<String, Long> cardinalities = new HashMap<>();
+		private final Map<String, Integer> distributions = new HashMap<>();
+		private File snapshotFile = null;
+		private File csvFile = null;
+		private boolean csvHeader = false;
+		private char delimiter = ',';
+		private File journalFile = null;
+		private boolean sort = false;
+		private int sortMemory = 0;
+
+		/**
+		 * constructor.
+		 * @param dataSource data source.
+		 * @param tableName table name.
+		 * @param commandLine true if built by the command line tool.
+		 */
+		private Builder(DataSource dataSource, String tableName, boolean commandLine) {
+			super();
+			this.dataSource = dataSource;
+			this.tableName = tableName;
+			this.commandLine = commandLine;
+		}
+
+		/**
+		 * listener of messages while inserting, logged to java.util.logging if none.
+		 * @param listener listener.
+		 * @return this builder.
+		 */
+		public Builder listener(RecordListener listener) {
+			this.listener = listener;
+			return this;
+		}
+
+		/**
+		 * add column value.
+		 * @param column column name.
+		 * @param value value for column.
+		 * @return this builder.
+		 */
+		public Builder value(String column, String value) {
+			columns.add(column);
+			values.add(value);
+			return this;
+		}
+
+		/**
+		 * add column to use NOW().
+		 * @param column column name.
+		 * @return this builder.
+		 */
+		public Builder now(String column) {
+			nowColumns.add(column);
+			return this;
+		}
+
+		/**
+		 * add column to use null.
+		 * @param column column name.
+		 * @return this builder.
+		 */
+		public Builder nullValue(String column) {
+			nulls.add(column);
+			return this;
+		}
+
+		/**
+		 * generate random rows from the column metadata, columns without value are generated.
+		 * @param rows number of rows to generate.
+		 * @return this builder.
+		 */
+		public Builder generate(long rows) {
+			this.generateCount = rows;
+			return this;
+		}
+
+		/**
+		 * number of writer threads when generating or importing CSV.
+		 * @param threads number of threads.
+		 * @return this builder.
+		 */
+		public Builder threads(int threads) {
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * number of rows per insert batch when generating.
+		 * @param batchSize batch size.
+		 * @return this builder.
+		 */
+		public Builder batchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * target rows per second when generating.
+		 * @param rate rows per second, 0 for unlimited.
+		 * @return this builder.
+		 */
+		public Builder rate(double rate) {
+			this.rate = rate;
+			return this;
+		}
+
+		/**
+		 * ratio of null for nullable columns when generating.
+		 * @param nullRatio ratio between 0 & 1.
+		 * @return this builder.
+		 */
+		public Builder nullRatio(double nullRatio) {
+			this.nullRatio = nullRatio;
+			return this;
+		}
+
+		/**
+		 * string length range when generating.
+		 * @param minLength minimum length.
+		 * @param maxLength maximum length.
+		 * @return this builder.
+		 */
+		public Builder stringLength(int minLength, int maxLength) {
+			this.minLength = minLength;
+			this.maxLength = maxLength;
+			return this;
+		}
+
+		/**
+		 * number of distinct values of the column when generating.
+		 * @param column column name.
+		 * @param cardinality number of distinct values.
+		 * @return this builder.
+		 */
+		public Builder cardinality(String column, long cardinality) {
+			cardinalities.put(column.toLowerCase(), cardinality);
+			return this;
+		}
+
+		/**
+		 * distribution of the column values when generating.
+		 * @param column column name, null for all columns.
+		 * @param distribution uniform, normal or zipf.
+		 * @return this builder.
+		 */
+		public Builder distribution(String column, String distribution) {
+			int value = ColumnGenerator.parseDistribution(distribution);
+			if (value < 0) {
+				throw new IllegalArgumentException("unknown distribution " + distribution);
+			}
+			if (column == null) {
+				defaultDistribution = value;
+			}
+			else {
+				distributions.put(column.toLowerCase(), value);
+			}
+			return this;
+		}
+
+		/**
+		 * replay rows of the binary snapshot file exported by CopyRecord.
+		 * @param snapshotFile snapshot file.
+		 * @return this builder.
+		 */
+		public Builder snapshot(File snapshotFile) {
+			this.snapshotFile = snapshotFile;
+			return this;
+		}
+
+		/**
+		 * import rows of the CSV file, the file is memory-mapped & parsed by parallel writers.
+		 * @param csvFile CSV file.
+		 * @return this builder.
+		 */
+		public Builder csv(File csvFile) {
+			this.csvFile = csvFile;
+			return this;
+		}
+
+		/**
+		 * the first record of the CSV file has the column names, fields are in column order if not.
+		 * @return this builder.
+		 */
+		public Builder csvHeader() {
+			this.csvHeader = true;
+			return this;
+		}
+
+		/**
+		 * field delimiter of the CSV file, comma as default.
+		 * @param delimiter delimiter.
+		 * @return this builder.
+		 */
+		public Builder delimiter(char delimiter) {
+			this.delimiter = delimiter;
+			return this;
+		}
+
+		/**
+		 * sort the snapshot rows by primary key before inserting, rows beyond the memory are sorted through temporary files.
+		 * @param memoryMegabytes maximum MB of rows sorted in memory, 0 for 1/4 of the max heap.
+		 * @return this builder.
+		 */
+		public Builder sort(int memoryMegabytes) {
+			this.sort = true;
+			this.sortMemory = memoryMegabytes;
+			return this;
+		}
+
+		/**
+		 * maximum MB of rows sorted in memory without sort, the command line tool checks the option by the request.
+		 * @param memoryMegabytes maximum MB.
+		 * @return this builder.
+		 */
+		Builder sortMemory(int memoryMegabytes) {
+			this.sortMemory = memoryMegabytes;
+			return this;
+		}
+
+		/**
+		 * insert or update the row of the duplicate key, by ON DUPLICATE KEY UPDATE, ON CONFLICT on PostgreSQL.
+		 * @param updateColumns columns to update on duplicate key, all columns except primary key if none.
+		 * @return this builder.
+		 */
+		public Builder upsert(String... updateColumns) {
+			this.upsert = true;
+			this.updateColumns.addAll(Arrays.asList(updateColumns));
+			return this;
+		}
+
+		/**
+		 * add columns to update on duplicate key without upsert, the command line tool checks the option by the request.
+		 * @param columns column names.
+		 * @return this builder.
+		 */
+		Builder updateColumns(String... columns) {
+			this.updateColumns.addAll(Arrays.asList(columns));
+			return this;
+		}
+
+		/**
+		 * disable unique & foreign key checks of the session while loading, then validate duplicate & orphaned keys.
+		 * execute() fails when invalid keys are found, the loaded rows are committed.
+		 * @return this builder.
+		 */
+		public Builder fastLoad() {
+			this.fastLoad = true;
+			return this;
+		}
+
+		/**
+		 * write rows failed in batches to the reject file with the SQL error, a failed batch is bisected to find them.
+		 * the other rows of the batch are written, execute() counts written rows only.
+		 * @param rejectFile reject file.
+		 * @return this builder.
+		 */
+		public Builder reject(File rejectFile) {
+			this.rejectFile = rejectFile;
+			return this;
+		}
+
+		/**
+		 * route rows to shards by the values of the shard key columns, written in parallel by a connection per shard.
+		 * an integral key value modulo the number of shards is the shard, CRC32 of the string for others.
+		 * @param dataSources data sources of the shards, in shard order.
+		 * @return this builder.
+		 */
+		public Builder shards(DataSource... dataSources) {
+			this.shards.addAll(Arrays.asList(dataSources));
+			return this;
+		}
+
+		/**
+		 * add shard key columns.
+		 * @param columns column names.
+		 * @return this builder.
+		 */
+		public Builder shardKey(String... columns) {
+			this.shardKeys.addAll(Arrays.asList(columns));
+			return this;
+		}
+
+		/**
+		 * shards of the command line tool.
+		 * @param specs HOST[:PORT]/DATABASE of the shards, in shard order.
+		 * @return this builder.
+		 */
+		Builder shardSpecs(String... specs) {
+			this.shardSpecs.addAll(Arrays.asList(specs));
+			return this;
+		}
+
+		/**
+		 * checkpoint journal file to resume a killed load of generate, snapshot or csv.
+		 * the position of each writer is journaled per batch & marked in table jmt_checkpoint of the database in the batch transaction.
+		 * @param journalFile journal file.
+		 * @return this builder.
+		 */
+		public Builder journal(File journalFile) {
+			this.journalFile = journalFile;
+			return this;
+		}
+
+		/**
+		 * build request.
+		 * @return insert record request.
+		 * @throws IllegalArgumentException when invalid request.
+		 */
+		public InsertRecordRequest build() {
+			return new InsertRecordRequest(this);
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param builder builder.
+	 */
+	private InsertRecordRequest(Builder builder) {
+		super(builder.dataSource, builder.tableName, builder.columns, builder.values, builder.nowColumns, builder.nulls, builder.listener, builder.commandLine);
+		generateCount = builder.generateCount;
+		threads = builder.threads;
+		batchSize = builder.batchSize;
+		rate = builder.rate;
+		nullRatio = builder.nullRatio;
+		minLength = builder.minLength;
+		maxLength = builder.maxLength;
+		defaultDistribution = builder.defaultDistribution;
+		cardinalities = new HashMap<>(builder.cardinalities);
+		distributions = new HashMap<>(builder.distributions);
+		snapshotFile = builder.snapshotFile;
+		csvFile = builder.csvFile;
+		csvHeader = builder.csvHeader;
+		delimiter = builder.delimiter;
+		sort = builder.sort;
+		sortMemory = builder.sortMemory;
+		journalFile = builder.journalFile;
+		upsert = builder.upsert;
+		fastLoad = builder.fastLoad;
+		rejectFile = builder.rejectFile;
+		shards = builder.shards.isEmpty() ? null : new ArrayList<>(builder.shards);
+		shardSpecs = toArray(builder.shardSpecs);
+		checkShardSpecs(shardSpecs);
+		shardKeys = toArray(builder.shardKeys);
+		checkDuplicates(shardKeys, "shard key");
+		boolean sharded = (shards != null) || (shardSpecs != null);
+		if (sharded != (shardKeys != null)) {
+			throw new IllegalArgumentException("shard & shard key must be used together.");
+		}
+		updateColumns = toArray(builder.updateColumns);
+		checkDuplicates(updateColumns, "update column");
+		if ((updateColumns != null) && !upsert) {
+			throw new IllegalArgumentException("update column requires upsert.");
+		}
+		if ((generateCount < 0) || (threads <= 0) || (batchSize <= 0) || (rate < 0)) {
+			throw new IllegalArgumentException("rows, threads, batch size & rate must be positive numbers.");
+		}
+		if ((nullRatio < 0) || (nullRatio > 1) || (minLength < 0) || (minLength > maxLength)) {
+			throw new IllegalArgumentException("null ratio (0 to 1) or string length is out of range.");
+		}
+		if ((snapshotFile != null) && (generateCount > 0)) {
+			throw new IllegalArgumentException("snapshot can not be used with generate.");
+		}
+		if ((csvFile != null) && ((generateCount > 0) || (snapshotFile != null))) {
+			throw new IllegalArgumentException("csv can not be used with generate or snapshot.");
+		}
+		if ((csvFile == null) && (csvHeader || (delimiter != ','))) {
+			throw new IllegalArgumentException("CSV header & delimiter require csv.");
+		}
+		if ((delimiter == '"') || (delimiter > 0x7f)) {
+			throw new IllegalArgumentException("delimiter must be an ASCII character other than quote.");
+		}
+		if (sharded && (((generateCount == 0) && (snapshotFile == null) && (csvFile == null)) || fastLoad)) {
+			throw new IllegalArgumentException("shard requires generate, snapshot or csv & can not be used with fast load.");
+		}
+		if ((journalFile != null) && (((generateCount == 0) && (snapshotFile == null) && (csvFile == null)) || sharded)) {
+			throw new IllegalArgumentException("checkpoint journal requires generate, snapshot or csv & can not be used with shard.");
+		}
+		if (fastLoad && upsert) {
+			throw new IllegalArgumentException("fast load can not be used with upsert.");
+		}
+		if ((sortMemory > 0) && !sort) {
+			throw new IllegalArgumentException("sort memory requires sort.");
+		}
+		if ((sort && (snapshotFile == null)) || (sortMemory < 0)) {
+			throw new IllegalArgumentException("sort requires snapshot & a positive sort memory.");
+		}
+		for (Map.Entry<String, Long> cardinality : cardinalities.entrySet()) {
+			if (cardinality.getValue() <= 0) {
+				throw new IllegalArgumentException("cardinality of " + cardinality.getKey() + " must be a positive number.");
+			}
+		}
+	}
+
+	/**
+	 * create builder.
+	 * @param dataSource data source to get the connection from.
+	 * @param tableName table name.
+	 * @return builder.
+	 */
+	public static Builder builder(DataSource dataSource, String tableName) {
+		return new Builder(dataSource, tableName, false);
+	}
+
+	/**
+	 * create builder of the command line tool, the request checks the options without data source.
+	 * @param tableName table name.
+	 * @return builder.
+	 */
+	static Builder commandLineBuilder(String tableName) {
+		return new Builder(null, tableName, true);
+	}
+
+	// MARK: - Getters
+	/**
+	 * get values for columns.
+	 * @return values, null if none.
+	 */
+	String[] getValues() {
+		return getReplaces();
+	}
+
+	/**
+	 * get number of rows to generate.
+	 * @return number of rows, 0 if not generating.
+	 */
+	long getGenerateCount() {
+		return generateCount;
+	}
+
+	/**
+	 * get number of writer threads.
+	 * @return number of threads.
+	 */
+	int getThreads() {
+		return threads;
+	}
+
+	/**
+	 * get insert batch size.
+	 * @return batch size.
+	 */
+	int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * get target rows per second.
+	 * @return rows per second, 0 for unlimited.
+	 */
+	double getRate() {
+		return rate;
+	}
+
+	/**
+	 * get ratio of null for nullable columns.
+	 * @return null ratio.
+	 */
+	double getNullRatio() {
+		return nullRatio;
+	}
+
+	/**
+	 * get minimum string length.
+	 * @return minimum string length.
+	 */
+	int getMinLength() {
+		return minLength;
+	}
+
+	/**
+	 * get maximum string length.
+	 * @return maximum string length.
+	 */
+	int getMaxLength() {
+		return maxLength;
+	}
+
+	/**
+	 * get distribution for columns without own distribution.
+	 * @return distribution.
+	 */
+	int getDefaultDistribution() {
+		return defaultDistribution;
+	}
+
+	/**
+	 * get cardinalities by lower case column name.
+	 * @return cardinalities.
+	 */
+	Map<String, Long> getCardinalities() {
+		return cardinalities;
+	}
+
+	/**
+	 * get distributions by lower case column name.
+	 * @return distributions.
+	 */
+	Map<String, Integer> getDistributions() {
+		return distributions;
+	}
+
+	/**
+	 * get snapshot file to replay.
+	 * @return snapshot file, null if not replaying.
+	 */
+	File getSnapshotFile() {
+		return snapshotFile;
+	}
+
+	/**
+	 * get CSV file to import.
+	 * @return CSV file, null if not importing.
+	 */
+	File getCsvFile() {
+		return csvFile;
+	}
+
+	/**
+	 * has the CSV file a header.
+	 * @return true if the first record has the column names.
+	 */
+	boolean isCsvHeader() {
+		return csvHeader;
+	}
+
+	/**
+	 * get field delimiter of the CSV file.
+	 * @return delimiter.
+	 */
+	char getDelimiter() {
+		return delimiter;
+	}
+
+	/**
+	 * is sorting snapshot rows by primary key.
+	 * @return true if sorting.
+	 */
+	boolean isSort() {
+		return sort;
+	}
+
+	/**
+	 * get maximum MB of rows sorted in memory.
+	 * @return MB, 0 for default.
+	 */
+	int getSortMemory() {
+		return sortMemory;
+	}
+
+	/**
+	 * get checkpoint journal file.
+	 * @return journal file, null if none.
+	 */
+	File getJournalFile() {
+		return journalFile;
+	}
+
+	/**
+	 * is upsert mode.
+	 * @return true if upsert.
+	 */
+	boolean isUpsert() {
+		return upsert;
+	}
+
+	/**
+	 * is fast load mode.
+	 * @return true if checks of the session are disabled while loading.
+	 */
+	boolean isFastLoad() {
+		return fastLoad;
+	}
+
+	/**
+	 * get reject file of rows failed in batches.
+	 * @return reject file, null if a failed batch fails.
+	 */
+	File getRejectFile() {
+		return rejectFile;
+	}
+
+	/**
+	 * get data sources of the shards.
+	 * @return data sources in shard order, null if not sharded.
+	 */
+	List<DataSource> getShards() {
+		return shards;
+	}
+
+	/**
+	 * get shards of the command line tool.
+	 * @return HOST[:PORT]/DATABASE of the shards, null if not sharded by the command line tool.
+	 */
+	String[] getShardSpecs() {
+		return shardSpecs;
+	}
+
+	/**
+	 * get shard key columns.
+	 * @return column names, null if not sharded.
+	 */
+	String[] getShardKeys() {
+		return shardKeys;
+	}
+
+	/**
+	 * get columns to update on duplicate key.
+	 * @return column names, null for all columns except primary key.
+	 */
+	String[] getUpdateColumns() {
+		return updateColumns;
+	}
+
+	// MARK: - Process
+	/**
+	 * create SQL record tool for this request.
+	 */
+	@Override
+	SQLRecord createRecord() {
+		return new InsertRecord(this);
+	}
+}
@@ -0,0 +1,463 @@
+package jp.co.comona.javamisc.sql;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * job file runner tool.
+ * runs CopyRecord, InsertRecord & MoveRecord jobs concurrently in one JVM, one job per line with the same options as the tools take.
+ * jobs run on virtual threads on JDK 21 or above, on a bounded thread pool otherwise.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class JobRunner {
+
+	// MARK: - Static Properties
+	private static final int DEFAULT_CONCURRENCY = 64;
+	private static final int DEFAULT_PER_HOST = 8;
+	private static final int DEFAULT_PER_TABLE = 2;
+
+	// MARK: - Properties
+	final private Options options;
+	final private CommandLine cmd;
+	private File jobFile = null;
+	private int concurrency = DEFAULT_CONCURRENCY;
+	private int perHost = DEFAULT_PER_HOST;
+	private int perTable = DEFAULT_PER_TABLE;
+	private Semaphore globalLimit = null;
+	private final Map<String, Semaphore> hostLimits = new HashMap<>();
+	private final Map<String, Semaphore> tableLimits = new HashMap<>();
+	private final Map<String, PooledDataSource> dataSources = new HashMap<>();
+	private final Map<String, PooledDataSource.HostConnections> hostConnections = new HashMap<>();
+
+	// MARK: - Inner Class
+	/**
+	 * job of a line.
+	 */
+	private static class Job {
+		private final int lineNumber;
+		private final String line;
+		private SQLRecord record = null;
+		private boolean success = false;
+		private String error = null;
+		private long elapsed = 0;
+
+		/**
+		 * constructor.
+		 * @param lineNumber line number in job file.
+		 * @param line job line.
+		 */
+		private Job(int lineNumber, String line) {
+			super();
+			this.lineNumber = lineNumber;
+			this.line = line;
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param options command line options.
+	 * @param cmd command line.
+	 */
+	protected JobRunner(Options options, CommandLine cmd) {
+		super();
+		this.options = options;
+		this.cmd = cmd;
+	}
+
+	// MARK: - Load
+	/**
+	 * load jobs from job file.
+	 * @return jobs.
+	 * @throws IOException when read error.
+	 */
+	private List<Job> loadJobs() throws IOException {
+		List<Job> jobs = new ArrayList<>();
+		try (BufferedReader br = Files.newBufferedReader(jobFile.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			int lineNumber = 0;
+			while ((line = br.readLine()) != null) {
+				lineNumber++;
+				line = line.trim();
+				if (line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				Job job = new Job(lineNumber, line);
+				prepareJob(job);
+				jobs.add(job);
+			}
+		}
+		return jobs;
+	}
+
+	/**
+	 * prepare job, parse & check the arguments of the line.
+	 * @param job job.
+	 */
+	private void prepareJob(Job job) {
+		List<String> tokens = tokenize(job.line);
+		String tool = tokens.remove(0);
+		String[] args = tokens.toArray(new String[0]);
+		try {
+			SQLRecord record;
+			if ("copy".equalsIgnoreCase(tool) || CopyRecord.class.getSimpleName().equals(tool)) {
+				Options toolOptions = CopyRecord.createOptions();
+				record = new CopyRecord(toolOptions, new DefaultParser().parse(toolOptions, args));
+			}
+			else if ("insert".equalsIgnoreCase(tool) || InsertRecord.class.getSimpleName().equals(tool)) {
+				Options toolOptions = InsertRecord.createOptions();
+				record = new InsertRecord(toolOptions, new DefaultParser().parse(toolOptions, args));
+			}
+			else if ("move".equalsIgnoreCase(tool) || MoveRecord.class.getSimpleName().equals(tool)) {
+				Options toolOptions = MoveRecord.createOptions();
+				record = new MoveRecord(toolOptions, new DefaultParser().parse(toolOptions, args));
+			}
+			else {
+				job.error = "unknown tool " + tool;
+				return;
+			}
+			if (record.checkArguments() != 0) {
+				job.error = "invalid arguments";
+				return;
+			}
+			if (record.prompt || (record.password == null)) {
+				job.error = "password prompt is not supported in job file, use -P";
+				return;
+			}
+			record.dataSource = getDataSource(record);
+			job.record = record;
+		}
+		catch (org.apache.commons.cli.ParseException e) {
+			job.error = e.getMessage();
+		}
+	}
+
+	/**
+	 * split job line to tokens, single & double quotes and backslash escape are supported.
+	 * @param line job line.
+	 * @return tokens.
+	 */
+	static List<String> tokenize(String line) {
+		List<String> tokens = new ArrayList<>();
+		StringBuilder token = new StringBuilder();
+		boolean inToken = false;
+		char quote = 0;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if ((c == '\\') && (quote != '\'') && (i + 1 < line.length())) {
+				token.append(line.charAt(++i));
+				inToken = true;
+			}
+			else if (quote != 0) {
+				if (c == quote) {
+					quote = 0;
+				}
+				else {
+					token.append(c);
+				}
+			}
+			else if ((c == '"') || (c == '\'')) {
+				quote = c;
+				inToken = true;
+			}
+			else if (Character.isWhitespace(c)) {
+				if (inToken) {
+					tokens.add(token.toString());
+					token.setLength(0);
+					inToken = false;
+				}
+			}
+			else {
+				token.append(c);
+				inToken = true;
+			}
+		}
+		if (inToken) {
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+
+	/**
+	 * get shared data source for the record, connections are pooled per URL & user.
+	 * pools of the same host share the host connections, at most perHost connections in use or idle are opened to a host.
+	 * @param record SQL record tool.
+	 * @return data source.
+	 */
+	private PooledDataSource getDataSource(SQLRecord record) {
+		String url = record.createUrl();
+		String key = url + '\u0000' + record.userName;
+		PooledDataSource dataSource = dataSources.get(key);
+		if (dataSource == null) {
+			String hostKey = getHostKey(record);
+			PooledDataSource.HostConnections host = hostConnections.get(hostKey);
+			if (host == null) {
+				host = new PooledDataSource.HostConnections(perHost);
+				hostConnections.put(hostKey, host);
+			}
+			dataSource = new PooledDataSource(url, record.userName, record.password, host);
+			dataSources.put(key, dataSource);
+		}
+		return dataSource;
+	}
+
+	/**
+	 * get host key of the record, host name & port.
+	 * @param record SQL record tool.
+	 * @return host key.
+	 */
+	private static String getHostKey(SQLRecord record) {
+		return record.hostName + ':' + (record.port > 0 ? record.port : record.getDialect().getDefaultPort());
+	}
+
+	// MARK: - Process
+	/**
+	 * run jobs.
+	 * @return true if all jobs succeeded.
+	 * @throws Exception when error.
+	 */
+	protected boolean runJobs() throws Exception {
+		List<Job> jobs = loadJobs();
+		globalLimit = new Semaphore(concurrency);
+		long start = System.nanoTime();
+		ExecutorService executor = createExecutor();
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (final Job job : jobs) {
+				if (job.record != null) {
+					futures.add(executor.submit(new Runnable() {
+						@Override
+						public void run() {
+							runJob(job);
+						}
+					}));
+				}
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		}
+		finally {
+			executor.shutdown();
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+			for (PooledDataSource dataSource : dataSources.values()) {
+				dataSource.close();
+			}
+		}
+		return report(jobs, System.nanoTime() - start);
+	}
+
+	/**
+	 * create executor, virtual thread per task on JDK 21 or above, bounded thread pool otherwise.
+	 * @return executor.
+	 */
+	private ExecutorService createExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)method.invoke(null);
+		}
+		catch (ReflectiveOperationException e) {
+			return Executors.newFixedThreadPool(concurrency);
+		}
+	}
+
+	/**
+	 * run a job within table, host & global concurrency limits.
+	 * the narrowest limit is taken first, a job waiting for its table never holds a host or global permit.
+	 * @param job job.
+	 */
+	private void runJob(Job job) {
+		SQLRecord record = job.record;
+		String hostKey = getHostKey(record);
+		Semaphore hostLimit = getLimit(hostLimits, hostKey, perHost);
+		Semaphore tableLimit = getLimit(tableLimits, hostKey + '/' + record.databaseName + '.' + record.tableName, perTable);
+		try {
+			tableLimit.acquire();
+			try {
+				hostLimit.acquire();
+				try {
+					globalLimit.acquire();
+					try {
+						long start = System.nanoTime();
+						try {
+							record.connectAndProcess();
+							job.success = true;
+						}
+						finally {
+							job.elapsed = System.nanoTime() - start;
+						}
+					}
+					finally {
+						globalLimit.release();
+					}
+				}
+				finally {
+					hostLimit.release();
+				}
+			}
+			finally {
+				tableLimit.release();
+			}
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			job.error = "interrupted";
+		}
+		catch (Exception e) {
+			job.error = e.toString();
+		}
+	}
+
+	/**
+	 * get concurrency limit for the key.
+	 * @param limits limits map.
+	 * @param key limit key.
+	 * @param permits permits of new limit.
+	 * @return limit.
+	 */
+	private static Semaphore getLimit(Map<String, Semaphore> limits, String key, int permits) {
+		synchronized (limits) {
+			Semaphore limit = limits.get(key);
+			if (limit == null) {
+				limit = new Semaphore(permits, true);
+				limits.put(key, limit);
+			}
+			return limit;
+		}
+	}
+
+	/**
+	 * report job results.
+	 * @param jobs jobs.
+	 * @param elapsed elapsed nanoseconds.
+	 * @return true if all jobs succeeded.
+	 */
+	private static boolean report(List<Job> jobs, long elapsed) {
+		int succeeded = 0;
+		long records = 0;
+		for (Job job : jobs) {
+			if (job.success) {
+				succeeded++;
+				records += job.record.getRecordCount();
+				System.out.println("[OK] line " + job.lineNumber + ": " + job.record.getRecordCount() + " records in " + formatSeconds(job.elapsed) + " : " + job.line);
+			}
+			else {
+				System.out.println("[FAILED] line " + job.lineNumber + ": " + job.error + " : " + job.line);
+			}
+		}
+		System.out.println("jobs: " + jobs.size() + ", succeeded: " + succeeded + ", failed: " + (jobs.size() - succeeded) +
+				", records: " + records + ", elapsed: " + formatSeconds(elapsed));
+		return succeeded == jobs.size();
+	}
+
+	/**
+	 * format nanoseconds in seconds.
+	 * @param nanos nanoseconds.
+	 * @return formatted seconds.
+	 */
+	private static String formatSeconds(long nanos) {
+		return String.format("%.3fs", nanos / 1000000000.0);
+	}
+
+	// MARK: - Check
+	/**
+	 * check arguments.
+	 * @return 0 if success, positive if help, negative if error.
+	 */
+	protected int checkArguments() {
+		if (cmd.hasOption('?')) {
+			SQLRecord.usage(options, JobRunner.class.getSimpleName());
+			return 1;
+		}
+		else if (!cmd.hasOption('f')) {
+			SQLRecord.usage(options, JobRunner.class.getSimpleName());
+			return -1;
+		}
+		jobFile = new File(cmd.getOptionValue('f'));
+		try {
+			concurrency = parsePositive("concurrency", DEFAULT_CONCURRENCY);
+			perHost = parsePositive("per-host", DEFAULT_PER_HOST);
+			perTable = parsePositive("per-table", DEFAULT_PER_TABLE);
+		}
+		catch (NumberFormatException e) {
+			SQLRecord.usage(options, JobRunner.class.getSimpleName());
+			System.out.println("[ERROR] " + e.getMessage());
+			return -1;
+		}
+		return 0;
+	}
+
+	/**
+	 * parse positive number option.
+	 * @param longOpt long option name.
+	 * @param defaultValue default value when option is not assigned.
+	 * @return option value.
+	 * @throws NumberFormatException when not a positive number.
+	 */
+	private int parsePositive(String longOpt, int defaultValue) {
+		String value = cmd.getOptionValue(longOpt);
+		if (value == null) {
+			return defaultValue;
+		}
+		int number = Integer.parseInt(value);
+		if (number <= 0) {
+			throw new NumberFormatException(longOpt + " must be a positive number.");
+		}
+		return number;
+	}
+
+	// MARK: - Entry Point
+	/**
+	 * entry point.
+	 * @param args arguments array.
+	 */
+	public static void main(String[] args) {
+		Options options = new Options();
+		options.addOption("?", "help", false, "show this help");
+		options.addOption("f", "job-file", true, "job file, one CopyRecord/InsertRecord/MoveRecord (or copy/insert/move) command line per line");
+		options.addOption("j", "concurrency", true, "[maximum concurrent jobs, " + DEFAULT_CONCURRENCY + " as default]");
+		options.addOption(null, "per-host", true, "[maximum concurrent jobs & open connections, in use or idle, per host & port, shared by all databases & users of the host, " + DEFAULT_PER_HOST + " as default]");
+		options.addOption(null, "per-table", true, "[maximum concurrent jobs per table, " + DEFAULT_PER_TABLE + " as default]");
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine cmd = parser.parse(options, args);
+			JobRunner jobRunner = new JobRunner(options, cmd);
+			int argCheck = jobRunner.checkArguments();
+			if (argCheck != 0) {
+				System.exit(argCheck < 0 ? SQLRecord.ERROR_VALUE : SQLRecord.SUCCESS_VALUE);
+			}
+
+			if (!jobRunner.runJobs()) {
+				System.exit(SQLRecord.ERROR_VALUE);
+			}
+		}
+		catch (org.apache.commons.cli.ParseException e) {
+			e.printStackTrace(System.err);
+			SQLRecord.usage(options, JobRunner.class.getSimpleName());
+			System.exit(SQLRecord.ERROR_VALUE);
+		}
+		catch (Exception e1) {
+			e1.printStackTrace(System.err);
+			System.exit(SQLRecord.ERROR_VALUE);
+		}
+	}
+}
@@ -0,0 +1,361 @@
+package jp.co.comona.javamisc.sql;
+
+import java.util.Arrays;
+
+/**
+ * compact set of key values, open addressing on a primitive long array, 8 bytes a slot & no object per key.
+ * a single integral or temporal key column is kept as is, other keys are kept as 64 bit hashes with the exact key bytes in an arena.
+ * a hash hit is only a candidate, the exact bytes decide, keys of the same 64 bit hash are counted as collisions.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class KeySet {
+
+	// MARK: - Static Properties
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+	private static final long FNV_PRIME = 0x100000001b3L;
+	private static final int MAX_ARENA_SIZE = Integer.MAX_VALUE - 8;
+
+	// MARK: - Properties
+	private long[] slots = new long[INITIAL_CAPACITY];
+	private int[] refs = null;	// arena offsets of exact keys by slot for hashed keys, 0 marks an empty slot.
+	private byte[] arena = null;
+	private int arenaSize = 1;
+	private byte[] scratch = new byte[64];
+	private int size = 0;
+	private boolean hasZero = false;	// 0 marks an empty slot of kept values.
+	private long collisionCount = 0;
+
+	// MARK: - Getters
+	/**
+	 * get number of keys.
+	 * @return number of keys.
+	 */
+	int size() {
+		return size + (hasZero ? 1 : 0);
+	}
+
+	/**
+	 * get memory used by the slots.
+	 * @return bytes.
+	 */
+	long getMemoryBytes() {
+		return (long)slots.length * 8 + (refs != null ? (long)refs.length * 4 + arena.length : 0);
+	}
+
+	/**
+	 * get number of keys added with the 64 bit hash of another key in the set, told apart by the exact key.
+	 * @return number of keys.
+	 */
+	long getCollisionCount() {
+		return collisionCount;
+	}
+
+	// MARK: - Set
+	/**
+	 * add key of a row.
+	 * @param buffer row buffer.
+	 * @param row row index.
+	 * @param columnIndexes key column indexes of the buffer.
+	 * @return true if added, false if already in the set.
+	 */
+	boolean add(RowBuffer buffer, int row, int[] columnIndexes) {
+		if (isKept(buffer, columnIndexes)) {
+			return add(buffer.getRawLong(row, columnIndexes[0]));
+		}
+		if (refs == null) {
+			refs = new int[slots.length];
+			arena = new byte[INITIAL_CAPACITY * 16];
+		}
+		int length = encode(buffer, row, columnIndexes);
+		long hash = keyOf(buffer, row, columnIndexes);
+		int mask = slots.length - 1;
+		int index = (int)mix(hash) & mask;
+		boolean collided = false;
+		while (refs[index] != 0) {
+			if (slots[index] == hash) {
+				if (equalsKey(refs[index], length)) {
+					return false;
+				}
+				collided = true;
+			}
+			index = (index + 1) & mask;
+		}
+		if (collided) {
+			collisionCount++;
+		}
+		slots[index] = hash;
+		refs[index] = store(length);
+		if (++size > (slots.length >>> 2) * 3) {
+			grow();
+		}
+		return true;
+	}
+
+	/**
+	 * add key.
+	 * @param key key.
+	 * @return true if added, false if already in the set.
+	 */
+	boolean add(long key) {
+		if (key == 0) {
+			boolean added = !hasZero;
+			hasZero = true;
+			return added;
+		}
+		int mask = slots.length - 1;
+		int index = (int)mix(key) & mask;
+		while (slots[index] != 0) {
+			if (slots[index] == key) {
+				return false;
+			}
+			index = (index + 1) & mask;
+		}
+		slots[index] = key;
+		if (++size > (slots.length >>> 2) * 3) {
+			grow();
+		}
+		return true;
+	}
+
+	/**
+	 * is key in the set.
+	 * @param key key.
+	 * @return true if in the set.
+	 */
+	boolean contains(long key) {
+		if (key == 0) {
+			return hasZero;
+		}
+		int mask = slots.length - 1;
+		int index = (int)mix(key) & mask;
+		while (slots[index] != 0) {
+			if (slots[index] == key) {
+				return true;
+			}
+			index = (index + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * double the slots, keys are placed again.
+	 */
+	private void grow() {
+		if (slots.length == MAX_CAPACITY) {
+			throw new IllegalStateException("key set is full.");
+		}
+		long[] old = slots;
+		int[] oldRefs = refs;
+		slots = new long[old.length * 2];
+		refs = oldRefs != null ? new int[slots.length] : null;
+		int mask = slots.length - 1;
+		for (int i = 0; i < old.length; i++) {
+			if ((oldRefs != null) ? (oldRefs[i] != 0) : (old[i] != 0)) {
+				int index = (int)mix(old[i]) & mask;
+				while ((refs != null) ? (refs[index] != 0) : (slots[index] != 0)) {
+					index = (index + 1) & mask;
+				}
+				slots[index] = old[i];
+				if (refs != null) {
+					refs[index] = oldRefs[i];
+				}
+			}
+		}
+	}
+
+	// MARK: - Exact Key
+	/**
+	 * encode the exact key of a row into the scratch bytes, 8 bytes of a number & length prefixed UTF-8 bytes of a string.
+	 * @param buffer row buffer.
+	 * @param row row index.
+	 * @param columnIndexes key column indexes of the buffer.
+	 * @return length of the key.
+	 */
+	private int encode(RowBuffer buffer, int row, int[] columnIndexes) {
+		int length = 0;
+		for (int columnIndex : columnIndexes) {
+			switch (buffer.getKind(columnIndex)) {
+				case RowBuffer.KIND_LONG:
+				case RowBuffer.KIND_TEMPORAL:
+					length = putLong(length, buffer.getRawLong(row, columnIndex));
+					break;
+				case RowBuffer.KIND_DOUBLE:
+					length = putLong(length, Double.doubleToLongBits(buffer.getDouble(row, columnIndex)));
+					break;
+				case RowBuffer.KIND_LOB:
+					throw new IllegalStateException("LOB column can not be a key.");
+
+				default:
+					int valueLength = buffer.getLength(row, columnIndex);
+					length = putLong(length, valueLength);
+					ensureScratch(length + valueLength);
+					System.arraycopy(buffer.getArena(), buffer.getOffset(row, columnIndex), scratch, length, valueLength);
+					length += valueLength;
+					break;
+			}
+		}
+		return length;
+	}
+
+	/**
+	 * put 8 bytes of a value into the scratch bytes.
+	 * @param offset offset.
+	 * @param value value.
+	 * @return offset after the value.
+	 */
+	private int putLong(int offset, long value) {
+		ensureScratch(offset + 8);
+		for (int i = 0; i < 8; i++) {
+			scratch[offset + i] = (byte)(value >>> (56 - i * 8));
+		}
+		return offset + 8;
+	}
+
+	/**
+	 * grow the scratch bytes.
+	 * @param length required length.
+	 */
+	private void ensureScratch(int length) {
+		if (length > scratch.length) {
+			scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+		}
+	}
+
+	/**
+	 * is the key in the scratch bytes equal to a key in the arena.
+	 * @param ref arena offset of the key, a 4 bytes length precedes the key.
+	 * @param length length of the key in the scratch bytes.
+	 * @return true if equal.
+	 */
+	private boolean equalsKey(int ref, int length) {
+		int stored = ((arena[ref] & 0xff) << 24) | ((arena[ref + 1] & 0xff) << 16) | ((arena[ref + 2] & 0xff) << 8) | (arena[ref + 3] & 0xff);
+		if (stored != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (arena[ref + 4 + i] != scratch[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * store the key in the scratch bytes into the arena.
+	 * @param length length of the key.
+	 * @return arena offset of the key.
+	 */
+	private int store(int length) {
+		long required = (long)arenaSize + 4 + length;
+		if (required > arena.length) {
+			if (required > MAX_ARENA_SIZE) {
+				throw new IllegalStateException("key set is full.");
+			}
+			arena = Arrays.copyOf(arena, (int)Math.min(MAX_ARENA_SIZE, Math.max(required, (long)arena.length * 2)));
+		}
+		int ref = arenaSize;
+		arena[ref] = (byte)(length >>> 24);
+		arena[ref + 1] = (byte)(length >>> 16);
+		arena[ref + 2] = (byte)(length >>> 8);
+		arena[ref + 3] = (byte)length;
+		System.arraycopy(scratch, 0, arena, ref + 4, length);
+		arenaSize = (int)required;
+		return ref;
+	}
+
+	// MARK: - Key
+	/**
+	 * is the key of the columns kept as is, a single integral or temporal column.
+	 * @param buffer row buffer.
+	 * @param columnIndexes key column indexes of the buffer.
+	 * @return true if kept as is.
+	 */
+	static boolean isKept(RowBuffer buffer, int[] columnIndexes) {
+		if (columnIndexes.length != 1) {
+			return false;
+		}
+		int kind = buffer.getKind(columnIndexes[0]);
+		return (kind == RowBuffer.KIND_LONG) || (kind == RowBuffer.KIND_TEMPORAL);
+	}
+
+	/**
+	 * get key of a row.
+	 * @param buffer row buffer.
+	 * @param row row index.
+	 * @param columnIndexes key column indexes of the buffer.
+	 * @return key, the value itself for a single integral or temporal column, else 64 bit hash.
+	 */
+	private static long keyOf(RowBuffer buffer, int row, int[] columnIndexes) {
+		if (isKept(buffer, columnIndexes)) {
+			return buffer.getRawLong(row, columnIndexes[0]);
+		}
+		long hash = FNV_OFFSET;
+		for (int columnIndex : columnIndexes) {
+			hash = mix(hash ^ hashOf(buffer, row, columnIndex));
+		}
+		return hash;
+	}
+
+	/**
+	 * has any key column null, a row of null key never conflicts.
+	 * @param buffer row buffer.
+	 * @param row row index.
+	 * @param columnIndexes key column indexes of the buffer.
+	 * @return true if any null.
+	 */
+	static boolean hasNull(RowBuffer buffer, int row, int[] columnIndexes) {
+		for (int columnIndex : columnIndexes) {
+			if (buffer.isNull(row, columnIndex)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * get 64 bit hash of a value, FNV-1a of UTF-8 bytes for strings.
+	 * @param buffer row buffer.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return hash.
+	 */
+	private static long hashOf(RowBuffer buffer, int row, int columnIndex) {
+		switch (buffer.getKind(columnIndex)) {
+			case RowBuffer.KIND_LONG:
+			case RowBuffer.KIND_TEMPORAL:
+				return buffer.getRawLong(row, columnIndex);
+			case RowBuffer.KIND_DOUBLE:
+				return Double.doubleToLongBits(buffer.getDouble(row, columnIndex));
+			case RowBuffer.KIND_LOB:
+				throw new IllegalStateException("LOB column can not be a key.");
+
+			default:
+				byte[] arena = buffer.getArena();
+				int offset = buffer.getOffset(row, columnIndex);
+				int end = offset + buffer.getLength(row, columnIndex);
+				long hash = FNV_OFFSET;
+				for (int i = offset; i < end; i++) {
+					hash ^= arena[i] & 0xff;
+					hash *= FNV_PRIME;
+				}
+				return hash;
+		}
+	}
+
+	/**
+	 * mix bits, finalizer of MurmurHash3.
+	 * @param value value.
+	 * @return mixed value.
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
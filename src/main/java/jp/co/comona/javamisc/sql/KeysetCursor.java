@@ -0,0 +1,261 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * keyset pagination cursor.
+ * walks rows in primary key order with "key > last key" predicates, rows are never skipped by OFFSET from the table start.
+ * OFFSET is only used by nextBoundarySql(), a bounded probe of the chunk end counted from the last key on the index.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class KeysetCursor {
+
+	// MARK: - Properties
+	private final String tableName;
+	private final String[] keyColumns;
+	private final String[] quotedKeys;
+	private final String predicate;
+	private Object[] lastKey = null;
+	private Object[] upperKey = null;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param dialect SQL dialect to quote the key columns.
+	 * @param tableName quoted table name.
+	 * @param keyColumns primary key columns in key sequence order.
+	 * @param predicate additional where predicate, null if none.
+	 */
+	KeysetCursor(SQLDialect dialect, String tableName, String[] keyColumns, String predicate) {
+		super();
+		this.tableName = tableName;
+		this.keyColumns = keyColumns;
+		this.quotedKeys = new String[keyColumns.length];
+		for (int i = 0; i < keyColumns.length; i++) {
+			quotedKeys[i] = dialect.quote(keyColumns[i]);
+		}
+		this.predicate = predicate;
+	}
+
+	// MARK: - Getters
+	/**
+	 * get primary key columns.
+	 * @return primary key columns.
+	 */
+	String[] getKeyColumns() {
+		return keyColumns;
+	}
+
+	/**
+	 * get last key fetched.
+	 * @return last key, null if nothing fetched yet.
+	 */
+	Object[] getLastKey() {
+		return lastKey;
+	}
+
+	/**
+	 * set last key, used to resume a walk.
+	 * @param lastKey last key.
+	 */
+	void setLastKey(Object[] lastKey) {
+		this.lastKey = lastKey;
+	}
+
+	/**
+	 * get upper bound key.
+	 * @return upper bound key, null if not fixed.
+	 */
+	Object[] getUpperKey() {
+		return upperKey;
+	}
+
+	/**
+	 * set upper bound key, used to resume a walk.
+	 * @param upperKey upper bound key.
+	 */
+	void setUpperKey(Object[] upperKey) {
+		this.upperKey = upperKey;
+	}
+
+	// MARK: - SQL
+	/**
+	 * create SQL to find the upper bound key of the walk.
+	 * @return SQL.
+	 */
+	String upperBoundSql() {
+		StringBuilder sql = new StringBuilder("SELECT ");
+		appendKeyList(sql, null);
+		sql.append(" FROM ").append(tableName);
+		if (predicate != null) {
+			sql.append(" WHERE ").append(predicate);
+		}
+		sql.append(" ORDER BY ");
+		appendKeyList(sql, " DESC");
+		sql.append(" LIMIT 1");
+		return sql.toString();
+	}
+
+	/**
+	 * create SQL to select next chunk.
+	 * @param selectList select list.
+	 * @param limit chunk size.
+	 * @return SQL.
+	 */
+	String nextChunkSql(String selectList, int limit) {
+		StringBuilder sql = new StringBuilder(rangeSql(selectList));
+		sql.append(" ORDER BY ");
+		appendKeyList(sql, null);
+		sql.append(" LIMIT ").append(limit);
+		return sql.toString();
+	}
+
+	/**
+	 * create SQL to find the key of the rows-th row after the last key, the upper bound of a chunk of the rows.
+	 * the server skips the rows on the index, only the key is fetched.
+	 * @param rows number of rows in the chunk.
+	 * @return SQL.
+	 */
+	String nextBoundarySql(int rows) {
+		StringBuilder keyList = new StringBuilder();
+		appendKeyList(keyList, null);
+		return nextChunkSql(keyList.toString(), 1) + " OFFSET " + (rows - 1);
+	}
+
+	/**
+	 * create SQL to select rows after the last key up to the upper bound key, unordered, for aggregates of the range.
+	 * @param selectList select list.
+	 * @return SQL.
+	 */
+	String rangeSql(String selectList) {
+		StringBuilder sql = new StringBuilder("SELECT ");
+		sql.append(selectList).append(" FROM ").append(tableName);
+		String where = " WHERE ";
+		if (predicate != null) {
+			sql.append(where).append(predicate);
+			where = " AND ";
+		}
+		if (lastKey != null) {
+			sql.append(where);
+			appendAfter(sql);
+			where = " AND ";
+		}
+		if (upperKey != null) {
+			sql.append(where).append("NOT ");
+			appendAfter(sql);
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * append key columns list.
+	 * @param sql SQL.
+	 * @param suffix suffix for each column, null if none.
+	 */
+	private void appendKeyList(StringBuilder sql, String suffix) {
+		for (int i = 0; i < keyColumns.length; i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			sql.append(quotedKeys[i]);
+			if (suffix != null) {
+				sql.append(suffix);
+			}
+		}
+	}
+
+	/**
+	 * append "key is after" predicate, expanded for composite keys.
+	 * (k1 > ? OR (k1 = ? AND k2 > ?) ...)
+	 * @param sql SQL.
+	 */
+	private void appendAfter(StringBuilder sql) {
+		sql.append('(');
+		for (int i = 0; i < keyColumns.length; i++) {
+			if (i > 0) {
+				sql.append(" OR ");
+			}
+			sql.append('(');
+			for (int j = 0; j < i; j++) {
+				sql.append(quotedKeys[j]).append(" = ? AND ");
+			}
+			sql.append(quotedKeys[i]).append(" > ?)");
+		}
+		sql.append(')');
+	}
+
+	/**
+	 * bind last key & upper bound values to statement created by nextChunkSql().
+	 * @param ps prepared statement.
+	 * @param index first parameter index to bind.
+	 * @return next parameter index.
+	 * @throws SQLException when SQL error.
+	 */
+	int bind(PreparedStatement ps, int index) throws SQLException {
+		if (lastKey != null) {
+			index = bindAfter(ps, index, lastKey);
+		}
+		if (upperKey != null) {
+			index = bindAfter(ps, index, upperKey);
+		}
+		return index;
+	}
+
+	/**
+	 * bind values for appendAfter().
+	 * @param ps prepared statement.
+	 * @param index first parameter index to bind.
+	 * @param key key values.
+	 * @return next parameter index.
+	 * @throws SQLException when SQL error.
+	 */
+	private int bindAfter(PreparedStatement ps, int index, Object[] key) throws SQLException {
+		for (int i = 0; i < keyColumns.length; i++) {
+			for (int j = 0; j <= i; j++) {
+				ps.setObject(index++, key[j]);
+			}
+		}
+		return index;
+	}
+
+	// MARK: - Fetch
+	/**
+	 * fix the upper bound from the result of upperBoundSql().
+	 * @param rs result set.
+	 * @return true if any row matched.
+	 * @throws SQLException when SQL error.
+	 */
+	boolean fixUpperBound(ResultSet rs) throws SQLException {
+		if (rs.next()) {
+			upperKey = readKey(rs);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * remember the key of current row.
+	 * @param rs result set positioned on a row.
+	 * @throws SQLException when SQL error.
+	 */
+	void advance(ResultSet rs) throws SQLException {
+		lastKey = readKey(rs);
+	}
+
+	/**
+	 * read key values of current row.
+	 * @param rs result set positioned on a row.
+	 * @return key values.
+	 * @throws SQLException when SQL error.
+	 */
+	private Object[] readKey(ResultSet rs) throws SQLException {
+		Object[] key = new Object[keyColumns.length];
+		for (int i = 0; i < keyColumns.length; i++) {
+			key[i] = rs.getObject(keyColumns[i]);
+		}
+		return key;
+	}
+}
@@ -0,0 +1,432 @@
+package jp.co.comona.javamisc.sql;
+
+import jp.co.comona.javamisc.Util;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * move SQL record tool.
+ * moves matched rows into a target (archive) table in primary key order, chunk by chunk.
+ * each chunk is locked, copied & deleted in its own transaction, so a long purge never holds long locks.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class MoveRecord extends SQLRecord {
+
+	// MARK: - Static Properties
+	private static final char REPLACE_SHORT_OPTION = 'r';
+	private static final int DEFAULT_CHUNK_SIZE = 1000;
+
+	// MARK: - Properties
+	private String[] keys = null;
+	private String[] values = null;
+	private String where = null;
+	private String targetTableName = null;
+	private String quotedTargetName = null;
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+	private int rate = 0;
+	private String[] primaryKeys = null;
+	private ColumnMapping mapping = null;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param options command line options.
+	 * @param cmd command line.
+	 */
+	protected MoveRecord(Options options, CommandLine cmd) {
+		super(options, cmd);
+	}
+
+	// MARK: - Process
+	/**
+	 * do process.
+	 */
+	@Override
+	protected void doProcess() throws Exception {
+		primaryKeys = loadPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			throw new Exception("move requires a primary key on " + tableName);
+		}
+		String insertSql = createInsertSql();
+		KeysetCursor cursor = new KeysetCursor(getDialect(), quotedTableName, primaryKeys, createPredicate());
+		RateLimiter limiter = rate > 0 ? new RateLimiter(rate) : null;
+
+		boolean autoCommit = con.getAutoCommit();
+		con.setAutoCommit(false);
+		RowBuffer buffer = new RowBuffer(meta, chunkSize);
+		List<Object[]> chunkKeys = new ArrayList<>(chunkSize);
+		try {
+			// fix the upper bound first, rows matched after the start are left for the next run.
+			try (PreparedStatement ps = con.prepareStatement(cursor.upperBoundSql())) {
+				bindKeyValues(ps);
+				try (ResultSet rs = executeQuery(ps)) {
+					if (!cursor.fixUpperBound(rs)) {
+						commit(con, 0);
+						return;
+					}
+				}
+			}
+			commit(con, 0);
+
+			try (PreparedStatement insert = getDialect().prepareBulkInsert(con, insertSql, quotedTargetName, mapping.hasLiteral() ? null : mapping.getBoundColumns(), false);
+					PreparedStatement delete = con.prepareStatement(createDeleteSql(chunkSize))) {
+				int count;
+				do {
+					count = moveChunk(cursor, insert, delete, buffer, chunkKeys);
+					commit(con, count);
+					recordCount += count;
+					if ((limiter != null) && (count > 0)) {
+						limiter.acquire(count);
+					}
+				} while (count == chunkSize);
+			}
+		}
+		catch (Exception e) {
+			con.rollback();
+			throw e;
+		}
+		finally {
+			con.setAutoCommit(autoCommit);
+		}
+	}
+
+	/**
+	 * move next chunk, rows are locked until the commit.
+	 * @param cursor keyset cursor.
+	 * @param insert insert prepared statement of the target table.
+	 * @param delete delete prepared statement of chunk size rows.
+	 * @param buffer row buffer to stage the rows.
+	 * @param chunkKeys primary keys of the chunk, filled by this method.
+	 * @return number of rows moved.
+	 * @throws Exception when error.
+	 */
+	private int moveChunk(KeysetCursor cursor, PreparedStatement insert, PreparedStatement delete, RowBuffer buffer, List<Object[]> chunkKeys) throws Exception {
+		buffer.clear();
+		chunkKeys.clear();
+		try (PreparedStatement ps = con.prepareStatement(cursor.nextChunkSql("*", chunkSize) + " FOR UPDATE")) {
+			cursor.bind(ps, bindKeyValues(ps));
+			try (ResultSet rs = executeQuery(ps)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					cursor.advance(rs);
+					chunkKeys.add(cursor.getLastKey());
+				}
+			}
+		}
+		int count = buffer.size();
+		if (count == 0) {
+			return 0;
+		}
+
+		for (int row = 0; row < count; row++) {
+			mapping.bind(insert, buffer, row, 1);
+			insert.addBatch();
+		}
+		executeBatch(insert, count);
+
+		int deleted = 0;
+		if (count == chunkSize) {
+			deleted = deleteRows(delete, chunkKeys);
+		}
+		else {
+			try (PreparedStatement ps = con.prepareStatement(createDeleteSql(count))) {
+				deleted = deleteRows(ps, chunkKeys);
+			}
+		}
+		if (deleted != count) {
+			throw new SQLException(count + " rows copied but " + deleted + " rows deleted from " + tableName + ", rolled back.");
+		}
+		return count;
+	}
+
+	/**
+	 * delete rows of the keys.
+	 * @param ps delete prepared statement of the key count.
+	 * @param chunkKeys primary keys.
+	 * @return number of rows deleted.
+	 * @throws SQLException when SQL error.
+	 */
+	private int deleteRows(PreparedStatement ps, List<Object[]> chunkKeys) throws SQLException {
+		int index = 1;
+		for (Object[] key : chunkKeys) {
+			for (Object value : key) {
+				ps.setObject(index++, value);
+			}
+		}
+		return ps.executeUpdate();
+	}
+
+	// MARK: - SQL
+	/**
+	 * create where predicate of key values & where option.
+	 * @return predicate, null if none.
+	 * @throws SQLException when SQL error.
+	 */
+	private String createPredicate() throws SQLException {
+		StringBuilder sql = new StringBuilder();
+		if (keys != null) {
+			for (int i = 0; i < keys.length; i++) {
+				if (i > 0) {
+					sql.append(" AND ");
+				}
+				sql.append(quote(toColumnName(keys[i]))).append(" = ?");
+			}
+		}
+		if (where != null) {
+			if (sql.length() > 0) {
+				sql.append(" AND ");
+			}
+			sql.append('(').append(where).append(')');
+		}
+		return sql.length() > 0 ? sql.toString() : null;
+	}
+
+	/**
+	 * bind key values to prepared statement.
+	 * @param ps prepared statement.
+	 * @return next parameter index.
+	 * @throws Exception when error.
+	 */
+	private int bindKeyValues(PreparedStatement ps) throws Exception {
+		int index = 1;
+		if (keys != null) {
+			for (int i = 0; i < keys.length; i++) {
+				for (int columnIndex = 1; columnIndex <= meta.getColumnCount(); columnIndex++) {
+					if (keys[i].compareToIgnoreCase(meta.getColumnName(columnIndex)) == 0) {
+						setColumnValue(ps, index, keys[i], meta.getColumnType(columnIndex), values[i]);
+						break;
+					}
+				}
+				index++;
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * create insert SQL of the target table by the column mapping compiled from the metadata.
+	 * target columns are copied from the source column of the same name, NOW() columns are set by the server,
+	 * other target columns are left to the default value.
+	 * @return insert SQL.
+	 * @throws SQLException when SQL error or no column in common.
+	 */
+	private String createInsertSql() throws SQLException {
+		quotedTargetName = quote(toStoredCase(targetTableName));
+		mapping = new ColumnMapping(getDialect(), meta, loadMetadata(quotedTargetName), false, null, null, null, null, nowColumns, null);
+		if (mapping.getBoundColumns().isEmpty()) {
+			throw new SQLException(targetTableName + " has no column in common with " + tableName);
+		}
+		for (String colName : mapping.getUnmappedColumns()) {
+			warn("column " + colName + " is not in " + targetTableName + ", not kept by the move.");
+		}
+		return mapping.createInsertSql(getDialect(), quotedTargetName);
+	}
+
+	/**
+	 * create delete SQL of rows by primary keys.
+	 * k IN (?, ..) for single column key, (k1, k2) IN ((?, ?), ..) for composite key.
+	 * @param rows number of rows.
+	 * @return delete SQL.
+	 */
+	private String createDeleteSql(int rows) {
+		StringBuilder row = new StringBuilder();
+		for (int i = 0; i < primaryKeys.length; i++) {
+			if (i > 0) {
+				row.append(SQL_COMMA);
+			}
+			row.append(SQL_PREPARED_MARK);
+		}
+		StringBuilder sql = new StringBuilder("DELETE FROM ");
+		sql.append(quotedTableName).append(" WHERE ");
+		if (primaryKeys.length == 1) {
+			sql.append(quote(primaryKeys[0]));
+		}
+		else {
+			sql.append('(');
+			for (int i = 0; i < primaryKeys.length; i++) {
+				if (i > 0) {
+					sql.append(SQL_COMMA);
+				}
+				sql.append(quote(primaryKeys[i]));
+			}
+			sql.append(')');
+			row.insert(0, '(').append(')');
+		}
+		sql.append(" IN (");
+		for (int i = 0; i < rows; i++) {
+			if (i > 0) {
+				sql.append(SQL_COMMA);
+			}
+			sql.append(row);
+		}
+		sql.append(')');
+		return sql.toString();
+	}
+
+	// MARK: - Check
+	/**
+	 * check arguments.
+	 */
+	@Override
+	protected int checkArguments() {
+		if (cmd.hasOption('?')) {
+			usage(options);
+			return 1;
+		}
+		else if (!cmd.hasOption('d') || !cmd.hasOption('t') || !cmd.hasOption('u') || !cmd.hasOption("target")) {
+			usage(options);
+			return -1;
+		}
+		if (!checkDatabaseName()) {
+			return -1;
+		}
+		if (!checkTableName()) {
+			return -1;
+		}
+		if (!checkHostName()) {
+			return -1;
+		}
+		if (!checkDialect()) {
+			return -1;
+		}
+		if (!checkUserName()) {
+			return -1;
+		}
+		if (!checkUserPassword()) {
+			return -1;
+		}
+
+		String[] targets = cmd.getOptionValues("target");
+		if (targets.length > 1) {
+			usage(options);
+			System.out.println("[ERROR] multiple target table name is not allowed.");
+			return -1;
+		}
+		targetTableName = targets[0];
+		if (targetTableName.equalsIgnoreCase(tableName)) {
+			usage(options);
+			System.out.println("[ERROR] target table must be other than the source table.");
+			return -1;
+		}
+		keys = cmd.getOptionValues('k');
+		values = cmd.getOptionValues('v');
+		if ((keys != null) || (values != null)) {
+			if ((keys == null) || (values == null) || (keys.length != values.length)) {
+				usage(options);
+				keyAndValueCountMustSame();
+				return -1;
+			}
+			if (Util.hasDuplicateValuesIgnoreCase(keys)) {
+				usage(options);
+				duplicateValueFound("key name");
+				return -1;
+			}
+		}
+		where = cmd.getOptionValue("where");
+		if ((keys == null) && (where == null)) {
+			usage(options);
+			System.out.println("[ERROR] key & value or where predicate is required, use --where \"1 = 1\" to move all rows.");
+			return -1;
+		}
+		if (!checkNowColumns()) {
+			return -1;
+		}
+		chunkSize = checkPositiveNumber("chunk-size", "chunk size", DEFAULT_CHUNK_SIZE);
+		if (chunkSize < 0) {
+			return -1;
+		}
+		rate = checkPositiveNumber("rate", "rows per second", 0);
+		if (rate < 0) {
+			return -1;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * get replace values short option.
+	 */
+	@Override
+	protected char replaceValueShortOption() {
+		return REPLACE_SHORT_OPTION;
+	}
+
+	// MARK: - Entry Point
+	/**
+	 * create command line options.
+	 * @return command line options.
+	 */
+	static Options createOptions() {
+		Options options = new Options();
+		options.addOption("?", "help", false, "show this help");
+		options.addOption("d", "database", true, "database name");
+		options.addOption("t", "table", true, "source table name");
+		options.addOption(null, "target", true, "target table name to move rows into");
+		options.addOption("h", "host", true, "[host name, localhost as default]");
+		options.addOption(null, "port", true, "[port number, default port of the dialect as default]");
+		options.addOption(null, "dialect", true, "[mysql or postgresql, mysql as default]");
+		options.addOption("u", "user", true, "user name");
+		options.addOption("p", "prompt", false, "[prompt password] do not set with -P");
+		options.addOption("P", "password", true, "[user password] do not set with -p");
+		options.addOption("k", "key-name", true, "[key name] key & value or --where is required");
+		options.addOption("v", "key-value", true, "[key value]");
+		options.addOption(null, "where", true, "[SQL predicate of rows to move, like \"created_at < '2024-01-01'\"]");
+		options.addOption("n", "now", true, "[use NOW() for the target column]");
+		options.addOption(null, "chunk-size", true, "[number of rows moved per transaction, " + DEFAULT_CHUNK_SIZE + " as default]");
+		options.addOption(null, "rate", true, "[maximum rows moved per second, unlimited as default]");
+		return options;
+	}
+
+	/**
+	 * entry point.
+	 * @param args arguments array.
+	 */
+	public static void main(String[] args) {
+		Options options = createOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine cmd = parser.parse(options, args);
+			MoveRecord moveRecord = new MoveRecord(options, cmd);
+			int argCheck = moveRecord.checkArguments();
+			if (argCheck != 0) {
+				System.exit(argCheck < 0 ? ERROR_VALUE : SUCCESS_VALUE);
+			}
+
+			moveRecord.connectAndProcess();
+		}
+		catch (org.apache.commons.cli.ParseException e) {
+			e.printStackTrace(System.err);
+			usage(options, "MoveRecord");
+			System.exit(ERROR_VALUE);
+		}
+		catch (Exception e1) {
+			e1.printStackTrace(System.err);
+			System.exit(ERROR_VALUE);
+		}
+	}
+
+	// MARK: - Usage
+	/**
+	 * show error message for keys anv values counts are not same.
+	 */
+	private static void keyAndValueCountMustSame() {
+		System.out.println("[ERROR] key and value arguments count must be same.");
+	}
+
+	/**
+	 * show error message for columns and replaces counts are not same.
+	 */
+	@Override
+	protected void columnAndReplaceCountMustSame() {
+		System.out.println("[ERROR] column and replace arguments count must be same.");
+	}
+}
@@ -0,0 +1,545 @@
+package jp.co.comona.javamisc.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * multi-row INSERT ... VALUES (?, ..), (?, ..) behind the PreparedStatement interface.
+ * parameters of rows added to the batch are kept, executeBatch() packs the rows into as few statements as the limits allow.
+ * rows per statement are limited by the placeholder limit of the dialect & the statement size limit of the server (max_allowed_packet),
+ * one prepared statement is cached per packing size.
+ * the first PREPARE_THRESHOLD batches go straight to the batch of the single row statement, rewritten by the driver where the URL enables it,
+ * a packed statement prepared for a few batches costs more to parse than it saves.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class MultiRowInsert implements InvocationHandler, RejectWriter.BatchRows {
+
+	// MARK: - Static Properties
+	private static final int MAX_EXACT_SIZES = 4;	// tails of other sizes are packed by powers of two.
+	private static final int PREPARE_THRESHOLD = 5;	// like prepareThreshold of the PostgreSQL driver.
+	private static final int STATEMENT_MARGIN = 1024;
+	private static final int VALUE_BYTES = 32;
+
+	// MARK: - Properties
+	private final Connection con;
+	private final String head;
+	private final String rowValues;
+	private final String tail;
+	private final int parameterCount;
+	private final int maxRows;
+	private final long maxBytes;
+	private final Map<Integer, PreparedStatement> statements = new HashMap<>();
+	private final Method[] currentMethods;
+	private final Object[][] currentArgs;
+	private Method[] methods;
+	private Object[][] arguments;
+	private long[] rowBytes;
+	private Integer[] parameterIndexes = new Integer[0];
+	private long observedBytes = 0;
+	private long observedRows = 0;
+	private RejectWriter rejectWriter = null;
+	private PreparedStatement batchStatement = null;
+	private int batchCount = 0;
+	private int rowCount = 0;
+	private boolean closed = false;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param con connection.
+	 * @param insertSql single row insert SQL, INSERT INTO table VALUES(..) with optional trailing clause.
+	 * @param maxParameters placeholder limit of a statement.
+	 * @param maxBytes statement size limit in bytes, 0 if unlimited.
+	 * @throws SQLException when the insert SQL has no VALUES.
+	 */
+	private MultiRowInsert(Connection con, String insertSql, int maxParameters, long maxBytes) throws SQLException {
+		super();
+		this.con = con;
+		int start = insertSql.indexOf(SQLRecord.SQL_VALUES_START);
+		if (start < 0) {
+			throw new SQLException("not a VALUES insert: " + insertSql);
+		}
+		start += SQLRecord.SQL_VALUES_START.length() - 1;
+		int end = start;
+		int depth = 0;
+		int parameters = 0;
+		for (; end < insertSql.length(); end++) {
+			char c = insertSql.charAt(end);
+			if (c == '(') {
+				depth++;
+			}
+			else if ((c == ')') && (--depth == 0)) {
+				break;
+			}
+			else if (c == SQLRecord.SQL_PREPARED_MARK) {
+				parameters++;
+			}
+		}
+		this.head = insertSql.substring(0, start);
+		this.rowValues = insertSql.substring(start, end + 1);
+		this.tail = insertSql.substring(end + 1);
+		this.parameterCount = parameters;
+		this.maxRows = Math.max(1, maxParameters / Math.max(1, parameters));
+		this.maxBytes = maxBytes > 0 ? Math.max(maxBytes - head.length() - tail.length() - STATEMENT_MARGIN, 1) : 0;
+		this.currentMethods = new Method[parameters];
+		this.currentArgs = new Object[parameters][];
+		this.methods = new Method[parameters * 64];
+		this.arguments = new Object[parameters * 64][];
+		this.rowBytes = new long[64];
+	}
+
+	/**
+	 * create multi-row insert statement.
+	 * @param con connection.
+	 * @param insertSql single row insert SQL.
+	 * @param dialect SQL dialect for the limits.
+	 * @return prepared statement.
+	 * @throws SQLException when SQL error.
+	 */
+	static PreparedStatement create(Connection con, String insertSql, SQLDialect dialect) throws SQLException {
+		MultiRowInsert handler = new MultiRowInsert(con, insertSql, dialect.getMaxParameters(), dialect.loadMaxStatementBytes(con));
+		handler.batchStatement = handler.getStatement(1);
+		return (PreparedStatement)Proxy.newProxyInstance(BatchStatement.class.getClassLoader(), new Class<?>[] { BatchStatement.class }, handler);
+	}
+
+	// MARK: - Invocation
+	/**
+	 * handle PreparedStatement method.
+	 */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		if ((batchStatement != null) && isDelegated(name)) {
+			return invokeBatchStatement(method, args);
+		}
+		switch (name) {
+			case "addBatch":
+				addRow();
+				return null;
+			case "executeBatch":
+				int[] counts = new int[rowCount];
+				Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+				flush();
+				return counts;
+			case "execute":
+				addRow();
+				flush();
+				return false;
+			case "executeUpdate":
+				addRow();
+				return flush();
+			case "executeLargeUpdate":
+				addRow();
+				return (long)flush();
+			case "clearParameters":
+				Arrays.fill(currentMethods, null);
+				Arrays.fill(currentArgs, null);
+				return null;
+			case "getBatchBytes":
+				return getBatchBytes();
+			case "setRejectWriter":
+				rejectWriter = (RejectWriter)args[0];
+				batchStatement = null;	// rows are kept to bisect a failed statement.
+				return null;
+			case "clearBatch":
+				clearRows();
+				return null;
+			case "close":
+				close();
+				return null;
+			case "isClosed":
+				return closed;
+			case "getConnection":
+				return con;
+			case "getUpdateCount":
+				return -1;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return head + rowValues + tail;
+
+			default:
+				if (name.startsWith("set") && (args != null) && (args.length >= 2) && (args[0] instanceof Integer)) {
+					int index = (Integer)args[0] - 1;
+					if ((index < 0) || (index >= parameterCount)) {
+						throw new SQLException("parameter index " + args[0] + " is out of range.");
+					}
+					currentMethods[index] = method;
+					currentArgs[index] = args;
+					return null;
+				}
+				throw new SQLFeatureNotSupportedException(name + " is not supported by multi-row insert.");
+		}
+	}
+
+	// MARK: - Batch Statement
+	/**
+	 * check if the method goes to the batch of the single row statement.
+	 * @param name method name.
+	 * @return true if delegated.
+	 */
+	private static boolean isDelegated(String name) {
+		switch (name) {
+			case "addBatch":
+			case "executeBatch":
+			case "clearBatch":
+			case "clearParameters":
+			case "execute":
+			case "executeUpdate":
+			case "executeLargeUpdate":
+				return true;
+			default:
+				return name.startsWith("set") && !"setRejectWriter".equals(name);
+		}
+	}
+
+	/**
+	 * invoke method on the single row statement, rows are packed after PREPARE_THRESHOLD batches.
+	 * current parameters are kept too, they stay set for the rows after the switch.
+	 * @param method method.
+	 * @param args arguments.
+	 * @return result.
+	 * @throws Throwable when error.
+	 */
+	private Object invokeBatchStatement(Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		switch (name) {
+			case "addBatch":
+				addRowBytes();
+				break;
+			case "executeBatch":
+			case "clearBatch":
+				clearRows();
+				if ("executeBatch".equals(name) && (++batchCount >= PREPARE_THRESHOLD)) {
+					Object counts = invokeStatement(batchStatement, method, args);
+					batchStatement = null;
+					return counts;
+				}
+				break;
+			case "clearParameters":
+				Arrays.fill(currentMethods, null);
+				Arrays.fill(currentArgs, null);
+				break;
+			default:
+				if (name.startsWith("set") && (args != null) && (args.length >= 2) && (args[0] instanceof Integer)) {
+					int index = (Integer)args[0] - 1;
+					if ((index >= 0) && (index < parameterCount)) {
+						currentMethods[index] = method;
+						currentArgs[index] = args;
+					}
+				}
+				break;
+		}
+		return invokeStatement(batchStatement, method, args);
+	}
+
+	/**
+	 * invoke method on a statement.
+	 * @param ps statement.
+	 * @param method method.
+	 * @param args arguments.
+	 * @return result.
+	 * @throws SQLException when SQL error.
+	 */
+	private static Object invokeStatement(PreparedStatement ps, Method method, Object[] args) throws SQLException {
+		try {
+			return method.invoke(ps, args);
+		}
+		catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException)e.getCause();
+			}
+			throw new SQLException(method.getName() + " failed.", e.getCause());
+		}
+		catch (IllegalAccessException e) {
+			throw new SQLException(method.getName() + " failed.", e);
+		}
+	}
+
+	// MARK: - Rows
+	/**
+	 * count bytes of current parameters as a row added to the batch of the single row statement.
+	 * @throws SQLException when LOB length error.
+	 */
+	private void addRowBytes() throws SQLException {
+		growRows();
+		long bytes = rowValues.length();
+		for (int i = 0; i < parameterCount; i++) {
+			if (currentMethods[i] != null) {
+				bytes += estimateBytes(currentMethods[i], currentArgs[i]);
+			}
+		}
+		rowBytes[rowCount++] = bytes;
+		observedBytes += bytes;
+		observedRows++;
+	}
+
+	/**
+	 * keep current parameters as a row, parameters stay set for the next row like a prepared statement.
+	 * @throws SQLException when a parameter is not set.
+	 */
+	private void addRow() throws SQLException {
+		growRows();
+		long bytes = rowValues.length();
+		int offset = rowCount * parameterCount;
+		for (int i = 0; i < parameterCount; i++) {
+			if (currentMethods[i] == null) {
+				throw new SQLException("parameter " + (i + 1) + " is not set.");
+			}
+			methods[offset + i] = currentMethods[i];
+			arguments[offset + i] = currentArgs[i];
+			bytes += estimateBytes(currentMethods[i], currentArgs[i]);
+		}
+		rowBytes[rowCount++] = bytes;
+		observedBytes += bytes;
+		observedRows++;
+	}
+
+	/**
+	 * grow row arrays if full.
+	 */
+	private void growRows() {
+		if (rowCount == rowBytes.length) {
+			methods = Arrays.copyOf(methods, methods.length * 2);
+			arguments = Arrays.copyOf(arguments, arguments.length * 2);
+			rowBytes = Arrays.copyOf(rowBytes, rowBytes.length * 2);
+		}
+	}
+
+	/**
+	 * clear rows added to the batch.
+	 */
+	private void clearRows() {
+		Arrays.fill(arguments, 0, rowCount * parameterCount, null);
+		rowCount = 0;
+	}
+
+	/**
+	 * get estimated bytes of rows added to the batch.
+	 * @return bytes.
+	 */
+	private long getBatchBytes() {
+		long bytes = 0;
+		for (int row = 0; row < rowCount; row++) {
+			bytes += rowBytes[row];
+		}
+		return bytes;
+	}
+
+	/**
+	 * estimate bytes of a value in the statement sent to the server.
+	 * @param method setter method.
+	 * @param args setter arguments.
+	 * @return estimated bytes.
+	 * @throws SQLException when LOB length error.
+	 */
+	private static long estimateBytes(Method method, Object[] args) throws SQLException {
+		Object value = args[1];
+		if ((value == null) || "setNull".equals(method.getName())) {
+			return 4;
+		}
+		else if (value instanceof String) {
+			return ((String)value).length() * 3L + 2;	// UTF-8 & quotes.
+		}
+		else if (value instanceof byte[]) {
+			return ((byte[])value).length * 2L + 3;	// escaped or hex.
+		}
+		else if (value instanceof Blob) {
+			return ((Blob)value).length() * 2 + 3;
+		}
+		else if (value instanceof Clob) {
+			return ((Clob)value).length() * 3 + 2;
+		}
+		return VALUE_BYTES;
+	}
+
+	// MARK: - Execute
+	/**
+	 * get number of rows per statement from the placeholder limit & the statement size limit by the average row so far.
+	 * statements of rows larger than the average are split when executed.
+	 * @return rows per statement.
+	 */
+	private int getRowsPerStatement() {
+		if ((maxBytes == 0) || (observedRows == 0)) {
+			return maxRows;
+		}
+		return (int)Math.max(1, Math.min(maxRows, maxBytes * observedRows / observedBytes));
+	}
+
+	/**
+	 * execute rows added to the batch by multi-row statements.
+	 * @return number of rows inserted.
+	 * @throws SQLException when SQL error.
+	 */
+	private int flush() throws SQLException {
+		int inserted = 0;
+		try {
+			int rowsPerStatement = getRowsPerStatement();
+			int first = 0;
+			while (first < rowCount) {
+				int remaining = rowCount - first;
+				int size;
+				if (remaining >= rowsPerStatement) {
+					size = rowsPerStatement;
+				}
+				else if (statements.containsKey(remaining) || (statements.size() < MAX_EXACT_SIZES)) {
+					size = remaining;
+				}
+				else {
+					size = Integer.highestOneBit(remaining);
+				}
+				inserted += execute(first, size);
+				first += size;
+			}
+		}
+		finally {
+			clearRows();
+		}
+		return inserted;
+	}
+
+	/**
+	 * execute rows by a statement, split when the rows exceed the statement size limit.
+	 * with reject file, a statement failed by a row error is bisected.
+	 * @param first first row.
+	 * @param size number of rows.
+	 * @return number of rows inserted.
+	 * @throws SQLException when SQL error.
+	 */
+	private int execute(int first, int size) throws SQLException {
+		if ((size > 1) && (maxBytes > 0)) {
+			long bytes = 0;
+			for (int row = first; row < first + size; row++) {
+				bytes += rowBytes[row];
+			}
+			if (bytes > maxBytes) {
+				int half = Integer.highestOneBit(size - 1);
+				return execute(first, half) + execute(first + half, size - half);
+			}
+		}
+		if (rejectWriter != null) {
+			return rejectWriter.execute(con, this, first, size);
+		}
+		return executeRows(first, size);
+	}
+
+	/**
+	 * bind rows to the statement of the size & execute.
+	 * @param first first row.
+	 * @param size number of rows.
+	 * @return number of rows inserted.
+	 * @throws SQLException when SQL error.
+	 */
+	@Override
+	public int executeRows(int first, int size) throws SQLException {
+		PreparedStatement ps = getStatement(size);
+		try {
+			for (int row = 0; row < size; row++) {
+				int offset = (first + row) * parameterCount;
+				for (int i = 0; i < parameterCount; i++) {
+					Object[] args = arguments[offset + i];	// own copy made by the proxy, the index is rewritten in place.
+					args[0] = parameterIndexes[row * parameterCount + i];
+					methods[offset + i].invoke(ps, args);
+				}
+			}
+		}
+		catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException)e.getCause();
+			}
+			throw new SQLException("bind failed.", e.getCause());
+		}
+		catch (IllegalAccessException e) {
+			throw new SQLException("bind failed.", e);
+		}
+		ps.executeUpdate();
+		return size;
+	}
+
+	/**
+	 * get parameter values of a row.
+	 * @param row row.
+	 * @return values, null for null.
+	 */
+	@Override
+	public Object[] getValues(int row) {
+		Object[] values = new Object[parameterCount];
+		int offset = row * parameterCount;
+		for (int i = 0; i < parameterCount; i++) {
+			values[i] = "setNull".equals(methods[offset + i].getName()) ? null : arguments[offset + i][1];
+		}
+		return values;
+	}
+
+	/**
+	 * get cached statement of the packing size, prepared at first use.
+	 * @param size rows of the statement.
+	 * @return prepared statement.
+	 * @throws SQLException when SQL error.
+	 */
+	private PreparedStatement getStatement(int size) throws SQLException {
+		PreparedStatement ps = statements.get(size);
+		if (ps == null) {
+			StringBuilder sql = new StringBuilder(head.length() + (rowValues.length() + 2) * size + tail.length());
+			sql.append(head);
+			for (int row = 0; row < size; row++) {
+				if (row > 0) {
+					sql.append(SQLRecord.SQL_COMMA);
+				}
+				sql.append(rowValues);
+			}
+			sql.append(tail);
+			ps = con.prepareStatement(sql.toString());
+			statements.put(size, ps);
+			if (parameterIndexes.length < size * parameterCount) {
+				int length = parameterIndexes.length;
+				parameterIndexes = Arrays.copyOf(parameterIndexes, size * parameterCount);
+				for (int i = length; i < parameterIndexes.length; i++) {
+					parameterIndexes[i] = i + 1;	// boxed once.
+				}
+			}
+		}
+		return ps;
+	}
+
+	// MARK: - Close
+	/**
+	 * close cached statements.
+	 * @throws SQLException when SQL error.
+	 */
+	private void close() throws SQLException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		clearRows();
+		SQLException error = null;
+		for (PreparedStatement ps : statements.values()) {
+			try {
+				ps.close();
+			}
+			catch (SQLException e) {
+				error = e;
+			}
+		}
+		statements.clear();
+		if (error != null) {
+			throw error;
+		}
+	}
+}
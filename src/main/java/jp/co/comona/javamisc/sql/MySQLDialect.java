@@ -0,0 +1,194 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * MySQL dialect.
+ * the bulk path is multi-row VALUES packed within max_allowed_packet, batches until then are rewritten by the driver with rewriteBatchedStatements.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class MySQLDialect extends SQLDialect {
+
+	// MARK: - Static Properties
+	private static final long DEFAULT_MAX_ALLOWED_PACKET = 4L * 1024 * 1024;	// MySQL 5.7 default.
+	private static final int WARN_DATA_TRUNCATED = 1265;
+	private static final int ER_TRUNCATED_WRONG_VALUE = 1292;
+	private static final int ER_TRUNCATED_WRONG_VALUE_FOR_FIELD = 1366;
+
+	// MARK: - Getters
+	/**
+	 * get dialect name.
+	 */
+	@Override
+	String getName() {
+		return "mysql";
+	}
+
+	/**
+	 * get JDBC driver class name.
+	 */
+	@Override
+	String getDriverClassName() {
+		return "com.mysql.jdbc.Driver";
+	}
+
+	/**
+	 * get default port of the database server.
+	 */
+	@Override
+	int getDefaultPort() {
+		return 3306;
+	}
+
+	/**
+	 * get identifier quote character.
+	 */
+	@Override
+	char getQuoteChar() {
+		return '`';
+	}
+
+	/**
+	 * load max_allowed_packet of the server, the default of MySQL 5.7 for other servers in MySQL mode.
+	 */
+	@Override
+	long loadMaxStatementBytes(Connection con) {
+		try {
+			if (isMySQLServer(con)) {
+				try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT @@max_allowed_packet")) {
+					if (rs.next() && (rs.getLong(1) > 0)) {
+						return rs.getLong(1);
+					}
+				}
+			}
+		}
+		catch (SQLException ignored) {}
+		return DEFAULT_MAX_ALLOWED_PACKET;
+	}
+
+	/**
+	 * is the server MySQL or MariaDB, not another server in MySQL mode.
+	 * @param con connection.
+	 * @return true if MySQL or MariaDB.
+	 * @throws SQLException when SQL error.
+	 */
+	private static boolean isMySQLServer(Connection con) throws SQLException {
+		String product = con.getMetaData().getDatabaseProductName().toLowerCase();
+		return product.contains("mysql") || product.contains("mariadb");
+	}
+
+	// MARK: - SQL
+	/**
+	 * create connection URL.
+	 */
+	@Override
+	String createUrl(String hostName, int port, String databaseName) {
+		return "jdbc:mysql://" + hostName + ":" + port + "/" + databaseName +
+				"?useUnicode=true&autoReconnect=true&characterEncoding=utf8&useSSL=false&rewriteBatchedStatements=true";
+	}
+
+	/**
+	 * create CRC32() of CONCAT_WS() of the columns.
+	 */
+	@Override
+	String rowHash(List<String> quotedColumns) {
+		StringBuilder sql = new StringBuilder("CRC32(CONCAT_WS(");
+		appendHashValues(sql, quotedColumns);
+		return sql.append("))").toString();
+	}
+
+	/**
+	 * set unique_checks & foreign_key_checks of the session.
+	 */
+	@Override
+	boolean setSessionChecks(Connection con, boolean enabled) {
+		int value = enabled ? 1 : 0;
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("SET unique_checks = " + value + ", foreign_key_checks = " + value);
+			return true;
+		}
+		catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * is row error, also incorrect & truncated values of strict mode reported as HY000.
+	 */
+	@Override
+	boolean isRowError(SQLException e) {
+		switch (e.getErrorCode()) {
+			case ER_TRUNCATED_WRONG_VALUE:
+			case ER_TRUNCATED_WRONG_VALUE_FOR_FIELD:
+			case WARN_DATA_TRUNCATED:
+				return true;
+
+			default:
+				return super.isRowError(e);
+		}
+	}
+
+	/**
+	 * lock the table for read, the lock waits for transactions writing the table & blocks new writes while the readers join.
+	 */
+	@Override
+	String beginSharedSnapshot(Connection con, String quotedTable) throws SQLException {
+		if (!isMySQLServer(con)) {
+			return null;
+		}
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("LOCK TABLES " + quotedTable + " READ");
+		}
+		return "";
+	}
+
+	/**
+	 * start transaction with consistent snapshot, every reader starting under the lock sees the same rows.
+	 */
+	@Override
+	void joinSharedSnapshot(Connection reader, String snapshotId) throws SQLException {
+		reader.setAutoCommit(false);
+		reader.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+		try (Statement stmt = reader.createStatement()) {
+			stmt.execute("START TRANSACTION WITH CONSISTENT SNAPSHOT");
+		}
+	}
+
+	/**
+	 * unlock the table.
+	 */
+	@Override
+	void releaseSharedSnapshot(Connection con) throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("UNLOCK TABLES");
+		}
+	}
+
+	/**
+	 * append ON DUPLICATE KEY UPDATE clause.
+	 */
+	@Override
+	void appendUpsertClause(StringBuilder sql, String[] primaryKeys, List<String> targets) throws SQLException {
+		sql.append(" ON DUPLICATE KEY UPDATE ");
+		if (targets.isEmpty()) {
+			if (primaryKeys.length == 0) {
+				throw new SQLException("upsert of a table without primary key requires update columns.");
+			}
+			String key = quote(primaryKeys[0]);
+			sql.append(key).append(" = ").append(key);	// table of keys only, the row is kept as is.
+			return;
+		}
+		for (int i = 0; i < targets.size(); i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			String target = quote(targets.get(i));
+			sql.append(target).append(" = VALUES(").append(target).append(')');
+		}
+	}
+}
@@ -0,0 +1,364 @@
+package jp.co.comona.javamisc.sql;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.PrintWriter;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.logging.Logger;
+
+/**
+ * simple pooled data source over DriverManager.
+ * closing a connection returns it to the pool, at most poolSize connections are opened.
+ * a job using several connections at once takes them by getConnections(), never holding a part of the pool while waiting for the rest.
+ * pools of the same host may share the host connections, idle connections count against its limit and are closed when another pool needs one.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class PooledDataSource implements DataSource, Closeable {
+
+	// MARK: - Properties
+	private final String url;
+	private final String userName;
+	private final String password;
+	private final int poolSize;
+	private final HostConnections host;
+	private final Semaphore permits;
+	private final Deque<Connection> idle = new ArrayDeque<>();
+	private int loginTimeout = 0;
+	private PrintWriter logWriter = null;
+
+	// MARK: - Inner Class
+	/**
+	 * connections to a host shared by the pools of its URLs & users.
+	 * the permits limit connections in use, the physical connections in use or idle in any of the pools are limited to the same number.
+	 */
+	static class HostConnections {
+		private final int limit;
+		private final Semaphore permits;
+		private final List<PooledDataSource> pools = new ArrayList<>();
+		private int opened = 0;
+
+		/**
+		 * constructor.
+		 * @param limit maximum number of connections to the host.
+		 */
+		HostConnections(int limit) {
+			super();
+			this.limit = limit;
+			this.permits = new Semaphore(limit, true);
+		}
+
+		/**
+		 * count a physical connection to open under a permit, an idle connection of the pools is closed if the host is full.
+		 * a permit is free only while less than the limit are in use, so a full host always has an idle connection.
+		 */
+		private void reserve() {
+			Connection evicted = null;
+			synchronized (this) {
+				if (opened >= limit) {
+					for (PooledDataSource pool : pools) {
+						evicted = pool.pollIdle();
+						if (evicted != null) {
+							break;
+						}
+					}
+				}
+				if (evicted == null) {
+					opened++;
+				}
+			}
+			if (evicted != null) {
+				try {
+					evicted.close();
+				}
+				catch (SQLException ignored) {}
+			}
+		}
+
+		/**
+		 * count a physical connection closed.
+		 */
+		private synchronized void closed() {
+			opened--;
+		}
+
+		/**
+		 * get number of physical connections in use or idle.
+		 * @return number of connections.
+		 */
+		synchronized int getOpened() {
+			return opened;
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param url connection URL.
+	 * @param userName user name.
+	 * @param password user password.
+	 * @param poolSize maximum number of connections.
+	 */
+	public PooledDataSource(String url, String userName, String password, int poolSize) {
+		this(url, userName, password, new HostConnections(poolSize));
+	}
+
+	/**
+	 * constructor, the host connections may be shared by pools of other URLs & users of the same host.
+	 * @param url connection URL.
+	 * @param userName user name.
+	 * @param password user password.
+	 * @param host connections to the host, its limit is the pool size.
+	 */
+	PooledDataSource(String url, String userName, String password, HostConnections host) {
+		super();
+		this.url = url;
+		this.userName = userName;
+		this.password = password;
+		this.poolSize = host.limit;
+		this.host = host;
+		this.permits = host.permits;
+		synchronized (host) {
+			host.pools.add(this);
+		}
+	}
+
+	// MARK: - DataSource
+	/**
+	 * get connection, wait while all connections are in use.
+	 * @return pooled connection.
+	 * @throws SQLException when SQL connection error.
+	 */
+	@Override
+	public Connection getConnection() throws SQLException {
+		acquire(1);
+		try {
+			return open();
+		}
+		catch (SQLException | RuntimeException e) {
+			permits.release();
+			throw e;
+		}
+	}
+
+	/**
+	 * get connections at once, wait while not all of them are free.
+	 * @param count number of connections.
+	 * @return pooled connections.
+	 * @throws SQLException when more connections than the pool size or SQL connection error.
+	 */
+	public List<Connection> getConnections(int count) throws SQLException {
+		if (count > poolSize) {
+			throw new SQLException(count + " connections are used at once, more than the pool size " + poolSize + ".");
+		}
+		acquire(count);
+		List<Connection> connections = new ArrayList<>(count);
+		try {
+			while (connections.size() < count) {
+				connections.add(open());
+			}
+			return connections;
+		}
+		catch (SQLException | RuntimeException e) {
+			permits.release(count - connections.size());
+			for (Connection connection : connections) {
+				connection.close();
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * get connection with other user, not supported.
+	 */
+	@Override
+	public Connection getConnection(String username, String password) throws SQLException {
+		throw new SQLFeatureNotSupportedException("pooled data source is bound to one user.");
+	}
+
+	@Override
+	public PrintWriter getLogWriter() {
+		return logWriter;
+	}
+
+	@Override
+	public void setLogWriter(PrintWriter out) {
+		logWriter = out;
+	}
+
+	@Override
+	public void setLoginTimeout(int seconds) {
+		loginTimeout = seconds;
+	}
+
+	@Override
+	public int getLoginTimeout() {
+		return loginTimeout;
+	}
+
+	@Override
+	public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+		throw new SQLFeatureNotSupportedException();
+	}
+
+	@Override
+	public <T> T unwrap(Class<T> iface) throws SQLException {
+		if (iface.isInstance(this)) {
+			return iface.cast(this);
+		}
+		throw new SQLException("not a wrapper for " + iface.getName());
+	}
+
+	@Override
+	public boolean isWrapperFor(Class<?> iface) {
+		return iface.isInstance(this);
+	}
+
+	// MARK: - Pool
+	/**
+	 * acquire permits of connections.
+	 * @param count number of permits.
+	 * @throws SQLException when interrupted.
+	 */
+	private void acquire(int count) throws SQLException {
+		try {
+			permits.acquire(count);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("interrupted while waiting for a connection.", e);
+		}
+	}
+
+	/**
+	 * open connection by an idle or a new physical connection, a permit is acquired.
+	 * @return pooled connection.
+	 * @throws SQLException when SQL connection error.
+	 */
+	private Connection open() throws SQLException {
+		Connection physical = pollIdle();
+		if ((physical != null) && !physical.isClosed()) {
+			return wrap(physical);
+		}
+		if (physical == null) {
+			host.reserve();	// a closed idle connection is replaced in its count.
+		}
+		try {
+			physical = DriverManager.getConnection(url, userName, password);
+		}
+		catch (SQLException | RuntimeException e) {
+			host.closed();
+			throw e;
+		}
+		return wrap(physical);
+	}
+
+	/**
+	 * take an idle physical connection.
+	 * @return idle connection, null if none.
+	 */
+	private Connection pollIdle() {
+		synchronized (idle) {
+			return idle.pollFirst();
+		}
+	}
+
+	/**
+	 * wrap physical connection, close() of the wrapper returns it to the pool.
+	 * @param physical physical connection.
+	 * @return pooled connection.
+	 */
+	private Connection wrap(final Connection physical) {
+		InvocationHandler handler = new InvocationHandler() {
+			private boolean closed = false;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				String name = method.getName();
+				if ("close".equals(name)) {
+					if (!closed) {
+						closed = true;
+						release(physical);
+					}
+					return null;
+				}
+				else if ("isClosed".equals(name)) {
+					return closed || physical.isClosed();
+				}
+				else if (closed) {
+					throw new SQLException("connection is already returned to the pool.");
+				}
+				try {
+					return method.invoke(physical, args);
+				}
+				catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+			}
+		};
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, handler);
+	}
+
+	/**
+	 * return physical connection to the pool.
+	 * @param physical physical connection.
+	 */
+	private void release(Connection physical) {
+		boolean pooled = false;
+		try {
+			if (!physical.isClosed()) {
+				if (!physical.getAutoCommit()) {
+					physical.rollback();
+					physical.setAutoCommit(true);
+				}
+				synchronized (idle) {
+					idle.addFirst(physical);
+				}
+				pooled = true;
+			}
+		}
+		catch (SQLException e) {
+			try {
+				physical.close();
+			}
+			catch (SQLException ignored) {}
+		}
+		finally {
+			if (!pooled) {
+				host.closed();
+			}
+			permits.release();
+		}
+	}
+
+	/**
+	 * close idle connections.
+	 */
+	@Override
+	public void close() {
+		List<Connection> closing;
+		synchronized (idle) {
+			closing = new ArrayList<>(idle);
+			idle.clear();
+		}
+		for (Connection physical : closing) {	// out of the idle lock, the host takes it while holding its own.
+			try {
+				physical.close();
+			}
+			catch (SQLException ignored) {}
+			host.closed();
+		}
+	}
+}
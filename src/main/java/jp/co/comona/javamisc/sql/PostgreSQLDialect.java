@@ -0,0 +1,203 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * PostgreSQL dialect.
+ * the bulk path is COPY FROM STDIN through the copy API of the driver, the driver is loaded by reflection.
+ * inserts with literal values are packed into multi-row VALUES, upserts are sent row by row in a batch,
+ * ON CONFLICT DO UPDATE can not affect a row twice in one statement.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class PostgreSQLDialect extends SQLDialect {
+
+	// MARK: - Getters
+	/**
+	 * get dialect name.
+	 */
+	@Override
+	String getName() {
+		return "postgresql";
+	}
+
+	/**
+	 * get JDBC driver class name.
+	 */
+	@Override
+	String getDriverClassName() {
+		return "org.postgresql.Driver";
+	}
+
+	/**
+	 * get default port of the database server.
+	 */
+	@Override
+	int getDefaultPort() {
+		return 5432;
+	}
+
+	/**
+	 * get identifier quote character.
+	 */
+	@Override
+	char getQuoteChar() {
+		return '"';
+	}
+
+	/**
+	 * get placeholder limit of a statement, the driver sends the count in a signed 2 bytes.
+	 */
+	@Override
+	int getMaxParameters() {
+		return 32767;
+	}
+
+	// MARK: - SQL
+	/**
+	 * create connection URL.
+	 */
+	@Override
+	String createUrl(String hostName, int port, String databaseName) {
+		return "jdbc:postgresql://" + hostName + ":" + port + "/" + databaseName;
+	}
+
+	/**
+	 * get current timestamp value.
+	 */
+	@Override
+	String now() {
+		return "CURRENT_TIMESTAMP";
+	}
+
+	/**
+	 * cast value to the column type, text & other types have no assignment cast.
+	 */
+	@Override
+	String cast(String expression, String typeName) {
+		return "CAST(" + expression + " AS " + typeName + ")";
+	}
+
+	/**
+	 * create the first 32 bits of MD5() of CONCAT_WS() of the columns, PostgreSQL has no CRC32().
+	 */
+	@Override
+	String rowHash(List<String> quotedColumns) {
+		StringBuilder sql = new StringBuilder("('x' || SUBSTR(MD5(CONCAT_WS(");
+		appendHashValues(sql, quotedColumns);
+		return sql.append(")), 1, 8))::BIT(32)::BIGINT").toString();
+	}
+
+	/**
+	 * a failed statement aborts the transaction until rolled back.
+	 */
+	@Override
+	boolean isFailedStatementAborting() {
+		return true;
+	}
+
+	/**
+	 * set session_replication_role of the session, replica skips the foreign key triggers.
+	 * unique constraints are always checked by PostgreSQL, setting the role requires the superuser.
+	 */
+	@Override
+	boolean setSessionChecks(Connection con, boolean enabled) {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("SET session_replication_role = " + (enabled ? "DEFAULT" : "replica"));
+			return true;
+		}
+		catch (SQLException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * export the snapshot of a repeatable read transaction by pg_export_snapshot(), no lock is taken.
+	 */
+	@Override
+	String beginSharedSnapshot(Connection con, String quotedTable) throws SQLException {
+		con.setAutoCommit(false);
+		con.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT pg_export_snapshot()")) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+
+	/**
+	 * start a repeatable read transaction on the exported snapshot by SET TRANSACTION SNAPSHOT.
+	 */
+	@Override
+	void joinSharedSnapshot(Connection reader, String snapshotId) throws SQLException {
+		reader.setAutoCommit(false);
+		reader.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+		try (Statement stmt = reader.createStatement()) {
+			stmt.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+		}
+	}
+
+	/**
+	 * end the exporting transaction, the readers keep the snapshot.
+	 */
+	@Override
+	void releaseSharedSnapshot(Connection con) throws SQLException {
+		con.commit();
+	}
+
+	/**
+	 * append ON CONFLICT clause, the conflict target is the primary key.
+	 */
+	@Override
+	void appendUpsertClause(StringBuilder sql, String[] primaryKeys, List<String> targets) throws SQLException {
+		if (primaryKeys.length == 0) {
+			throw new SQLException("upsert on PostgreSQL requires a primary key.");
+		}
+		sql.append(" ON CONFLICT (");
+		for (int i = 0; i < primaryKeys.length; i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			sql.append(quote(primaryKeys[i]));
+		}
+		if (targets.isEmpty()) {
+			sql.append(") DO NOTHING");
+			return;
+		}
+		sql.append(") DO UPDATE SET ");
+		for (int i = 0; i < targets.size(); i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			String target = quote(targets.get(i));
+			sql.append(target).append(" = EXCLUDED.").append(target);
+		}
+	}
+
+	/**
+	 * prepare COPY FROM STDIN statement, multi-row VALUES if the insert has literal values or the driver has no copy API.
+	 */
+	@Override
+	PreparedStatement prepareBulkInsert(Connection con, String insertSql, String quotedTable, List<String> boundColumns, boolean upsert) throws SQLException {
+		if (upsert) {
+			return con.prepareStatement(insertSql);
+		}
+		if ((boundColumns == null) || boundColumns.isEmpty() || !CopyInStatement.isSupported(con)) {
+			return super.prepareBulkInsert(con, insertSql, quotedTable, boundColumns, false);
+		}
+		StringBuilder sql = new StringBuilder("COPY ");
+		sql.append(quotedTable).append(" (");
+		for (int i = 0; i < boundColumns.size(); i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			sql.append(quote(boundColumns.get(i)));
+		}
+		sql.append(") FROM STDIN");
+		return CopyInStatement.create(con, sql.toString(), boundColumns.size());
+	}
+}
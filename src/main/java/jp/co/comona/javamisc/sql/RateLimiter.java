@@ -0,0 +1,47 @@
+package jp.co.comona.javamisc.sql;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * rate limiter shared by writer threads.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class RateLimiter {
+
+	// MARK: - Properties
+	private final double nanosPerPermit;
+	private long next;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param permitsPerSecond permits per second.
+	 */
+	RateLimiter(double permitsPerSecond) {
+		super();
+		this.nanosPerPermit = 1000000000.0 / permitsPerSecond;
+		this.next = System.nanoTime();
+	}
+
+	// MARK: - Acquire
+	/**
+	 * acquire permits, sleep until the permits are available.
+	 * @param permits number of permits.
+	 * @throws InterruptedException when interrupted.
+	 */
+	void acquire(int permits) throws InterruptedException {
+		long wait;
+		synchronized (this) {
+			long now = System.nanoTime();
+			if (next < now) {
+				next = now;
+			}
+			wait = next - now;
+			next += (long)(permits * nanosPerPermit);
+		}
+		if (wait > 0) {
+			TimeUnit.NANOSECONDS.sleep(wait);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package jp.co.comona.javamisc.sql;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of copy & insert.
+ * only RecordEvents touches these classes, and only when the JVM has JFR.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+@Category({ "JavaMiscTools", "SQL" })
+@StackTrace(false)
+abstract class RecordEvent extends Event {
+
+	// MARK: - Properties
+	@Label("Table")
+	String table;
+
+	// MARK: - Events
+	/**
+	 * connection acquisition.
+	 */
+	@Name("jp.co.comona.javamisc.Connect")
+	@Label("Connect")
+	@Description("Connection acquired from DataSource or DriverManager.")
+	static class Connect extends RecordEvent {}
+
+	/**
+	 * column metadata load.
+	 */
+	@Name("jp.co.comona.javamisc.Metadata")
+	@Label("Metadata Load")
+	@Description("Column metadata of the table loaded.")
+	static class Metadata extends RecordEvent {}
+
+	/**
+	 * lookup query.
+	 */
+	@Name("jp.co.comona.javamisc.Lookup")
+	@Label("Lookup Query")
+	@Description("Query executed to find rows or keys, until the first result.")
+	static class Lookup extends RecordEvent {}
+
+	/**
+	 * batch execute.
+	 */
+	@Name("jp.co.comona.javamisc.Batch")
+	@Label("Batch Execute")
+	@Description("Insert batch executed.")
+	static class Batch extends RecordEvent {
+		@Label("Rows")
+		long rows;
+
+		@Label("Bytes")
+		@Description("Estimated bytes sent, 0 if unknown.")
+		@DataAmount
+		long bytes;
+	}
+
+	/**
+	 * commit.
+	 */
+	@Name("jp.co.comona.javamisc.Commit")
+	@Label("Commit")
+	@Description("Transaction committed.")
+	static class Commit extends RecordEvent {
+		@Label("Rows")
+		long rows;
+	}
+}
@@ -0,0 +1,137 @@
+package jp.co.comona.javamisc.sql;
+
+/**
+ * Java Flight Recorder facade.
+ * events are recorded only on a JVM with JFR (Java 11, 8u262 or later) while a recording enables them, otherwise begin() returns null.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+final class RecordEvents {
+
+	// MARK: - Static Properties
+	static final int CONNECT = 0;
+	static final int METADATA = 1;
+	static final int LOOKUP = 2;
+	static final int BATCH = 3;
+	static final int COMMIT = 4;
+	private static final boolean AVAILABLE = isAvailable();
+
+	// MARK: - Inner Class
+	/**
+	 * creates & commits events, loaded only when JFR is available.
+	 * kept out of the event classes, JFR can not instrument an event class which creates its subclasses.
+	 */
+	private static final class Recorder {
+		/**
+		 * create & begin event.
+		 * @param kind event kind.
+		 * @return event, null if the event is not enabled.
+		 */
+		static Object start(int kind) {
+			RecordEvent event;
+			switch (kind) {
+				case CONNECT:
+					event = new RecordEvent.Connect();
+					break;
+				case METADATA:
+					event = new RecordEvent.Metadata();
+					break;
+				case LOOKUP:
+					event = new RecordEvent.Lookup();
+					break;
+				case BATCH:
+					event = new RecordEvent.Batch();
+					break;
+
+				default:
+					event = new RecordEvent.Commit();
+					break;
+			}
+			if (!event.isEnabled()) {
+				return null;
+			}
+			event.begin();
+			return event;
+		}
+
+		/**
+		 * end & commit event.
+		 * @param object event returned by start().
+		 * @param table table name.
+		 * @param rows number of rows.
+		 * @param bytes number of bytes.
+		 */
+		static void finish(Object object, String table, long rows, long bytes) {
+			RecordEvent event = (RecordEvent)object;
+			event.end();
+			if (!event.shouldCommit()) {
+				return;
+			}
+			event.table = table;
+			if (event instanceof RecordEvent.Batch) {
+				((RecordEvent.Batch)event).rows = rows;
+				((RecordEvent.Batch)event).bytes = bytes;
+			}
+			else if (event instanceof RecordEvent.Commit) {
+				((RecordEvent.Commit)event).rows = rows;
+			}
+			event.commit();
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor, not instantiated.
+	 */
+	private RecordEvents() {
+		super();
+	}
+
+	/**
+	 * is JFR available on the JVM.
+	 * @return true if available.
+	 */
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.Event", false, RecordEvents.class.getClassLoader());
+			return true;
+		}
+		catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	// MARK: - Record
+	/**
+	 * begin event.
+	 * @param kind event kind.
+	 * @return event, null if not recorded.
+	 */
+	static Object begin(int kind) {
+		return AVAILABLE ? Recorder.start(kind) : null;
+	}
+
+	/**
+	 * end event.
+	 * @param event event returned by begin(), may be null.
+	 * @param table table name.
+	 */
+	static void end(Object event, String table) {
+		if (event != null) {
+			Recorder.finish(event, table, 0, 0);
+		}
+	}
+
+	/**
+	 * end event with row count & bytes.
+	 * @param event event returned by begin(), may be null.
+	 * @param table table name.
+	 * @param rows number of rows.
+	 * @param bytes number of bytes, 0 if unknown.
+	 */
+	static void end(Object event, String table, long rows, long bytes) {
+		if (event != null) {
+			Recorder.finish(event, table, rows, bytes);
+		}
+	}
+}
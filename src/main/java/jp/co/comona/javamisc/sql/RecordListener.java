@@ -0,0 +1,28 @@
+package jp.co.comona.javamisc.sql;
+
+/**
+ * listener of messages while a request runs, like rows rejected or checks not disabled on the server.
+ * without a listener, a request logs the messages to java.util.logging, the command line tools print them.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public interface RecordListener {
+
+	/**
+	 * progress & summary message.
+	 * @param message message.
+	 */
+	void info(String message);
+
+	/**
+	 * message of a fallback or rows not written.
+	 * @param message message.
+	 */
+	void warn(String message);
+
+	/**
+	 * message of an error found while processing, the request fails after it.
+	 * @param message message.
+	 */
+	void error(String message);
+}
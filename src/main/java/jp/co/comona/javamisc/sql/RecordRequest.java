@@ -0,0 +1,226 @@
+package jp.co.comona.javamisc.sql;
+
+import jp.co.comona.javamisc.Util;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * programmatic request of SQL record tool.
+ * runs the tool in process with a connection from the caller supplied data source.
+ * the request owns the validation of the options, the command line tools build a request without a data source to check theirs.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+abstract public class RecordRequest {
+
+	// MARK: - Properties
+	private final DataSource dataSource;
+	private final String tableName;
+	private final String[] columns;
+	private final String[] replaces;
+	private final String[] nowColumns;
+	private final String[] nulls;
+	private final RecordListener listener;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param dataSource data source.
+	 * @param tableName table name.
+	 * @param columns column names to set value.
+	 * @param replaces values for columns.
+	 * @param nowColumns column names to use NOW().
+	 * @param nulls column names to use null.
+	 * @param listener listener of messages, null to log them.
+	 * @param commandLine true if built by a command line tool, without data source.
+	 */
+	protected RecordRequest(DataSource dataSource, String tableName, List<String> columns, List<String> replaces, List<String> nowColumns, List<String> nulls,
+			RecordListener listener, boolean commandLine) {
+		super();
+		if ((dataSource == null) && !commandLine) {
+			throw new IllegalArgumentException("data source is required.");
+		}
+		if ((tableName == null) || tableName.isEmpty()) {
+			throw new IllegalArgumentException("table name is required.");
+		}
+		this.dataSource = dataSource;
+		this.tableName = tableName;
+		this.columns = toArray(columns);
+		this.replaces = toArray(replaces);
+		this.nowColumns = toArray(nowColumns);
+		this.nulls = toArray(nulls);
+		this.listener = listener;
+		checkDuplicates(this.columns, "column name to set value");
+		checkDuplicates(this.nowColumns, "use NOW() for the column");
+		checkDuplicates(this.nulls, "use null for the column");
+		checkDuplicates(this.nowColumns, this.columns, "use NOW() for the column", "column name to set value");
+		checkDuplicates(this.nulls, this.columns, "use null for the column", "column name to set value");
+		checkDuplicates(this.nulls, this.nowColumns, "use null for the column", "use NOW() for the column");
+	}
+
+	// MARK: - Getters
+	/**
+	 * get data source.
+	 * @return data source.
+	 */
+	public DataSource getDataSource() {
+		return dataSource;
+	}
+
+	/**
+	 * get table name.
+	 * @return table name.
+	 */
+	public String getTableName() {
+		return tableName;
+	}
+
+	/**
+	 * get column names to set value.
+	 * @return column names, null if none.
+	 */
+	String[] getColumns() {
+		return columns;
+	}
+
+	/**
+	 * get values for columns.
+	 * @return values, null if none.
+	 */
+	String[] getReplaces() {
+		return replaces;
+	}
+
+	/**
+	 * get column names to use NOW().
+	 * @return column names, null if none.
+	 */
+	String[] getNowColumns() {
+		return nowColumns;
+	}
+
+	/**
+	 * get column names to use null.
+	 * @return column names, null if none.
+	 */
+	String[] getNulls() {
+		return nulls;
+	}
+
+	/**
+	 * get listener of messages.
+	 * @return listener, null to log the messages.
+	 */
+	RecordListener getListener() {
+		return listener;
+	}
+
+	// MARK: - Process
+	/**
+	 * create SQL record tool for this request.
+	 * @return SQL record tool.
+	 */
+	abstract SQLRecord createRecord();
+
+	/**
+	 * execute request in the calling thread.
+	 * @return result.
+	 * @throws Exception when error.
+	 */
+	public RecordResult execute() throws Exception {
+		SQLRecord record = createRecord();
+		long start = System.nanoTime();
+		record.connectAndProcess();
+		return new RecordResult(record.getRecordCount(), System.nanoTime() - start);
+	}
+
+	/**
+	 * execute request asynchronously.
+	 * @param executor executor to run the request, JDBC blocks so use a dedicated one.
+	 * @return future of the result.
+	 */
+	public CompletableFuture<RecordResult> executeAsync(Executor executor) {
+		return CompletableFuture.supplyAsync(new Supplier<RecordResult>() {
+			@Override
+			public RecordResult get() {
+				try {
+					return execute();
+				}
+				catch (RuntimeException e) {
+					throw e;
+				}
+				catch (Exception e) {
+					throw new CompletionException(e);
+				}
+			}
+		}, executor);
+	}
+
+	// MARK: - Check
+	/**
+	 * convert list to array.
+	 * @param list list.
+	 * @return array, null if list is null or empty.
+	 */
+	static String[] toArray(List<String> list) {
+		if ((list == null) || list.isEmpty()) {
+			return null;
+		}
+		return list.toArray(new String[0]);
+	}
+
+	/**
+	 * check for the duplication ignore case.
+	 * @param names names to check.
+	 * @param argName argument name.
+	 */
+	static void checkDuplicates(String[] names, String argName) {
+		if ((names != null) && Util.hasDuplicateValuesIgnoreCase(names)) {
+			throw new IllegalArgumentException("duplicate values for " + argName);
+		}
+	}
+
+	/**
+	 * check for the duplication ignore case.
+	 * @param names names to check.
+	 * @param names2 another names to check.
+	 * @param argName argument name.
+	 * @param argName2 another argument name.
+	 */
+	static void checkDuplicates(String[] names, String[] names2, String argName, String argName2) {
+		if ((names != null) && (names2 != null) && Util.hasDuplicateValuesIgnoreCase(names, names2)) {
+			throw new IllegalArgumentException("cannot assign " + argName + " which assigned in " + argName2);
+		}
+	}
+
+	/**
+	 * check shards given as HOST[:PORT]/DATABASE by a command line tool.
+	 * @param shardSpecs shards, null if none.
+	 */
+	static void checkShardSpecs(String[] shardSpecs) {
+		if (shardSpecs == null) {
+			return;
+		}
+		for (String shard : shardSpecs) {
+			int slash = shard.indexOf('/');
+			int colon = shard.lastIndexOf(':', slash);
+			boolean valid = (slash > 0) && (slash < shard.length() - 1) && (colon != 0);
+			if (valid && (colon > 0)) {
+				try {
+					valid = Integer.parseInt(shard.substring(colon + 1, slash)) > 0;
+				}
+				catch (NumberFormatException e) {
+					valid = false;
+				}
+			}
+			if (!valid) {
+				throw new IllegalArgumentException("invalid shard " + shard + ", HOST[:PORT]/DATABASE.");
+			}
+		}
+	}
+}
@@ -0,0 +1,47 @@
+package jp.co.comona.javamisc.sql;
+
+/**
+ * result of programmatic request.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class RecordResult {
+
+	// MARK: - Properties
+	private final long recordCount;
+	private final long elapsedNanos;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param recordCount number of records written.
+	 * @param elapsedNanos elapsed nanoseconds.
+	 */
+	RecordResult(long recordCount, long elapsedNanos) {
+		super();
+		this.recordCount = recordCount;
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of records written.
+	 * @return number of records written.
+	 */
+	public long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * get elapsed nanoseconds.
+	 * @return elapsed nanoseconds.
+	 */
+	public long getElapsedNanos() {
+		return elapsedNanos;
+	}
+
+	@Override
+	public String toString() {
+		return "RecordResult{recordCount=" + recordCount + ", elapsedNanos=" + elapsedNanos + '}';
+	}
+}
@@ -0,0 +1,234 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Savepoint;
+
+/**
+ * reject file of rows failed in batches.
+ * a statement of a batch failed by a row error is bisected, halves are retried until the failing rows are single, O(k log n) statements for k bad rows.
+ * a rejected row is a CSV record of the insert parameters in order, the SQL error is the last field.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class RejectWriter implements Closeable {
+
+	// MARK: - Static Properties
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	// MARK: - Inner Interface
+	/**
+	 * rows of a batch statement, executable by range.
+	 */
+	interface BatchRows {
+		/**
+		 * execute rows of the batch.
+		 * @param first first row.
+		 * @param size number of rows.
+		 * @return number of rows written.
+		 * @throws SQLException when SQL error.
+		 */
+		int executeRows(int first, int size) throws SQLException;
+
+		/**
+		 * get parameter values of a row.
+		 * @param row row.
+		 * @return values, null for null.
+		 * @throws SQLException when LOB read error.
+		 */
+		Object[] getValues(int row) throws SQLException;
+	}
+
+	// MARK: - Properties
+	private final File file;
+	private final SQLDialect dialect;
+	private final Writer writer;
+	private final StringBuilder line = new StringBuilder();
+	private long rowCount = 0;
+	private long batchRowCount = 0;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param file reject file.
+	 * @param dialect SQL dialect to classify errors.
+	 * @throws IOException when I/O error.
+	 */
+	RejectWriter(File file, SQLDialect dialect) throws IOException {
+		this(file, dialect, false);
+	}
+
+	/**
+	 * constructor.
+	 * @param file reject file.
+	 * @param dialect SQL dialect to classify errors.
+	 * @param append true to append to the rows rejected by the run resumed.
+	 * @throws IOException when I/O error.
+	 */
+	RejectWriter(File file, SQLDialect dialect, boolean append) throws IOException {
+		super();
+		this.file = file;
+		this.dialect = dialect;
+		this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, append), StandardCharsets.UTF_8));
+	}
+
+	// MARK: - Getters
+	/**
+	 * get reject file.
+	 * @return reject file.
+	 */
+	File getFile() {
+		return file;
+	}
+
+	/**
+	 * get number of rows rejected.
+	 * @return number of rows.
+	 */
+	synchronized long getRowCount() {
+		return rowCount;
+	}
+
+	/**
+	 * get number of rows rejected from executed batches, the rows added to batches are counted as written by the callers.
+	 * @return number of rows.
+	 */
+	synchronized long getBatchRowCount() {
+		return batchRowCount;
+	}
+
+	// MARK: - Execute
+	/**
+	 * execute rows of a batch, a statement failed by a row error is bisected & the failing rows are rejected.
+	 * the rows are executed under a savepoint if a failed statement aborts the transaction of the dialect.
+	 * @param con connection.
+	 * @param rows rows of the batch.
+	 * @param first first row.
+	 * @param size number of rows.
+	 * @return number of rows written.
+	 * @throws SQLException when SQL error other than row errors.
+	 */
+	int execute(Connection con, BatchRows rows, int first, int size) throws SQLException {
+		Savepoint savepoint = dialect.isFailedStatementAborting() && !con.getAutoCommit() ? con.setSavepoint() : null;
+		try {
+			int written = rows.executeRows(first, size);
+			if (savepoint != null) {
+				con.releaseSavepoint(savepoint);
+			}
+			return written;
+		}
+		catch (SQLException e) {
+			if (savepoint != null) {
+				con.rollback(savepoint);
+			}
+			if (!dialect.isRowError(e)) {
+				throw e;
+			}
+			if (size == 1) {
+				reject(rows.getValues(first), e.getSQLState() + " " + e.getMessage());
+				synchronized (this) {
+					batchRowCount++;
+				}
+				return 0;
+			}
+			int half = Integer.highestOneBit(size - 1);
+			return execute(con, rows, first, half) + execute(con, rows, first + half, size - half);
+		}
+	}
+
+	// MARK: - Write
+	/**
+	 * write a rejected row.
+	 * @param values values of the row, null for null.
+	 * @param error error message.
+	 * @throws SQLException when write or LOB read error.
+	 */
+	synchronized void reject(Object[] values, String error) throws SQLException {
+		line.setLength(0);
+		for (Object value : values) {
+			appendField(value);
+			line.append(',');
+		}
+		appendQuoted(error);
+		line.append('\n');
+		try {
+			writer.write(line.toString());
+		}
+		catch (IOException e) {
+			throw new SQLException("write to reject file " + file + " failed.", e);
+		}
+		rowCount++;
+	}
+
+	/**
+	 * append a value as CSV field, an empty unquoted field for null.
+	 * @param value value.
+	 * @throws SQLException when LOB read error.
+	 */
+	private void appendField(Object value) throws SQLException {
+		if (value == null) {
+			return;
+		}
+		if (value instanceof Blob) {
+			Blob blob = (Blob)value;
+			value = blob.getBytes(1, (int)blob.length());
+		}
+		else if (value instanceof Clob) {
+			Clob clob = (Clob)value;
+			value = clob.getSubString(1, (int)clob.length());
+		}
+		if (value instanceof byte[]) {
+			line.append('"');
+			for (byte b : (byte[])value) {
+				line.append(HEX[(b >>> 4) & 0x0f]).append(HEX[b & 0x0f]);
+			}
+			line.append('"');
+		}
+		else if (value instanceof BigDecimal) {
+			line.append(((BigDecimal)value).toPlainString());
+		}
+		else if ((value instanceof Number) || (value instanceof Boolean)) {
+			line.append(value);
+		}
+		else {
+			appendQuoted(value.toString());
+		}
+	}
+
+	/**
+	 * append quoted field, a quote is escaped by doubling it.
+	 * @param value value.
+	 */
+	private void appendQuoted(String value) {
+		line.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				line.append('"');
+			}
+			line.append(c);
+		}
+		line.append('"');
+	}
+
+	// MARK: - Close
+	/**
+	 * close reject file.
+	 * @throws IOException when I/O error.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		writer.close();
+	}
+}
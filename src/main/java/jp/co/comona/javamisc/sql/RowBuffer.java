@@ -0,0 +1,502 @@
+package jp.co.comona.javamisc.sql;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * columnar staging buffer of rows between read & write.
+ * a batch of rows is stored column-wise in primitive arrays, epoch micros for temporal types,
+ * and in a shared byte arena for strings, with a null bitmap per column. LOBs are kept as the locators fetched, not to materialize large values.
+ * the buffer is cleared & reused for the next batch, so steady-state staging allocates nothing.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class RowBuffer {
+
+	// MARK: - Static Properties
+	static final int KIND_LONG = 0;
+	static final int KIND_DOUBLE = 1;
+	static final int KIND_TEMPORAL = 2;
+	static final int KIND_STRING = 3;
+	static final int KIND_LOB = 4;
+	private static final int INITIAL_ARENA_SIZE = 64 * 1024;
+
+	// MARK: - Properties
+	private final int capacity;
+	private final int[] columnTypes;
+	private final int[] kinds;
+	private final long[][] longs;
+	private final double[][] doubles;
+	private final int[][] offsets;
+	private final int[][] lengths;
+	private final Object[][] lobs;
+	private final long[][] nulls;
+	private byte[] arena = new byte[INITIAL_ARENA_SIZE];
+	private int arenaSize = 0;
+	private int size = 0;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param meta metadata of the rows.
+	 * @param capacity maximum number of rows.
+	 * @throws SQLException when SQL error.
+	 */
+	RowBuffer(ResultSetMetaData meta, int capacity) throws SQLException {
+		super();
+		int columnCount = meta.getColumnCount();
+		this.capacity = capacity;
+		this.columnTypes = new int[columnCount];
+		this.kinds = new int[columnCount];
+		this.longs = new long[columnCount][];
+		this.doubles = new double[columnCount][];
+		this.offsets = new int[columnCount][];
+		this.lengths = new int[columnCount][];
+		this.lobs = new Object[columnCount][];
+		this.nulls = new long[columnCount][];
+		for (int i = 0; i < columnCount; i++) {
+			columnTypes[i] = meta.getColumnType(i + 1);
+			kinds[i] = kindOf(columnTypes[i]);
+			switch (kinds[i]) {
+				case KIND_LONG:
+				case KIND_TEMPORAL:
+					longs[i] = new long[capacity];
+					break;
+				case KIND_DOUBLE:
+					doubles[i] = new double[capacity];
+					break;
+				case KIND_LOB:
+					lobs[i] = new Object[capacity];
+					break;
+
+				default:
+					offsets[i] = new int[capacity];
+					lengths[i] = new int[capacity];
+					break;
+			}
+			nulls[i] = new long[(capacity + 63) >>> 6];
+		}
+	}
+
+	/**
+	 * get storage kind of column type, the same mapping as the copy has done by JDBC objects.
+	 * @param columnType column type.
+	 * @return storage kind.
+	 */
+	static int kindOf(int columnType) {
+		switch (columnType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+			case Types.DECIMAL:
+				return KIND_LONG;
+			case Types.FLOAT:
+			case Types.DOUBLE:
+			case Types.NUMERIC:
+				return KIND_DOUBLE;
+			case Types.DATE:
+			case Types.TIME:
+			case Types.TIMESTAMP:
+				return KIND_TEMPORAL;
+			case Types.BLOB:
+			case Types.CLOB:
+				return KIND_LOB;
+
+			default:
+				return KIND_STRING;
+		}
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of rows.
+	 * @return number of rows.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * get number of columns.
+	 * @return number of columns.
+	 */
+	int getColumnCount() {
+		return kinds.length;
+	}
+
+	/**
+	 * get storage kind of column.
+	 * @param columnIndex column index, from 1.
+	 * @return storage kind.
+	 */
+	int getKind(int columnIndex) {
+		return kinds[columnIndex - 1];
+	}
+
+	/**
+	 * get raw long value, epoch micros for temporal types.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return raw value.
+	 */
+	long getRawLong(int row, int columnIndex) {
+		return longs[columnIndex - 1][row];
+	}
+
+	/**
+	 * get double value.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return value.
+	 */
+	double getDouble(int row, int columnIndex) {
+		return doubles[columnIndex - 1][row];
+	}
+
+	/**
+	 * get shared byte arena of strings.
+	 * @return arena.
+	 */
+	byte[] getArena() {
+		return arena;
+	}
+
+	/**
+	 * get offset of string in arena.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return offset.
+	 */
+	int getOffset(int row, int columnIndex) {
+		return offsets[columnIndex - 1][row];
+	}
+
+	/**
+	 * get UTF-8 length of string in arena.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return length.
+	 */
+	int getLength(int row, int columnIndex) {
+		return lengths[columnIndex - 1][row];
+	}
+
+	/**
+	 * get LOB value as bytes, UTF-8 for CLOB.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return bytes.
+	 * @throws SQLException when SQL error.
+	 */
+	byte[] getLobBytes(int row, int columnIndex) throws SQLException {
+		Object lob = lobs[columnIndex - 1][row];
+		if (lob instanceof Blob) {
+			Blob blob = (Blob)lob;
+			return blob.getBytes(1, (int)blob.length());
+		}
+		Clob clob = (Clob)lob;
+		return clob.getSubString(1, (int)clob.length()).getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * is buffer full.
+	 * @return true if full.
+	 */
+	boolean isFull() {
+		return size == capacity;
+	}
+
+	/**
+	 * is value null.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return true if null.
+	 */
+	boolean isNull(int row, int columnIndex) {
+		return (nulls[columnIndex - 1][row >>> 6] & (1L << row)) != 0;
+	}
+
+	/**
+	 * get value as long.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return value, 0 if null.
+	 */
+	long getLong(int row, int columnIndex) {
+		int column = columnIndex - 1;
+		if (isNull(row, columnIndex)) {
+			return 0;
+		}
+		switch (kinds[column]) {
+			case KIND_LONG:
+				return longs[column][row];
+			case KIND_DOUBLE:
+				return (long)doubles[column][row];
+			case KIND_TEMPORAL:
+				return longs[column][row] / 1000;
+			case KIND_LOB:
+				throw new IllegalStateException("LOB value is not a number.");
+
+			default:
+				return Long.parseLong(new String(arena, offsets[column][row], lengths[column][row], StandardCharsets.UTF_8).trim());
+		}
+	}
+
+	/**
+	 * get value as string, temporal values in JDBC escape format.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @return value, null if null.
+	 */
+	String getString(int row, int columnIndex) {
+		int column = columnIndex - 1;
+		if (isNull(row, columnIndex)) {
+			return null;
+		}
+		switch (columnTypes[column]) {
+			case Types.FLOAT:
+				return Float.toString((float)doubles[column][row]);
+			case Types.DATE:
+				return new Date(longs[column][row] / 1000).toString();
+			case Types.TIME:
+				return new Time(longs[column][row] / 1000).toString();
+			case Types.TIMESTAMP:
+				long micros = longs[column][row];
+				Timestamp timestamp = new Timestamp(Math.floorDiv(micros, 1000000) * 1000);
+				timestamp.setNanos(Math.toIntExact(Math.floorMod(micros, 1000000L)) * 1000);
+				return timestamp.toString();
+
+			default:
+				break;
+		}
+		switch (kinds[column]) {
+			case KIND_LONG:
+				return Long.toString(longs[column][row]);
+			case KIND_DOUBLE:
+				return Double.toString(doubles[column][row]);
+			case KIND_LOB:
+				throw new IllegalStateException("LOB value is not converted.");
+
+			default:
+				return new String(arena, offsets[column][row], lengths[column][row], StandardCharsets.UTF_8);
+		}
+	}
+
+	// MARK: - Read
+	/**
+	 * clear rows, arrays & arena are kept for the next batch.
+	 */
+	void clear() {
+		int words = (size + 63) >>> 6;
+		for (int i = 0; i < kinds.length; i++) {
+			Arrays.fill(nulls[i], 0, words, 0);
+			if (lobs[i] != null) {
+				Arrays.fill(lobs[i], 0, size, null);	// release LOBs of the batch.
+			}
+		}
+		size = 0;
+		arenaSize = 0;
+	}
+
+	/**
+	 * add current row of result set.
+	 * @param rs result set.
+	 * @throws SQLException when SQL error.
+	 */
+	void add(ResultSet rs) throws SQLException {
+		if (size == capacity) {
+			throw new IllegalStateException("row buffer is full.");
+		}
+		int row = size;
+		for (int column = 0; column < kinds.length; column++) {
+			int columnIndex = column + 1;
+			boolean isNull;
+			switch (kinds[column]) {
+				case KIND_LONG:
+					longs[column][row] = rs.getLong(columnIndex);
+					isNull = rs.wasNull();
+					break;
+				case KIND_DOUBLE:
+					doubles[column][row] = rs.getDouble(columnIndex);
+					isNull = rs.wasNull();
+					break;
+				case KIND_TEMPORAL:
+					isNull = !readTemporal(rs, columnIndex, column, row);
+					break;
+				case KIND_LOB:
+					lobs[column][row] = columnTypes[column] == Types.BLOB ? rs.getBlob(columnIndex) : rs.getClob(columnIndex);
+					isNull = lobs[column][row] == null;
+					break;
+
+				default:
+					String value = rs.getString(columnIndex);
+					isNull = value == null;
+					if (!isNull) {
+						offsets[column][row] = arenaSize;
+						lengths[column][row] = encode(value);
+					}
+					break;
+			}
+			if (isNull) {
+				nulls[column][row >>> 6] |= 1L << row;
+			}
+		}
+		size++;
+	}
+
+	/**
+	 * read temporal value as epoch micros.
+	 * @param rs result set.
+	 * @param columnIndex column index, from 1.
+	 * @param column column index, from 0.
+	 * @param row row index.
+	 * @return false if null.
+	 * @throws SQLException when SQL error.
+	 */
+	private boolean readTemporal(ResultSet rs, int columnIndex, int column, int row) throws SQLException {
+		switch (columnTypes[column]) {
+			case Types.DATE:
+				Date date = rs.getDate(columnIndex);
+				if (date == null) {
+					return false;
+				}
+				longs[column][row] = date.getTime() * 1000;
+				return true;
+			case Types.TIME:
+				Time time = rs.getTime(columnIndex);
+				if (time == null) {
+					return false;
+				}
+				longs[column][row] = time.getTime() * 1000;
+				return true;
+
+			default:
+				Timestamp timestamp = rs.getTimestamp(columnIndex);
+				if (timestamp == null) {
+					return false;
+				}
+				longs[column][row] = Math.floorDiv(timestamp.getTime(), 1000) * 1000000 + timestamp.getNanos() / 1000;
+				return true;
+		}
+	}
+
+	/**
+	 * encode string to arena as UTF-8, without intermediate byte array.
+	 * @param value string.
+	 * @return encoded length.
+	 */
+	private int encode(String value) {
+		int length = value.length();
+		ensureArena(length * 3);	// 3 bytes at most per char, a surrogate pair takes 4 bytes for 2 chars.
+		int start = arenaSize;
+		int position = arenaSize;
+		for (int i = 0; i < length; i++) {
+			char c = value.charAt(i);
+			if (c < 0x80) {
+				arena[position++] = (byte)c;
+			}
+			else if (c < 0x800) {
+				arena[position++] = (byte)(0xc0 | (c >> 6));
+				arena[position++] = (byte)(0x80 | (c & 0x3f));
+			}
+			else if (Character.isHighSurrogate(c) && (i + 1 < length) && Character.isLowSurrogate(value.charAt(i + 1))) {
+				int codePoint = Character.toCodePoint(c, value.charAt(++i));
+				arena[position++] = (byte)(0xf0 | (codePoint >> 18));
+				arena[position++] = (byte)(0x80 | ((codePoint >> 12) & 0x3f));
+				arena[position++] = (byte)(0x80 | ((codePoint >> 6) & 0x3f));
+				arena[position++] = (byte)(0x80 | (codePoint & 0x3f));
+			}
+			else {
+				arena[position++] = (byte)(0xe0 | (c >> 12));
+				arena[position++] = (byte)(0x80 | ((c >> 6) & 0x3f));
+				arena[position++] = (byte)(0x80 | (c & 0x3f));
+			}
+		}
+		arenaSize = position;
+		return position - start;
+	}
+
+	/**
+	 * ensure arena has room for bytes.
+	 * @param bytes number of bytes to append.
+	 */
+	private void ensureArena(int bytes) {
+		long required = (long)arenaSize + bytes;
+		if (required > arena.length) {
+			long grown = Math.max(required, (long)arena.length * 2);
+			if (grown > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("row buffer arena exceeds 2GB, use smaller batch size.");
+			}
+			arena = Arrays.copyOf(arena, (int)grown);
+		}
+	}
+
+	// MARK: - Write
+	/**
+	 * bind value to prepared statement.
+	 * @param ps prepared statement.
+	 * @param psIndex prepared statement index.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @throws SQLException when SQL error.
+	 */
+	void bind(PreparedStatement ps, int psIndex, int row, int columnIndex) throws SQLException {
+		int column = columnIndex - 1;
+		int columnType = columnTypes[column];
+		if (isNull(row, columnIndex)) {
+			ps.setNull(psIndex, columnType);
+			return;
+		}
+		switch (columnType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+				ps.setShort(psIndex, (short)longs[column][row]);
+				break;
+			case Types.INTEGER:
+			case Types.BIGINT:
+			case Types.DECIMAL:
+				ps.setLong(psIndex, longs[column][row]);
+				break;
+			case Types.FLOAT:
+				ps.setFloat(psIndex, (float)doubles[column][row]);
+				break;
+			case Types.DOUBLE:
+			case Types.NUMERIC:
+				ps.setDouble(psIndex, doubles[column][row]);
+				break;
+			case Types.DATE:
+				ps.setDate(psIndex, new Date(longs[column][row] / 1000));
+				break;
+			case Types.TIME:
+				ps.setTime(psIndex, new Time(longs[column][row] / 1000));
+				break;
+			case Types.TIMESTAMP:
+				long micros = longs[column][row];
+				Timestamp timestamp = new Timestamp(Math.floorDiv(micros, 1000000) * 1000);
+				timestamp.setNanos(Math.toIntExact(Math.floorMod(micros, 1000000L)) * 1000);
+				ps.setTimestamp(psIndex, timestamp);
+				break;
+			case Types.BLOB:
+				ps.setBlob(psIndex, (Blob)lobs[column][row]);
+				break;
+			case Types.CLOB:
+				ps.setClob(psIndex, (Clob)lobs[column][row]);
+				break;
+
+			default:
+				ps.setString(psIndex, new String(arena, offsets[column][row], lengths[column][row], StandardCharsets.UTF_8));
+				break;
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package jp.co.comona.javamisc.sql;
+
+import java.util.List;
+
+/**
+ * row differs between a table and its copy, found by verify.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class RowDiff {
+
+	// MARK: - Kind
+	/**
+	 * kind of difference.
+	 */
+	public enum Kind {
+		/** the row is not in the target table. */
+		MISSING,
+		/** the row is not in the source table. */
+		EXTRA,
+		/** the row is in both tables, its values differ. */
+		CHANGED
+	}
+
+	// MARK: - Properties
+	private final Kind kind;
+	private final List<Object> key;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param kind kind of difference.
+	 * @param key primary key values of the row.
+	 */
+	RowDiff(Kind kind, List<Object> key) {
+		super();
+		this.kind = kind;
+		this.key = key;
+	}
+
+	// MARK: - Getters
+	/**
+	 * get kind of difference.
+	 * @return kind.
+	 */
+	public Kind getKind() {
+		return kind;
+	}
+
+	/**
+	 * get primary key values of the row.
+	 * @return primary key values in key sequence order.
+	 */
+	public List<Object> getKey() {
+		return key;
+	}
+
+	@Override
+	public String toString() {
+		return "RowDiff{kind=" + kind + ", key=" + key + '}';
+	}
+}
@@ -0,0 +1,275 @@
+package jp.co.comona.javamisc.sql;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * SQL dialect of the database engine.
+ * connection URL, metadata query, NOW() & DEFAULT syntax, identifier quoting, upsert clause and the bulk insert path.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+abstract class SQLDialect {
+
+	// MARK: - Static Properties
+	static final SQLDialect MYSQL = new MySQLDialect();
+	static final SQLDialect POSTGRESQL = new PostgreSQLDialect();
+
+	// MARK: - Factory
+	/**
+	 * get dialect by name.
+	 * @param name dialect name, mysql or postgresql.
+	 * @return dialect, null if unknown.
+	 */
+	static SQLDialect forName(String name) {
+		switch (name.toLowerCase()) {
+			case "mysql":
+			case "mariadb":
+				return MYSQL;
+			case "postgresql":
+			case "postgres":
+				return POSTGRESQL;
+
+			default:
+				return null;
+		}
+	}
+
+	/**
+	 * detect dialect of the connection by database product name, MySQL if not PostgreSQL.
+	 * @param con connection.
+	 * @return dialect.
+	 * @throws SQLException when SQL error.
+	 */
+	static SQLDialect detect(Connection con) throws SQLException {
+		String product = con.getMetaData().getDatabaseProductName();
+		if ((product != null) && product.toLowerCase().contains("postgres")) {
+			return POSTGRESQL;
+		}
+		return MYSQL;
+	}
+
+	// MARK: - Getters
+	/**
+	 * get dialect name.
+	 * @return dialect name.
+	 */
+	abstract String getName();
+
+	/**
+	 * get JDBC driver class name.
+	 * @return driver class name.
+	 */
+	abstract String getDriverClassName();
+
+	/**
+	 * get default port of the database server.
+	 * @return port number.
+	 */
+	abstract int getDefaultPort();
+
+	/**
+	 * get identifier quote character.
+	 * @return quote character.
+	 */
+	abstract char getQuoteChar();
+
+	/**
+	 * get placeholder limit of a statement.
+	 * @return maximum number of parameters.
+	 */
+	int getMaxParameters() {
+		return 65535;
+	}
+
+	/**
+	 * load statement size limit of the server.
+	 * @param con connection.
+	 * @return maximum statement size in bytes, 0 if unlimited.
+	 */
+	long loadMaxStatementBytes(Connection con) {
+		return 0;
+	}
+
+	// MARK: - SQL
+	/**
+	 * create connection URL.
+	 * @param hostName host name.
+	 * @param port port number.
+	 * @param databaseName database name.
+	 * @return connection URL.
+	 */
+	abstract String createUrl(String hostName, int port, String databaseName);
+
+	/**
+	 * quote identifier, each part of a qualified name is quoted.
+	 * @param identifier identifier.
+	 * @return quoted identifier.
+	 */
+	String quote(String identifier) {
+		char quote = getQuoteChar();
+		StringBuilder sb = new StringBuilder(identifier.length() + 2);
+		for (String part : identifier.split("\\.")) {
+			if (sb.length() > 0) {
+				sb.append('.');
+			}
+			if ((part.length() > 1) && (part.charAt(0) == quote) && (part.charAt(part.length() - 1) == quote)) {
+				sb.append(part);	// already quoted.
+				continue;
+			}
+			sb.append(quote);
+			for (int i = 0; i < part.length(); i++) {
+				char c = part.charAt(i);
+				if (c == quote) {
+					sb.append(quote);
+				}
+				sb.append(c);
+			}
+			sb.append(quote);
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * get current timestamp value.
+	 * @return current timestamp SQL.
+	 */
+	String now() {
+		return "NOW()";
+	}
+
+	/**
+	 * get default value keyword in VALUES.
+	 * @return default value SQL.
+	 */
+	String defaultValue() {
+		return "DEFAULT";
+	}
+
+	/**
+	 * cast value to the column type on INSERT ... SELECT, as is as default, the server converts on assignment.
+	 * @param expression value expression.
+	 * @param typeName column type name of the target.
+	 * @return cast expression.
+	 */
+	String cast(String expression, String typeName) {
+		return expression;
+	}
+
+	/**
+	 * append column values & null flags for rowHash(), CONCAT_WS() skips nulls.
+	 * @param sql SQL.
+	 * @param quotedColumns quoted columns.
+	 */
+	static void appendHashValues(StringBuilder sql, List<String> quotedColumns) {
+		sql.append("'#'");
+		for (String column : quotedColumns) {
+			sql.append(SQLRecord.SQL_COMMA).append(column);
+		}
+		sql.append(", CONCAT(");
+		for (int i = 0; i < quotedColumns.size(); i++) {
+			if (i > 0) {
+				sql.append(SQLRecord.SQL_COMMA);
+			}
+			sql.append('(').append(quotedColumns.get(i)).append(" IS NULL)");
+		}
+		sql.append(')');
+	}
+
+	/**
+	 * create hash expression of a row for checksums, a 32 bit number of the column values & their nulls.
+	 * @param quotedColumns quoted columns to hash.
+	 * @return hash expression.
+	 */
+	abstract String rowHash(List<String> quotedColumns);
+
+	/**
+	 * enable or disable per-row unique & foreign key checks of the session, for fast load.
+	 * @param con connection.
+	 * @param enabled true to enable, false to disable.
+	 * @return true if set, false if the server does not support it.
+	 */
+	boolean setSessionChecks(Connection con, boolean enabled) {
+		return false;
+	}
+
+	/**
+	 * is the error caused by values of a row, a data exception (SQLSTATE 22) or an integrity constraint violation (23).
+	 * @param e SQL exception.
+	 * @return true if a row error, the statement succeeds without the row.
+	 */
+	boolean isRowError(SQLException e) {
+		String state = e.getSQLState();
+		return (state != null) && (state.startsWith("22") || state.startsWith("23"));
+	}
+
+	/**
+	 * does a failed statement abort the transaction, or only the statement is rolled back.
+	 * @return true if the transaction is aborted.
+	 */
+	boolean isFailedStatementAborting() {
+		return false;
+	}
+
+	/**
+	 * begin a snapshot shared by reader connections, held by the coordinator until releaseSharedSnapshot().
+	 * @param con coordinator connection.
+	 * @param quotedTable quoted table name the readers read.
+	 * @return id of the snapshot for the readers, empty if the readers need no id, null if the server does not support it.
+	 * @throws SQLException when SQL error.
+	 */
+	String beginSharedSnapshot(Connection con, String quotedTable) throws SQLException {
+		return null;
+	}
+
+	/**
+	 * start the transaction of a reader connection on the shared snapshot.
+	 * @param reader reader connection.
+	 * @param snapshotId id of the snapshot from beginSharedSnapshot().
+	 * @throws SQLException when SQL error.
+	 */
+	void joinSharedSnapshot(Connection reader, String snapshotId) throws SQLException {
+		throw new SQLException("shared snapshot is not supported by " + getName() + ".");
+	}
+
+	/**
+	 * release the shared snapshot of the coordinator after all readers joined, the caller restores isolation & auto commit.
+	 * @param con coordinator connection.
+	 * @throws SQLException when SQL error.
+	 */
+	void releaseSharedSnapshot(Connection con) throws SQLException {}
+
+	/**
+	 * create SQL to load the column metadata without fetching rows.
+	 * @param quotedTable quoted table name.
+	 * @return SQL.
+	 */
+	String metadataSql(String quotedTable) {
+		return "SELECT * FROM " + quotedTable + " WHERE 1 = 0";
+	}
+
+	/**
+	 * append upsert clause.
+	 * @param sql insert SQL.
+	 * @param primaryKeys primary key columns.
+	 * @param targets columns to update, empty if the row is kept as is.
+	 * @throws SQLException when the clause can not be made for the table.
+	 */
+	abstract void appendUpsertClause(StringBuilder sql, String[] primaryKeys, List<String> targets) throws SQLException;
+
+	/**
+	 * prepare insert statement for batches of rows by the fastest path of the engine, multi-row VALUES as default.
+	 * @param con connection.
+	 * @param insertSql single row insert SQL.
+	 * @param quotedTable quoted table name.
+	 * @param boundColumns columns bound per row in parameter order, null if the insert has literal values.
+	 * @param upsert true if the insert has upsert clause.
+	 * @return prepared statement.
+	 * @throws SQLException when SQL error.
+	 */
+	PreparedStatement prepareBulkInsert(Connection con, String insertSql, String quotedTable, List<String> boundColumns, boolean upsert) throws SQLException {
+		return MultiRowInsert.create(con, insertSql, this);
+	}
+}
@@ -5,11 +5,14 @@ import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.HelpFormatter;
 import org.apache.commons.cli.Options;
 
+import javax.sql.DataSource;
 import java.io.BufferedReader;
 import java.io.Console;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.Date;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
@@ -22,7 +25,17 @@ import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
 
 /**
  * SQL record tool.
@@ -37,12 +50,44 @@ abstract public class SQLRecord {
 	protected static final String SQL_SELECT_FROM = "SELECT * FROM ";
 	protected static final String SQL_INSERT_INTO = "INSERT INTO ";
 	protected static final String SQL_VALUES_START = " VALUES(";
-	protected static final String SQL_DEFAULT = "DEFAULT";
-	protected static final String SQL_NOW = "NOW()";
 	protected static final String SQL_NULL = "NULL";
 	protected static final String SQL_COMMA = ", ";
 	protected static final char SQL_PREPARED_MARK = '?';
 	protected static final char SQL_VALUES_END = ')';
+	static final RecordListener CONSOLE_LISTENER = new RecordListener() {
+		@Override
+		public void info(String message) {
+			System.out.println("[INFO] " + message);
+		}
+
+		@Override
+		public void warn(String message) {
+			System.out.println("[WARN] " + message);
+		}
+
+		@Override
+		public void error(String message) {
+			System.out.println("[ERROR] " + message);
+		}
+	};
+	static final RecordListener LOGGING_LISTENER = new RecordListener() {
+		private final Logger logger = Logger.getLogger(SQLRecord.class.getPackage().getName());
+
+		@Override
+		public void info(String message) {
+			logger.info(message);
+		}
+
+		@Override
+		public void warn(String message) {
+			logger.warning(message);
+		}
+
+		@Override
+		public void error(String message) {
+			logger.severe(message);
+		}
+	};
 
 	// MARK: - Properties
 	final protected Options options;
@@ -52,6 +97,11 @@ abstract public class SQLRecord {
 	protected String databaseName = null;
 	protected String tableName = null;
 	protected String hostName = "localhost";
+	protected int port = 0;
+	protected SQLDialect dialect = null;
+	protected String quotedTableName = null;
+	protected List<String> bulkColumns = null;
+	protected List<String> parameterColumns = null;
 	protected String userName = null;
 	protected String password = null;
 	protected String[] columns = null;
@@ -59,6 +109,20 @@ abstract public class SQLRecord {
 	protected String[] nowColumns = null;
 	protected String[] nulls = null;
 	protected boolean prompt = false;
+	protected File journalFile = null;
+	protected boolean upsert = false;
+	protected String[] updateColumns = null;
+	protected boolean fastLoad = false;
+	protected File rejectFile = null;
+	protected RejectWriter rejectWriter = null;
+	private boolean rejectWarned = false;
+	protected String[] shards = null;
+	protected List<DataSource> shardDataSources = null;
+	protected String[] shardKeys = null;
+	protected DataSource dataSource = null;
+	private final Deque<Connection> reservedConnections = new ArrayDeque<>();
+	protected RecordListener listener = CONSOLE_LISTENER;
+	protected long recordCount = 0;
 
 	// MARK: - Constructor
 	/**
@@ -72,6 +136,20 @@ abstract public class SQLRecord {
 		this.cmd = cmd;
 	}
 
+	/**
+	 * constructor for programmatic use, without command line.
+	 * @param dataSource data source to get the connection from.
+	 * @param tableName table name.
+	 */
+	protected SQLRecord(DataSource dataSource, String tableName) {
+		super();
+		this.options = null;
+		this.cmd = null;
+		this.dataSource = dataSource;
+		this.tableName = tableName;
+		this.listener = LOGGING_LISTENER;
+	}
+
 	// MARK: - Getters
 	/**
 	 * get column count.
@@ -86,6 +164,22 @@ abstract public class SQLRecord {
 		}
 	}
 
+	/**
+	 * get number of records written.
+	 * @return number of records written.
+	 */
+	protected long getRecordCount() {
+		return recordCount;
+	}
+
+	/**
+	 * get SQL dialect, MySQL until assigned or detected.
+	 * @return SQL dialect.
+	 */
+	protected SQLDialect getDialect() {
+		return dialect != null ? dialect : SQLDialect.MYSQL;
+	}
+
 	/**
 	 * get now column count.
 	 * @return now column count.
@@ -120,9 +214,19 @@ abstract public class SQLRecord {
 	 * @throws SQLException when SQL connection error.
 	 */
 	protected boolean connect() throws ClassNotFoundException, SQLException {
-		Class.forName("com.mysql.jdbc.Driver");	// load MySQL database driver.
+		if (dataSource != null) {
+			con = acquireConnections();
+			if ((con != null) && (databaseName == null)) {
+				databaseName = con.getCatalog();
+			}
+			if ((con != null) && (dialect == null)) {
+				dialect = SQLDialect.detect(con);
+			}
+			return con != null;
+		}
+		Class.forName(getDialect().getDriverClassName());	// load database driver.
 
-		String url =  "jdbc:mysql://" + hostName + ":3306/" + databaseName + "?useUnicode=true&autoReconnect=true&characterEncoding=utf8&useSSL=false";
+		String url = createUrl();
 		if (prompt) {
 			// try 3 times.
 			for (int i = 0; i < 3; i++) {
@@ -139,12 +243,119 @@ abstract public class SQLRecord {
 			}
 		}
 		else if (password != null) {
-			con = DriverManager.getConnection(url, userName, password);
+			con = acquireConnection(url);
 		}
 
 		return con != null;
 	}
 
+	/**
+	 * acquire connection from data source or driver manager, recorded as JFR event.
+	 * @param url connection URL, ignored with data source.
+	 * @return connection.
+	 * @throws SQLException when SQL connection error.
+	 */
+	private Connection acquireConnection(String url) throws SQLException {
+		Object event = RecordEvents.begin(RecordEvents.CONNECT);
+		try {
+			if (dataSource != null) {
+				return dataSource.getConnection();
+			}
+			return DriverManager.getConnection(url, userName, password);
+		}
+		finally {
+			RecordEvents.end(event, tableName);
+		}
+	}
+
+	/**
+	 * acquire the connection & the parallel connections at once from a pooled data source, recorded as JFR event.
+	 * a job waiting for its parallel connections while holding the connection would deadlock when jobs fill the pool.
+	 * @return connection, the parallel connections are reserved for openConnection().
+	 * @throws SQLException when more connections than the pool size or SQL connection error.
+	 */
+	private Connection acquireConnections() throws SQLException {
+		int count = 1 + getParallelConnectionCount();
+		if ((count == 1) || !(dataSource instanceof PooledDataSource)) {
+			return acquireConnection(null);
+		}
+		Object event = RecordEvents.begin(RecordEvents.CONNECT);
+		try {
+			List<Connection> connections = ((PooledDataSource)dataSource).getConnections(count);
+			reservedConnections.addAll(connections.subList(1, count));
+			return connections.get(0);
+		}
+		finally {
+			RecordEvents.end(event, tableName);
+		}
+	}
+
+	/**
+	 * get number of connections opened by openConnection() while the connection is held.
+	 * @return number of connections.
+	 */
+	protected int getParallelConnectionCount() {
+		return 0;
+	}
+
+	/**
+	 * open another connection to the same database, for parallel writers.
+	 * a connection reserved at connect is taken first.
+	 * @return new connection.
+	 * @throws SQLException when SQL connection error.
+	 */
+	protected Connection openConnection() throws SQLException {
+		synchronized (reservedConnections) {
+			Connection reserved = reservedConnections.pollFirst();
+			if (reserved != null) {
+				return reserved;
+			}
+		}
+		return acquireConnection(dataSource != null ? null : createUrl());
+	}
+
+	/**
+	 * is rows routed to shards.
+	 * @return true if routed.
+	 */
+	protected boolean isSharded() {
+		return (shards != null) || (shardDataSources != null);
+	}
+
+	/**
+	 * open connection to a shard, HOST[:PORT]/DATABASE of --shard or the shard data source.
+	 * @param shard shard index.
+	 * @return new connection.
+	 * @throws SQLException when SQL connection error.
+	 */
+	protected Connection openShardConnection(int shard) throws SQLException {
+		Object event = RecordEvents.begin(RecordEvents.CONNECT);
+		try {
+			if (shardDataSources != null) {
+				return shardDataSources.get(shard).getConnection();
+			}
+			String spec = shards[shard];
+			int slash = spec.indexOf('/');
+			int colon = spec.lastIndexOf(':', slash);
+			SQLDialect sqlDialect = getDialect();
+			String host = colon > 0 ? spec.substring(0, colon) : spec.substring(0, slash);
+			int shardPort = colon > 0 ? Integer.parseInt(spec.substring(colon + 1, slash)) : sqlDialect.getDefaultPort();
+			return DriverManager.getConnection(sqlDialect.createUrl(host, shardPort, spec.substring(slash + 1)), userName, password);
+		}
+		finally {
+			RecordEvents.end(event, tableName);
+		}
+	}
+
+	/**
+	 * create connection URL.
+	 * @return connection URL.
+	 */
+	protected String createUrl() {
+		SQLDialect sqlDialect = getDialect();
+		return sqlDialect.createUrl(hostName, port > 0 ? port : sqlDialect.getDefaultPort(), databaseName);
+	}
+
 	/**
 	 * do prompt.
 	 * @param url connection URL.
@@ -162,7 +373,7 @@ abstract public class SQLRecord {
 			BufferedReader br = new BufferedReader(new InputStreamReader(System.in));
 			password = br.readLine();
 		}
-		con = DriverManager.getConnection(url, userName, password);
+		con = acquireConnection(url);
 	}
 
 	/**
@@ -170,6 +381,12 @@ abstract public class SQLRecord {
 	 * @throws SQLException when SQL disconnection error.
 	 */
 	protected void disconnect() throws SQLException {
+		synchronized (reservedConnections) {
+			for (Connection reserved : reservedConnections) {
+				reserved.close();
+			}
+			reservedConnections.clear();
+		}
 		if (con != null) {
 			con.close();
 		}
@@ -177,14 +394,330 @@ abstract public class SQLRecord {
 
 	/**
 	 * load metadata.
+	 * the table name is folded to the case the database stores unquoted identifiers in, then quoted.
 	 * @throws SQLException when SQL error.
 	 */
 	protected void loadMetadata() throws SQLException {
-		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(SQL_SELECT_FROM + tableName + " LIMIT 1 OFFSET 0")) {
-			meta = rs.getMetaData();
+		Object event = RecordEvents.begin(RecordEvents.METADATA);
+		try {
+			quotedTableName = quote(toStoredCase(tableName));
+			meta = loadMetadata(quotedTableName);
+		}
+		finally {
+			RecordEvents.end(event, tableName);
+		}
+	}
+
+	/**
+	 * load metadata of a table.
+	 * @param quotedTable quoted table name.
+	 * @return column metadata.
+	 * @throws SQLException when SQL error.
+	 */
+	protected ResultSetMetaData loadMetadata(String quotedTable) throws SQLException {
+		return loadMetadata(con, quotedTable);
+	}
+
+	/**
+	 * load metadata of a table through a connection, like the one to a target database.
+	 * @param connection connection.
+	 * @param quotedTable quoted table name.
+	 * @return column metadata.
+	 * @throws SQLException when SQL error.
+	 */
+	protected ResultSetMetaData loadMetadata(Connection connection, String quotedTable) throws SQLException {
+		try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery(getDialect().metadataSql(quotedTable))) {
+			return new DetachedMetaData(rs.getMetaData());
+		}
+	}
+
+	/**
+	 * execute lookup query, recorded as JFR event until the first result.
+	 * @param ps prepared statement.
+	 * @return result set.
+	 * @throws SQLException when SQL error.
+	 */
+	protected ResultSet executeQuery(PreparedStatement ps) throws SQLException {
+		Object event = RecordEvents.begin(RecordEvents.LOOKUP);
+		try {
+			return ps.executeQuery();
+		}
+		finally {
+			RecordEvents.end(event, tableName);
 		}
 	}
 
+	/**
+	 * execute insert batch, recorded as JFR event with rows & bytes, a batch routed to shards is recorded by each shard.
+	 * @param ps prepared statement.
+	 * @param rows number of rows in the batch.
+	 * @return update counts.
+	 * @throws SQLException when SQL error.
+	 */
+	protected int[] executeBatch(PreparedStatement ps, int rows) throws SQLException {
+		Object event = ShardRouter.isRouted(ps) ? null : RecordEvents.begin(RecordEvents.BATCH);
+		if (event == null) {
+			return ps.executeBatch();
+		}
+		long bytes = ps instanceof BatchStatement ? ((BatchStatement)ps).getBatchBytes() : 0;
+		try {
+			return ps.executeBatch();
+		}
+		finally {
+			RecordEvents.end(event, tableName, rows, bytes);
+		}
+	}
+
+	/**
+	 * commit transaction, recorded as JFR event.
+	 * @param connection connection.
+	 * @param rows number of rows written in the transaction.
+	 * @throws SQLException when SQL error.
+	 */
+	protected void commit(Connection connection, long rows) throws SQLException {
+		Object event = RecordEvents.begin(RecordEvents.COMMIT);
+		try {
+			connection.commit();
+		}
+		finally {
+			RecordEvents.end(event, tableName, rows, 0);
+		}
+	}
+
+	/**
+	 * fold identifier to the case the database stores unquoted identifiers in.
+	 * @param identifier identifier.
+	 * @return folded identifier, as is if quoted.
+	 * @throws SQLException when SQL error.
+	 */
+	protected String toStoredCase(String identifier) throws SQLException {
+		return toStoredCase(con, identifier);
+	}
+
+	/**
+	 * fold identifier to the case the database of the connection stores unquoted identifiers in.
+	 * @param connection connection.
+	 * @param identifier identifier.
+	 * @return folded identifier, as is if quoted.
+	 * @throws SQLException when SQL error.
+	 */
+	protected String toStoredCase(Connection connection, String identifier) throws SQLException {
+		if (identifier.indexOf(getDialect().getQuoteChar()) >= 0) {
+			return identifier;
+		}
+		DatabaseMetaData dbMeta = connection.getMetaData();
+		if (dbMeta.storesUpperCaseIdentifiers()) {
+			return identifier.toUpperCase();
+		}
+		else if (dbMeta.storesLowerCaseIdentifiers()) {
+			return identifier.toLowerCase();
+		}
+		return identifier;
+	}
+
+	/**
+	 * quote identifier by the dialect.
+	 * @param identifier identifier.
+	 * @return quoted identifier.
+	 */
+	protected String quote(String identifier) {
+		return getDialect().quote(identifier);
+	}
+
+	/**
+	 * find column name of the table ignore case.
+	 * @param name column name.
+	 * @return column name of the table, the name as is if not found.
+	 * @throws SQLException when SQL error.
+	 */
+	protected String toColumnName(String name) throws SQLException {
+		for (int i = 1; i <= meta.getColumnCount(); i++) {
+			if (meta.getColumnName(i).compareToIgnoreCase(name) == 0) {
+				return meta.getColumnName(i);
+			}
+		}
+		return name;
+	}
+
+	/**
+	 * load primary key columns.
+	 * @return primary key columns in key sequence order, empty if table has no primary key.
+	 * @throws SQLException when SQL error.
+	 */
+	protected String[] loadPrimaryKeys() throws SQLException {
+		return loadPrimaryKeys(tableName);
+	}
+
+	/**
+	 * load primary key columns of a table.
+	 * @param table table name.
+	 * @return primary key columns in key sequence order, empty if table has no primary key.
+	 * @throws SQLException when SQL error.
+	 */
+	protected String[] loadPrimaryKeys(String table) throws SQLException {
+		return loadPrimaryKeys(con, databaseName, table);
+	}
+
+	/**
+	 * load primary key columns of a table through a connection, like the one to a target database.
+	 * @param connection connection.
+	 * @param catalog database name of the table.
+	 * @param table table name.
+	 * @return primary key columns in key sequence order, empty if table has no primary key.
+	 * @throws SQLException when SQL error.
+	 */
+	protected String[] loadPrimaryKeys(Connection connection, String catalog, String table) throws SQLException {
+		DatabaseMetaData dbMeta = connection.getMetaData();
+		Map<Short, String> keyMap = new TreeMap<>();
+		try (ResultSet rs = dbMeta.getPrimaryKeys(catalog, null, toStoredCase(connection, table))) {
+			while (rs.next()) {
+				keyMap.put(rs.getShort("KEY_SEQ"), rs.getString("COLUMN_NAME"));
+			}
+		}
+		return keyMap.values().toArray(new String[0]);
+	}
+
+	/**
+	 * append upsert clause of the dialect in upsert mode.
+	 * updates the update columns, or all columns except primary key & auto increment columns if not assigned.
+	 * @param sql insert SQL.
+	 * @throws SQLException when SQL error or unknown update column.
+	 */
+	protected void appendUpsertClause(StringBuilder sql) throws SQLException {
+		appendUpsertClause(sql, tableName, meta, null);
+	}
+
+	/**
+	 * append upsert clause of the dialect for the insert into a table in upsert mode.
+	 * @param sql insert SQL.
+	 * @param table table name to insert into.
+	 * @param tableMeta column metadata of the table.
+	 * @param insertColumns columns in the insert, updated by default, null for all columns.
+	 * @throws SQLException when SQL error or unknown update column.
+	 */
+	protected void appendUpsertClause(StringBuilder sql, String table, ResultSetMetaData tableMeta, List<String> insertColumns) throws SQLException {
+		if (!upsert) {
+			return;
+		}
+		appendUpsertClause(sql, loadPrimaryKeys(table), table, tableMeta, insertColumns);
+	}
+
+	/**
+	 * append upsert clause of the dialect for the insert into a table of known primary key in upsert mode.
+	 * @param sql insert SQL.
+	 * @param primaryKeys primary key columns of the table.
+	 * @param table table name to insert into.
+	 * @param tableMeta column metadata of the table.
+	 * @param insertColumns columns in the insert, updated by default, null for all columns.
+	 * @throws SQLException when SQL error or unknown update column.
+	 */
+	protected void appendUpsertClause(StringBuilder sql, String[] primaryKeys, String table, ResultSetMetaData tableMeta, List<String> insertColumns) throws SQLException {
+		if (!upsert) {
+			return;
+		}
+		List<String> targets = new ArrayList<>();
+		if (updateColumns != null) {
+			for (String updateColumn : updateColumns) {
+				String colName = null;
+				for (int i = 1; i <= tableMeta.getColumnCount(); i++) {
+					if (tableMeta.getColumnName(i).compareToIgnoreCase(updateColumn) == 0) {
+						colName = tableMeta.getColumnName(i);
+						break;
+					}
+				}
+				if (colName == null) {
+					throw new SQLException("update column " + updateColumn + " is not in " + table);
+				}
+				targets.add(colName);
+			}
+		}
+		else {
+			List<String> keys = new ArrayList<>();
+			for (String primaryKey : primaryKeys) {
+				keys.add(primaryKey.toLowerCase());
+			}
+			for (int i = 1; i <= tableMeta.getColumnCount(); i++) {
+				String colName = tableMeta.getColumnName(i);
+				if (!tableMeta.isAutoIncrement(i) && !keys.contains(colName.toLowerCase()) && ((insertColumns == null) || insertColumns.contains(colName))) {
+					targets.add(colName);
+				}
+			}
+		}
+		getDialect().appendUpsertClause(sql, primaryKeys, targets);
+	}
+
+	/**
+	 * prepare insert statement for batches of rows by the bulk path of the dialect.
+	 * bulkColumns is set by the insert SQL builder.
+	 * @param connection connection.
+	 * @param insertSql single row insert SQL.
+	 * @return prepared statement.
+	 * @throws SQLException when SQL error.
+	 */
+	protected PreparedStatement prepareBulkInsert(Connection connection, String insertSql) throws SQLException {
+		return prepareBulkInsert(connection, insertSql, quotedTableName);
+	}
+
+	/**
+	 * prepare insert statement of the table for batches of rows, routed to own connections of the shards if sharded.
+	 * parameterColumns is set by the insert SQL builder.
+	 * @param connection connection.
+	 * @param insertSql single row insert SQL.
+	 * @param quotedTable quoted table name.
+	 * @return prepared statement.
+	 * @throws SQLException when SQL error, or a shard key column is not bound per row.
+	 */
+	protected PreparedStatement prepareBulkInsert(Connection connection, String insertSql, String quotedTable) throws SQLException {
+		SQLDialect sqlDialect = getDialect();
+		if (!isSharded()) {
+			return setRejectWriter(sqlDialect.prepareBulkInsert(connection, insertSql, quotedTable, bulkColumns, upsert));
+		}
+		int[] keyIndexes = new int[shardKeys.length];
+		for (int i = 0; i < shardKeys.length; i++) {
+			for (int j = 0; j < parameterColumns.size(); j++) {
+				if (parameterColumns.get(j).equalsIgnoreCase(shardKeys[i])) {
+					keyIndexes[i] = j + 1;
+				}
+			}
+			if (keyIndexes[i] == 0) {
+				throw new SQLException("shard key column " + shardKeys[i] + " is not bound per row.");
+			}
+		}
+		Connection[] connections = new Connection[shards != null ? shards.length : shardDataSources.size()];
+		try {
+			for (int i = 0; i < connections.length; i++) {
+				connections[i] = openShardConnection(i);
+			}
+		}
+		catch (SQLException e) {
+			for (Connection shardConnection : connections) {
+				if (shardConnection != null) {
+					shardConnection.close();
+				}
+			}
+			throw e;
+		}
+		return setRejectWriter(ShardRouter.create(sqlDialect, connections, insertSql, quotedTable, bulkColumns, upsert, parameterColumns.size(), keyIndexes, tableName));
+	}
+
+	/**
+	 * set reject writer to bulk insert statement, a statement failed by a row error is bisected & the failing rows are rejected.
+	 * @param ps bulk insert statement.
+	 * @return the statement.
+	 */
+	protected PreparedStatement setRejectWriter(PreparedStatement ps) {
+		if (rejectWriter != null) {
+			if (ps instanceof BatchStatement) {
+				((BatchStatement)ps).setRejectWriter(rejectWriter);
+			}
+			else if (!rejectWarned) {
+				rejectWarned = true;
+				warn("rows can not be rejected from JDBC batches, a failed batch fails the run.");
+			}
+		}
+		return ps;
+	}
+
 	/**
 	 * convert string to date.
 	 * @param value date value in string.
@@ -269,47 +802,7 @@ abstract public class SQLRecord {
 				if (column.compareToIgnoreCase(colName) == 0) {
 					Integer indexObj = columnIndexMap.get(column);
 					if (indexObj != null) {
-						String value = replaces[i];
-						int index = indexObj;
-						switch (columnType) {
-							case Types.INTEGER:
-								ps.setInt(index, Integer.parseInt(value));
-								break;
-							case Types.BIGINT:
-							case Types.DECIMAL:
-								ps.setLong(index, Long.parseLong(value));
-								break;
-							case Types.SMALLINT:
-								ps.setShort(index, Short.parseShort(value));
-								break;
-							case Types.TINYINT:
-								short v = Short.parseShort(value);
-								if ((v > 127) || (v < -128)) {
-									throw new Exception("TINYINT out of range at " + colName);
-								}
-								ps.setInt(index, v);
-								break;
-							case Types.FLOAT:
-								ps.setFloat(index, Float.parseFloat(value));
-								break;
-							case Types.DOUBLE:
-							case Types.NUMERIC:
-								ps.setDouble(index, Double.parseDouble(value));
-								break;
-							case Types.DATE:
-								ps.setDate(index, convertDate(value));
-								break;
-							case Types.TIMESTAMP:
-								ps.setTimestamp(index, convertTimestamp(value));
-								break;
-							case Types.TIME:
-								ps.setTime(index, convertTime(value));
-								break;
-
-							default:
-								ps.setString(index, value);
-								break;
-						}
+						setColumnValue(ps, indexObj, colName, columnType, replaces[i]);
 					}
 					return indexObj != null;
 				}
@@ -318,6 +811,75 @@ abstract public class SQLRecord {
 		return false;
 	}
 
+	/**
+	 * set string value to prepared statement, converted by column type.
+	 * @param ps prepared statement.
+	 * @param index prepared statement index.
+	 * @param colName column name.
+	 * @param columnType column type.
+	 * @param value value in string.
+	 * @throws Exception when error.
+	 */
+	protected static void setColumnValue(PreparedStatement ps, int index, String colName, int columnType, String value) throws Exception {
+		switch (columnType) {
+			case Types.INTEGER:
+				ps.setInt(index, Integer.parseInt(value));
+				break;
+			case Types.BIGINT:
+			case Types.DECIMAL:
+				ps.setLong(index, Long.parseLong(value));
+				break;
+			case Types.SMALLINT:
+				ps.setShort(index, Short.parseShort(value));
+				break;
+			case Types.TINYINT:
+				short v = Short.parseShort(value);
+				if ((v > 127) || (v < -128)) {
+					throw new Exception("TINYINT out of range at " + colName);
+				}
+				ps.setInt(index, v);
+				break;
+			case Types.FLOAT:
+				ps.setFloat(index, Float.parseFloat(value));
+				break;
+			case Types.DOUBLE:
+			case Types.NUMERIC:
+				ps.setDouble(index, Double.parseDouble(value));
+				break;
+			case Types.DATE:
+				ps.setDate(index, convertDate(value));
+				break;
+			case Types.TIMESTAMP:
+				ps.setTimestamp(index, convertTimestamp(value));
+				break;
+			case Types.TIME:
+				ps.setTime(index, convertTime(value));
+				break;
+
+			default:
+				ps.setString(index, value);
+				break;
+		}
+	}
+
+	/**
+	 * is integral column type.
+	 * @param columnType column type.
+	 * @return true if integral number column.
+	 */
+	protected static boolean isIntegralType(int columnType) {
+		switch (columnType) {
+			case Types.INTEGER:
+			case Types.BIGINT:
+			case Types.SMALLINT:
+			case Types.TINYINT:
+				return true;
+
+			default:
+				return false;
+		}
+	}
+
 	// MARK: - Process
 	/**
 	 * do process.
@@ -331,9 +893,312 @@ abstract public class SQLRecord {
 	 */
 	protected void connectAndProcess() throws Exception {
 		if (connect()) {
-			loadMetadata();
+			try {
+				loadMetadata();
+				if (rejectFile != null) {
+					rejectWriter = new RejectWriter(rejectFile, getDialect(), (journalFile != null) && journalFile.exists());	// resumed runs append.
+				}
+				if (fastLoad) {
+					doFastLoadProcess();
+				}
+				else {
+					doProcess();
+				}
+			}
+			finally {
+				try {
+					closeRejectWriter();
+				}
+				finally {
+					disconnect();
+				}
+			}
+		}
+	}
+
+	/**
+	 * close reject file, rows rejected from batches are not counted as written.
+	 * @throws IOException when I/O error.
+	 */
+	private void closeRejectWriter() throws IOException {
+		if (rejectWriter == null) {
+			return;
+		}
+		rejectWriter.close();
+		recordCount -= rejectWriter.getBatchRowCount();
+		if (rejectWriter.getRowCount() > 0) {
+			warn(rejectWriter.getRowCount() + " rows rejected to " + rejectFile + ".");
+		}
+		rejectWriter = null;
+	}
+
+	/**
+	 * get result of a task of the workers.
+	 * @param future future of the task.
+	 * @return result.
+	 * @throws Exception when the task failed.
+	 */
+	protected static <T> T getResult(Future<T> future) throws Exception {
+		try {
+			return future.get();
+		}
+		catch (ExecutionException e) {
+			throw e.getCause() instanceof Exception ? (Exception)e.getCause() : e;
+		}
+	}
+
+	// MARK: - Shared Snapshot
+	/**
+	 * start transactions of reader connections on one consistent snapshot of the table.
+	 * the connection holds the snapshot briefly, a table read lock or an exported snapshot, until every reader joined.
+	 * the isolation & auto commit of the connection are restored after the snapshot is released.
+	 * @param readers reader connections, in a transaction on the snapshot if shared.
+	 * @return true if shared, false if the server does not support it & the readers are left as is.
+	 * @throws SQLException when SQL error.
+	 */
+	protected boolean shareSnapshot(List<Connection> readers) throws SQLException {
+		SQLDialect sqlDialect = getDialect();
+		int isolation = con.getTransactionIsolation();
+		boolean autoCommit = con.getAutoCommit();
+		String snapshotId = sqlDialect.beginSharedSnapshot(con, quotedTableName);
+		if (snapshotId == null) {
+			return false;
+		}
+		try {
+			for (Connection reader : readers) {
+				sqlDialect.joinSharedSnapshot(reader, snapshotId);
+			}
+		}
+		finally {
+			sqlDialect.releaseSharedSnapshot(con);
+			if (con.getAutoCommit() != autoCommit) {
+				con.setAutoCommit(autoCommit);
+			}
+			if (con.getTransactionIsolation() != isolation) {
+				con.setTransactionIsolation(isolation);
+			}
+		}
+		return true;
+	}
+
+	// MARK: - Fast Load
+	/**
+	 * do process with per-row unique & foreign key checks of the session disabled, then validate the loaded table by set-based queries.
+	 * @throws Exception when error, or duplicate or orphaned keys are found.
+	 */
+	private void doFastLoadProcess() throws Exception {
+		boolean disabled = disableSessionChecks(con);
+		if (!disabled) {
+			warn("checks of the session can not be disabled on this server, loading with checks.");
+		}
+		try {
 			doProcess();
-			disconnect();
+		}
+		finally {
+			restoreSessionChecks(con, disabled);
+		}
+		validateLoad(getLoadTableName());
+	}
+
+	/**
+	 * disable per-row unique & foreign key checks of a connection in fast load mode.
+	 * @param connection connection.
+	 * @return true if disabled.
+	 */
+	protected boolean disableSessionChecks(Connection connection) {
+		return fastLoad && getDialect().setSessionChecks(connection, false);
+	}
+
+	/**
+	 * restore per-row checks of a connection disabled by disableSessionChecks(), pooled connections must not keep them off.
+	 * @param connection connection.
+	 * @param disabled result of disableSessionChecks().
+	 * @throws SQLException when the checks can not be restored.
+	 */
+	protected void restoreSessionChecks(Connection connection, boolean disabled) throws SQLException {
+		if (!disabled) {
+			return;
+		}
+		if (!getDialect().setSessionChecks(connection, true)) {
+			throw new SQLException("failed to restore checks of the session.");
+		}
+		if (!connection.getAutoCommit()) {
+			connection.commit();	// SET is transactional on PostgreSQL.
+		}
+	}
+
+	/**
+	 * get table the process loads into.
+	 * @return table name.
+	 */
+	protected String getLoadTableName() {
+		return tableName;
+	}
+
+	/**
+	 * validate keys of a loaded table, duplicates of every unique index & orphans of every foreign key are counted set-based.
+	 * @param table table name.
+	 * @throws SQLException when SQL error, or duplicate or orphaned keys are found.
+	 */
+	protected void validateLoad(String table) throws SQLException {
+		String storedTable = toStoredCase(table);
+		String quotedTable = quote(storedTable);
+		DatabaseMetaData dbMeta = con.getMetaData();
+		long invalid = 0;
+
+		Map<String, Map<Short, String>> uniqueKeys = new TreeMap<>();
+		try (ResultSet rs = dbMeta.getIndexInfo(databaseName, null, storedTable, true, false)) {
+			while (rs.next()) {
+				String indexName = rs.getString("INDEX_NAME");
+				String columnName = rs.getString("COLUMN_NAME");
+				if ((rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic) && (indexName != null) && (columnName != null)) {
+					if (!uniqueKeys.containsKey(indexName)) {
+						uniqueKeys.put(indexName, new TreeMap<Short, String>());
+					}
+					uniqueKeys.get(indexName).put(rs.getShort("ORDINAL_POSITION"), columnName);
+				}
+			}
+		}
+		for (Map.Entry<String, Map<Short, String>> uniqueKey : uniqueKeys.entrySet()) {
+			StringBuilder keyList = new StringBuilder();
+			StringBuilder notNull = new StringBuilder();
+			for (String column : uniqueKey.getValue().values()) {
+				if (keyList.length() > 0) {
+					keyList.append(SQL_COMMA);
+					notNull.append(" AND ");
+				}
+				keyList.append(quote(column));
+				notNull.append(quote(column)).append(" IS NOT NULL");
+			}
+			long count = countRows("SELECT COUNT(*) FROM (SELECT " + keyList + " FROM " + quotedTable + " WHERE " + notNull +
+					" GROUP BY " + keyList + " HAVING COUNT(*) > 1) d");
+			if (count > 0) {
+				error(count + " duplicate keys of " + uniqueKey.getKey() + " (" + keyList + ") in " + table + ".");
+				invalid += count;
+			}
+		}
+
+		Map<String, StringBuilder[]> foreignKeys = new TreeMap<>();
+		try (ResultSet rs = dbMeta.getImportedKeys(databaseName, null, storedTable)) {
+			while (rs.next()) {
+				String name = rs.getString("FK_NAME") + " to " + rs.getString("PKTABLE_NAME");
+				StringBuilder[] foreignKey = foreignKeys.get(name);
+				if (foreignKey == null) {
+					String schema = rs.getString("PKTABLE_SCHEM") != null ? rs.getString("PKTABLE_SCHEM") : rs.getString("PKTABLE_CAT");
+					String parent = (schema != null ? quote(schema) + "." : "") + quote(rs.getString("PKTABLE_NAME"));
+					foreignKey = new StringBuilder[] { new StringBuilder(), new StringBuilder(" AND NOT EXISTS (SELECT 1 FROM " + parent + " p WHERE ") };
+					foreignKeys.put(name, foreignKey);
+				}
+				else {
+					foreignKey[0].append(" AND ");
+					foreignKey[1].append(" AND ");
+				}
+				String child = "c." + quote(rs.getString("FKCOLUMN_NAME"));
+				foreignKey[0].append(child).append(" IS NOT NULL");
+				foreignKey[1].append("p.").append(quote(rs.getString("PKCOLUMN_NAME"))).append(" = ").append(child);
+			}
+		}
+		for (Map.Entry<String, StringBuilder[]> foreignKey : foreignKeys.entrySet()) {
+			long count = countRows("SELECT COUNT(*) FROM " + quotedTable + " c WHERE " + foreignKey.getValue()[0] + foreignKey.getValue()[1] + ")");
+			if (count > 0) {
+				error(count + " rows of " + table + " have no parent of foreign key " + foreignKey.getKey() + ".");
+				invalid += count;
+			}
+		}
+
+		if (invalid > 0) {
+			throw new SQLException("fast load left " + invalid + " invalid keys in " + table + ", the loaded rows are committed.");
+		}
+		info("validated " + uniqueKeys.size() + " unique keys & " + foreignKeys.size() + " foreign keys of " + table + ".");
+	}
+
+	/**
+	 * count rows by a COUNT(*) query.
+	 * @param sql SQL.
+	 * @return count.
+	 * @throws SQLException when SQL error.
+	 */
+	private long countRows(String sql) throws SQLException {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery(sql)) {
+			return rs.next() ? rs.getLong(1) : 0;
+		}
+	}
+
+	/**
+	 * create fingerprint of the process, checkpoint journal written by other process is refused.
+	 * @return fingerprint.
+	 */
+	protected long createFingerprint() {
+		StringBuilder sb = new StringBuilder();
+		appendFingerprint(sb);
+		long hash = 0xcbf29ce484222325L;	// FNV-1a 64 bit.
+		for (int i = 0; i < sb.length(); i++) {
+			hash ^= sb.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	/**
+	 * append values which identify the process.
+	 * @param sb string builder.
+	 */
+	protected void appendFingerprint(StringBuilder sb) {
+		sb.append(hostName).append('/').append(databaseName).append('.').append(tableName);
+		appendFingerprint(sb, "columns", columns);
+		appendFingerprint(sb, "replaces", replaces);
+		appendFingerprint(sb, "now", nowColumns);
+		appendFingerprint(sb, "nulls", nulls);
+		if (upsert) {
+			appendFingerprint(sb, "upsert", updateColumns);
+		}
+	}
+
+	/**
+	 * append named values which identify the process.
+	 * @param sb string builder.
+	 * @param name name of values.
+	 * @param values values, may be null.
+	 */
+	protected static void appendFingerprint(StringBuilder sb, String name, String[] values) {
+		sb.append(';').append(name).append('=');
+		if (values != null) {
+			sb.append(values.length).append(Arrays.toString(values));
+		}
+	}
+
+	// MARK: - Messages
+	/**
+	 * send progress or summary message to the listener.
+	 * @param message message.
+	 */
+	protected void info(String message) {
+		listener.info(message);
+	}
+
+	/**
+	 * send warning message to the listener.
+	 * @param message message.
+	 */
+	protected void warn(String message) {
+		listener.warn(message);
+	}
+
+	/**
+	 * send error message to the listener.
+	 * @param message message.
+	 */
+	protected void error(String message) {
+		listener.error(message);
+	}
+
+	/**
+	 * apply listener of the request, the default listener is kept if none.
+	 * @param request request.
+	 */
+	protected void applyListener(RecordRequest request) {
+		if (request.getListener() != null) {
+			listener = request.getListener();
 		}
 	}
 
@@ -464,21 +1329,14 @@ abstract public class SQLRecord {
 	}
 
 	/**
-	 * check columns & replaces.
+	 * check count of columns & replaces, the request checks the names.
 	 * @return true if success.
 	 */
 	protected boolean checkColumnsAndReplaces() {
 		columns = cmd.getOptionValues('c');	// column & replace count check.
-		if (columns != null) {
-			if (Util.hasDuplicateValuesIgnoreCase(columns)) {
-				usage(options);
-				duplicateValueFound("column name to replace value");
-				return false;
-			}
-		}
 		replaces = cmd.getOptionValues(replaceValueShortOption());
-		if (replaces != null) {
-			if (columns.length != replaces.length) {
+		if ((columns != null) || (replaces != null)) {
+			if ((columns == null) || (replaces == null) || (columns.length != replaces.length)) {
 				usage(options);
 				columnAndReplaceCountMustSame();
 				return false;
@@ -511,33 +1369,139 @@ abstract public class SQLRecord {
 	}
 
 	/**
-	 * check null columns.
+	 * check SQL dialect & port options.
 	 * @return true if success.
 	 */
-	protected boolean checkNullColumns() {
-		nulls = cmd.getOptionValues('N');	// null value columns.
-		if (nulls != null) {
-			if (Util.hasDuplicateValuesIgnoreCase(nulls)) {
+	protected boolean checkDialect() {
+		String name = cmd.getOptionValue("dialect");
+		if (name != null) {
+			dialect = SQLDialect.forName(name);
+			if (dialect == null) {
 				usage(options);
-				duplicateValueFound("use NOW() for the column");
+				System.out.println("[ERROR] unknown dialect " + name + ", mysql or postgresql.");
 				return false;
 			}
-			if (columns != null) {
-				if (Util.hasDuplicateValuesIgnoreCase(nulls, columns)) {
-					usage(options);
-					duplicateValueFoundIn("use null for the column", "column name to replace value");
-					return false;
-				}
+		}
+		port = checkPositiveNumber("port", "port number", 0);
+		return port >= 0;
+	}
+
+	/**
+	 * check checkpoint journal file.
+	 * @return true if success.
+	 */
+	protected boolean checkJournal() {
+		String[] journals = cmd.getOptionValues("journal");
+		if (journals != null) {
+			if (journals.length > 1) {
+				usage(options);
+				noMultipleOptions("checkpoint journal file");
+				return false;
 			}
-			if (nowColumns != null) {
-				if (Util.hasDuplicateValuesIgnoreCase(nulls, nowColumns)) {
+			journalFile = new File(journals[0]);
+		}
+		return true;
+	}
+
+	/**
+	 * check upsert options.
+	 * @return true if success.
+	 */
+	protected boolean checkUpsert() {
+		upsert = cmd.hasOption("upsert");
+		updateColumns = cmd.getOptionValues("update-column");
+		if (updateColumns != null) {
+			if (!upsert) {
+				usage(options);
+				System.out.println("[ERROR] update column requires upsert.");
+				return false;
+			}
+			if (Util.hasDuplicateValuesIgnoreCase(updateColumns)) {
+				usage(options);
+				duplicateValueFound("update column");
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * check reject option.
+	 * @return true if success.
+	 */
+	protected boolean checkReject() {
+		String[] rejects = cmd.getOptionValues("reject");
+		if (rejects != null) {
+			if (rejects.length > 1) {
+				usage(options);
+				noMultipleOptions("reject file");
+				return false;
+			}
+			rejectFile = new File(rejects[0]);
+		}
+		return true;
+	}
+
+	/**
+	 * check name=value pairs option.
+	 * @param longOpt long option name.
+	 * @param argName argument name.
+	 * @return name (lower case) to value map, null if error.
+	 */
+	protected Map<String, String> checkNameValuePairs(String longOpt, String argName) {
+		Map<String, String> pairs = new HashMap<>();
+		String[] values = cmd.getOptionValues(longOpt);
+		if (values != null) {
+			for (String value : values) {
+				int separator = value.indexOf('=');
+				if ((separator <= 0) || pairs.containsKey(value.substring(0, separator).toLowerCase())) {
 					usage(options);
-					duplicateValueFoundIn("use null for the column", "use column name to use default value");
-					return false;
+					System.out.println("[ERROR] " + argName + " must be unique COLUMN=VALUE pairs: " + value);
+					return null;
 				}
+				pairs.put(value.substring(0, separator).toLowerCase(), value.substring(separator + 1));
 			}
 		}
-		return true;
+		return pairs;
+	}
+
+	/**
+	 * get values of the option.
+	 * @param opt short or long option name.
+	 * @return values, empty if the option is not assigned.
+	 */
+	protected String[] getOptionValues(String opt) {
+		String[] values = cmd.getOptionValues(opt);
+		return values != null ? values : new String[0];
+	}
+
+	/**
+	 * check positive number option.
+	 * @param longOpt long option name.
+	 * @param argName argument name.
+	 * @param defaultValue default value when option is not assigned.
+	 * @return option value, negative if error.
+	 */
+	protected int checkPositiveNumber(String longOpt, String argName, int defaultValue) {
+		String[] numbers = cmd.getOptionValues(longOpt);
+		if (numbers == null) {
+			return defaultValue;
+		}
+		if (numbers.length > 1) {
+			usage(options);
+			noMultipleOptions(argName);
+			return -1;
+		}
+		try {
+			int number = Integer.parseInt(numbers[0]);
+			if (number > 0) {
+				return number;
+			}
+		}
+		catch (NumberFormatException ignored) {}
+		usage(options);
+		mustBePositiveNumber(argName);
+		return -1;
 	}
 
 	/**
@@ -580,6 +1544,14 @@ abstract public class SQLRecord {
 		System.out.println("[ERROR] you have assigned too much values for " + argName);
 	}
 
+	/**
+	 * show error message option value must be positive number.
+	 * @param argName argument name.
+	 */
+	protected static void mustBePositiveNumber(String argName) {
+		System.out.println("[ERROR] " + argName + " must be a positive number.");
+	}
+
 	/**
 	 * show error message duplicate value has found.
 	 * @param argName argument name.
@@ -0,0 +1,333 @@
+package jp.co.comona.javamisc.sql;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * bulk insert routed to shards behind the PreparedStatement interface.
+ * parameters of a row are kept until added to the batch, the row is bound to the bulk insert of the shard its key values hash to.
+ * executeBatch() executes & commits the batches of the shards in parallel, by own connection per shard.
+ * each shard records its batch & commit as JFR events, the caller does not record the routed batch.
+ * an integral key hashes to its value, other keys to CRC32 of the UTF-8 string, the shard is the hash modulo the number of shards.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class ShardRouter implements InvocationHandler {
+
+	// MARK: - Properties
+	private final String table;
+	private final Connection[] connections;
+	private final PreparedStatement[] statements;
+	private final int[] pendings;
+	private final int[] keyIndexes;
+	private final Method[] currentMethods;
+	private final Object[][] currentArgs;
+	private final ExecutorService executor;
+	private final CRC32 crc = new CRC32();
+	private boolean closed = false;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param table table name of the events.
+	 * @param connections connections of the shards, owned by the router.
+	 * @param statements bulk insert statements of the shards.
+	 * @param parameterCount number of parameters of a row.
+	 * @param keyIndexes parameter indexes of the shard key columns, from 1.
+	 */
+	private ShardRouter(String table, Connection[] connections, PreparedStatement[] statements, int parameterCount, int[] keyIndexes) {
+		super();
+		this.table = table;
+		this.connections = connections;
+		this.statements = statements;
+		this.pendings = new int[statements.length];
+		this.keyIndexes = keyIndexes;
+		this.currentMethods = new Method[parameterCount];
+		this.currentArgs = new Object[parameterCount][];
+		this.executor = Executors.newFixedThreadPool(statements.length);
+	}
+
+	/**
+	 * create routed bulk insert statement, the connections are closed with the statement.
+	 * @param dialect SQL dialect.
+	 * @param connections connections of the shards.
+	 * @param insertSql single row insert SQL.
+	 * @param quotedTable quoted table name.
+	 * @param boundColumns columns bound per row in parameter order, null if the insert has literal values.
+	 * @param upsert true if the insert has upsert clause.
+	 * @param parameterCount number of parameters of a row.
+	 * @param keyIndexes parameter indexes of the shard key columns, from 1.
+	 * @param table table name of the events.
+	 * @return prepared statement.
+	 * @throws SQLException when SQL error.
+	 */
+	static PreparedStatement create(SQLDialect dialect, Connection[] connections, String insertSql, String quotedTable, List<String> boundColumns, boolean upsert,
+			int parameterCount, int[] keyIndexes, String table) throws SQLException {
+		PreparedStatement[] statements = new PreparedStatement[connections.length];
+		try {
+			for (int i = 0; i < connections.length; i++) {
+				connections[i].setAutoCommit(false);
+				statements[i] = dialect.prepareBulkInsert(connections[i], insertSql, quotedTable, boundColumns, upsert);
+			}
+		}
+		catch (SQLException e) {
+			closeAll(statements, connections);
+			throw e;
+		}
+		ShardRouter handler = new ShardRouter(table, connections, statements, parameterCount, keyIndexes);
+		return (PreparedStatement)Proxy.newProxyInstance(BatchStatement.class.getClassLoader(), new Class<?>[] { BatchStatement.class }, handler);
+	}
+
+	/**
+	 * is the statement routed to shards, its batch & commit events are recorded by the shards.
+	 * @param ps prepared statement.
+	 * @return true if routed.
+	 */
+	static boolean isRouted(PreparedStatement ps) {
+		return Proxy.isProxyClass(ps.getClass()) && (Proxy.getInvocationHandler(ps) instanceof ShardRouter);
+	}
+
+	// MARK: - Invocation
+	/**
+	 * handle PreparedStatement method.
+	 */
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+		String name = method.getName();
+		switch (name) {
+			case "addBatch":
+				addRow();
+				return null;
+			case "executeBatch":
+				return flush();
+			case "clearParameters":
+				Arrays.fill(currentMethods, null);
+				Arrays.fill(currentArgs, null);
+				return null;
+			case "getBatchBytes":
+				long bytes = 0;
+				for (PreparedStatement ps : statements) {
+					bytes += ps instanceof BatchStatement ? ((BatchStatement)ps).getBatchBytes() : 0;
+				}
+				return bytes;
+			case "setRejectWriter":
+				for (PreparedStatement ps : statements) {
+					if (ps instanceof BatchStatement) {
+						((BatchStatement)ps).setRejectWriter((RejectWriter)args[0]);
+					}
+				}
+				return null;
+			case "clearBatch":
+				for (PreparedStatement ps : statements) {
+					ps.clearBatch();
+				}
+				Arrays.fill(pendings, 0);
+				return null;
+			case "close":
+				close();
+				return null;
+			case "isClosed":
+				return closed;
+			case "getConnection":
+				return connections[0];
+			case "getUpdateCount":
+				return -1;
+			case "hashCode":
+				return System.identityHashCode(proxy);
+			case "equals":
+				return proxy == args[0];
+			case "toString":
+				return "routed to " + statements.length + " shards: " + statements[0];
+
+			default:
+				if (name.startsWith("set") && (args != null) && (args.length >= 2) && (args[0] instanceof Integer)) {
+					int index = (Integer)args[0] - 1;
+					if ((index < 0) || (index >= currentMethods.length)) {
+						throw new SQLException("parameter index " + args[0] + " is out of range.");
+					}
+					currentMethods[index] = method;
+					currentArgs[index] = args;
+					return null;
+				}
+				throw new SQLFeatureNotSupportedException(name + " is not supported by shard router.");
+		}
+	}
+
+	// MARK: - Route
+	/**
+	 * bind current parameters to the statement of the shard & add to its batch.
+	 * @throws SQLException when a parameter is not set or the shard key is null.
+	 */
+	private void addRow() throws SQLException {
+		int shard = shardOf();
+		PreparedStatement ps = statements[shard];
+		try {
+			for (int i = 0; i < currentMethods.length; i++) {
+				if (currentMethods[i] == null) {
+					throw new SQLException("parameter " + (i + 1) + " is not set.");
+				}
+				currentMethods[i].invoke(ps, currentArgs[i]);
+			}
+		}
+		catch (InvocationTargetException e) {
+			if (e.getCause() instanceof SQLException) {
+				throw (SQLException)e.getCause();
+			}
+			throw new SQLException("bind failed.", e.getCause());
+		}
+		catch (IllegalAccessException e) {
+			throw new SQLException("bind failed.", e);
+		}
+		ps.addBatch();
+		pendings[shard]++;
+	}
+
+	/**
+	 * get shard of current parameters by the key values.
+	 * @return shard index.
+	 * @throws SQLException when the shard key is null.
+	 */
+	private int shardOf() throws SQLException {
+		long hash = 0;
+		for (int keyIndex : keyIndexes) {
+			Method method = currentMethods[keyIndex - 1];
+			Object value = (method == null) || "setNull".equals(method.getName()) ? null : currentArgs[keyIndex - 1][1];
+			if (value == null) {
+				throw new SQLException("shard key parameter " + keyIndex + " is null.");
+			}
+			hash = hash * 31 + hashOf(value);
+		}
+		return (int)Math.floorMod(hash, (long)statements.length);
+	}
+
+	/**
+	 * get hash of a key value, an integral value as is.
+	 * @param value key value.
+	 * @return hash.
+	 */
+	private long hashOf(Object value) {
+		if ((value instanceof Long) || (value instanceof Integer) || (value instanceof Short) || (value instanceof Byte)) {
+			return ((Number)value).longValue();
+		}
+		if ((value instanceof BigDecimal) && (((BigDecimal)value).scale() <= 0)) {
+			return ((BigDecimal)value).longValue();
+		}
+		crc.reset();
+		crc.update(value.toString().getBytes(StandardCharsets.UTF_8));
+		return crc.getValue();
+	}
+
+	// MARK: - Execute
+	/**
+	 * execute & commit batches of the shards in parallel.
+	 * @return update counts.
+	 * @throws Exception when a shard failed, the batch of the failed shard is rolled back.
+	 */
+	private int[] flush() throws Exception {
+		List<Future<Void>> futures = new ArrayList<>();
+		int rows = 0;
+		for (int i = 0; i < statements.length; i++) {
+			if (pendings[i] > 0) {
+				final Connection connection = connections[i];
+				final PreparedStatement ps = statements[i];
+				final int pending = pendings[i];
+				futures.add(executor.submit(new Callable<Void>() {
+					@Override
+					public Void call() throws Exception {
+						try {
+							Object event = RecordEvents.begin(RecordEvents.BATCH);
+							long bytes = (event != null) && (ps instanceof BatchStatement) ? ((BatchStatement)ps).getBatchBytes() : 0;
+							try {
+								ps.executeBatch();
+							}
+							finally {
+								RecordEvents.end(event, table, pending, bytes);
+							}
+							event = RecordEvents.begin(RecordEvents.COMMIT);
+							try {
+								connection.commit();
+							}
+							finally {
+								RecordEvents.end(event, table, pending, 0);
+							}
+						}
+						catch (SQLException e) {
+							connection.rollback();
+							throw e;
+						}
+						return null;
+					}
+				}));
+				rows += pendings[i];
+				pendings[i] = 0;
+			}
+		}
+		Exception error = null;
+		for (Future<Void> future : futures) {
+			try {
+				SQLRecord.getResult(future);
+			}
+			catch (Exception e) {
+				error = error != null ? error : e;	// other shards still finish their batches.
+			}
+		}
+		if (error != null) {
+			throw error;
+		}
+		int[] counts = new int[rows];
+		Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+		return counts;
+	}
+
+	// MARK: - Close
+	/**
+	 * close statements & connections of the shards.
+	 */
+	private void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		executor.shutdownNow();
+		closeAll(statements, connections);
+	}
+
+	/**
+	 * close statements & connections, errors are ignored.
+	 * @param statements statements, may contain null.
+	 * @param connections connections.
+	 */
+	private static void closeAll(PreparedStatement[] statements, Connection[] connections) {
+		for (PreparedStatement ps : statements) {
+			try {
+				if (ps != null) {
+					ps.close();
+				}
+			}
+			catch (SQLException ignored) {}
+		}
+		for (Connection connection : connections) {
+			try {
+				connection.close();
+			}
+			catch (SQLException ignored) {}
+		}
+	}
+}
@@ -0,0 +1,419 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * binary snapshot file reader.
+ * the file is memory-mapped in windows & values are bound straight from the mapped buffer, see SnapshotWriter for the format.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class SnapshotReader implements SnapshotRows, Closeable {
+
+	// MARK: - Static Properties
+	private static final long WINDOW_SIZE = 256L * 1024 * 1024;
+
+	// MARK: - Properties
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	private final long fileSize;
+	private final boolean columnar;
+	private final String[] columnNames;
+	private final int[] columnTypes;
+	private final int[] kinds;
+	private MappedByteBuffer window = null;
+	private long windowStart = 0;
+	private long nextBlock;
+	private int blockRows = 0;
+	private int blockRow = 0;
+	private int rowPosition = 0;
+	private final int[] columnStarts;
+	private final int[] valueStarts;
+	private final int[] positions;
+	private final int[] lengths;
+	private byte[] scratch = new byte[1024];
+
+	// MARK: - Constructor
+	/**
+	 * constructor, reads the header.
+	 * @param file snapshot file.
+	 * @throws IOException when I/O error or not a snapshot file.
+	 */
+	SnapshotReader(File file) throws IOException {
+		super();
+		this.file = new RandomAccessFile(file, "r");
+		this.channel = this.file.getChannel();
+		this.fileSize = channel.size();
+		try {
+			if ((fileSize < 11) || (this.file.readInt() != SnapshotWriter.MAGIC)) {
+				throw new IOException(file + " is not a snapshot file.");
+			}
+			short version = this.file.readShort();
+			if (version != SnapshotWriter.VERSION) {
+				throw new IOException("unsupported snapshot version " + version + ".");
+			}
+			this.columnar = this.file.readByte() == SnapshotWriter.LAYOUT_COLUMNAR;
+			int columnCount = this.file.readInt();
+			columnNames = new String[columnCount];
+			columnTypes = new int[columnCount];
+			kinds = new int[columnCount];
+			for (int i = 0; i < columnCount; i++) {
+				columnNames[i] = this.file.readUTF();
+				columnTypes[i] = this.file.readInt();
+				this.file.readInt();	// precision.
+				this.file.readInt();	// scale.
+				this.file.readByte();	// nullable.
+				kinds[i] = this.file.readByte();
+			}
+			nextBlock = this.file.getFilePointer();
+		}
+		catch (IOException e) {
+			this.file.close();
+			throw e;
+		}
+		columnStarts = new int[columnNames.length];
+		valueStarts = new int[columnNames.length];
+		positions = new int[columnNames.length];
+		lengths = new int[columnNames.length];
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of columns.
+	 * @return number of columns.
+	 */
+	int getColumnCount() {
+		return columnNames.length;
+	}
+
+	/**
+	 * get column name.
+	 * @param columnIndex column index, from 1.
+	 * @return column name.
+	 */
+	String getColumnName(int columnIndex) {
+		return columnNames[columnIndex - 1];
+	}
+
+	/**
+	 * find column by name.
+	 * @param name column name.
+	 * @return column index from 1, 0 if not found.
+	 */
+	int findColumn(String name) {
+		for (int i = 0; i < columnNames.length; i++) {
+			if (columnNames[i].compareToIgnoreCase(name) == 0) {
+				return i + 1;
+			}
+		}
+		return 0;
+	}
+
+	// MARK: - Read
+	/**
+	 * move to next row.
+	 * @return false if no more rows.
+	 * @throws IOException when I/O error or broken file.
+	 */
+	@Override
+	public boolean next() throws IOException {
+		if (blockRow >= blockRows) {
+			if (!loadBlock()) {
+				return false;
+			}
+		}
+		if (columnar) {
+			locateColumnarRow(blockRow);
+		}
+		else {
+			locateRow();
+		}
+		blockRow++;
+		return true;
+	}
+
+	/**
+	 * map next block.
+	 * @return false if no more blocks.
+	 * @throws IOException when I/O error or broken file.
+	 */
+	private boolean loadBlock() throws IOException {
+		if (nextBlock >= fileSize) {
+			return false;
+		}
+		if (nextBlock + 8 > fileSize) {
+			throw new IOException("snapshot file is truncated.");
+		}
+		map(nextBlock, 8);
+		int blockLength = window.getInt((int)(nextBlock - windowStart));
+		if ((blockLength < 4) || (nextBlock + 4 + blockLength > fileSize)) {
+			throw new IOException("snapshot file is truncated.");
+		}
+		map(nextBlock, 4 + blockLength);
+		int start = (int)(nextBlock - windowStart);
+		blockRows = window.getInt(start + 4);
+		blockRow = 0;
+		rowPosition = start + 8;
+		nextBlock += 4 + blockLength;
+		if (columnar) {
+			int position = rowPosition;
+			for (int i = 0; i < kinds.length; i++) {
+				columnStarts[i] = position;
+				position += (blockRows + 7) >>> 3;
+				if (isVariable(kinds[i])) {
+					valueStarts[i] = position + blockRows * 4;
+					position = valueStarts[i] + (blockRows > 0 ? window.getInt(position + (blockRows - 1) * 4) : 0);
+				}
+				else {
+					valueStarts[i] = position;
+					position += blockRows * 8;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * map the file region into window, the window is moved when the region is outside.
+	 * @param position file position.
+	 * @param length region length.
+	 * @throws IOException when I/O error.
+	 */
+	private void map(long position, int length) throws IOException {
+		if ((window != null) && (position >= windowStart) && (position + length <= windowStart + window.capacity())) {
+			return;
+		}
+		long size = Math.min(fileSize - position, Math.max(length, WINDOW_SIZE));
+		window = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+		windowStart = position;
+	}
+
+	/**
+	 * locate values of current row in row layout.
+	 */
+	private void locateRow() {
+		rowPosition = locateRow(window, rowPosition, kinds, positions, lengths);
+	}
+
+	/**
+	 * locate values of a row in row layout.
+	 * @param buffer buffer of the row.
+	 * @param rowStart start position of the row.
+	 * @param kinds column kinds.
+	 * @param positions value positions to set.
+	 * @param lengths value lengths to set, -1 for null.
+	 * @return end position of the row.
+	 */
+	static int locateRow(ByteBuffer buffer, int rowStart, int[] kinds, int[] positions, int[] lengths) {
+		int position = rowStart + ((kinds.length + 7) >>> 3);
+		for (int i = 0; i < kinds.length; i++) {
+			if ((buffer.get(rowStart + (i >>> 3)) & (1 << (i & 7))) != 0) {
+				lengths[i] = -1;
+				continue;
+			}
+			if (isVariable(kinds[i])) {
+				lengths[i] = buffer.getInt(position);
+				positions[i] = position + 4;
+				position += 4 + lengths[i];
+			}
+			else {
+				lengths[i] = 8;
+				positions[i] = position;
+				position += 8;
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * locate values of a row in columnar layout.
+	 * @param row row index in block.
+	 */
+	private void locateColumnarRow(int row) {
+		for (int i = 0; i < kinds.length; i++) {
+			if ((window.get(columnStarts[i] + (row >>> 3)) & (1 << (row & 7))) != 0) {
+				lengths[i] = -1;
+			}
+			else if (isVariable(kinds[i])) {
+				int offsets = columnStarts[i] + ((blockRows + 7) >>> 3);
+				int start = row > 0 ? window.getInt(offsets + (row - 1) * 4) : 0;
+				positions[i] = valueStarts[i] + start;
+				lengths[i] = window.getInt(offsets + row * 4) - start;
+			}
+			else {
+				positions[i] = valueStarts[i] + row * 8;
+				lengths[i] = 8;
+			}
+		}
+	}
+
+	/**
+	 * is kind of variable length.
+	 * @param kind column kind.
+	 * @return true if variable length.
+	 */
+	static boolean isVariable(int kind) {
+		return (kind == RowBuffer.KIND_STRING) || (kind == RowBuffer.KIND_LOB);
+	}
+
+	// MARK: - Row Copy
+	/**
+	 * get size of current row in row layout.
+	 * @return bytes.
+	 */
+	int getRowSize() {
+		int size = (kinds.length + 7) >>> 3;
+		for (int i = 0; i < kinds.length; i++) {
+			if (lengths[i] >= 0) {
+				size += isVariable(kinds[i]) ? 4 + lengths[i] : 8;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * copy current row in row layout, whichever the layout of the file is.
+	 * @param dest destination, getRowSize() bytes from offset.
+	 * @param offset offset in destination.
+	 */
+	void copyRow(byte[] dest, int offset) {
+		int bitmapBytes = (kinds.length + 7) >>> 3;
+		Arrays.fill(dest, offset, offset + bitmapBytes, (byte)0);
+		int position = offset + bitmapBytes;
+		for (int i = 0; i < kinds.length; i++) {
+			int length = lengths[i];
+			if (length < 0) {
+				dest[offset + (i >>> 3)] |= 1 << (i & 7);
+				continue;
+			}
+			if (isVariable(kinds[i])) {
+				dest[position++] = (byte)(length >>> 24);
+				dest[position++] = (byte)(length >>> 16);
+				dest[position++] = (byte)(length >>> 8);
+				dest[position++] = (byte)length;
+			}
+			window.position(positions[i]);
+			window.get(dest, position, length);
+			position += length;
+		}
+	}
+
+	/**
+	 * get column kinds.
+	 * @return kinds, RowBuffer.KIND_*.
+	 */
+	int[] getKinds() {
+		return kinds;
+	}
+
+	/**
+	 * get column types.
+	 * @return column types.
+	 */
+	int[] getColumnTypes() {
+		return columnTypes;
+	}
+
+	// MARK: - Bind
+	/**
+	 * bind value of current row to prepared statement.
+	 * @param ps prepared statement.
+	 * @param psIndex prepared statement index.
+	 * @param columnIndex column index of snapshot, from 1.
+	 * @throws SQLException when SQL error.
+	 */
+	@Override
+	public void bind(PreparedStatement ps, int psIndex, int columnIndex) throws SQLException {
+		int column = columnIndex - 1;
+		scratch = bind(ps, psIndex, columnTypes[column], window, positions[column], lengths[column], scratch);
+	}
+
+	/**
+	 * bind a value of snapshot format to prepared statement.
+	 * @param ps prepared statement.
+	 * @param psIndex prepared statement index.
+	 * @param columnType column type.
+	 * @param buffer buffer of the value.
+	 * @param position position of the value.
+	 * @param length length of the value, -1 for null.
+	 * @param scratch scratch buffer to decode strings.
+	 * @return scratch buffer, grown if needed.
+	 * @throws SQLException when SQL error.
+	 */
+	static byte[] bind(PreparedStatement ps, int psIndex, int columnType, ByteBuffer buffer, int position, int length, byte[] scratch) throws SQLException {
+		if (length < 0) {
+			ps.setNull(psIndex, columnType);
+			return scratch;
+		}
+		switch (columnType) {
+			case Types.TINYINT:
+			case Types.SMALLINT:
+				ps.setShort(psIndex, (short)buffer.getLong(position));
+				break;
+			case Types.INTEGER:
+			case Types.BIGINT:
+			case Types.DECIMAL:
+				ps.setLong(psIndex, buffer.getLong(position));
+				break;
+			case Types.FLOAT:
+				ps.setFloat(psIndex, (float)buffer.getDouble(position));
+				break;
+			case Types.DOUBLE:
+			case Types.NUMERIC:
+				ps.setDouble(psIndex, buffer.getDouble(position));
+				break;
+			case Types.DATE:
+				ps.setDate(psIndex, new Date(buffer.getLong(position) / 1000));
+				break;
+			case Types.TIME:
+				ps.setTime(psIndex, new Time(buffer.getLong(position) / 1000));
+				break;
+			case Types.TIMESTAMP:
+				long micros = buffer.getLong(position);
+				Timestamp timestamp = new Timestamp(Math.floorDiv(micros, 1000000) * 1000);
+				timestamp.setNanos(Math.toIntExact(Math.floorMod(micros, 1000000L)) * 1000);
+				ps.setTimestamp(psIndex, timestamp);
+				break;
+			case Types.BLOB:
+				byte[] bytes = new byte[length];
+				buffer.position(position);
+				buffer.get(bytes);
+				ps.setBytes(psIndex, bytes);
+				break;
+
+			default:
+				if (scratch.length < length) {
+					scratch = Arrays.copyOf(scratch, Math.max(length, scratch.length * 2));
+				}
+				buffer.position(position);
+				buffer.get(scratch, 0, length);
+				ps.setString(psIndex, new String(scratch, 0, length, StandardCharsets.UTF_8));
+				break;
+		}
+		return scratch;
+	}
+
+	// MARK: - Close
+	/**
+	 * close snapshot file.
+	 * @throws IOException when I/O error.
+	 */
+	@Override
+	public void close() throws IOException {
+		file.close();
+	}
+}
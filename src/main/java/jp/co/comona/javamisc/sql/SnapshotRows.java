@@ -0,0 +1,29 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * rows of snapshot format, read one by one & bound to prepared statements.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+interface SnapshotRows {
+
+	/**
+	 * move to next row.
+	 * @return false if no more rows.
+	 * @throws IOException when I/O error or broken file.
+	 */
+	boolean next() throws IOException;
+
+	/**
+	 * bind value of current row to prepared statement.
+	 * @param ps prepared statement.
+	 * @param psIndex prepared statement index.
+	 * @param columnIndex column index of snapshot, from 1.
+	 * @throws SQLException when SQL error.
+	 */
+	void bind(PreparedStatement ps, int psIndex, int columnIndex) throws SQLException;
+}
@@ -0,0 +1,437 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * external sort of snapshot rows by key columns.
+ * rows are sorted in memory up to the memory budget, larger inputs are spilled to temporary files as sorted runs & k-way merged.
+ * a record is the row in row layout followed by a binary comparable key, so runs are merged by comparing bytes only.
+ * <pre>
+ * record: int row length, row, int key length, key.
+ * key:    per key column, byte 0 for null or 1 followed by the value,
+ *         long & epoch micros as 8 bytes of flipped sign, double as 8 bytes of flipped bits, string as UTF-8 bytes & 0.
+ * </pre>
+ * strings are ordered by code point, which may differ from the collation of the database.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class SnapshotSorter implements SnapshotRows, Closeable {
+
+	// MARK: - Static Properties
+	private static final int INITIAL_ARENA = 1024 * 1024;
+	private static final int MIN_RUN_BUFFER = 8 * 1024;
+	private static final int MAX_RUN_BUFFER = 1024 * 1024;
+
+	// MARK: - Properties
+	private final SnapshotReader reader;
+	private final int[] keyColumns;
+	private final long memoryBudget;
+	private final RecordListener listener;
+	private final int[] kinds;
+	private final int[] columnTypes;
+	private byte[] arena = new byte[INITIAL_ARENA];
+	private ByteBuffer arenaBuffer = ByteBuffer.wrap(arena);
+	private int arenaSize = 0;
+	private int[] offsets = new int[1024];
+	private int count = 0;
+	private final List<File> runFiles = new ArrayList<>();
+	private final List<Run> runs = new ArrayList<>();
+	private PriorityQueue<Run> queue = null;
+	private int memoryRow = -1;
+	private ByteBuffer current = null;
+	private final int[] positions;
+	private final int[] lengths;
+	private byte[] scratch = new byte[1024];
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param reader snapshot reader of the unsorted rows.
+	 * @param keyColumns key column indexes of the snapshot, from 1.
+	 * @param memoryBudget bytes of rows sorted in memory.
+	 * @param listener listener of messages.
+	 */
+	SnapshotSorter(SnapshotReader reader, int[] keyColumns, long memoryBudget, RecordListener listener) {
+		super();
+		this.reader = reader;
+		this.keyColumns = keyColumns;
+		this.memoryBudget = Math.min(memoryBudget, Integer.MAX_VALUE - 8);
+		this.listener = listener;
+		this.kinds = reader.getKinds();
+		this.columnTypes = reader.getColumnTypes();
+		positions = new int[kinds.length];
+		lengths = new int[kinds.length];
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of spilled runs.
+	 * @return number of runs, 0 if sorted in memory.
+	 */
+	int getRunCount() {
+		return runFiles.size();
+	}
+
+	// MARK: - Sort
+	/**
+	 * read all rows of the reader & sort them.
+	 * @throws IOException when I/O error.
+	 */
+	void sort() throws IOException {
+		while (reader.next()) {
+			int rowSize = reader.getRowSize();
+			int maxKeySize = maxKeySize();
+			int recordSize = 8 + rowSize + maxKeySize;
+			if ((count > 0) && (arenaSize + recordSize + (count + 1) * 8L > memoryBudget)) {
+				spill();
+			}
+			ensureArena(recordSize);
+			if (count == offsets.length) {
+				offsets = Arrays.copyOf(offsets, count * 2);
+			}
+			int offset = arenaSize;
+			arenaBuffer.putInt(offset, rowSize);
+			reader.copyRow(arena, offset + 4);
+			int keyStart = offset + 8 + rowSize;
+			int keyLength = appendKey(arenaBuffer, offset + 4, keyStart);
+			arenaBuffer.putInt(offset + 4 + rowSize, keyLength);
+			arenaSize = keyStart + keyLength;
+			offsets[count++] = offset;
+		}
+		sortOffsets();
+		if (!runFiles.isEmpty()) {
+			if (count > 0) {
+				spill();
+			}
+			openRuns();
+		}
+	}
+
+	/**
+	 * get the largest key size of current row of the reader.
+	 * @return bytes.
+	 */
+	private int maxKeySize() {
+		int size = 0;
+		for (int keyColumn : keyColumns) {
+			size += SnapshotReader.isVariable(kinds[keyColumn - 1]) ? 2 + reader.getRowSize() : 9;
+		}
+		return size;
+	}
+
+	/**
+	 * ensure the arena has room for a record, the arena grows twice up to the memory budget.
+	 * @param recordSize record size.
+	 */
+	private void ensureArena(int recordSize) {
+		if (arenaSize + recordSize <= arena.length) {
+			return;
+		}
+		long size = Math.max((long)arena.length * 2, (long)arenaSize + recordSize);
+		size = Math.max(Math.min(size, memoryBudget), (long)arenaSize + recordSize);
+		arena = Arrays.copyOf(arena, (int)size);
+		arenaBuffer = ByteBuffer.wrap(arena);
+	}
+
+	/**
+	 * append binary comparable key of a row.
+	 * @param buffer buffer of the row & the key.
+	 * @param rowStart start position of the row.
+	 * @param keyStart start position of the key.
+	 * @return key length.
+	 */
+	private int appendKey(ByteBuffer buffer, int rowStart, int keyStart) {
+		SnapshotReader.locateRow(buffer, rowStart, kinds, positions, lengths);
+		int position = keyStart;
+		for (int keyColumn : keyColumns) {
+			int column = keyColumn - 1;
+			if (lengths[column] < 0) {
+				buffer.put(position++, (byte)0);
+				continue;
+			}
+			buffer.put(position++, (byte)1);
+			switch (kinds[column]) {
+				case RowBuffer.KIND_LONG:
+				case RowBuffer.KIND_TEMPORAL:
+					buffer.putLong(position, buffer.getLong(positions[column]) ^ Long.MIN_VALUE);
+					position += 8;
+					break;
+				case RowBuffer.KIND_DOUBLE:
+					long bits = Double.doubleToLongBits(buffer.getDouble(positions[column]));
+					buffer.putLong(position, bits ^ (bits < 0 ? -1L : Long.MIN_VALUE));
+					position += 8;
+					break;
+
+				default:
+					System.arraycopy(buffer.array(), positions[column], buffer.array(), position, lengths[column]);
+					position += lengths[column];
+					buffer.put(position++, (byte)0);
+					break;
+			}
+		}
+		return position - keyStart;
+	}
+
+	/**
+	 * sort record offsets of the arena by key, merge sort of primitive ints.
+	 */
+	private void sortOffsets() {
+		int[] work = new int[count];
+		mergeSort(offsets, work, 0, count);
+	}
+
+	/**
+	 * merge sort a range of record offsets.
+	 * @param values offsets.
+	 * @param work work array.
+	 * @param from from index, inclusive.
+	 * @param to to index, exclusive.
+	 */
+	private void mergeSort(int[] values, int[] work, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int middle = (from + to) >>> 1;
+		mergeSort(values, work, from, middle);
+		mergeSort(values, work, middle, to);
+		if (compareRecords(arena, values[middle - 1], arena, values[middle]) <= 0) {
+			return;	// already in order.
+		}
+		System.arraycopy(values, from, work, from, to - from);
+		int left = from;
+		int right = middle;
+		for (int i = from; i < to; i++) {
+			if ((right >= to) || ((left < middle) && (compareRecords(arena, work[left], arena, work[right]) <= 0))) {
+				values[i] = work[left++];
+			}
+			else {
+				values[i] = work[right++];
+			}
+		}
+	}
+
+	/**
+	 * compare keys of two records.
+	 * @param a buffer of record a.
+	 * @param offsetA offset of record a.
+	 * @param b buffer of record b.
+	 * @param offsetB offset of record b.
+	 * @return negative, 0 or positive.
+	 */
+	private static int compareRecords(byte[] a, int offsetA, byte[] b, int offsetB) {
+		int keyA = offsetA + 4 + getInt(a, offsetA);
+		int keyB = offsetB + 4 + getInt(b, offsetB);
+		int lengthA = getInt(a, keyA);
+		int lengthB = getInt(b, keyB);
+		keyA += 4;
+		keyB += 4;
+		int length = Math.min(lengthA, lengthB);
+		for (int i = 0; i < length; i++) {
+			int diff = (a[keyA + i] & 0xff) - (b[keyB + i] & 0xff);
+			if (diff != 0) {
+				return diff;
+			}
+		}
+		return lengthA - lengthB;
+	}
+
+	/**
+	 * get big endian int.
+	 * @param bytes bytes.
+	 * @param offset offset.
+	 * @return value.
+	 */
+	private static int getInt(byte[] bytes, int offset) {
+		return (bytes[offset] << 24) | ((bytes[offset + 1] & 0xff) << 16) | ((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff);
+	}
+
+	// MARK: - Spill
+	/**
+	 * sort the rows in memory & write them to a temporary file as a sorted run.
+	 * @throws IOException when I/O error.
+	 */
+	private void spill() throws IOException {
+		sortOffsets();
+		File file = File.createTempFile("jmt-sort-", ".run");
+		file.deleteOnExit();
+		runFiles.add(file);
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), MAX_RUN_BUFFER))) {
+			for (int i = 0; i < count; i++) {
+				out.write(arena, offsets[i], recordLength(arena, offsets[i]));
+			}
+		}
+		arenaSize = 0;
+		count = 0;
+	}
+
+	/**
+	 * get record length.
+	 * @param bytes buffer of the record.
+	 * @param offset offset of the record.
+	 * @return bytes.
+	 */
+	private static int recordLength(byte[] bytes, int offset) {
+		int rowLength = getInt(bytes, offset);
+		return 8 + rowLength + getInt(bytes, offset + 4 + rowLength);
+	}
+
+	/**
+	 * open the runs to merge, read buffers share the memory budget.
+	 * @throws IOException when I/O error.
+	 */
+	private void openRuns() throws IOException {
+		arena = new byte[0];
+		arenaBuffer = ByteBuffer.wrap(arena);
+		offsets = new int[0];
+		int bufferSize = (int)Math.max(MIN_RUN_BUFFER, Math.min(MAX_RUN_BUFFER, memoryBudget / runFiles.size()));
+		queue = new PriorityQueue<>(runFiles.size(), new Comparator<Run>() {
+			@Override
+			public int compare(Run a, Run b) {
+				return compareRecords(a.record, 0, b.record, 0);
+			}
+		});
+		for (File file : runFiles) {
+			Run run = new Run(file, bufferSize);
+			runs.add(run);
+			if (run.next()) {
+				queue.add(run);
+			}
+		}
+	}
+
+	// MARK: - Read
+	/**
+	 * move to next row in key order.
+	 * @return false if no more rows.
+	 * @throws IOException when I/O error.
+	 */
+	@Override
+	public boolean next() throws IOException {
+		if (queue == null) {
+			if (++memoryRow >= count) {
+				return false;
+			}
+			current = arenaBuffer;
+			SnapshotReader.locateRow(arenaBuffer, offsets[memoryRow] + 4, kinds, positions, lengths);
+			return true;
+		}
+		if (current != null) {
+			Run run = queue.poll();
+			if (run.next()) {
+				queue.add(run);
+			}
+		}
+		Run run = queue.peek();
+		if (run == null) {
+			return false;
+		}
+		current = ByteBuffer.wrap(run.record);
+		SnapshotReader.locateRow(current, 4, kinds, positions, lengths);
+		return true;
+	}
+
+	/**
+	 * bind value of current row to prepared statement.
+	 * @param ps prepared statement.
+	 * @param psIndex prepared statement index.
+	 * @param columnIndex column index of snapshot, from 1.
+	 * @throws SQLException when SQL error.
+	 */
+	@Override
+	public void bind(PreparedStatement ps, int psIndex, int columnIndex) throws SQLException {
+		int column = columnIndex - 1;
+		scratch = SnapshotReader.bind(ps, psIndex, columnTypes[column], current, positions[column], lengths[column], scratch);
+	}
+
+	// MARK: - Close
+	/**
+	 * close & delete the runs.
+	 * @throws IOException when I/O error.
+	 */
+	@Override
+	public void close() throws IOException {
+		for (Run run : runs) {
+			run.in.close();
+		}
+		for (File file : runFiles) {
+			if (!file.delete()) {
+				listener.warn("failed to delete " + file + ".");
+			}
+		}
+	}
+
+	// MARK: - Run
+	/**
+	 * sorted run in a temporary file.
+	 */
+	private static final class Run {
+
+		// MARK: - Properties
+		private final DataInputStream in;
+		private byte[] record = new byte[1024];
+
+		// MARK: - Constructor
+		/**
+		 * constructor.
+		 * @param file run file.
+		 * @param bufferSize read buffer size.
+		 * @throws IOException when I/O error.
+		 */
+		private Run(File file, int bufferSize) throws IOException {
+			super();
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), bufferSize));
+		}
+
+		// MARK: - Read
+		/**
+		 * read next record.
+		 * @return false if no more records.
+		 * @throws IOException when I/O error.
+		 */
+		private boolean next() throws IOException {
+			int rowLength;
+			try {
+				rowLength = in.readInt();
+			}
+			catch (EOFException e) {
+				return false;
+			}
+			ensure(4 + rowLength + 4);
+			in.readFully(record, 4, rowLength);
+			int keyLength = in.readInt();
+			ensure(8 + rowLength + keyLength);
+			in.readFully(record, 8 + rowLength, keyLength);
+			ByteBuffer buffer = ByteBuffer.wrap(record);
+			buffer.putInt(0, rowLength);
+			buffer.putInt(4 + rowLength, keyLength);
+			return true;
+		}
+
+		/**
+		 * ensure the record buffer size.
+		 * @param size size.
+		 */
+		private void ensure(int size) {
+			if (record.length < size) {
+				record = Arrays.copyOf(record, Math.max(size, record.length * 2));
+			}
+		}
+	}
+}
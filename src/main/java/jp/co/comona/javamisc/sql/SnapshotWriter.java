@@ -0,0 +1,274 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * binary snapshot file writer.
+ * a header with the schema of the rows, then blocks of rows written from row buffers.
+ * <pre>
+ * header: int magic "JMTS", short version, byte layout, int column count,
+ *         per column: UTF name, int type, int precision, int scale, byte nullable, byte kind.
+ * block:  int block length, int row count, rows.
+ * rows by row layout:      per row, null bitmap of columns, then values of non null columns.
+ * rows by columnar layout: per column, null bitmap of rows, then values of all rows,
+ *                          variable length values are an int end offset per row followed by the bytes.
+ * value:  long, double or epoch micros in 8 bytes, string (UTF-8) & LOB as int length & bytes.
+ * </pre>
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class SnapshotWriter implements Closeable {
+
+	// MARK: - Static Properties
+	static final int MAGIC = 0x4a4d5453;	// "JMTS"
+	static final short VERSION = 1;
+	static final byte LAYOUT_ROW = 0;
+	static final byte LAYOUT_COLUMNAR = 1;
+	private static final int INITIAL_BLOCK_SIZE = 64 * 1024;
+
+	// MARK: - Properties
+	private final DataOutputStream out;
+	private final boolean columnar;
+	private ByteBuffer block = ByteBuffer.allocate(INITIAL_BLOCK_SIZE);
+	private long rowCount = 0;
+
+	// MARK: - Constructor
+	/**
+	 * constructor, writes the header.
+	 * @param file snapshot file.
+	 * @param meta metadata of the rows.
+	 * @param columnar true for columnar layout.
+	 * @throws IOException when I/O error.
+	 * @throws SQLException when SQL error.
+	 */
+	SnapshotWriter(File file, ResultSetMetaData meta, boolean columnar) throws IOException, SQLException {
+		super();
+		this.columnar = columnar;
+		this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), INITIAL_BLOCK_SIZE));
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeByte(columnar ? LAYOUT_COLUMNAR : LAYOUT_ROW);
+			out.writeInt(meta.getColumnCount());
+			for (int i = 1; i <= meta.getColumnCount(); i++) {
+				int columnType = meta.getColumnType(i);
+				out.writeUTF(meta.getColumnName(i));
+				out.writeInt(columnType);
+				out.writeInt(meta.getPrecision(i));
+				out.writeInt(meta.getScale(i));
+				out.writeByte(meta.isNullable(i));
+				out.writeByte(RowBuffer.kindOf(columnType));
+			}
+		}
+		catch (IOException | SQLException e) {
+			out.close();
+			throw e;
+		}
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of rows written.
+	 * @return number of rows.
+	 */
+	long getRowCount() {
+		return rowCount;
+	}
+
+	// MARK: - Write
+	/**
+	 * write rows of buffer as a block.
+	 * @param buffer row buffer.
+	 * @throws IOException when I/O error.
+	 * @throws SQLException when SQL error.
+	 */
+	void write(RowBuffer buffer) throws IOException, SQLException {
+		int rows = buffer.size();
+		if (rows == 0) {
+			return;
+		}
+		block.clear();
+		if (columnar) {
+			for (int columnIndex = 1; columnIndex <= buffer.getColumnCount(); columnIndex++) {
+				writeColumn(buffer, columnIndex);
+			}
+		}
+		else {
+			for (int row = 0; row < rows; row++) {
+				writeRow(buffer, row);
+			}
+		}
+		writeBlock(rows);
+	}
+
+	/**
+	 * write selected rows of buffer as a block, row layout only.
+	 * @param buffer row buffer.
+	 * @param rows row indexes to write.
+	 * @param count number of row indexes.
+	 * @throws IOException when I/O error.
+	 * @throws SQLException when SQL error.
+	 */
+	void write(RowBuffer buffer, int[] rows, int count) throws IOException, SQLException {
+		if (columnar) {
+			throw new IllegalStateException("selected rows are written in row layout only.");
+		}
+		if (count == 0) {
+			return;
+		}
+		block.clear();
+		for (int i = 0; i < count; i++) {
+			writeRow(buffer, rows[i]);
+		}
+		writeBlock(count);
+	}
+
+	/**
+	 * write the block of rows.
+	 * @param rows number of rows in the block.
+	 * @throws IOException when I/O error.
+	 */
+	private void writeBlock(int rows) throws IOException {
+		out.writeInt(block.position() + 4);
+		out.writeInt(rows);
+		out.write(block.array(), 0, block.position());
+		rowCount += rows;
+	}
+
+	/**
+	 * write a row, null bitmap of columns & non null values.
+	 * @param buffer row buffer.
+	 * @param row row index.
+	 * @throws SQLException when SQL error.
+	 */
+	private void writeRow(RowBuffer buffer, int row) throws SQLException {
+		int columnCount = buffer.getColumnCount();
+		int bitmapStart = block.position();
+		ensure((columnCount + 7) >>> 3);
+		for (int i = 0; i < (columnCount + 7) >>> 3; i++) {
+			block.put((byte)0);
+		}
+		for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++) {
+			if (buffer.isNull(row, columnIndex)) {
+				int bit = columnIndex - 1;
+				block.put(bitmapStart + (bit >>> 3), (byte)(block.get(bitmapStart + (bit >>> 3)) | (1 << (bit & 7))));
+			}
+			else {
+				writeValue(buffer, row, columnIndex, true);
+			}
+		}
+	}
+
+	/**
+	 * write a column of all rows, null bitmap of rows & values.
+	 * @param buffer row buffer.
+	 * @param columnIndex column index, from 1.
+	 * @throws SQLException when SQL error.
+	 */
+	private void writeColumn(RowBuffer buffer, int columnIndex) throws SQLException {
+		int rows = buffer.size();
+		ensure((rows + 7) >>> 3);
+		for (int i = 0; i < rows; i += 8) {
+			int bits = 0;
+			for (int row = i; row < Math.min(i + 8, rows); row++) {
+				if (buffer.isNull(row, columnIndex)) {
+					bits |= 1 << (row - i);
+				}
+			}
+			block.put((byte)bits);
+		}
+		int kind = buffer.getKind(columnIndex);
+		if ((kind == RowBuffer.KIND_STRING) || (kind == RowBuffer.KIND_LOB)) {
+			// end offsets first, so a row is found without walking the column.
+			int offsetsStart = block.position();
+			ensure(rows * 4);
+			block.position(offsetsStart + rows * 4);
+			int valuesStart = block.position();
+			for (int row = 0; row < rows; row++) {
+				if (!buffer.isNull(row, columnIndex)) {
+					writeValue(buffer, row, columnIndex, false);
+				}
+				block.putInt(offsetsStart + row * 4, block.position() - valuesStart);
+			}
+		}
+		else {
+			for (int row = 0; row < rows; row++) {
+				writeValue(buffer, row, columnIndex, true);
+			}
+		}
+	}
+
+	/**
+	 * write a value.
+	 * @param buffer row buffer.
+	 * @param row row index.
+	 * @param columnIndex column index, from 1.
+	 * @param lengthPrefix true to prefix variable length value by the length.
+	 * @throws SQLException when SQL error.
+	 */
+	private void writeValue(RowBuffer buffer, int row, int columnIndex, boolean lengthPrefix) throws SQLException {
+		switch (buffer.getKind(columnIndex)) {
+			case RowBuffer.KIND_LONG:
+			case RowBuffer.KIND_TEMPORAL:
+				ensure(8);
+				block.putLong(buffer.getRawLong(row, columnIndex));
+				break;
+			case RowBuffer.KIND_DOUBLE:
+				ensure(8);
+				block.putDouble(buffer.getDouble(row, columnIndex));
+				break;
+			case RowBuffer.KIND_LOB:
+				byte[] bytes = buffer.getLobBytes(row, columnIndex);
+				ensure(bytes.length + 4);
+				if (lengthPrefix) {
+					block.putInt(bytes.length);
+				}
+				block.put(bytes);
+				break;
+
+			default:
+				int length = buffer.getLength(row, columnIndex);
+				ensure(length + 4);
+				if (lengthPrefix) {
+					block.putInt(length);
+				}
+				block.put(buffer.getArena(), buffer.getOffset(row, columnIndex), length);
+				break;
+		}
+	}
+
+	/**
+	 * ensure block has room for bytes.
+	 * @param bytes number of bytes to put.
+	 */
+	private void ensure(int bytes) {
+		if (block.remaining() < bytes) {
+			int position = block.position();
+			long grown = Math.max((long)position + bytes, (long)block.capacity() * 2);
+			if (grown > Integer.MAX_VALUE - 8) {
+				throw new IllegalStateException("snapshot block exceeds 2GB, use smaller batch size.");
+			}
+			block = ByteBuffer.wrap(Arrays.copyOf(block.array(), (int)grown));
+			block.position(position);
+		}
+	}
+
+	// MARK: - Close
+	/**
+	 * close snapshot file.
+	 * @throws IOException when I/O error.
+	 */
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+}
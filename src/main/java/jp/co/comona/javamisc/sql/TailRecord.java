@@ -0,0 +1,658 @@
+package jp.co.comona.javamisc.sql;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * tail SQL record tool.
+ * copies new rows of a growing table into a target table continuously, by the high-water mark of an auto increment or timestamp column.
+ * the target table is in another database like a reporting database, or in the same database, written through a second connection.
+ * each poll is a range query after the watermark in (watermark, primary key) order, copied as a micro-batch in its own transaction.
+ * the watermark is kept in a local state file saved after the target commit, so a restarted tail continues where it stopped.
+ * a row committed after a row of a larger watermark was copied is skipped, the settle time copies only rows below the watermark sampled that long ago.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class TailRecord extends SQLRecord {
+
+	// MARK: - Static Properties
+	private static final char REPLACE_SHORT_OPTION = 'r';
+
+	// MARK: - Properties
+	private String targetTableName = null;
+	private String quotedTargetName = null;
+	private DataSource targetDataSource = null;
+	private String targetHost = null;
+	private int targetPort = 0;
+	private String targetDatabase = null;
+	private String targetUser = null;
+	private String targetPassword = null;
+	private String watermarkName = null;
+	private String where = null;
+	private File stateFile = null;
+	private int batchSize = TailRecordRequest.DEFAULT_BATCH_SIZE;
+	private int minInterval = TailRecordRequest.DEFAULT_MIN_INTERVAL;
+	private int maxInterval = TailRecordRequest.DEFAULT_MAX_INTERVAL;
+	private int settle = 0;
+	private final Deque<Sample> samples = new ArrayDeque<>();
+	private Object[] settledKey = null;
+	private boolean once = false;
+	private boolean fromNow = false;
+	private ColumnMapping mapping = null;
+	private final Object stopLock = new Object();
+	private volatile boolean stopping = false;
+
+	// MARK: - Sample
+	/**
+	 * newest watermark sampled at a time.
+	 */
+	private static class Sample {
+		private final long time;
+		private final Object[] key;
+
+		/**
+		 * constructor.
+		 * @param time System.nanoTime() of the sample.
+		 * @param key newest watermark & primary key.
+		 */
+		private Sample(long time, Object[] key) {
+			super();
+			this.time = time;
+			this.key = key;
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param options command line options.
+	 * @param cmd command line.
+	 */
+	protected TailRecord(Options options, CommandLine cmd) {
+		super(options, cmd);
+	}
+
+	/**
+	 * constructor for programmatic use.
+	 * @param request tail record request.
+	 */
+	TailRecord(TailRecordRequest request) {
+		super(request.getDataSource(), request.getTableName());
+		apply(request);
+	}
+
+	/**
+	 * apply request checked by the builder, of the programmatic use or the command line.
+	 * @param request tail record request.
+	 */
+	private void apply(TailRecordRequest request) {
+		applyListener(request);
+		nowColumns = request.getNowColumns();
+		targetTableName = request.getTargetTableName();
+		targetDataSource = request.getTargetDataSource();
+		targetDatabase = request.getTargetDatabase();
+		stateFile = request.getStateFile();
+		watermarkName = request.getWatermarkName();
+		where = request.getWhere();
+		batchSize = request.getBatchSize();
+		minInterval = request.getMinInterval();
+		maxInterval = request.getMaxInterval();
+		settle = request.getSettle();
+		once = request.isOnce();
+		fromNow = request.isFromNow();
+		upsert = request.isUpsert();
+		updateColumns = request.getUpdateColumns();
+	}
+
+	// MARK: - Process
+	/**
+	 * do process.
+	 */
+	@Override
+	protected void doProcess() throws Exception {
+		String[] cursorColumns = createCursorColumns();
+		KeysetCursor cursor = new KeysetCursor(getDialect(), quotedTableName, cursorColumns, createPredicate(cursorColumns[0]));
+		WatermarkState state = new WatermarkState(stateFile, createFingerprint());
+		Object[] watermark = state.load(cursorColumns, loadColumnTypes(cursorColumns));
+
+		try (Connection target = openTargetConnection()) {
+			String insertSql = createInsertSql(target);
+			boolean autoCommit = con.getAutoCommit();
+			boolean targetAutoCommit = target.getAutoCommit();
+			con.setAutoCommit(false);
+			target.setAutoCommit(false);
+			Thread shutdownHook = createShutdownHook(Thread.currentThread());
+			Runtime.getRuntime().addShutdownHook(shutdownHook);
+			RowBuffer buffer = new RowBuffer(meta, batchSize);
+			try {
+				if (watermark != null) {
+					cursor.setLastKey(watermark);
+					info("tailing " + tableName + " after watermark " + String.join(", ", toStrings(watermark)) + ".");
+				}
+				else if (fromNow) {
+					// skip rows already in the table, only rows added from now on are copied.
+					try (PreparedStatement ps = con.prepareStatement(cursor.upperBoundSql()); ResultSet rs = executeQuery(ps)) {
+						if (cursor.fixUpperBound(rs)) {
+							cursor.setLastKey(cursor.getUpperKey());
+							cursor.setUpperKey(null);
+							state.save(cursorColumns, cursor.getLastKey());
+						}
+					}
+					commit(con, 0);
+				}
+
+				try (PreparedStatement insert = getDialect().prepareBulkInsert(target, insertSql, quotedTargetName, mapping.hasLiteral() ? null : mapping.getBoundColumns(), upsert)) {
+					long interval = 0;
+					while (!stopping) {
+						int count = (settle > 0) && !settle(cursor) ? 0 : copyBatch(cursor, target, insert, buffer);
+						if (count > 0) {
+							state.save(cursorColumns, cursor.getLastKey());	// after the target commit, a crash in between copies the batch again.
+							recordCount += count;
+						}
+						if (count == batchSize) {
+							interval = 0;	// behind, poll again at once.
+							continue;
+						}
+						else if (once) {
+							if (samples.isEmpty()) {
+								break;
+							}
+							// wait for the watermark sampled on start to settle.
+							interval = Math.max(TimeUnit.NANOSECONDS.toMillis(samples.peekFirst().time + TimeUnit.SECONDS.toNanos(settle) - System.nanoTime()), 1);
+						}
+						else {
+							// caught up, back off while the table is idle.
+							interval = count > 0 ? minInterval : Math.min(Math.max(interval * 2, minInterval), maxInterval);
+						}
+						synchronized (stopLock) {
+							if (!stopping) {
+								stopLock.wait(interval);
+							}
+						}
+					}
+				}
+			}
+			catch (Exception e) {
+				con.rollback();
+				target.rollback();
+				throw e;
+			}
+			finally {
+				con.setAutoCommit(autoCommit);
+				target.setAutoCommit(targetAutoCommit);
+				try {
+					Runtime.getRuntime().removeShutdownHook(shutdownHook);
+				}
+				catch (IllegalStateException ignored) {}	// shutting down.
+			}
+		}
+	}
+
+	/**
+	 * open connection to the target database, the target data source, the target database option or another connection to the source database.
+	 * @return new connection.
+	 * @throws SQLException when SQL connection error.
+	 */
+	private Connection openTargetConnection() throws SQLException {
+		if ((targetDataSource == null) && (targetDatabase == null)) {
+			return openConnection();
+		}
+		Object event = RecordEvents.begin(RecordEvents.CONNECT);
+		try {
+			if (targetDataSource != null) {
+				return targetDataSource.getConnection();
+			}
+			SQLDialect sqlDialect = getDialect();
+			String host = targetHost != null ? targetHost : hostName;
+			int hostPort = targetPort > 0 ? targetPort : ((targetHost == null) && (port > 0) ? port : sqlDialect.getDefaultPort());
+			return DriverManager.getConnection(sqlDialect.createUrl(host, hostPort, targetDatabase), targetUser != null ? targetUser : userName,
+					targetPassword != null ? targetPassword : password);
+		}
+		finally {
+			RecordEvents.end(event, targetTableName);
+		}
+	}
+
+	/**
+	 * bound the cursor by the newest watermark sampled at least settle seconds ago.
+	 * rows after it may be in transactions not committed yet, copied after they settle, the watermark is sampled once in once mode.
+	 * @param cursor keyset cursor positioned on the watermark.
+	 * @return true if the bound is settled, nothing to copy if not.
+	 * @throws SQLException when SQL error.
+	 */
+	private boolean settle(KeysetCursor cursor) throws SQLException {
+		if (!once || (samples.isEmpty() && (settledKey == null))) {
+			cursor.setUpperKey(null);
+			try (PreparedStatement ps = con.prepareStatement(cursor.upperBoundSql()); ResultSet rs = executeQuery(ps)) {
+				if (cursor.fixUpperBound(rs) && (samples.isEmpty() || !Arrays.equals(samples.peekLast().key, cursor.getUpperKey()))) {
+					samples.addLast(new Sample(System.nanoTime(), cursor.getUpperKey()));
+				}
+			}
+			commit(con, 0);
+		}
+		long settled = System.nanoTime() - TimeUnit.SECONDS.toNanos(settle);
+		while (!samples.isEmpty() && (samples.peekFirst().time - settled <= 0)) {
+			settledKey = samples.pollFirst().key;
+		}
+		cursor.setUpperKey(settledKey);
+		return settledKey != null;
+	}
+
+	/**
+	 * copy rows after the watermark as a micro-batch.
+	 * the read is committed on the source connection even if no row is found, so the next poll sees rows committed since.
+	 * the rows are inserted & committed on the target connection, the caller saves the watermark after it.
+	 * @param cursor keyset cursor positioned on the watermark.
+	 * @param target connection to the target database.
+	 * @param insert insert prepared statement of the target table.
+	 * @param buffer row buffer to stage the rows.
+	 * @return number of rows copied.
+	 * @throws Exception when error.
+	 */
+	private int copyBatch(KeysetCursor cursor, Connection target, PreparedStatement insert, RowBuffer buffer) throws Exception {
+		buffer.clear();
+		try (PreparedStatement ps = con.prepareStatement(cursor.nextChunkSql("*", batchSize))) {
+			cursor.bind(ps, 1);
+			try (ResultSet rs = executeQuery(ps)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					cursor.advance(rs);
+				}
+			}
+		}
+		commit(con, 0);
+		int count = buffer.size();
+		if (count > 0) {
+			for (int row = 0; row < count; row++) {
+				mapping.bind(insert, buffer, row, 1);
+				insert.addBatch();
+			}
+			executeBatch(insert, count);
+			commit(target, count);
+		}
+		return count;
+	}
+
+	/**
+	 * create shutdown hook which stops the tail after the current batch.
+	 * @param worker thread running the tail.
+	 * @return shutdown hook.
+	 */
+	private Thread createShutdownHook(final Thread worker) {
+		return new Thread(new Runnable() {
+			@Override
+			public void run() {
+				synchronized (stopLock) {
+					stopping = true;
+					stopLock.notifyAll();
+				}
+				try {
+					worker.join(maxInterval);
+				}
+				catch (InterruptedException ignored) {}
+			}
+		}, "tail-record-shutdown");
+	}
+
+	/**
+	 * convert values to strings.
+	 * @param values values.
+	 * @return strings.
+	 */
+	private static String[] toStrings(Object[] values) {
+		String[] strings = new String[values.length];
+		for (int i = 0; i < values.length; i++) {
+			strings[i] = String.valueOf(values[i]);
+		}
+		return strings;
+	}
+
+	// MARK: - SQL
+	/**
+	 * create cursor columns, the watermark column followed by primary key columns to break ties of the watermark.
+	 * the watermark is the auto increment column unless assigned.
+	 * @return cursor columns.
+	 * @throws SQLException when SQL error, no primary key or no watermark column.
+	 */
+	private String[] createCursorColumns() throws SQLException {
+		String[] primaryKeys = loadPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			throw new SQLException("tail requires a primary key on " + tableName);
+		}
+		String watermark = null;
+		for (int i = 1; i <= meta.getColumnCount(); i++) {
+			String colName = meta.getColumnName(i);
+			if ((watermarkName != null) ? (colName.compareToIgnoreCase(watermarkName) == 0) : meta.isAutoIncrement(i)) {
+				watermark = colName;
+				break;
+			}
+		}
+		if (watermark == null) {
+			throw new SQLException(watermarkName != null ? ("watermark column " + watermarkName + " is not in " + tableName) :
+					(tableName + " has no auto increment column, assign the watermark column."));
+		}
+		if (!hasLeadingIndex(watermark)) {
+			warn("no index starts with " + watermark + ", each poll scans " + tableName + ".");
+		}
+
+		List<String> cursorColumns = new ArrayList<>();
+		cursorColumns.add(watermark);
+		for (String primaryKey : primaryKeys) {
+			if (!primaryKey.equalsIgnoreCase(watermark)) {
+				cursorColumns.add(primaryKey);
+			}
+		}
+		return cursorColumns.toArray(new String[0]);
+	}
+
+	/**
+	 * has an index which starts with the column, the range query after the watermark is index backed.
+	 * @param colName column name.
+	 * @return true if any.
+	 * @throws SQLException when SQL error.
+	 */
+	private boolean hasLeadingIndex(String colName) throws SQLException {
+		DatabaseMetaData dbMeta = con.getMetaData();
+		try (ResultSet rs = dbMeta.getIndexInfo(databaseName, null, toStoredCase(tableName), false, true)) {
+			while (rs.next()) {
+				if ((rs.getShort("ORDINAL_POSITION") == 1) && colName.equalsIgnoreCase(rs.getString("COLUMN_NAME"))) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * load column types of the columns.
+	 * @param colNames column names.
+	 * @return column types.
+	 * @throws SQLException when SQL error.
+	 */
+	private int[] loadColumnTypes(String[] colNames) throws SQLException {
+		int[] types = new int[colNames.length];
+		for (int i = 0; i < colNames.length; i++) {
+			for (int columnIndex = 1; columnIndex <= meta.getColumnCount(); columnIndex++) {
+				if (meta.getColumnName(columnIndex).equals(colNames[i])) {
+					types[i] = meta.getColumnType(columnIndex);
+					break;
+				}
+			}
+		}
+		return types;
+	}
+
+	/**
+	 * create where predicate, rows of null watermark are never after the watermark.
+	 * @param watermark watermark column name.
+	 * @return predicate.
+	 */
+	private String createPredicate(String watermark) {
+		StringBuilder sql = new StringBuilder();
+		sql.append(quote(watermark)).append(" IS NOT NULL");
+		if (where != null) {
+			sql.append(" AND (").append(where).append(')');
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * create insert SQL of the target table by the column mapping compiled from the metadata.
+	 * @param target connection to the target database.
+	 * @return insert SQL.
+	 * @throws SQLException when SQL error or no column in common.
+	 */
+	private String createInsertSql(Connection target) throws SQLException {
+		quotedTargetName = quote(toStoredCase(target, targetTableName));
+		ResultSetMetaData targetMeta = loadMetadata(target, quotedTargetName);
+		mapping = new ColumnMapping(getDialect(), meta, targetMeta, false, null, null, null, null, nowColumns, null);
+		if (mapping.getBoundColumns().isEmpty()) {
+			throw new SQLException(targetTableName + " has no column in common with " + tableName);
+		}
+		for (String colName : mapping.getUnmappedColumns()) {
+			warn("column " + colName + " is not in " + targetTableName + ", not copied.");
+		}
+		StringBuilder sql = new StringBuilder(mapping.createInsertSql(getDialect(), quotedTargetName));
+		if (upsert) {
+			appendUpsertClause(sql, loadPrimaryKeys(target, target.getCatalog(), targetTableName), targetTableName, targetMeta, mapping.getTargetColumns());
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * append values which identify the process.
+	 */
+	@Override
+	protected void appendFingerprint(StringBuilder sb) {
+		super.appendFingerprint(sb);
+		sb.append(";target=").append(targetTableName);
+		if (targetDatabase != null) {
+			sb.append(";targetHost=").append(targetHost);
+			sb.append(";targetDatabase=").append(targetDatabase);
+		}
+		sb.append(";watermark=").append(watermarkName);
+		sb.append(";where=").append(where);
+	}
+
+	// MARK: - Check
+	/**
+	 * check arguments.
+	 */
+	@Override
+	protected int checkArguments() {
+		if (cmd.hasOption('?')) {
+			usage(options);
+			return 1;
+		}
+		else if (!cmd.hasOption('d') || !cmd.hasOption('t') || !cmd.hasOption('u') || !cmd.hasOption("target") || !cmd.hasOption("state")) {
+			usage(options);
+			return -1;
+		}
+		if (!checkDatabaseName()) {
+			return -1;
+		}
+		if (!checkTableName()) {
+			return -1;
+		}
+		if (!checkHostName()) {
+			return -1;
+		}
+		if (!checkDialect()) {
+			return -1;
+		}
+		if (!checkUserName()) {
+			return -1;
+		}
+		if (!checkUserPassword()) {
+			return -1;
+		}
+
+		String[] targets = cmd.getOptionValues("target");
+		if (targets.length > 1) {
+			usage(options);
+			System.out.println("[ERROR] multiple target table name is not allowed.");
+			return -1;
+		}
+		String[] states = cmd.getOptionValues("state");
+		if (states.length > 1) {
+			usage(options);
+			System.out.println("[ERROR] multiple state file is not allowed.");
+			return -1;
+		}
+		if (!checkTargetDatabase()) {
+			return -1;
+		}
+		int batchSizeValue = checkPositiveNumber("batch-size", "batch size", TailRecordRequest.DEFAULT_BATCH_SIZE);
+		int minIntervalValue = checkPositiveNumber("min-interval", "minimum poll interval", TailRecordRequest.DEFAULT_MIN_INTERVAL);
+		int settleValue = checkPositiveNumber("settle", "settle time", 0);
+		if ((batchSizeValue < 0) || (minIntervalValue < 0) || (settleValue < 0)) {
+			return -1;
+		}
+		int maxIntervalValue = checkPositiveNumber("max-interval", "maximum poll interval", Math.max(TailRecordRequest.DEFAULT_MAX_INTERVAL, minIntervalValue));
+		if (maxIntervalValue < 0) {
+			return -1;
+		}
+
+		TailRecordRequest.Builder builder = TailRecordRequest.commandLineBuilder(tableName);
+		builder.target(targets[0]).targetDatabase(targetDatabase).state(new File(states[0]));
+		builder.watermark(cmd.getOptionValue("watermark")).where(cmd.getOptionValue("where"));
+		for (String column : getOptionValues("n")) {
+			builder.now(column);
+		}
+		builder.batchSize(batchSizeValue).interval(minIntervalValue, maxIntervalValue).settle(settleValue);
+		if (cmd.hasOption("once")) {
+			builder.once();
+		}
+		if (cmd.hasOption("from-now")) {
+			builder.fromNow();
+		}
+		if (cmd.hasOption("upsert")) {
+			builder.upsert();
+		}
+		builder.updateColumns(getOptionValues("update-column"));
+		try {
+			apply(builder.build());
+		}
+		catch (IllegalArgumentException e) {
+			usage(options);
+			System.out.println("[ERROR] " + e.getMessage());
+			return -1;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * check target database options, the host, port, user & password of the source database unless assigned.
+	 * @return true if success.
+	 */
+	private boolean checkTargetDatabase() {
+		String[] names = { "target-database", "target-host", "target-user", "target-password" };
+		String[] values = new String[names.length];
+		for (int i = 0; i < names.length; i++) {
+			String[] assigned = getOptionValues(names[i]);
+			if (assigned.length > 1) {
+				usage(options);
+				System.out.println("[ERROR] multiple " + names[i].replace('-', ' ') + " is not allowed.");
+				return false;
+			}
+			values[i] = assigned.length > 0 ? assigned[0] : null;
+		}
+		targetPort = checkPositiveNumber("target-port", "target port number", 0);
+		if (targetPort < 0) {
+			return false;
+		}
+		targetDatabase = values[0];
+		targetHost = values[1];
+		targetUser = values[2];
+		targetPassword = values[3];
+		if ((targetDatabase == null) && ((targetHost != null) || (targetPort > 0) || (targetUser != null) || (targetPassword != null))) {
+			usage(options);
+			System.out.println("[ERROR] target host, port, user & password require the target database.");
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * get replace values short option.
+	 */
+	@Override
+	protected char replaceValueShortOption() {
+		return REPLACE_SHORT_OPTION;
+	}
+
+	// MARK: - Entry Point
+	/**
+	 * create command line options.
+	 * @return command line options.
+	 */
+	static Options createOptions() {
+		Options options = new Options();
+		options.addOption("?", "help", false, "show this help");
+		options.addOption("d", "database", true, "database name");
+		options.addOption("t", "table", true, "source table name");
+		options.addOption(null, "target", true, "target table name to copy new rows into");
+		options.addOption(null, "state", true, "state file to keep the watermark, saved after the target commit");
+		options.addOption(null, "target-database", true, "[target database name like a reporting database, the source database as default]");
+		options.addOption(null, "target-host", true, "[target host name, the source host as default] use with --target-database");
+		options.addOption(null, "target-port", true, "[target port number, the source port as default] use with --target-database");
+		options.addOption(null, "target-user", true, "[target user name, the source user as default] use with --target-database");
+		options.addOption(null, "target-password", true, "[target user password, the source password as default] use with --target-database");
+		options.addOption("h", "host", true, "[host name, localhost as default]");
+		options.addOption(null, "port", true, "[port number, default port of the dialect as default]");
+		options.addOption(null, "dialect", true, "[mysql or postgresql, mysql as default]");
+		options.addOption("u", "user", true, "user name");
+		options.addOption("p", "prompt", false, "[prompt password] do not set with -P");
+		options.addOption("P", "password", true, "[user password] do not set with -p");
+		options.addOption(null, "watermark", true, "[ever increasing column like updated timestamp, the auto increment column as default] should be indexed."
+				+ " WARNING: a row committed after a row of a larger watermark was copied is never copied, use --settle");
+		options.addOption(null, "settle", true, "[copy only rows below the watermark sampled this many seconds ago, 0 as default]"
+				+ " rows of transactions open longer than this are still skipped");
+		options.addOption(null, "where", true, "[SQL predicate of rows to copy]");
+		options.addOption("n", "now", true, "[use NOW() for the target column]");
+		options.addOption(null, "batch-size", true, "[maximum rows copied per transaction, " + TailRecordRequest.DEFAULT_BATCH_SIZE + " as default]");
+		options.addOption(null, "min-interval", true, "[poll interval in milliseconds after new rows, " + TailRecordRequest.DEFAULT_MIN_INTERVAL + " as default]");
+		options.addOption(null, "max-interval", true, "[poll interval in milliseconds is doubled up to this while idle, " + TailRecordRequest.DEFAULT_MAX_INTERVAL + " as default]");
+		options.addOption(null, "from-now", false, "[skip rows in the table on the first run, copy rows added from now on]");
+		options.addOption(null, "once", false, "[exit when caught up, for cron]");
+		options.addOption(null, "upsert", false, "[insert or update the row of the duplicate key, a batch copied again after a crash is safe]");
+		options.addOption(null, "update-column", true, "[column to update on duplicate key, all columns except primary key as default] use with --upsert");
+		return options;
+	}
+
+	/**
+	 * entry point.
+	 * @param args arguments array.
+	 */
+	public static void main(String[] args) {
+		Options options = createOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine cmd = parser.parse(options, args);
+			TailRecord tailRecord = new TailRecord(options, cmd);
+			int argCheck = tailRecord.checkArguments();
+			if (argCheck != 0) {
+				System.exit(argCheck < 0 ? ERROR_VALUE : SUCCESS_VALUE);
+			}
+
+			tailRecord.connectAndProcess();
+		}
+		catch (org.apache.commons.cli.ParseException e) {
+			e.printStackTrace(System.err);
+			usage(options, "TailRecord");
+			System.exit(ERROR_VALUE);
+		}
+		catch (Exception e1) {
+			e1.printStackTrace(System.err);
+			System.exit(ERROR_VALUE);
+		}
+	}
+
+	// MARK: - Usage
+	/**
+	 * show error message for columns and replaces counts are not same.
+	 */
+	@Override
+	protected void columnAndReplaceCountMustSame() {
+		System.out.println("[ERROR] column and replace arguments count must be same.");
+	}
+}
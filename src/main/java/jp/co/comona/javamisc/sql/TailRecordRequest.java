@@ -0,0 +1,429 @@
+package jp.co.comona.javamisc.sql;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * programmatic tail record request.
+ * <pre>
+ * RecordResult result = TailRecordRequest.builder(dataSource, "events")
+ *         .target("events").targetDataSource(reportingDataSource).state(new File("events.state")).once().build().execute();
+ * </pre>
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class TailRecordRequest extends RecordRequest {
+
+	// MARK: - Static Properties
+	static final int DEFAULT_BATCH_SIZE = 1000;
+	static final int DEFAULT_MIN_INTERVAL = 200;
+	static final int DEFAULT_MAX_INTERVAL = 10000;
+
+	// MARK: - Properties
+	private final String targetTableName;
+	private final DataSource targetDataSource;
+	private final String targetDatabase;
+	private final File stateFile;
+	private final String watermarkName;
+	private final String where;
+	private final int batchSize;
+	private final int minInterval;
+	private final int maxInterval;
+	private final int settle;
+	private final boolean once;
+	private final boolean fromNow;
+	private final boolean upsert;
+	private final String[] updateColumns;
+
+	// MARK: - Builder
+	/**
+	 * tail record request builder.
+	 */
+	public static class Builder {
+		private final DataSource dataSource;
+		private final String tableName;
+		private final boolean commandLine;
+		private RecordListener listener = null;
+		private String targetTableName = null;
+		private DataSource targetDataSource = null;
+		private String targetDatabase = null;
+		private File stateFile = null;
+		private String watermarkName = null;
+		private String where = null;
+		private final List<String> nowColumns = new ArrayList<>();
+		private int batchSize = DEFAULT_BATCH_SIZE;
+		private int minInterval = DEFAULT_MIN_INTERVAL;
+		private int maxInterval = DEFAULT_MAX_INTERVAL;
+		private int settle = 0;
+		private boolean once = false;
+		private boolean fromNow = false;
+		private boolean upsert = false;
+		private final List<String> updateColumns = new ArrayList<>();
+
+		/**
+		 * constructor.
+		 * @param dataSource data source of the source table.
+		 * @param tableName source table name.
+		 * @param commandLine true if built by the command line tool.
+		 */
+		private Builder(DataSource dataSource, String tableName, boolean commandLine) {
+			super();
+			this.dataSource = dataSource;
+			this.tableName = tableName;
+			this.commandLine = commandLine;
+		}
+
+		/**
+		 * listener of messages while tailing, logged to java.util.logging if none.
+		 * @param listener listener.
+		 * @return this builder.
+		 */
+		public Builder listener(RecordListener listener) {
+			this.listener = listener;
+			return this;
+		}
+
+		/**
+		 * target table to copy new rows into, columns are mapped by name.
+		 * @param targetTableName target table name.
+		 * @return this builder.
+		 */
+		public Builder target(String targetTableName) {
+			this.targetTableName = targetTableName;
+			return this;
+		}
+
+		/**
+		 * data source of the target database, like a reporting database, the database of the source table if none.
+		 * @param targetDataSource data source of the target table.
+		 * @return this builder.
+		 */
+		public Builder targetDataSource(DataSource targetDataSource) {
+			this.targetDataSource = targetDataSource;
+			return this;
+		}
+
+		/**
+		 * target database of the command line tool, connected by its target host & user options.
+		 * @param targetDatabase target database name.
+		 * @return this builder.
+		 */
+		Builder targetDatabase(String targetDatabase) {
+			this.targetDatabase = targetDatabase;
+			return this;
+		}
+
+		/**
+		 * state file to keep the watermark, a restarted tail continues from it.
+		 * @param stateFile state file.
+		 * @return this builder.
+		 */
+		public Builder state(File stateFile) {
+			this.stateFile = stateFile;
+			return this;
+		}
+
+		/**
+		 * ever increasing column like updated timestamp, the auto increment column if none, should be indexed.
+		 * @param watermarkName watermark column name.
+		 * @return this builder.
+		 */
+		public Builder watermark(String watermarkName) {
+			this.watermarkName = watermarkName;
+			return this;
+		}
+
+		/**
+		 * SQL predicate of rows to copy.
+		 * @param where predicate.
+		 * @return this builder.
+		 */
+		public Builder where(String where) {
+			this.where = where;
+			return this;
+		}
+
+		/**
+		 * add target column to use NOW().
+		 * @param column column name.
+		 * @return this builder.
+		 */
+		public Builder now(String column) {
+			nowColumns.add(column);
+			return this;
+		}
+
+		/**
+		 * maximum rows copied per transaction.
+		 * @param batchSize batch size.
+		 * @return this builder.
+		 */
+		public Builder batchSize(int batchSize) {
+			this.batchSize = batchSize;
+			return this;
+		}
+
+		/**
+		 * poll interval in milliseconds after new rows, doubled up to the maximum while idle.
+		 * @param minInterval minimum interval.
+		 * @param maxInterval maximum interval.
+		 * @return this builder.
+		 */
+		public Builder interval(int minInterval, int maxInterval) {
+			this.minInterval = minInterval;
+			this.maxInterval = maxInterval;
+			return this;
+		}
+
+		/**
+		 * copy only rows at or below the watermark sampled the seconds ago, rows committed late with a smaller watermark are skipped without it.
+		 * transactions open longer than the seconds are still skipped.
+		 * @param seconds settle time in seconds, 0 to copy up to the newest row.
+		 * @return this builder.
+		 */
+		public Builder settle(int seconds) {
+			this.settle = seconds;
+			return this;
+		}
+
+		/**
+		 * exit when caught up, execute() runs until stopped by the shutdown hook if not.
+		 * @return this builder.
+		 */
+		public Builder once() {
+			this.once = true;
+			return this;
+		}
+
+		/**
+		 * skip rows in the table on the first run, copy rows added from now on.
+		 * @return this builder.
+		 */
+		public Builder fromNow() {
+			this.fromNow = true;
+			return this;
+		}
+
+		/**
+		 * insert or update the row of the duplicate key, a batch copied again after a crash is safe.
+		 * @param updateColumns columns to update on duplicate key, all columns except primary key if none.
+		 * @return this builder.
+		 */
+		public Builder upsert(String... updateColumns) {
+			this.upsert = true;
+			this.updateColumns.addAll(Arrays.asList(updateColumns));
+			return this;
+		}
+
+		/**
+		 * add columns to update on duplicate key without upsert, the command line tool checks the option by the request.
+		 * @param columns column names.
+		 * @return this builder.
+		 */
+		Builder updateColumns(String... columns) {
+			this.updateColumns.addAll(Arrays.asList(columns));
+			return this;
+		}
+
+		/**
+		 * build request.
+		 * @return tail record request.
+		 * @throws IllegalArgumentException when invalid request.
+		 */
+		public TailRecordRequest build() {
+			return new TailRecordRequest(this);
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param builder builder.
+	 */
+	private TailRecordRequest(Builder builder) {
+		super(builder.dataSource, builder.tableName, null, null, builder.nowColumns, null, builder.listener, builder.commandLine);
+		targetTableName = builder.targetTableName;
+		targetDataSource = builder.targetDataSource;
+		targetDatabase = builder.targetDatabase;
+		stateFile = builder.stateFile;
+		watermarkName = builder.watermarkName;
+		where = builder.where;
+		batchSize = builder.batchSize;
+		minInterval = builder.minInterval;
+		maxInterval = builder.maxInterval;
+		settle = builder.settle;
+		once = builder.once;
+		fromNow = builder.fromNow;
+		upsert = builder.upsert;
+		updateColumns = toArray(builder.updateColumns);
+		checkDuplicates(updateColumns, "update column");
+		if ((updateColumns != null) && !upsert) {
+			throw new IllegalArgumentException("update column requires upsert.");
+		}
+		if ((targetTableName == null) || targetTableName.isEmpty()) {
+			throw new IllegalArgumentException("target table name is required.");
+		}
+		if ((targetDataSource != null) && (targetDatabase != null)) {
+			throw new IllegalArgumentException("target data source & target database can not be used together.");
+		}
+		if ((targetDataSource == null) && (targetDatabase == null) && targetTableName.equalsIgnoreCase(getTableName())) {
+			throw new IllegalArgumentException("target table must be other than the source table in the same database.");
+		}
+		if (stateFile == null) {
+			throw new IllegalArgumentException("state file is required.");
+		}
+		if ((batchSize <= 0) || (minInterval <= 0) || (maxInterval <= 0)) {
+			throw new IllegalArgumentException("batch size & poll intervals must be positive numbers.");
+		}
+		if (maxInterval < minInterval) {
+			throw new IllegalArgumentException("maximum poll interval must not be less than minimum poll interval.");
+		}
+		if (settle < 0) {
+			throw new IllegalArgumentException("settle time must not be negative.");
+		}
+	}
+
+	/**
+	 * create builder.
+	 * @param dataSource data source to get the connection to the source table from.
+	 * @param tableName source table name.
+	 * @return builder.
+	 */
+	public static Builder builder(DataSource dataSource, String tableName) {
+		return new Builder(dataSource, tableName, false);
+	}
+
+	/**
+	 * create builder of the command line tool, the request checks the options without data source.
+	 * @param tableName source table name.
+	 * @return builder.
+	 */
+	static Builder commandLineBuilder(String tableName) {
+		return new Builder(null, tableName, true);
+	}
+
+	// MARK: - Getters
+	/**
+	 * get target table name.
+	 * @return target table name.
+	 */
+	String getTargetTableName() {
+		return targetTableName;
+	}
+
+	/**
+	 * get data source of the target database.
+	 * @return data source, null if none.
+	 */
+	DataSource getTargetDataSource() {
+		return targetDataSource;
+	}
+
+	/**
+	 * get target database of the command line tool.
+	 * @return target database name, null if the database of the source table.
+	 */
+	String getTargetDatabase() {
+		return targetDatabase;
+	}
+
+	/**
+	 * get state file.
+	 * @return state file.
+	 */
+	File getStateFile() {
+		return stateFile;
+	}
+
+	/**
+	 * get watermark column name.
+	 * @return watermark column name, null for the auto increment column.
+	 */
+	String getWatermarkName() {
+		return watermarkName;
+	}
+
+	/**
+	 * get SQL predicate of rows to copy.
+	 * @return predicate, null if none.
+	 */
+	String getWhere() {
+		return where;
+	}
+
+	/**
+	 * get maximum rows copied per transaction.
+	 * @return batch size.
+	 */
+	int getBatchSize() {
+		return batchSize;
+	}
+
+	/**
+	 * get poll interval after new rows.
+	 * @return milliseconds.
+	 */
+	int getMinInterval() {
+		return minInterval;
+	}
+
+	/**
+	 * get maximum poll interval while idle.
+	 * @return milliseconds.
+	 */
+	int getMaxInterval() {
+		return maxInterval;
+	}
+
+	/**
+	 * get settle time, rows are copied up to the watermark sampled the seconds ago.
+	 * @return seconds, 0 to copy up to the newest row.
+	 */
+	int getSettle() {
+		return settle;
+	}
+
+	/**
+	 * is exiting when caught up.
+	 * @return true if once.
+	 */
+	boolean isOnce() {
+		return once;
+	}
+
+	/**
+	 * is skipping rows in the table on the first run.
+	 * @return true if from now.
+	 */
+	boolean isFromNow() {
+		return fromNow;
+	}
+
+	/**
+	 * is upsert mode.
+	 * @return true if upsert.
+	 */
+	boolean isUpsert() {
+		return upsert;
+	}
+
+	/**
+	 * get columns to update on duplicate key.
+	 * @return column names, null for all columns except primary key.
+	 */
+	String[] getUpdateColumns() {
+		return updateColumns;
+	}
+
+	// MARK: - Process
+	/**
+	 * create SQL record tool for this request.
+	 */
+	@Override
+	SQLRecord createRecord() {
+		return new TailRecord(this);
+	}
+}
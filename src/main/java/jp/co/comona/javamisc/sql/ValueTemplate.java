@@ -0,0 +1,237 @@
+package jp.co.comona.javamisc.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * replace value template evaluated per copy.
+ * literal text with generators, a template of a single numeric generator evaluates to Long.
+ * <ul>
+ * <li>{seq}, {seq:START}, {seq:START:STEP} sequence over all copies of the run.</li>
+ * <li>{offset}, {offset:STEP} source value + copy number * STEP.</li>
+ * <li>{copy} copy number, from 1.</li>
+ * <li>{uuid} random UUID.</li>
+ * <li>{random:MIN:MAX} random number between MIN & MAX inclusive.</li>
+ * </ul>
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class ValueTemplate {
+
+	// MARK: - Static Properties
+	private static final int KIND_LITERAL = 0;
+	private static final int KIND_SEQUENCE = 1;
+	private static final int KIND_OFFSET = 2;
+	private static final int KIND_COPY = 3;
+	private static final int KIND_UUID = 4;
+	private static final int KIND_RANDOM = 5;
+
+	// MARK: - Properties
+	private final int[] kinds;
+	private final String[] literals;
+	private final long[] firsts;
+	private final long[] seconds;
+	private final long[] sequences;
+	private final StringBuilder sb = new StringBuilder();
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param kinds part kinds.
+	 * @param literals literal of the parts.
+	 * @param firsts first parameter of the parts.
+	 * @param seconds second parameter of the parts.
+	 */
+	private ValueTemplate(int[] kinds, String[] literals, long[] firsts, long[] seconds) {
+		super();
+		this.kinds = kinds;
+		this.literals = literals;
+		this.firsts = firsts;
+		this.seconds = seconds;
+		this.sequences = firsts.clone();
+	}
+
+	/**
+	 * parse template.
+	 * @param template template text.
+	 * @return value template.
+	 * @throws IllegalArgumentException when unknown generator or bad parameter.
+	 */
+	static ValueTemplate parse(String template) {
+		List<Integer> kinds = new ArrayList<>();
+		List<String> literals = new ArrayList<>();
+		List<long[]> params = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int i = 0;
+		while (i < template.length()) {
+			char c = template.charAt(i);
+			int end = c == '{' ? template.indexOf('}', i) : -1;
+			if (end < 0) {
+				literal.append(c);
+				i++;
+				continue;
+			}
+			if (literal.length() > 0) {
+				kinds.add(KIND_LITERAL);
+				literals.add(literal.toString());
+				params.add(new long[2]);
+				literal.setLength(0);
+			}
+			String[] generator = template.substring(i + 1, end).split(":", -1);
+			long[] param = new long[2];
+			int kind;
+			switch (generator[0]) {
+				case "seq":
+					kind = KIND_SEQUENCE;
+					param[0] = parseParameter(generator, 1, 1);
+					param[1] = parseParameter(generator, 2, 1);
+					break;
+				case "offset":
+					kind = KIND_OFFSET;
+					param[0] = parseParameter(generator, 1, 1);
+					break;
+				case "copy":
+					kind = KIND_COPY;
+					break;
+				case "uuid":
+					kind = KIND_UUID;
+					break;
+				case "random":
+					kind = KIND_RANDOM;
+					if (generator.length != 3) {
+						throw new IllegalArgumentException("random requires {random:MIN:MAX} in " + template);
+					}
+					param[0] = parseParameter(generator, 1, 0);
+					param[1] = parseParameter(generator, 2, 0);
+					if (param[0] > param[1]) {
+						throw new IllegalArgumentException("random MIN is greater than MAX in " + template);
+					}
+					break;
+
+				default:
+					throw new IllegalArgumentException("unknown generator {" + generator[0] + "} in " + template);
+			}
+			kinds.add(kind);
+			literals.add(null);
+			params.add(param);
+			i = end + 1;
+		}
+		if ((literal.length() > 0) || kinds.isEmpty()) {
+			kinds.add(KIND_LITERAL);
+			literals.add(literal.toString());
+			params.add(new long[2]);
+		}
+
+		int count = kinds.size();
+		int[] kindArray = new int[count];
+		long[] firsts = new long[count];
+		long[] seconds = new long[count];
+		for (int j = 0; j < count; j++) {
+			kindArray[j] = kinds.get(j);
+			firsts[j] = params.get(j)[0];
+			seconds[j] = params.get(j)[1];
+		}
+		return new ValueTemplate(kindArray, literals.toArray(new String[0]), firsts, seconds);
+	}
+
+	/**
+	 * parse numeric parameter of generator.
+	 * @param generator generator name & parameters.
+	 * @param index parameter index.
+	 * @param defaultValue default value when parameter is omitted.
+	 * @return parameter value.
+	 * @throws IllegalArgumentException when not a number.
+	 */
+	private static long parseParameter(String[] generator, int index, long defaultValue) {
+		if ((generator.length <= index) || generator[index].isEmpty()) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(generator[index]);
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("parameter of {" + generator[0] + "} must be a number: " + generator[index]);
+		}
+	}
+
+	// MARK: - Getters
+	/**
+	 * is offset generator used.
+	 * @return true if source value is needed.
+	 */
+	boolean needsSourceValue() {
+		for (int kind : kinds) {
+			if (kind == KIND_OFFSET) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * is numeric template, a single numeric generator without literals.
+	 * @return true if evaluate() returns Long.
+	 */
+	boolean isNumeric() {
+		return (kinds.length == 1) && (kinds[0] != KIND_LITERAL) && (kinds[0] != KIND_UUID);
+	}
+
+	// MARK: - Evaluate
+	/**
+	 * evaluate template for a copy.
+	 * @param sourceValue source value of the column, used by offset.
+	 * @param copy copy number, from 1.
+	 * @return Long if numeric template, String otherwise.
+	 */
+	Object evaluate(long sourceValue, long copy) {
+		if (isNumeric()) {
+			return evaluateNumber(0, sourceValue, copy);
+		}
+		sb.setLength(0);
+		for (int i = 0; i < kinds.length; i++) {
+			switch (kinds[i]) {
+				case KIND_LITERAL:
+					sb.append(literals[i]);
+					break;
+				case KIND_UUID:
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					long msb = (random.nextLong() & 0xffffffffffff0fffL) | 0x0000000000004000L;	// version 4.
+					long lsb = (random.nextLong() & 0x3fffffffffffffffL) | 0x8000000000000000L;	// IETF variant.
+					sb.append(new UUID(msb, lsb));
+					break;
+
+				default:
+					sb.append(evaluateNumber(i, sourceValue, copy));
+					break;
+			}
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * evaluate numeric generator.
+	 * @param i part index.
+	 * @param sourceValue source value of the column.
+	 * @param copy copy number, from 1.
+	 * @return generated number.
+	 */
+	private long evaluateNumber(int i, long sourceValue, long copy) {
+		switch (kinds[i]) {
+			case KIND_SEQUENCE:
+				long value = sequences[i];
+				sequences[i] += seconds[i];
+				return value;
+			case KIND_OFFSET:
+				return sourceValue + copy * firsts[i];
+			case KIND_COPY:
+				return copy;
+			case KIND_RANDOM:
+				return ThreadLocalRandom.current().nextLong(firsts[i], seconds[i] + 1);
+
+			default:
+				throw new IllegalStateException("not a numeric generator.");
+		}
+	}
+}
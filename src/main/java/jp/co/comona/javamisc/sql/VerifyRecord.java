@@ -0,0 +1,500 @@
+package jp.co.comona.javamisc.sql;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.Options;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * verify SQL record tool.
+ * compares a table with its copy by checksums computed on the server, no row is fetched unless its chunk differs.
+ * the primary key range is split into chunks of the size, count & sum of row hashes of each chunk are queried
+ * on both tables in parallel, only the rows of mismatching chunks are compared by key.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class VerifyRecord extends SQLRecord {
+
+	// MARK: - Static Properties
+	private static final char REPLACE_SHORT_OPTION = 'r';
+	private static final int MAX_KEPT_DIFFS = 10000;
+
+	// MARK: - Properties
+	private String targetTableName = null;
+	private String quotedTargetName = null;
+	private String where = null;
+	private int chunkSize = VerifyRecordRequest.DEFAULT_CHUNK_SIZE;
+	private int threads = VerifyRecordRequest.DEFAULT_THREADS;
+	private String[] primaryKeys = null;
+	private String[] targetKeys = null;
+	private String sourceHash = null;
+	private String targetHash = null;
+	private long chunkCount = 0;
+	private long differChunkCount = 0;
+	private long differCount = 0;
+	private final List<RowDiff> diffs = new ArrayList<>();
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param options command line options.
+	 * @param cmd command line.
+	 */
+	protected VerifyRecord(Options options, CommandLine cmd) {
+		super(options, cmd);
+	}
+
+	/**
+	 * constructor for programmatic use.
+	 * @param request verify record request.
+	 */
+	VerifyRecord(VerifyRecordRequest request) {
+		super(request.getDataSource(), request.getTableName());
+		apply(request);
+	}
+
+	/**
+	 * apply request checked by the builder, of the programmatic use or the command line.
+	 * @param request verify record request.
+	 */
+	private void apply(VerifyRecordRequest request) {
+		applyListener(request);
+		targetTableName = request.getTargetTableName();
+		where = request.getWhere() != null ? "(" + request.getWhere() + ")" : null;
+		chunkSize = request.getChunkSize();
+		threads = request.getThreads();
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of rows differ.
+	 * @return number of rows missing, extra or changed in the target table.
+	 */
+	long getDifferCount() {
+		return differCount;
+	}
+
+	/**
+	 * get rows differ, the first of them if more than kept.
+	 * @return rows differ.
+	 */
+	List<RowDiff> getDiffs() {
+		return diffs;
+	}
+
+	// MARK: - Process
+	/**
+	 * do process.
+	 */
+	@Override
+	protected void doProcess() throws Exception {
+		prepareHashes();
+		KeysetCursor boundaries = new KeysetCursor(getDialect(), quotedTableName, primaryKeys, where);
+		final BlockingQueue<Connection> connections = new ArrayBlockingQueue<>(threads);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			for (int i = 0; i < threads; i++) {
+				connections.add(openConnection());
+			}
+			// chunk boundaries are walked on the source while the checksums of found chunks run.
+			Deque<Chunk> pending = new ArrayDeque<>();
+			Object[] lower = null;
+			do {
+				Object[] upper = null;
+				try (PreparedStatement ps = con.prepareStatement(boundaries.nextBoundarySql(chunkSize))) {
+					boundaries.bind(ps, 1);
+					try (ResultSet rs = executeQuery(ps)) {
+						if (rs.next()) {
+							boundaries.advance(rs);
+							upper = boundaries.getLastKey();
+						}
+					}
+				}
+				Chunk chunk = new Chunk(lower, upper);
+				chunk.source = executor.submit(createChecksumTask(connections, quotedTableName, primaryKeys, sourceHash, lower, upper));
+				chunk.target = executor.submit(createChecksumTask(connections, quotedTargetName, targetKeys, targetHash, lower, upper));
+				pending.add(chunk);
+				while (pending.size() > threads * 2) {
+					compareChunk(pending.poll());
+				}
+				lower = upper;
+			} while (lower != null);
+			while (!pending.isEmpty()) {
+				compareChunk(pending.poll());
+			}
+		}
+		finally {
+			executor.shutdownNow();
+			for (Connection connection : connections) {
+				connection.close();
+			}
+		}
+		info(recordCount + " rows in " + chunkCount + " chunks verified, " +
+				differChunkCount + " chunks & " + differCount + " rows differ.");
+		if (differCount > diffs.size()) {
+			warn("the first " + diffs.size() + " rows differ are kept in the result.");
+		}
+	}
+
+	/**
+	 * compare checksums of a chunk, rows of the chunk are compared if differ.
+	 * @param chunk chunk with the checksum tasks submitted.
+	 * @throws Exception when error.
+	 */
+	private void compareChunk(Chunk chunk) throws Exception {
+		Object[] source = getResult(chunk.source);
+		Object[] target = getResult(chunk.target);
+		chunkCount++;
+		recordCount += (Long)source[0];
+		if (!Arrays.equals(source, target)) {
+			differChunkCount++;
+			compareRows(chunk);
+		}
+	}
+
+	/**
+	 * compare row hashes of a chunk by primary key & report differences.
+	 * @param chunk chunk.
+	 * @throws SQLException when SQL error.
+	 */
+	private void compareRows(Chunk chunk) throws SQLException {
+		Map<List<Object>, Object> source = loadRowHashes(quotedTableName, primaryKeys, sourceHash, chunk);
+		Map<List<Object>, Object> target = loadRowHashes(quotedTargetName, targetKeys, targetHash, chunk);
+		for (Map.Entry<List<Object>, Object> entry : source.entrySet()) {
+			if (!target.containsKey(entry.getKey())) {
+				reportDiff(RowDiff.Kind.MISSING, entry.getKey(), "is not in " + targetTableName + ".");
+			}
+			else if (!String.valueOf(entry.getValue()).equals(String.valueOf(target.get(entry.getKey())))) {
+				reportDiff(RowDiff.Kind.CHANGED, entry.getKey(), "differs.");
+			}
+		}
+		for (List<Object> key : target.keySet()) {
+			if (!source.containsKey(key)) {
+				reportDiff(RowDiff.Kind.EXTRA, key, "is not in " + tableName + ".");
+			}
+		}
+	}
+
+	/**
+	 * report row differs as a warning, kept for the result up to the limit.
+	 * @param kind kind of difference.
+	 * @param key primary key values of the row.
+	 * @param message message after the key.
+	 */
+	private void reportDiff(RowDiff.Kind kind, List<Object> key, String message) {
+		warn("[DIFF] key " + key + " " + message);
+		differCount++;
+		if (diffs.size() < MAX_KEPT_DIFFS) {
+			diffs.add(new RowDiff(kind, key));
+		}
+	}
+
+	/**
+	 * load row hashes of a chunk.
+	 * @param quotedTable quoted table name.
+	 * @param keys primary key columns of the table.
+	 * @param hash row hash expression of the table.
+	 * @param chunk chunk.
+	 * @return primary key to row hash map in key order.
+	 * @throws SQLException when SQL error.
+	 */
+	private Map<List<Object>, Object> loadRowHashes(String quotedTable, String[] keys, String hash, Chunk chunk) throws SQLException {
+		KeysetCursor cursor = createRangeCursor(quotedTable, keys, chunk.lower, chunk.upper);
+		StringBuilder selectList = new StringBuilder();
+		for (String key : keys) {
+			selectList.append(quote(key)).append(SQL_COMMA);
+		}
+		selectList.append(hash);
+		Map<List<Object>, Object> hashes = new LinkedHashMap<>();
+		try (PreparedStatement ps = con.prepareStatement(cursor.rangeSql(selectList.toString()))) {
+			cursor.bind(ps, 1);
+			try (ResultSet rs = executeQuery(ps)) {
+				while (rs.next()) {
+					List<Object> key = new ArrayList<>(keys.length);
+					for (int i = 1; i <= keys.length; i++) {
+						key.add(rs.getObject(i));
+					}
+					hashes.put(key, rs.getObject(keys.length + 1));
+				}
+			}
+		}
+		return hashes;
+	}
+
+	/**
+	 * create task to query count & sum of row hashes of a chunk.
+	 * @param connections connections of the workers, a connection is taken while the query runs.
+	 * @param quotedTable quoted table name.
+	 * @param keys primary key columns of the table.
+	 * @param hash row hash expression of the table.
+	 * @param lower lower bound key exclusive, null from the first key.
+	 * @param upper upper bound key inclusive, null to the last key.
+	 * @return task returns count & sum.
+	 */
+	private Callable<Object[]> createChecksumTask(final BlockingQueue<Connection> connections, String quotedTable, String[] keys, String hash,
+			Object[] lower, Object[] upper) {
+		final KeysetCursor cursor = createRangeCursor(quotedTable, keys, lower, upper);
+		final String sql = cursor.rangeSql("COUNT(*), SUM(" + hash + ")");
+		return new Callable<Object[]>() {
+			@Override
+			public Object[] call() throws Exception {
+				Connection connection = connections.take();
+				try (PreparedStatement ps = connection.prepareStatement(sql)) {
+					cursor.bind(ps, 1);
+					try (ResultSet rs = executeQuery(ps)) {
+						rs.next();
+						return new Object[] { rs.getLong(1), rs.getString(2) };
+					}
+				}
+				finally {
+					connections.add(connection);
+				}
+			}
+		};
+	}
+
+	/**
+	 * create cursor of a key range.
+	 * @param quotedTable quoted table name.
+	 * @param keys primary key columns of the table.
+	 * @param lower lower bound key exclusive, null from the first key.
+	 * @param upper upper bound key inclusive, null to the last key.
+	 * @return cursor.
+	 */
+	private KeysetCursor createRangeCursor(String quotedTable, String[] keys, Object[] lower, Object[] upper) {
+		KeysetCursor cursor = new KeysetCursor(getDialect(), quotedTable, keys, where);
+		cursor.setLastKey(lower);
+		cursor.setUpperKey(upper);
+		return cursor;
+	}
+
+	// MARK: - SQL
+	/**
+	 * prepare primary keys & row hash expressions of both tables, columns are matched by name.
+	 * @throws SQLException when SQL error, no primary key or key column not in the target table.
+	 */
+	private void prepareHashes() throws SQLException {
+		primaryKeys = loadPrimaryKeys();
+		if (primaryKeys.length == 0) {
+			throw new SQLException("verify requires a primary key on " + tableName);
+		}
+		quotedTargetName = quote(toStoredCase(targetTableName));
+		ResultSetMetaData targetMeta = loadMetadata(quotedTargetName);
+		targetKeys = new String[primaryKeys.length];
+		for (int i = 0; i < primaryKeys.length; i++) {
+			targetKeys[i] = findColumnName(targetMeta, primaryKeys[i]);
+			if (targetKeys[i] == null) {
+				throw new SQLException("primary key column " + primaryKeys[i] + " is not in " + targetTableName);
+			}
+		}
+		List<String> sourceColumns = new ArrayList<>();
+		List<String> targetColumns = new ArrayList<>();
+		for (int i = 1; i <= meta.getColumnCount(); i++) {
+			String colName = findColumnName(targetMeta, meta.getColumnName(i));
+			if (colName != null) {
+				sourceColumns.add(quote(meta.getColumnName(i)));
+				targetColumns.add(quote(colName));
+			}
+			else {
+				warn("column " + meta.getColumnName(i) + " is not in " + targetTableName + ", not verified.");
+			}
+		}
+		for (int i = 1; i <= targetMeta.getColumnCount(); i++) {
+			if (findColumnName(meta, targetMeta.getColumnName(i)) == null) {
+				warn("column " + targetMeta.getColumnName(i) + " is not in " + tableName + ", not verified.");
+			}
+		}
+		sourceHash = getDialect().rowHash(sourceColumns);
+		targetHash = getDialect().rowHash(targetColumns);
+	}
+
+	/**
+	 * find column name ignore case.
+	 * @param tableMeta column metadata of a table.
+	 * @param name column name.
+	 * @return column name of the table, null if not found.
+	 * @throws SQLException when SQL error.
+	 */
+	private static String findColumnName(ResultSetMetaData tableMeta, String name) throws SQLException {
+		for (int i = 1; i <= tableMeta.getColumnCount(); i++) {
+			if (tableMeta.getColumnName(i).compareToIgnoreCase(name) == 0) {
+				return tableMeta.getColumnName(i);
+			}
+		}
+		return null;
+	}
+
+	// MARK: - Check
+	/**
+	 * check arguments.
+	 */
+	@Override
+	protected int checkArguments() {
+		if (cmd.hasOption('?')) {
+			usage(options);
+			return 1;
+		}
+		else if (!cmd.hasOption('d') || !cmd.hasOption('t') || !cmd.hasOption('u') || !cmd.hasOption("target")) {
+			usage(options);
+			return -1;
+		}
+		if (!checkDatabaseName()) {
+			return -1;
+		}
+		if (!checkTableName()) {
+			return -1;
+		}
+		if (!checkHostName()) {
+			return -1;
+		}
+		if (!checkDialect()) {
+			return -1;
+		}
+		if (!checkUserName()) {
+			return -1;
+		}
+		if (!checkUserPassword()) {
+			return -1;
+		}
+
+		String[] targets = cmd.getOptionValues("target");
+		if (targets.length > 1) {
+			usage(options);
+			System.out.println("[ERROR] multiple target table name is not allowed.");
+			return -1;
+		}
+		int chunkSizeValue = checkPositiveNumber("chunk-size", "chunk size", VerifyRecordRequest.DEFAULT_CHUNK_SIZE);
+		int threadsValue = checkPositiveNumber("threads", "number of threads", VerifyRecordRequest.DEFAULT_THREADS);
+		if ((chunkSizeValue < 0) || (threadsValue < 0)) {
+			return -1;
+		}
+
+		VerifyRecordRequest.Builder builder = VerifyRecordRequest.commandLineBuilder(tableName);
+		builder.target(targets[0]).where(cmd.getOptionValue("where")).chunkSize(chunkSizeValue).threads(threadsValue);
+		try {
+			apply(builder.build());
+		}
+		catch (IllegalArgumentException e) {
+			usage(options);
+			System.out.println("[ERROR] " + e.getMessage());
+			return -1;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * get replace values short option.
+	 */
+	@Override
+	protected char replaceValueShortOption() {
+		return REPLACE_SHORT_OPTION;
+	}
+
+	// MARK: - Entry Point
+	/**
+	 * create command line options.
+	 * @return command line options.
+	 */
+	static Options createOptions() {
+		Options options = new Options();
+		options.addOption("?", "help", false, "show this help");
+		options.addOption("d", "database", true, "database name");
+		options.addOption("t", "table", true, "source table name");
+		options.addOption(null, "target", true, "target table name to compare with, columns are matched by name");
+		options.addOption("h", "host", true, "[host name, localhost as default]");
+		options.addOption(null, "port", true, "[port number, default port of the dialect as default]");
+		options.addOption(null, "dialect", true, "[mysql or postgresql, mysql as default]");
+		options.addOption("u", "user", true, "user name");
+		options.addOption("p", "prompt", false, "[prompt password] do not set with -P");
+		options.addOption("P", "password", true, "[user password] do not set with -p");
+		options.addOption(null, "where", true, "[SQL predicate of rows to compare on both tables]");
+		options.addOption(null, "chunk-size", true, "[number of source rows per checksum, " + VerifyRecordRequest.DEFAULT_CHUNK_SIZE + " as default]");
+		options.addOption(null, "threads", true, "[number of checksum query connections, " + VerifyRecordRequest.DEFAULT_THREADS + " as default]");
+		return options;
+	}
+
+	/**
+	 * entry point, exits with error value if any row differs.
+	 * @param args arguments array.
+	 */
+	public static void main(String[] args) {
+		Options options = createOptions();
+		CommandLineParser parser = new DefaultParser();
+		try {
+			CommandLine cmd = parser.parse(options, args);
+			VerifyRecord verifyRecord = new VerifyRecord(options, cmd);
+			int argCheck = verifyRecord.checkArguments();
+			if (argCheck != 0) {
+				System.exit(argCheck < 0 ? ERROR_VALUE : SUCCESS_VALUE);
+			}
+
+			verifyRecord.connectAndProcess();
+			if (verifyRecord.getDifferCount() > 0) {
+				System.exit(ERROR_VALUE);
+			}
+		}
+		catch (org.apache.commons.cli.ParseException e) {
+			e.printStackTrace(System.err);
+			usage(options, "VerifyRecord");
+			System.exit(ERROR_VALUE);
+		}
+		catch (Exception e1) {
+			e1.printStackTrace(System.err);
+			System.exit(ERROR_VALUE);
+		}
+	}
+
+	// MARK: - Usage
+	/**
+	 * show error message for columns and replaces counts are not same.
+	 */
+	@Override
+	protected void columnAndReplaceCountMustSame() {
+		System.out.println("[ERROR] column and replace arguments count must be same.");
+	}
+
+	// MARK: - Chunk
+	/**
+	 * key range of a chunk & its checksum tasks.
+	 */
+	private static final class Chunk {
+
+		// MARK: - Properties
+		private final Object[] lower;
+		private final Object[] upper;
+		private Future<Object[]> source = null;
+		private Future<Object[]> target = null;
+
+		// MARK: - Constructor
+		/**
+		 * constructor.
+		 * @param lower lower bound key exclusive, null from the first key.
+		 * @param upper upper bound key inclusive, null to the last key.
+		 */
+		private Chunk(Object[] lower, Object[] upper) {
+			super();
+			this.lower = lower;
+			this.upper = upper;
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package jp.co.comona.javamisc.sql;
+
+import javax.sql.DataSource;
+
+/**
+ * programmatic verify record request.
+ * <pre>
+ * VerifyRecordResult result = VerifyRecordRequest.builder(dataSource, "orders").target("orders_copy").build().execute();
+ * for (RowDiff diff : result.getDiffs()) { ... }
+ * </pre>
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class VerifyRecordRequest extends RecordRequest {
+
+	// MARK: - Static Properties
+	static final int DEFAULT_CHUNK_SIZE = 10000;
+	static final int DEFAULT_THREADS = 4;
+
+	// MARK: - Properties
+	private final String targetTableName;
+	private final String where;
+	private final int chunkSize;
+	private final int threads;
+
+	// MARK: - Builder
+	/**
+	 * verify record request builder.
+	 */
+	public static class Builder {
+		private final DataSource dataSource;
+		private final String tableName;
+		private final boolean commandLine;
+		private RecordListener listener = null;
+		private String targetTableName = null;
+		private String where = null;
+		private int chunkSize = DEFAULT_CHUNK_SIZE;
+		private int threads = DEFAULT_THREADS;
+
+		/**
+		 * constructor.
+		 * @param dataSource data source.
+		 * @param tableName source table name.
+		 * @param commandLine true if built by the command line tool.
+		 */
+		private Builder(DataSource dataSource, String tableName, boolean commandLine) {
+			super();
+			this.dataSource = dataSource;
+			this.tableName = tableName;
+			this.commandLine = commandLine;
+		}
+
+		/**
+		 * listener of messages, rows differ are warned.
+		 * @param listener listener.
+		 * @return this builder.
+		 */
+		public Builder listener(RecordListener listener) {
+			this.listener = listener;
+			return this;
+		}
+
+		/**
+		 * target table to compare with, columns are matched by name.
+		 * @param targetTableName target table name.
+		 * @return this builder.
+		 */
+		public Builder target(String targetTableName) {
+			this.targetTableName = targetTableName;
+			return this;
+		}
+
+		/**
+		 * SQL predicate of rows to compare on both tables.
+		 * @param where predicate.
+		 * @return this builder.
+		 */
+		public Builder where(String where) {
+			this.where = where;
+			return this;
+		}
+
+		/**
+		 * number of source rows per checksum.
+		 * @param chunkSize chunk size.
+		 * @return this builder.
+		 */
+		public Builder chunkSize(int chunkSize) {
+			this.chunkSize = chunkSize;
+			return this;
+		}
+
+		/**
+		 * number of checksum query connections.
+		 * @param threads number of threads.
+		 * @return this builder.
+		 */
+		public Builder threads(int threads) {
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * build request.
+		 * @return verify record request.
+		 * @throws IllegalArgumentException when invalid request.
+		 */
+		public VerifyRecordRequest build() {
+			return new VerifyRecordRequest(this);
+		}
+	}
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param builder builder.
+	 */
+	private VerifyRecordRequest(Builder builder) {
+		super(builder.dataSource, builder.tableName, null, null, null, null, builder.listener, builder.commandLine);
+		targetTableName = builder.targetTableName;
+		where = builder.where;
+		chunkSize = builder.chunkSize;
+		threads = builder.threads;
+		if ((targetTableName == null) || targetTableName.isEmpty()) {
+			throw new IllegalArgumentException("target table name is required.");
+		}
+		if (targetTableName.equalsIgnoreCase(getTableName())) {
+			throw new IllegalArgumentException("target table must be other than the source table.");
+		}
+		if ((chunkSize <= 0) || (threads <= 0)) {
+			throw new IllegalArgumentException("chunk size & number of threads must be positive numbers.");
+		}
+	}
+
+	/**
+	 * create builder.
+	 * @param dataSource data source to get the connections from, a checksum thread takes one.
+	 * @param tableName source table name.
+	 * @return builder.
+	 */
+	public static Builder builder(DataSource dataSource, String tableName) {
+		return new Builder(dataSource, tableName, false);
+	}
+
+	/**
+	 * create builder of the command line tool, the request checks the options without data source.
+	 * @param tableName source table name.
+	 * @return builder.
+	 */
+	static Builder commandLineBuilder(String tableName) {
+		return new Builder(null, tableName, true);
+	}
+
+	// MARK: - Getters
+	/**
+	 * get target table name.
+	 * @return target table name.
+	 */
+	String getTargetTableName() {
+		return targetTableName;
+	}
+
+	/**
+	 * get SQL predicate of rows to compare.
+	 * @return predicate, null if none.
+	 */
+	String getWhere() {
+		return where;
+	}
+
+	/**
+	 * get number of source rows per checksum.
+	 * @return chunk size.
+	 */
+	int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * get number of checksum query connections.
+	 * @return number of threads.
+	 */
+	int getThreads() {
+		return threads;
+	}
+
+	// MARK: - Process
+	/**
+	 * create SQL record tool for this request.
+	 */
+	@Override
+	SQLRecord createRecord() {
+		return new VerifyRecord(this);
+	}
+
+	/**
+	 * execute request in the calling thread.
+	 * @return result with the rows differ.
+	 * @throws Exception when error.
+	 */
+	@Override
+	public VerifyRecordResult execute() throws Exception {
+		VerifyRecord record = new VerifyRecord(this);
+		long start = System.nanoTime();
+		record.connectAndProcess();
+		return new VerifyRecordResult(record.getRecordCount(), System.nanoTime() - start, record.getDifferCount(), record.getDiffs());
+	}
+}
@@ -0,0 +1,60 @@
+package jp.co.comona.javamisc.sql;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * result of verify request, the record count is the number of source rows verified.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class VerifyRecordResult extends RecordResult {
+
+	// MARK: - Properties
+	private final long differCount;
+	private final List<RowDiff> diffs;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param recordCount number of source rows verified.
+	 * @param elapsedNanos elapsed nanoseconds.
+	 * @param differCount number of rows differ.
+	 * @param diffs rows differ, up to the limit kept.
+	 */
+	VerifyRecordResult(long recordCount, long elapsedNanos, long differCount, List<RowDiff> diffs) {
+		super(recordCount, elapsedNanos);
+		this.differCount = differCount;
+		this.diffs = Collections.unmodifiableList(diffs);
+	}
+
+	// MARK: - Getters
+	/**
+	 * get number of rows differ.
+	 * @return number of rows missing, extra or changed in the target table.
+	 */
+	public long getDifferCount() {
+		return differCount;
+	}
+
+	/**
+	 * get rows differ in key order of each chunk, the first of them if more than kept.
+	 * @return rows differ.
+	 */
+	public List<RowDiff> getDiffs() {
+		return diffs;
+	}
+
+	/**
+	 * is the copy same as the table.
+	 * @return true if no row differs.
+	 */
+	public boolean isSame() {
+		return differCount == 0;
+	}
+
+	@Override
+	public String toString() {
+		return "VerifyRecordResult{recordCount=" + getRecordCount() + ", elapsedNanos=" + getElapsedNanos() + ", differCount=" + differCount + '}';
+	}
+}
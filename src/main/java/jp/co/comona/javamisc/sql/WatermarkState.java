@@ -0,0 +1,143 @@
+package jp.co.comona.javamisc.sql;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.sql.Date;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Properties;
+
+/**
+ * high-water mark state file of tail mode.
+ * a small properties file replaced atomically, written to a temporary file, forced to disk & renamed over the state file.
+ * a crash leaves either the previous or the new watermark, never a torn file.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class WatermarkState {
+
+	// MARK: - Static Properties
+	private static final String FINGERPRINT = "fingerprint";
+	private static final String COLUMNS = "columns";
+	private static final String VALUE_PREFIX = "value.";
+
+	// MARK: - Properties
+	private final File file;
+	private final File temporaryFile;
+	private final long fingerprint;
+
+	// MARK: - Constructor
+	/**
+	 * constructor.
+	 * @param file state file.
+	 * @param fingerprint fingerprint of the arguments, a state written with other arguments is refused.
+	 */
+	WatermarkState(File file, long fingerprint) {
+		super();
+		this.file = file;
+		this.temporaryFile = new File(file.getPath() + ".tmp");
+		this.fingerprint = fingerprint;
+	}
+
+	// MARK: - Load
+	/**
+	 * load watermark.
+	 * @param columns watermark columns.
+	 * @param columnTypes column types of the watermark columns, values are converted to the type read by the cursor.
+	 * @return watermark, null if the state file does not exist.
+	 * @throws IOException when I/O error, fingerprint or column mismatch.
+	 */
+	Object[] load(String[] columns, int[] columnTypes) throws IOException {
+		if (!file.exists()) {
+			return null;
+		}
+		Properties properties = new Properties();
+		try (Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+			properties.load(reader);
+		}
+		if (!Long.toHexString(fingerprint).equals(properties.getProperty(FINGERPRINT))) {
+			throw new IOException("state file " + file + " was written with other arguments.");
+		}
+		if (!String.join(",", columns).equals(properties.getProperty(COLUMNS))) {
+			throw new IOException("state file " + file + " was written for other watermark columns.");
+		}
+		Object[] position = new Object[columns.length];
+		for (int i = 0; i < columns.length; i++) {
+			String value = properties.getProperty(VALUE_PREFIX + i);
+			if (value == null) {
+				throw new IOException("state file " + file + " has no value of " + columns[i]);
+			}
+			try {
+				position[i] = parse(value, columnTypes[i]);
+			}
+			catch (IllegalArgumentException e) {
+				throw new IOException("state file " + file + " has invalid value of " + columns[i] + ": " + value);
+			}
+		}
+		return position;
+	}
+
+	/**
+	 * parse a saved value to the type of the column.
+	 * @param value saved value.
+	 * @param columnType column type.
+	 * @return value.
+	 */
+	private static Object parse(String value, int columnType) {
+		if (SQLRecord.isIntegralType(columnType)) {
+			return Long.valueOf(value);
+		}
+		switch (columnType) {
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				return new BigDecimal(value);
+			case Types.FLOAT:
+			case Types.REAL:
+			case Types.DOUBLE:
+				return Double.valueOf(value);
+			case Types.DATE:
+				return Date.valueOf(value);
+			case Types.TIME:
+				return Time.valueOf(value);
+			case Types.TIMESTAMP:
+				return Timestamp.valueOf(value);
+
+			default:
+				return value;
+		}
+	}
+
+	// MARK: - Save
+	/**
+	 * save watermark atomically.
+	 * @param columns watermark columns.
+	 * @param position watermark.
+	 * @throws IOException when I/O error.
+	 */
+	void save(String[] columns, Object[] position) throws IOException {
+		Properties properties = new Properties();
+		properties.setProperty(FINGERPRINT, Long.toHexString(fingerprint));
+		properties.setProperty(COLUMNS, String.join(",", columns));
+		for (int i = 0; i < position.length; i++) {
+			properties.setProperty(VALUE_PREFIX + i, position[i].toString());
+		}
+		try (FileOutputStream out = new FileOutputStream(temporaryFile)) {
+			Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+			properties.store(writer, "tail record watermark");
+			writer.flush();
+			out.getFD().sync();
+		}
+		Files.move(temporaryFile.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -0,0 +1,113 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * checkpoint journal test.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CheckpointJournalTest {
+
+	private static final long FINGERPRINT = 42;
+	private static final int HEADER_SIZE = 16;
+	private static final int LONG_RECORD_SIZE = 4 + 15 + 9 + 4;	// length, body of a single long value & crc.
+
+	@TempDir
+	File dir;
+
+	// MARK: - Tests
+	@Test
+	void recordsAreLoaded() throws IOException {
+		File file = new File(dir, "journal");
+		Timestamp timestamp = Timestamp.valueOf("2026-10-18 12:34:56.123456789");
+		Object[] bound = { 1000L, "z\u00e9", null };
+		Object[] position = { 10L, new BigDecimal("1.50"), timestamp, Date.valueOf("2026-10-18"), new byte[] { 1, 2 }, true, 0.5 };
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			assertFalse(journal.isResuming());
+			journal.bound(0, bound);
+			journal.prepare(0, position);
+			journal.commit(0, position);
+			journal.prepare(1, new Object[] { 20L });
+		}
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			assertTrue(journal.isResuming());
+			assertArrayEquals(bound, journal.getBound(0));
+			assertArrayEquals(position, journal.getCommitted(0));
+			assertNull(journal.getInDoubt(0));
+			assertNull(journal.getCommitted(1));
+			assertArrayEquals(new Object[] { 20L }, journal.getInDoubt(1));
+		}
+	}
+
+	@Test
+	void tornTailIsIgnored() throws IOException {
+		File file = new File(dir, "journal");
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			journal.commit(0, new Object[] { 5L });
+			journal.commit(0, new Object[] { 6L });
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			long offset = HEADER_SIZE + LONG_RECORD_SIZE + 4 + 20;	// a byte of the value of the second record.
+			raf.seek(offset);
+			int b = raf.read();
+			raf.seek(offset);
+			raf.write(b ^ 0xff);
+		}
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			assertArrayEquals(new Object[] { 5L }, journal.getCommitted(0));
+			journal.commit(0, new Object[] { 7L });	// overwrites the torn record.
+		}
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			assertArrayEquals(new Object[] { 7L }, journal.getCommitted(0));
+		}
+	}
+
+	@Test
+	void partialLengthIsIgnored() throws IOException {
+		File file = new File(dir, "journal");
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			journal.commit(3, new Object[] { 1L });
+		}
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(HEADER_SIZE + LONG_RECORD_SIZE);
+			raf.writeInt(Integer.MAX_VALUE);	// length of a record never written.
+		}
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			assertArrayEquals(new Object[] { 1L }, journal.getCommitted(3));
+			journal.commit(3, new Object[] { 2L });
+		}
+		try (CheckpointJournal journal = CheckpointJournal.open(file, FINGERPRINT)) {
+			assertArrayEquals(new Object[] { 2L }, journal.getCommitted(3));
+		}
+	}
+
+	@Test
+	void otherArgumentsAreRefused() throws IOException {
+		final File file = new File(dir, "journal");
+		CheckpointJournal.open(file, FINGERPRINT).close();
+		IOException e = assertThrows(IOException.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				CheckpointJournal.open(file, FINGERPRINT + 1);
+			}
+		});
+		assertEquals("checkpoint journal was written with other arguments.", e.getMessage());
+	}
+}
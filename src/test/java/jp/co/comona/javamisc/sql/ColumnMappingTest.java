@@ -0,0 +1,142 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * column mapping test, source columns are mapped by name with NOW(), NULL & DEFAULT fillers on embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class ColumnMappingTest {
+
+	private static final String[] NOW = { "created" };
+	private static final String[] NULLS = { "code" };
+	private static final String[] DEFAULTS = { "Note" };
+
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		con = DriverManager.getConnection("jdbc:h2:mem:mapping;MODE=MySQL");
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("CREATE TABLE src (id BIGINT PRIMARY KEY, Name VARCHAR(20), amount VARCHAR(10), note VARCHAR(20), extra INT)");
+			stmt.execute("CREATE TABLE dst (id BIGINT AUTO_INCREMENT PRIMARY KEY, NAME VARCHAR(20), amount INT, created TIMESTAMP,"
+					+ " note VARCHAR(20) DEFAULT 'default', flag INT DEFAULT 7, code VARCHAR(10) DEFAULT 'code')");
+			stmt.execute("INSERT INTO src VALUES(1, 'a', ' 10 ', 'source', 100)");
+			stmt.execute("INSERT INTO src VALUES(2, NULL, NULL, 'source', 200)");
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		con.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void columnsAreMappedByNameWithFillers() throws Exception {
+		ColumnMapping mapping = new ColumnMapping(SQLDialect.MYSQL, meta("src"), meta("dst"), false, null, null, null, DEFAULTS, NOW, NULLS);
+		assertEquals(Arrays.asList("ID", "NAME", "AMOUNT", "CREATED", "CODE"), mapping.getTargetColumns());	// NOTE is DEFAULT, FLAG is not in the source.
+		assertEquals(Arrays.asList("ID", "NAME", "AMOUNT"), mapping.getBoundColumns());
+		assertEquals(Collections.singletonList("EXTRA"), mapping.getUnmappedColumns());
+		assertTrue(mapping.hasLiteral());
+		assertEquals(2, mapping.getSourceIndex("name"));
+		assertEquals(0, mapping.getSourceIndex("amount"));	// converted from string.
+		assertEquals("INSERT INTO dst (`ID`, `NAME`, `AMOUNT`, `CREATED`, `CODE`) VALUES(?, ?, ?, NOW(), NULL)", mapping.createInsertSql(SQLDialect.MYSQL, "dst"));
+
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM src ORDER BY id");
+				PreparedStatement ps = con.prepareStatement(mapping.createInsertSql(SQLDialect.MYSQL, "dst"))) {
+			RowBuffer buffer = new RowBuffer(rs.getMetaData(), 10);
+			while (rs.next()) {
+				buffer.add(rs);
+			}
+			for (int row = 0; row < buffer.size(); row++) {
+				mapping.bind(ps, buffer, row, 1);
+				ps.executeUpdate();
+			}
+		}
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM dst ORDER BY id")) {
+			assertTrue(rs.next());
+			assertEquals("a", rs.getString("name"));
+			assertEquals(10, rs.getInt("amount"));
+			assertNotNull(rs.getTimestamp("created"));
+			assertEquals("default", rs.getString("note"));
+			assertEquals(7, rs.getInt("flag"));
+			assertNull(rs.getString("code"));
+			assertTrue(rs.next());
+			assertNull(rs.getString("name"));
+			assertEquals(0, rs.getInt("amount"));
+			assertTrue(rs.wasNull());
+			assertFalse(rs.next());
+		}
+	}
+
+	@Test
+	void replaceValuesAreCopiedServerSide() throws Exception {
+		ColumnMapping mapping = new ColumnMapping(SQLDialect.MYSQL, meta("src"), meta("dst"), false, new String[] { "name" }, new String[] { "fixed" },
+				null, DEFAULTS, NOW, NULLS);
+		assertTrue(mapping.isServerSide());
+		String sql = mapping.createInsertSelectSql(SQLDialect.MYSQL, "dst", meta("dst"), "src", meta("src"));
+		assertEquals("INSERT INTO dst (`ID`, `NAME`, `AMOUNT`, `CREATED`, `CODE`) SELECT `ID`, ?, `AMOUNT`, NOW(), NULL FROM src", sql);
+		try (PreparedStatement ps = con.prepareStatement(sql + " WHERE id = 1")) {
+			assertEquals(2, mapping.bindReplaceValues(ps));
+			assertEquals(1, ps.executeUpdate());
+		}
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT name, amount, note, code FROM dst")) {
+			assertTrue(rs.next());
+			assertEquals("fixed", rs.getString(1));
+			assertEquals(10, rs.getInt(2));
+			assertEquals("default", rs.getString(3));
+			assertNull(rs.getString(4));
+		}
+	}
+
+	@Test
+	void autoIncrementOfSameTableIsDefault() throws Exception {
+		ColumnMapping mapping = new ColumnMapping(SQLDialect.MYSQL, meta("dst"), meta("dst"), true, null, null, null, null, null, null);
+		assertFalse(mapping.getTargetColumns().contains("ID"));
+		assertFalse(mapping.hasLiteral());
+		assertTrue(mapping.getUnmappedColumns().isEmpty());
+	}
+
+	@Test
+	void nothingToInsertFails() {
+		assertThrows(SQLException.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				new ColumnMapping(SQLDialect.MYSQL, meta("src"), meta("dst"), true, null, null, null,
+						new String[] { "name", "amount", "note", "flag", "code" }, new String[0], null);
+			}
+		});
+	}
+
+	// MARK: - Helpers
+	private ResultSetMetaData meta(String table) throws SQLException {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+			return new DetachedMetaData(rs.getMetaData());	// usable after the result set is closed.
+		}
+	}
+}
@@ -0,0 +1,171 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * COPY statement test, parameters are encoded in COPY text format & copied into embedded H2 by a stand-in copy API.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CopyInStatementTest {
+
+	private static final String COPY_SQL = "COPY t (id, name, flag, amount, data) FROM STDIN";
+
+	@TempDir
+	File dir;
+
+	private Connection h2;
+	private CopyManager copyManager;
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		h2 = DriverManager.getConnection("jdbc:h2:mem:copyin");
+		try (Statement stmt = h2.createStatement()) {
+			stmt.execute("CREATE TABLE t (id BIGINT PRIMARY KEY, name VARCHAR(40), flag BOOLEAN, amount DECIMAL(10, 2), data VARBINARY(10))");
+		}
+		copyManager = new CopyManager(h2);
+		con = pgConnection(h2, copyManager);
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = h2.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		h2.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void isSupportedByDriverConnectionOnly() {
+		assertTrue(CopyInStatement.isSupported(con));
+		assertFalse(CopyInStatement.isSupported(h2));
+	}
+
+	@Test
+	void valuesAreEncodedInTextFormat() throws SQLException {
+		try (PreparedStatement ps = CopyInStatement.create(con, COPY_SQL, 5)) {
+			ps.setLong(1, 1);
+			ps.setString(2, "a\tb\\c\nd\re");
+			ps.setBoolean(3, true);
+			ps.setBigDecimal(4, new BigDecimal("1E+2"));
+			ps.setBytes(5, new byte[] { 0, (byte)0xff, 0x1a });
+			ps.addBatch();
+			ps.setLong(1, 2);
+			ps.setNull(2, Types.VARCHAR);
+			ps.setBoolean(3, false);
+			ps.setNull(4, Types.DECIMAL);
+			ps.setNull(5, Types.VARBINARY);
+			ps.addBatch();
+			assertEquals(0, copyManager.getCopyCount());
+			assertEquals(2, ps.executeBatch().length);
+		}
+		assertEquals(1, copyManager.getCopyCount());
+		assertEquals(Arrays.asList(
+				"1\ta\\tb\\\\c\\nd\\re\tt\t100\t\\\\x00ff1a",
+				"2\t\\N\tf\t\\N\t\\N"), copyManager.getLines());
+		try (Statement stmt = h2.createStatement(); ResultSet rs = stmt.executeQuery("SELECT name, flag, amount, data FROM t ORDER BY id")) {
+			assertTrue(rs.next());
+			assertEquals("a\tb\\c\nd\re", rs.getString(1));
+			assertTrue(rs.getBoolean(2));
+			assertEquals(0, new BigDecimal(100).compareTo(rs.getBigDecimal(3)));
+			assertArrayEquals(new byte[] { 0, (byte)0xff, 0x1a }, rs.getBytes(4));
+			assertTrue(rs.next());
+			assertNull(rs.getString(1));
+			assertFalse(rs.getBoolean(2));
+			assertNull(rs.getBytes(4));
+		}
+	}
+
+	@Test
+	void failedCopyIsBisectedToRejectedRows() throws Exception {
+		try (Statement stmt = h2.createStatement()) {
+			stmt.execute("INSERT INTO t (id, name) VALUES (3, 'existing')");
+		}
+		h2.setAutoCommit(false);
+		File file = new File(dir, "reject.csv");
+		try (RejectWriter writer = new RejectWriter(file, SQLDialect.POSTGRESQL);
+				PreparedStatement ps = CopyInStatement.create(con, COPY_SQL, 5)) {
+			((BatchStatement)ps).setRejectWriter(writer);
+			for (long id = 1; id <= 8; id++) {
+				ps.setLong(1, id);
+				ps.setString(2, "n\t\"" + id + "\"");
+				ps.setNull(3, Types.BOOLEAN);
+				ps.setNull(4, Types.DECIMAL);
+				ps.setNull(5, Types.VARBINARY);
+				ps.addBatch();
+			}
+			assertTrue(((BatchStatement)ps).getBatchBytes() > 0);
+			ps.executeBatch();
+			assertEquals(0, ((BatchStatement)ps).getBatchBytes());
+			assertEquals(1, writer.getRowCount());
+		}
+		h2.commit();
+		String rejected = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+		assertTrue(rejected.startsWith("\"3\",\"n\t\"\"3\"\"\",,,,\"23505 "), rejected);	// the decoded values of the row, the message has line breaks.
+		try (Statement stmt = h2.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t WHERE name LIKE 'n%'")) {
+			assertTrue(rs.next());
+			assertEquals(7, rs.getInt(1));
+		}
+	}
+
+	// MARK: - Helpers
+	/**
+	 * wrap H2 connection as a driver connection with copy API.
+	 * @param connection H2 connection.
+	 * @param copyManager copy API.
+	 * @return connection.
+	 */
+	private static Connection pgConnection(final Connection connection, final CopyManager copyManager) {
+		return (Connection)Proxy.newProxyInstance(PGConnection.class.getClassLoader(), new Class<?>[] { Connection.class, PGConnection.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				switch (method.getName()) {
+					case "getCopyAPI":
+						return copyManager;
+					case "isWrapperFor":
+						return ((Class<?>)args[0]).isInstance(proxy);
+					case "unwrap":
+						return proxy;
+
+					default:
+						try {
+							return method.invoke(connection, args);
+						}
+						catch (InvocationTargetException e) {
+							throw e.getCause();
+						}
+				}
+			}
+		});
+	}
+}
@@ -0,0 +1,122 @@
+package jp.co.comona.javamisc.sql;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * copy record test, chunked copy with checkpoint journal on embedded H2, killed around the commit of a chunk.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CopyRecordTest {
+
+	private static final String URL = "jdbc:h2:mem:copy;MODE=MySQL";
+	private static final int ROWS = 10;
+	private static final int CHUNK_SIZE = 3;
+
+	@TempDir
+	File dir;
+
+	private Connection keeper;	// keep the in-memory database while the copies own their connections.
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		keeper = DriverManager.getConnection(URL);
+		try (Statement stmt = keeper.createStatement()) {
+			stmt.execute("CREATE TABLE src (id BIGINT PRIMARY KEY, grp INT, name VARCHAR(20))");
+			stmt.execute("CREATE TABLE dst (id BIGINT PRIMARY KEY, grp INT, name VARCHAR(20))");
+			for (int id = 1; id <= ROWS; id++) {
+				stmt.execute("INSERT INTO src VALUES(" + id + ", 1, 'n" + id + "')");
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = keeper.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		keeper.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void chunksAreCopied() throws Exception {
+		copy(dataSource(), new File(dir, "journal"));
+		assertEquals(ROWS, count("dst"));
+		assertEquals(0, count(CheckpointMarker.TABLE_NAME));
+	}
+
+	@Test
+	void chunkCommittedBeforeKillIsNotCopiedAgain() throws Exception {
+		final File journal = new File(dir, "journal");
+		assertThrows(KillingDataSource.Killed.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				copy(new KillingDataSource(URL, "dst", true), journal);
+			}
+		});
+		assertEquals(CHUNK_SIZE, count("dst"));
+		try (CheckpointJournal loaded = CheckpointJournal.open(journal, markerFingerprint())) {
+			assertEquals(CHUNK_SIZE, ((Number)loaded.getInDoubt(0)[0]).intValue());
+		}
+
+		copy(dataSource(), journal);
+		assertEquals(ROWS, count("dst"));	// a chunk copied twice fails by the primary key.
+	}
+
+	@Test
+	void chunkKilledBeforeCommitIsCopiedAgain() throws Exception {
+		final File journal = new File(dir, "journal");
+		assertThrows(KillingDataSource.Killed.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				copy(new KillingDataSource(URL, "dst", false), journal);
+			}
+		});
+		assertEquals(0, count("dst"));
+
+		copy(dataSource(), journal);
+		assertEquals(ROWS, count("dst"));	// a chunk copied twice fails by the primary key.
+	}
+
+	// MARK: - Helpers
+	private static void copy(JdbcDataSource dataSource, File journal) throws Exception {
+		CopyRecordRequest.builder(dataSource, "src").target("dst").key("grp", "1").chunkSize(CHUNK_SIZE).journal(journal).build().execute();
+	}
+
+	private static JdbcDataSource dataSource() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(URL);
+		return dataSource;
+	}
+
+	private long markerFingerprint() throws SQLException {
+		try (PreparedStatement ps = keeper.prepareStatement("SELECT fingerprint FROM " + CheckpointMarker.TABLE_NAME); ResultSet rs = ps.executeQuery()) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+
+	private long count(String table) throws SQLException {
+		try (Statement stmt = keeper.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
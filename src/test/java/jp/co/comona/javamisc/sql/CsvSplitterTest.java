@@ -0,0 +1,134 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * CSV splitter test, chunks are parsed by CSV parser as the writers do.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class CsvSplitterTest {
+
+	@TempDir
+	Path dir;
+
+	// MARK: - Tests
+	@Test
+	void quotedNewlineDoesNotEndChunk() throws IOException {
+		File file = write("1,\"first\nline\"\n2,second\n");
+		try (CsvSplitter splitter = new CsvSplitter(file)) {
+			assertTrue(splitter.next(1));
+			List<String[]> records = parse(splitter);
+			assertEquals(1, records.size());
+			assertArrayEquals(new String[] { "1", "first\nline" }, records.get(0));
+
+			assertTrue(splitter.next(1));
+			assertArrayEquals(new String[] { "2", "second" }, parse(splitter).get(0));
+			assertFalse(splitter.next(1));
+		}
+	}
+
+	@Test
+	void doubledQuotesAreEscapes() throws IOException {
+		File file = write("1,\"say \"\"hi\"\"\n\"\"\"\n2,\"\",\n");
+		try (CsvSplitter splitter = new CsvSplitter(file)) {
+			assertTrue(splitter.next(1));
+			List<String[]> records = parse(splitter);
+			assertEquals(1, records.size());
+			assertArrayEquals(new String[] { "1", "say \"hi\"\n\"" }, records.get(0));
+
+			assertTrue(splitter.next(1));
+			assertArrayEquals(new String[] { "2", "", null }, parse(splitter).get(0));
+		}
+	}
+
+	@Test
+	void lastChunkEndsAtEndOfFile() throws IOException {
+		File file = write("1,a\n2,\"b\nc\"");
+		try (CsvSplitter splitter = new CsvSplitter(file)) {
+			assertTrue(splitter.next(1));
+			assertEquals(4, splitter.getChunkEnd());
+			assertTrue(splitter.next(1));
+			assertEquals(4, splitter.getChunkStart());
+			assertEquals(file.length(), splitter.getChunkEnd());
+			assertArrayEquals(new String[] { "2", "b\nc" }, parse(splitter).get(0));
+			assertFalse(splitter.next(1));
+		}
+	}
+
+	@Test
+	void headerIsOwnChunk() throws IOException {
+		File file = write("id,name\n1,a\n2,b\n3,c\n");
+		try (CsvSplitter splitter = new CsvSplitter(file)) {
+			assertTrue(splitter.next(1));
+			List<String[]> header = parse(splitter);
+			assertEquals(1, header.size());
+			assertArrayEquals(new String[] { "id", "name" }, header.get(0));
+
+			assertTrue(splitter.next(1024));
+			List<String[]> records = parse(splitter);
+			assertEquals(3, records.size());
+			assertArrayEquals(new String[] { "3", "c" }, records.get(2));
+			assertFalse(splitter.next(1024));
+		}
+	}
+
+	@Test
+	void chunksEndAtRecordAfterSize() throws IOException {
+		File file = write("1,aaaa\n2,bbbb\n3,\"c\nc\"\n4,dddd\n");
+		List<String[]> records = new ArrayList<>();
+		int chunkCount = 0;
+		try (CsvSplitter splitter = new CsvSplitter(file)) {
+			while (splitter.next(10)) {
+				chunkCount++;
+				records.addAll(parse(splitter));
+			}
+		}
+		assertEquals(2, chunkCount);
+		assertEquals(4, records.size());
+		assertArrayEquals(new String[] { "3", "c\nc" }, records.get(2));
+	}
+
+	// MARK: - Helpers
+	/**
+	 * write CSV file.
+	 * @param content content.
+	 * @return file.
+	 * @throws IOException when I/O error.
+	 */
+	private File write(String content) throws IOException {
+		Path path = dir.resolve("test.csv");
+		Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+		return path.toFile();
+	}
+
+	/**
+	 * parse records of current chunk.
+	 * @param splitter CSV splitter.
+	 * @return records.
+	 * @throws IOException when malformed.
+	 */
+	private static List<String[]> parse(CsvSplitter splitter) throws IOException {
+		CsvParser parser = new CsvParser(',');
+		parser.reset(splitter.map(splitter.getChunkStart(), splitter.getChunkEnd()), splitter.getChunkStart());
+		List<String[]> records = new ArrayList<>();
+		while (parser.nextRecord()) {
+			records.add(parser.getStrings());
+		}
+		return records;
+	}
+}
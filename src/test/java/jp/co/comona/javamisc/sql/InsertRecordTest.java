@@ -0,0 +1,168 @@
+package jp.co.comona.javamisc.sql;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * insert record test, generate, snapshot & CSV loads with checkpoint journal on embedded H2, killed after a batch is committed.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class InsertRecordTest {
+
+	private static final String URL = "jdbc:h2:mem:insert;MODE=MySQL";
+	private static final int ROWS = 10;
+	private static final int BATCH_SIZE = 3;
+
+	@TempDir
+	File dir;
+
+	private Connection keeper;	// keep the in-memory database while the loads own their connections.
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		keeper = DriverManager.getConnection(URL);
+		try (Statement stmt = keeper.createStatement()) {
+			stmt.execute("CREATE TABLE src (id BIGINT PRIMARY KEY, grp INT, name VARCHAR(20))");
+			stmt.execute("CREATE TABLE dst (id BIGINT PRIMARY KEY, grp INT, name VARCHAR(20))");
+			stmt.execute("CREATE TABLE gen (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20))");
+			for (int id = 1; id <= ROWS; id++) {
+				stmt.execute("INSERT INTO src VALUES(" + id + ", 1, 'n" + id + "')");
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = keeper.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		keeper.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void generateResumesEachWriter() throws Exception {
+		final File journal = new File(dir, "journal");
+		killed(new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				generate(new KillingDataSource(URL, "gen", true), journal);
+			}
+		});
+		assertTrue(count("gen") < ROWS * 2);
+
+		generate(dataSource(), journal);
+		assertEquals(ROWS * 2, count("gen"));
+		assertEquals(0, count(CheckpointMarker.TABLE_NAME));
+	}
+
+	@Test
+	void snapshotResumesAfterCommittedRows() throws Exception {
+		final File snapshot = new File(dir, "snapshot");
+		CopyRecordRequest.builder(dataSource(), "src").key("grp", "1").export(snapshot).build().execute();
+		final File journal = new File(dir, "journal");
+		killed(new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				InsertRecordRequest.builder(new KillingDataSource(URL, "dst", true), "dst").snapshot(snapshot).batchSize(BATCH_SIZE).journal(journal).build().execute();
+			}
+		});
+		assertEquals(BATCH_SIZE, count("dst"));
+
+		RecordResult result = InsertRecordRequest.builder(dataSource(), "dst").snapshot(snapshot).batchSize(BATCH_SIZE).journal(journal).build().execute();
+		assertEquals(ROWS - BATCH_SIZE, result.getRecordCount());
+		assertEquals(ROWS, count("dst"));	// a row inserted twice fails by the primary key.
+	}
+
+	@Test
+	void csvResumesInsideChunk() throws Exception {
+		final File csv = new File(dir, "rows.csv");
+		StringBuilder sb = new StringBuilder();
+		for (int id = 1; id <= ROWS; id++) {
+			sb.append(id).append(",1,\"n").append(id).append("\"\n");
+		}
+		write(csv, sb.toString());
+		final File journal = new File(dir, "journal");
+		killed(new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				csv(new KillingDataSource(URL, "dst", true), csv, journal);
+			}
+		});
+		assertEquals(BATCH_SIZE, count("dst"));
+
+		csv(dataSource(), csv, journal);
+		assertEquals(ROWS, count("dst"));	// a row inserted twice fails by the primary key.
+	}
+
+	@Test
+	void csvBatchKilledBeforeCommitIsWrittenAgain() throws Exception {
+		final File csv = new File(dir, "rows.csv");
+		StringBuilder sb = new StringBuilder();
+		for (int id = 1; id <= ROWS; id++) {
+			sb.append(id).append(",1,n").append(id).append('\n');
+		}
+		write(csv, sb.toString());
+		final File journal = new File(dir, "journal");
+		killed(new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				csv(new KillingDataSource(URL, "dst", false), csv, journal);
+			}
+		});
+		assertEquals(0, count("dst"));
+
+		csv(dataSource(), csv, journal);
+		assertEquals(ROWS, count("dst"));
+	}
+
+	// MARK: - Helpers
+	private static void killed(Executable executable) {
+		Throwable thrown = assertThrows(Throwable.class, executable);
+		assertTrue((thrown instanceof KillingDataSource.Killed) || (thrown.getCause() instanceof KillingDataSource.Killed), thrown.toString());
+	}
+
+	private static void generate(JdbcDataSource dataSource, File journal) throws Exception {
+		InsertRecordRequest.builder(dataSource, "gen").generate(ROWS * 2).threads(2).batchSize(BATCH_SIZE).journal(journal).build().execute();
+	}
+
+	private static void csv(JdbcDataSource dataSource, File csv, File journal) throws Exception {
+		InsertRecordRequest.builder(dataSource, "dst").csv(csv).threads(2).batchSize(BATCH_SIZE).journal(journal).build().execute();
+	}
+
+	private static JdbcDataSource dataSource() {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(URL);
+		return dataSource;
+	}
+
+	private static void write(File file, String text) throws IOException {
+		Files.write(file.toPath(), text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private long count(String table) throws SQLException {
+		try (Statement stmt = keeper.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
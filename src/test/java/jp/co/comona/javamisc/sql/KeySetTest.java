@@ -0,0 +1,165 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * key set test, rows are staged by row buffer from embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class KeySetTest {
+
+	private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		con = DriverManager.getConnection("jdbc:h2:mem:keyset;MODE=MySQL");
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("CREATE TABLE t (id BIGINT, a BIGINT, b BIGINT, name VARCHAR(100))");
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		con.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void singleIntegralKeyIsKept() throws SQLException {
+		insert(0, 0, 0, null);
+		insert(5, 0, 0, null);
+		insert(5, 0, 0, null);
+		RowBuffer buffer = select("id");
+		int[] columns = { 1 };
+		assertTrue(KeySet.isKept(buffer, columns));
+
+		KeySet keySet = new KeySet();
+		assertTrue(keySet.add(buffer, 0, columns));
+		assertTrue(keySet.add(buffer, 1, columns));
+		assertFalse(keySet.add(buffer, 2, columns));
+		assertEquals(2, keySet.size());
+		assertTrue(keySet.contains(0));
+		assertTrue(keySet.contains(5));
+		assertFalse(keySet.contains(6));
+	}
+
+	@Test
+	void stringKeysGrow() throws SQLException {
+		int count = 5000;
+		try (PreparedStatement ps = con.prepareStatement("INSERT INTO t (name) VALUES (?)")) {
+			for (int i = 0; i < count; i++) {
+				ps.setString(1, "key-" + i);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+		RowBuffer buffer = select("name");
+		int[] columns = { 1 };
+		assertFalse(KeySet.isKept(buffer, columns));
+
+		KeySet keySet = new KeySet();
+		for (int row = 0; row < count; row++) {
+			assertTrue(keySet.add(buffer, row, columns));
+		}
+		for (int row = 0; row < count; row++) {
+			assertFalse(keySet.add(buffer, row, columns));
+		}
+		assertEquals(count, keySet.size());
+		assertEquals(0, keySet.getCollisionCount());
+	}
+
+	@Test
+	void keysOfSameHashAreToldApart() throws SQLException {
+		long a1 = 1;
+		long b1 = 2;
+		long a2 = 3;
+		long b2 = mix(FNV_OFFSET ^ a1) ^ b1 ^ mix(FNV_OFFSET ^ a2);	// the 64 bit hash of (a2, b2) is that of (a1, b1).
+		insert(0, a1, b1, null);
+		insert(0, a2, b2, null);
+		insert(0, a2, b2, null);
+		RowBuffer buffer = select("a, b");
+		int[] columns = { 1, 2 };
+
+		KeySet keySet = new KeySet();
+		assertTrue(keySet.add(buffer, 0, columns));
+		assertTrue(keySet.add(buffer, 1, columns));
+		assertEquals(1, keySet.getCollisionCount());
+		assertFalse(keySet.add(buffer, 2, columns));
+		assertEquals(2, keySet.size());
+	}
+
+	@Test
+	void nullKeyIsFound() throws SQLException {
+		insert(1, 0, 0, null);
+		insert(1, 0, 0, "x");
+		RowBuffer buffer = select("id, name");
+		int[] columns = { 1, 2 };
+		assertTrue(KeySet.hasNull(buffer, 0, columns));
+		assertFalse(KeySet.hasNull(buffer, 1, columns));
+	}
+
+	// MARK: - Helpers
+	/**
+	 * insert row.
+	 * @param id id.
+	 * @param a a.
+	 * @param b b.
+	 * @param name name.
+	 * @throws SQLException when SQL error.
+	 */
+	private void insert(long id, long a, long b, String name) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement("INSERT INTO t (id, a, b, name) VALUES (?, ?, ?, ?)")) {
+			ps.setLong(1, id);
+			ps.setLong(2, a);
+			ps.setLong(3, b);
+			ps.setString(4, name);
+			ps.executeUpdate();
+		}
+	}
+
+	/**
+	 * stage all rows into row buffer.
+	 * @param columns columns to select.
+	 * @return row buffer.
+	 * @throws SQLException when SQL error.
+	 */
+	private RowBuffer select(String columns) throws SQLException {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT " + columns + " FROM t ORDER BY _ROWID_")) {
+			RowBuffer buffer = new RowBuffer(rs.getMetaData(), 10000);
+			while (rs.next()) {
+				buffer.add(rs);
+			}
+			return buffer;
+		}
+	}
+
+	/**
+	 * mix bits as the key set does, finalizer of MurmurHash3.
+	 * @param value value.
+	 * @return mixed value.
+	 */
+	private static long mix(long value) {
+		value ^= value >>> 33;
+		value *= 0xff51afd7ed558ccdL;
+		value ^= value >>> 33;
+		value *= 0xc4ceb9fe1a85ec53L;
+		value ^= value >>> 33;
+		return value;
+	}
+}
@@ -0,0 +1,128 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * keyset cursor test, composite key walks on embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class KeysetCursorTest {
+
+	private static final String[] KEYS = { "a", "b" };
+
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		con = DriverManager.getConnection("jdbc:h2:mem:cursor;MODE=MySQL");
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("CREATE TABLE t (a INT, b INT, grp INT, PRIMARY KEY (a, b))");
+			for (int a = 1; a <= 4; a++) {
+				for (int b = 3; b >= 1; b--) {	// inserted out of key order.
+					stmt.execute("INSERT INTO t VALUES(" + a + ", " + b + ", " + (b % 2) + ")");
+				}
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		con.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void chunksWalkCompositeKeyInOrder() throws SQLException {
+		KeysetCursor cursor = new KeysetCursor(SQLDialect.MYSQL, "t", KEYS, null);
+		List<String> keys = new ArrayList<>();
+		int chunks = 0;
+		int fetched;
+		do {
+			fetched = nextChunk(cursor, 5, keys);
+			chunks++;
+		} while (fetched == 5);
+		assertEquals(3, chunks);
+		assertEquals(12, keys.size());
+		int index = 0;
+		for (int a = 1; a <= 4; a++) {
+			for (int b = 1; b <= 3; b++) {
+				assertEquals(a + "," + b, keys.get(index++));	// "a > ? OR (a = ? AND b > ?)" continues inside the same a.
+			}
+		}
+	}
+
+	@Test
+	void lastKeyIsExclusiveAndUpperKeyIsInclusive() throws SQLException {
+		KeysetCursor cursor = new KeysetCursor(SQLDialect.MYSQL, "t", KEYS, null);
+		cursor.setLastKey(new Object[] { 2, 2 });
+		cursor.setUpperKey(new Object[] { 3, 2 });
+		List<String> keys = new ArrayList<>();
+		nextChunk(cursor, 100, keys);
+		assertEquals(3, keys.size());
+		assertEquals("2,3", keys.get(0));
+		assertEquals("3,2", keys.get(2));
+	}
+
+	@Test
+	void predicateFiltersWalkAndUpperBound() throws SQLException {
+		KeysetCursor cursor = new KeysetCursor(SQLDialect.MYSQL, "t", KEYS, "grp = 1");
+		try (PreparedStatement ps = con.prepareStatement(cursor.upperBoundSql()); ResultSet rs = ps.executeQuery()) {
+			assertTrue(cursor.fixUpperBound(rs));
+		}
+		assertArrayEquals(new Object[] { 4, 3 }, cursor.getUpperKey());
+		List<String> keys = new ArrayList<>();
+		nextChunk(cursor, 100, keys);
+		assertEquals(8, keys.size());	// b is 1 or 3.
+		assertFalse(keys.contains("1,2"));
+	}
+
+	@Test
+	void boundaryIsRowsAfterLastKey() throws SQLException {
+		KeysetCursor cursor = new KeysetCursor(SQLDialect.MYSQL, "t", KEYS, null);
+		cursor.setLastKey(new Object[] { 1, 3 });
+		try (PreparedStatement ps = con.prepareStatement(cursor.nextBoundarySql(4))) {
+			cursor.bind(ps, 1);
+			try (ResultSet rs = ps.executeQuery()) {
+				assertTrue(rs.next());
+				cursor.advance(rs);
+			}
+		}
+		assertArrayEquals(new Object[] { 3, 1 }, cursor.getLastKey());
+	}
+
+	// MARK: - Helpers
+	private int nextChunk(KeysetCursor cursor, int limit, List<String> keys) throws SQLException {
+		int fetched = 0;
+		try (PreparedStatement ps = con.prepareStatement(cursor.nextChunkSql("*", limit))) {
+			cursor.bind(ps, 1);
+			try (ResultSet rs = ps.executeQuery()) {
+				while (rs.next()) {
+					keys.add(rs.getInt("a") + "," + rs.getInt("b"));
+					cursor.advance(rs);
+					fetched++;
+				}
+			}
+		}
+		return fetched;
+	}
+}
@@ -0,0 +1,88 @@
+package jp.co.comona.javamisc.sql;
+
+import org.h2.jdbcx.JdbcDataSource;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * H2 data source killing the run at the first commit writing rows into a table, for checkpoint journal tests.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+@SuppressWarnings("serial")
+class KillingDataSource extends JdbcDataSource {
+
+	/**
+	 * the run is killed, not caught as an exception by the tools.
+	 */
+	static class Killed extends Error {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private final String table;
+	private final boolean afterCommit;
+	private volatile boolean fired = false;
+
+	/**
+	 * constructor.
+	 * @param url H2 URL.
+	 * @param table table written by the run.
+	 * @param afterCommit true to kill after the rows are committed, before the journal records them, false to kill before the commit.
+	 */
+	KillingDataSource(String url, String table, boolean afterCommit) {
+		super();
+		this.table = table;
+		this.afterCommit = afterCommit;
+		setURL(url);
+	}
+
+	@Override
+	public Connection getConnection() throws SQLException {
+		final Connection connection = super.getConnection();
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+			private boolean killed = false;
+
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				boolean commit = method.getName().equals("commit") && !fired;
+				if (killed || (commit && !afterCommit && hasRows(connection))) {
+					kill();
+				}
+				Object result;
+				try {
+					result = method.invoke(connection, args);
+				}
+				catch (InvocationTargetException e) {
+					throw e.getCause();
+				}
+				if (commit && afterCommit && hasRows(connection)) {
+					kill();
+				}
+				return result;
+			}
+
+			private void kill() throws SQLException {
+				if (!killed) {
+					killed = true;	// the process is gone, the server rolls back & drops the connection.
+					fired = true;
+					connection.rollback();
+					connection.close();
+				}
+				throw new Killed();
+			}
+		});
+	}
+
+	private boolean hasRows(Connection connection) throws SQLException {
+		try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM " + table)) {
+			return rs.next() && (rs.getLong(1) > 0);
+		}
+	}
+}
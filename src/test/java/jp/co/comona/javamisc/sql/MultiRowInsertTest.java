@@ -0,0 +1,222 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * multi-row insert test, rows are packed into statements by the placeholder & statement size limits on embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class MultiRowInsertTest {
+
+	private static final String INSERT_SQL = "INSERT INTO t (id, name) VALUES(?, ?)";
+	private static final int PREPARE_THRESHOLD = 5;
+	private static final int MAX_BYTES = 10000;
+
+	private Connection h2;
+	private Connection con;
+	private final List<String> events = new ArrayList<>();
+	private long nextId = 1;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		h2 = DriverManager.getConnection("jdbc:h2:mem:multirow;MODE=MySQL");
+		try (Statement stmt = h2.createStatement()) {
+			stmt.execute("CREATE TABLE t (id BIGINT PRIMARY KEY, name VARCHAR(4000))");
+		}
+		con = recording(h2, events);
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = h2.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		h2.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void firstBatchesGoToSingleRowStatement() throws SQLException {
+		try (PreparedStatement ps = MultiRowInsert.create(con, INSERT_SQL, dialect(10, 0))) {
+			ps.setString(2, "kept");	// set once, stays set after the switch.
+			for (int batch = 0; batch <= PREPARE_THRESHOLD; batch++) {
+				for (int row = 0; row < 3; row++) {
+					ps.setLong(1, nextId++);
+					ps.addBatch();
+				}
+				assertEquals(3, ps.executeBatch().length);
+			}
+		}
+		assertEquals(Arrays.asList("prepare 1", "batch 3", "batch 3", "batch 3", "batch 3", "batch 3", "prepare 3", "update 3"), events);
+		assertEquals(18, count("name = 'kept'"));
+	}
+
+	@Test
+	void rowsArePackedByPlaceholderLimit() throws SQLException {
+		try (PreparedStatement ps = MultiRowInsert.create(con, INSERT_SQL, dialect(11, 0))) {	// 5 rows of 2 placeholders.
+			warmUp(ps);
+			addRows(ps, 12, 1);
+			ps.executeBatch();
+			addRows(ps, 9, 1);
+			ps.executeBatch();
+			addRows(ps, 8, 1);
+			ps.executeBatch();
+		}
+		assertEquals(Arrays.asList(5, 5, 2, 5, 4, 5, 2, 1), updates());	// other tails by powers of two once 4 sizes are cached.
+		assertEquals(29, count("name IS NOT NULL"));
+	}
+
+	@Test
+	void statementsAreSplitByPacketLimit() throws SQLException {
+		long maxStatementBytes = INSERT_SQL.indexOf("(?") + 1024 + MAX_BYTES;	// head & margin of the statement.
+		try (PreparedStatement ps = MultiRowInsert.create(con, INSERT_SQL, dialect(65535, maxStatementBytes))) {
+			warmUp(ps);
+			addRows(ps, 100, 1);	// 43 bytes a row.
+			ps.executeBatch();
+			addRows(ps, 8, 1);
+			addRows(ps, 2, 3000);	// 9040 bytes a row.
+			ps.executeBatch();
+		}
+		assertEquals(Arrays.asList(100, 8, 1, 1), updates());
+		assertEquals(110, count("name IS NOT NULL"));
+	}
+
+	// MARK: - Helpers
+	/**
+	 * execute the batches of the single row statement until rows are packed.
+	 * @param ps multi-row insert.
+	 * @throws SQLException when SQL error.
+	 */
+	private void warmUp(PreparedStatement ps) throws SQLException {
+		for (int batch = 0; batch < PREPARE_THRESHOLD; batch++) {
+			ps.executeBatch();
+		}
+		events.clear();
+	}
+
+	/**
+	 * add rows to the batch.
+	 * @param ps multi-row insert.
+	 * @param rows number of rows.
+	 * @param nameLength length of the name.
+	 * @throws SQLException when SQL error.
+	 */
+	private void addRows(PreparedStatement ps, int rows, int nameLength) throws SQLException {
+		String name = String.join("", Collections.nCopies(nameLength, "n"));
+		for (int row = 0; row < rows; row++) {
+			ps.setLong(1, nextId++);
+			ps.setString(2, name);
+			ps.addBatch();
+		}
+	}
+
+	/**
+	 * get rows of the packed statements executed.
+	 * @return rows per statement in order.
+	 */
+	private List<Integer> updates() {
+		List<Integer> rows = new ArrayList<>();
+		for (String event : events) {
+			if (event.startsWith("update ")) {
+				rows.add(Integer.parseInt(event.substring(7)));
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * count rows of the table.
+	 * @param where predicate.
+	 * @return number of rows.
+	 * @throws SQLException when SQL error.
+	 */
+	private int count(String where) throws SQLException {
+		try (Statement stmt = h2.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM t WHERE " + where)) {
+			rs.next();
+			return rs.getInt(1);
+		}
+	}
+
+	/**
+	 * MySQL dialect with the limits.
+	 * @param maxParameters placeholder limit.
+	 * @param maxStatementBytes statement size limit, 0 if unlimited.
+	 * @return dialect.
+	 */
+	private static SQLDialect dialect(final int maxParameters, final long maxStatementBytes) {
+		return new MySQLDialect() {
+			@Override
+			int getMaxParameters() {
+				return maxParameters;
+			}
+
+			@Override
+			long loadMaxStatementBytes(Connection con) {
+				return maxStatementBytes;
+			}
+		};
+	}
+
+	/**
+	 * wrap H2 connection to record the statements prepared & executed with their rows.
+	 * @param connection H2 connection.
+	 * @param events events, "prepare n", "update n" or "batch n".
+	 * @return connection.
+	 */
+	private static Connection recording(final Connection connection, final List<String> events) {
+		return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] { Connection.class }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+				Object result = invokeOn(connection, method, args);
+				if (method.getName().equals("prepareStatement")) {
+					final PreparedStatement ps = (PreparedStatement)result;
+					final int rows = ((String)args[0]).split("\\(\\?", -1).length - 1;
+					events.add("prepare " + rows);
+					return Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+						@Override
+						public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+							Object result = invokeOn(ps, method, args);
+							if (method.getName().equals("executeUpdate")) {
+								events.add("update " + rows);
+							}
+							else if (method.getName().equals("executeBatch")) {
+								events.add("batch " + ((int[])result).length);
+							}
+							return result;
+						}
+					});
+				}
+				return result;
+			}
+		});
+	}
+
+	private static Object invokeOn(Object target, Method method, Object[] args) throws Throwable {
+		try {
+			return method.invoke(target, args);
+		}
+		catch (InvocationTargetException e) {
+			throw e.getCause();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * pooled data source test, pools of two databases sharing the connections of a host on embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class PooledDataSourceTest {
+
+	private static final String URL_A = "jdbc:h2:mem:poola";
+	private static final String URL_B = "jdbc:h2:mem:poolb";
+
+	// MARK: - Tests
+	@Test
+	void idleConnectionIsReused() throws SQLException {
+		PooledDataSource.HostConnections host = new PooledDataSource.HostConnections(2);
+		try (PooledDataSource pool = new PooledDataSource(URL_A, "", "", host)) {
+			pool.getConnection().close();
+			pool.getConnection().close();
+			assertEquals(1, host.getOpened());
+		}
+		assertEquals(0, host.getOpened());
+	}
+
+	@Test
+	void idleConnectionOfAnotherPoolIsClosedWhenHostIsFull() throws SQLException {
+		PooledDataSource.HostConnections host = new PooledDataSource.HostConnections(2);
+		try (PooledDataSource poolA = new PooledDataSource(URL_A, "", "", host); PooledDataSource poolB = new PooledDataSource(URL_B, "", "", host)) {
+			Connection a1 = poolA.getConnection();
+			Connection a2 = poolA.getConnection();
+			a1.close();
+			a2.close();
+			assertEquals(2, host.getOpened());	// both idle in pool A.
+
+			try (Connection b = poolB.getConnection()) {
+				assertFalse(b.isClosed());
+				assertEquals(2, host.getOpened());	// an idle connection of pool A is closed for it.
+			}
+			Connection b1 = poolB.getConnection();
+			Connection b2 = poolB.getConnection();
+			assertEquals(2, host.getOpened());
+			b1.close();
+			b2.close();
+		}
+		assertEquals(0, host.getOpened());
+	}
+}
@@ -0,0 +1,132 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * reject writer test, batches fail by the rows marked bad.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class RejectWriterTest {
+
+	@TempDir
+	File dir;
+
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		con = DriverManager.getConnection("jdbc:h2:mem:reject");
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		con.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void bisectsToBadRows() throws Exception {
+		FakeRows rows = new FakeRows(1000, "23000", 3, 500, 501, 999);
+		File file = new File(dir, "reject.csv");
+		try (RejectWriter writer = new RejectWriter(file, SQLDialect.MYSQL)) {
+			assertEquals(996, writer.execute(con, rows, 0, 1000));
+			assertEquals(4, writer.getRowCount());
+			assertEquals(4, writer.getBatchRowCount());
+		}
+		assertTrue(rows.statementCount <= 4 * 2 * 10 + 1, "statements " + rows.statementCount);
+		List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+		assertEquals(Arrays.asList(
+				"3,\"row \"\"3\"\"\",,\"23000 bad row 3\"",
+				"500,\"row \"\"500\"\"\",,\"23000 bad row 500\"",
+				"501,\"row \"\"501\"\"\",,\"23000 bad row 501\"",
+				"999,\"row \"\"999\"\"\",,\"23000 bad row 999\""), lines);
+	}
+
+	@Test
+	void bisectsUnderSavepoints() throws Exception {
+		con.setAutoCommit(false);
+		FakeRows rows = new FakeRows(37, "22001", 0, 36);
+		try (RejectWriter writer = new RejectWriter(new File(dir, "reject.csv"), SQLDialect.POSTGRESQL)) {
+			assertEquals(35, writer.execute(con, rows, 0, 37));
+			assertEquals(2, writer.getRowCount());
+		}
+		con.commit();
+	}
+
+	@Test
+	void otherErrorsFail() throws Exception {
+		final FakeRows rows = new FakeRows(10, "08006", 4);
+		try (final RejectWriter writer = new RejectWriter(new File(dir, "reject.csv"), SQLDialect.MYSQL)) {
+			assertThrows(SQLException.class, new Executable() {
+				@Override
+				public void execute() throws Throwable {
+					writer.execute(con, rows, 0, 10);
+				}
+			});
+			assertEquals(0, writer.getRowCount());
+		}
+	}
+
+	@Test
+	void goodBatchIsOneStatement() throws Exception {
+		FakeRows rows = new FakeRows(100, "23000");
+		try (RejectWriter writer = new RejectWriter(new File(dir, "reject.csv"), SQLDialect.MYSQL)) {
+			assertEquals(100, writer.execute(con, rows, 0, 100));
+		}
+		assertEquals(1, rows.statementCount);
+	}
+
+	// MARK: - Fake Rows
+	/**
+	 * rows of a batch, a statement fails if it has a bad row.
+	 */
+	private static class FakeRows implements RejectWriter.BatchRows {
+		private final int count;
+		private final String state;
+		private final Set<Integer> badRows = new HashSet<>();
+		private int statementCount = 0;
+
+		FakeRows(int count, String state, Integer... badRows) {
+			this.count = count;
+			this.state = state;
+			this.badRows.addAll(Arrays.asList(badRows));
+		}
+
+		@Override
+		public int executeRows(int first, int size) throws SQLException {
+			assertTrue((first >= 0) && (size > 0) && (first + size <= count));
+			statementCount++;
+			for (int row = first; row < first + size; row++) {
+				if (badRows.contains(row)) {
+					throw new SQLException("bad row " + row, state);
+				}
+			}
+			return size;
+		}
+
+		@Override
+		public Object[] getValues(int row) {
+			return new Object[] { row, "row \"" + row + "\"", null };
+		}
+	}
+}
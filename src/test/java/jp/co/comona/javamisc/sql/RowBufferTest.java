@@ -0,0 +1,162 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * row buffer test, null bitmap & epoch micros round trips on embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class RowBufferTest {
+
+	private static final int ROWS = 130;
+	private static final int[] NULL_ROWS = { 0, 63, 64, 129 };	// both ends of the first 2 bitmap words & the third.
+
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		con = DriverManager.getConnection("jdbc:h2:mem:rowbuffer;MODE=MySQL");
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("CREATE TABLE t (id BIGINT PRIMARY KEY, n BIGINT, d DOUBLE, s VARCHAR(20))");
+			stmt.execute("CREATE TABLE tm (id BIGINT PRIMARY KEY, dt DATE, tm TIME, ts TIMESTAMP(6))");
+			stmt.execute("CREATE TABLE tm_copy (id BIGINT PRIMARY KEY, dt DATE, tm TIME, ts TIMESTAMP(6))");
+		}
+		try (PreparedStatement ps = con.prepareStatement("INSERT INTO t VALUES(?, ?, ?, ?)")) {
+			for (int row = 0; row < ROWS; row++) {
+				ps.setLong(1, row);
+				if (isNullRow(row)) {
+					ps.setNull(2, Types.BIGINT);
+					ps.setNull(3, Types.DOUBLE);
+					ps.setNull(4, Types.VARCHAR);
+				}
+				else {
+					ps.setLong(2, row * 10L);
+					ps.setDouble(3, row + 0.5);
+					ps.setString(4, "zé" + row);
+				}
+				ps.executeUpdate();
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		con.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void nullBitmapSpansWords() throws SQLException {
+		RowBuffer buffer = read("SELECT n, d, s FROM t ORDER BY id", ROWS);
+		assertTrue(buffer.isFull());
+		for (int row = 0; row < ROWS; row++) {
+			for (int columnIndex = 1; columnIndex <= 3; columnIndex++) {
+				assertEquals(isNullRow(row), buffer.isNull(row, columnIndex), "row " + row + " column " + columnIndex);
+			}
+		}
+		assertEquals(650, buffer.getLong(65, 1));
+		assertEquals(65.5, buffer.getDouble(65, 2));
+		assertEquals("zé65", buffer.getString(65, 3));
+		assertNull(buffer.getString(64, 3));
+		assertEquals(0, buffer.getLong(129, 1));
+	}
+
+	@Test
+	void clearResetsNullBitmap() throws SQLException {
+		final RowBuffer buffer = read("SELECT n FROM t ORDER BY id", ROWS);
+		buffer.clear();
+		assertEquals(0, buffer.size());
+		try (PreparedStatement ps = con.prepareStatement("SELECT n FROM t WHERE n IS NOT NULL ORDER BY id"); ResultSet rs = ps.executeQuery()) {
+			for (int row = 0; row < ROWS && rs.next(); row++) {
+				buffer.add(rs);
+			}
+		}
+		for (int row : NULL_ROWS) {
+			assertFalse(buffer.isNull(row, 1), "row " + row);
+		}
+		assertThrows(IllegalStateException.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				try (PreparedStatement ps = con.prepareStatement("SELECT n FROM t WHERE id = 1"); ResultSet rs = ps.executeQuery()) {
+					rs.next();
+					for (int row = 0; row <= ROWS; row++) {
+						buffer.add(rs);
+					}
+				}
+			}
+		});
+	}
+
+	@Test
+	void temporalValuesRoundTripAsEpochMicros() throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("INSERT INTO tm VALUES(1, '2026-10-18', '12:34:56', '2026-10-18 12:34:56.123456')");
+			stmt.execute("INSERT INTO tm VALUES(2, '1969-12-31', '00:00:01', '1969-12-31 23:59:59.000001')");	// negative epoch, floor division.
+			stmt.execute("INSERT INTO tm VALUES(3, NULL, NULL, NULL)");
+		}
+		RowBuffer buffer = read("SELECT id, dt, tm, ts FROM tm ORDER BY id", 10);
+		assertEquals(RowBuffer.KIND_TEMPORAL, buffer.getKind(4));
+		Timestamp expected = Timestamp.valueOf("1969-12-31 23:59:59.000001");
+		assertEquals(Math.floorDiv(expected.getTime(), 1000) * 1000000 + 1, buffer.getRawLong(1, 4));
+		assertEquals("1969-12-31 23:59:59.000001", buffer.getString(1, 4));
+		assertTrue(buffer.isNull(2, 4));
+
+		try (PreparedStatement ps = con.prepareStatement("INSERT INTO tm_copy VALUES(?, ?, ?, ?)")) {
+			for (int row = 0; row < buffer.size(); row++) {
+				for (int columnIndex = 1; columnIndex <= 4; columnIndex++) {
+					buffer.bind(ps, columnIndex, row, columnIndex);
+				}
+				ps.executeUpdate();
+			}
+		}
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM tm a JOIN tm_copy b ON a.id = b.id"
+						+ " WHERE (a.dt = b.dt OR a.dt IS NULL AND b.dt IS NULL) AND (a.tm = b.tm OR a.tm IS NULL AND b.tm IS NULL)"
+						+ " AND (a.ts = b.ts OR a.ts IS NULL AND b.ts IS NULL)")) {
+			assertTrue(rs.next());
+			assertEquals(3, rs.getInt(1));
+		}
+	}
+
+	// MARK: - Helpers
+	private RowBuffer read(String sql, int capacity) throws SQLException {
+		try (PreparedStatement ps = con.prepareStatement(sql); ResultSet rs = ps.executeQuery()) {
+			RowBuffer buffer = new RowBuffer(rs.getMetaData(), capacity);
+			while (rs.next()) {
+				buffer.add(rs);
+			}
+			return buffer;
+		}
+	}
+
+	private static boolean isNullRow(int row) {
+		for (int nullRow : NULL_ROWS) {
+			if (row == nullRow) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,233 @@
+package jp.co.comona.javamisc.sql;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * shard router test, shards are embedded H2 databases.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class ShardRouterTest {
+
+	private static final int SHARD_COUNT = 3;
+	private static final String INSERT_SQL = "INSERT INTO t VALUES(?, ?)";
+
+	@TempDir
+	File dir;
+
+	private final Connection[] keepers = new Connection[SHARD_COUNT];	// keep the in-memory shards while the router owns its connections.
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		for (int i = 0; i < SHARD_COUNT; i++) {
+			keepers[i] = DriverManager.getConnection(url(i));
+			try (Statement stmt = keepers[i].createStatement()) {
+				stmt.execute("CREATE TABLE t (id BIGINT, name VARCHAR(20))");
+			}
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		for (Connection keeper : keepers) {
+			keeper.close();
+		}
+	}
+
+	// MARK: - Tests
+	@Test
+	void integralKeyIsModuloOfValue() throws SQLException {
+		try (PreparedStatement ps = create(1)) {
+			for (long id = -10; id < 20; id++) {
+				ps.setLong(1, id);
+				ps.setString(2, "n" + id);
+				ps.addBatch();
+			}
+			assertEquals(30, ps.executeBatch().length);
+		}
+		for (int shard = 0; shard < SHARD_COUNT; shard++) {
+			List<Object[]> rows = rows(shard);
+			assertEquals(10, rows.size());
+			for (Object[] row : rows) {
+				assertEquals(shard, Math.floorMod((Long)row[0], SHARD_COUNT));
+			}
+		}
+	}
+
+	@Test
+	void stringKeyIsModuloOfCrc32() throws SQLException {
+		List<String> names = new ArrayList<>();
+		try (PreparedStatement ps = create(2)) {
+			for (int i = 0; i < 30; i++) {
+				names.add("name-" + i);
+				ps.setLong(1, i);
+				ps.setString(2, "name-" + i);
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+		int total = 0;
+		for (int shard = 0; shard < SHARD_COUNT; shard++) {
+			for (Object[] row : rows(shard)) {
+				CRC32 crc = new CRC32();
+				crc.update(((String)row[1]).getBytes(StandardCharsets.UTF_8));
+				assertEquals(shard, crc.getValue() % SHARD_COUNT);
+				assertTrue(names.contains(row[1]));
+				total++;
+			}
+		}
+		assertEquals(30, total);
+	}
+
+	@Test
+	void compositeKeyIsCombined() throws SQLException {
+		try (PreparedStatement ps = create(1, 2)) {
+			ps.setInt(1, 7);
+			ps.setString(2, "x");
+			ps.addBatch();
+			ps.executeBatch();
+		}
+		CRC32 crc = new CRC32();
+		crc.update("x".getBytes(StandardCharsets.UTF_8));
+		int shard = (int)Math.floorMod(7L * 31 + crc.getValue(), (long)SHARD_COUNT);
+		assertEquals(1, rows(shard).size());
+	}
+
+	@Test
+	void shardsRecordBatchAndCommitEvents() throws SQLException, IOException {
+		File dump = new File(dir, "events.jfr");
+		try (Recording recording = new Recording()) {
+			recording.enable("jp.co.comona.javamisc.Batch");
+			recording.enable("jp.co.comona.javamisc.Commit");
+			recording.start();
+			try (PreparedStatement ps = create(1)) {
+				for (long id = 0; id < 5; id++) {
+					ps.setLong(1, id);
+					ps.setString(2, "n" + id);
+					ps.addBatch();
+				}
+				executeBatch(ps, 5);
+			}
+			recording.stop();
+			recording.dump(dump.toPath());
+		}
+		long[] rows = new long[2];
+		int[] events = new int[2];
+		for (RecordedEvent event : RecordingFile.readAllEvents(dump.toPath())) {
+			int kind = event.getEventType().getName().endsWith("Batch") ? 0 : 1;
+			events[kind]++;
+			rows[kind] += event.getLong("rows");
+		}
+		assertEquals(SHARD_COUNT, events[0]);	// ids 0 to 4 are on all shards, the routed batch itself is not recorded.
+		assertEquals(SHARD_COUNT, events[1]);
+		assertEquals(5, rows[0]);
+		assertEquals(5, rows[1]);
+	}
+
+	@Test
+	void nullKeyFails() throws SQLException {
+		try (final PreparedStatement ps = create(1)) {
+			ps.setNull(1, Types.BIGINT);
+			ps.setString(2, "n");
+			assertThrows(SQLException.class, new Executable() {
+				@Override
+				public void execute() throws Throwable {
+					ps.addBatch();
+				}
+			});
+		}
+	}
+
+	// MARK: - Helpers
+	/**
+	 * get URL of a shard.
+	 * @param shard shard index.
+	 * @return URL.
+	 */
+	private static String url(int shard) {
+		return "jdbc:h2:mem:shard" + shard + ";MODE=MySQL";
+	}
+
+	/**
+	 * create routed statement with own connections of the shards.
+	 * @param keyIndexes parameter indexes of the shard key columns.
+	 * @return routed statement.
+	 * @throws SQLException when SQL error.
+	 */
+	private static PreparedStatement create(int... keyIndexes) throws SQLException {
+		Connection[] connections = new Connection[SHARD_COUNT];
+		for (int i = 0; i < SHARD_COUNT; i++) {
+			connections[i] = DriverManager.getConnection(url(i));
+		}
+		return ShardRouter.create(SQLDialect.MYSQL, connections, INSERT_SQL, "t", Arrays.asList("id", "name"), false, 2, keyIndexes, "t");
+	}
+
+	/**
+	 * execute batch by the tool, recorded as the tools do.
+	 * @param ps prepared statement.
+	 * @param rows number of rows in the batch.
+	 * @throws SQLException when SQL error.
+	 */
+	private static void executeBatch(PreparedStatement ps, int rows) throws SQLException {
+		SQLRecord record = new SQLRecord(null, "t") {
+			@Override
+			protected void doProcess() {}
+
+			@Override
+			protected int checkArguments() {
+				return 0;
+			}
+
+			@Override
+			protected char replaceValueShortOption() {
+				return 'r';
+			}
+
+			@Override
+			protected void columnAndReplaceCountMustSame() {}
+		};
+		record.executeBatch(ps, rows);
+	}
+
+	/**
+	 * get rows of a shard.
+	 * @param shard shard index.
+	 * @return id & name of the rows.
+	 * @throws SQLException when SQL error.
+	 */
+	private List<Object[]> rows(int shard) throws SQLException {
+		List<Object[]> rows = new ArrayList<>();
+		try (Statement stmt = keepers[shard].createStatement(); ResultSet rs = stmt.executeQuery("SELECT id, name FROM t")) {
+			while (rs.next()) {
+				rows.add(new Object[] { rs.getLong(1), rs.getString(2) });
+			}
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,171 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * snapshot sorter test, sorted rows are inserted into embedded H2 in order & read back.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class SnapshotSorterTest {
+
+	private static final int ROW_COUNT = 5000;
+	private static final RecordListener FAILING_LISTENER = new RecordListener() {
+		@Override
+		public void info(String message) {}
+
+		@Override
+		public void warn(String message) {
+			throw new AssertionError(message);
+		}
+
+		@Override
+		public void error(String message) {
+			throw new AssertionError(message);
+		}
+	};
+
+	@TempDir
+	File dir;
+
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		con = DriverManager.getConnection("jdbc:h2:mem:sorter;MODE=MySQL");
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("CREATE TABLE source (id BIGINT, name VARCHAR(20))");
+			stmt.execute("CREATE TABLE sorted (seq INT AUTO_INCREMENT PRIMARY KEY, id BIGINT, name VARCHAR(20))");
+		}
+		List<Long> ids = new ArrayList<>();
+		for (long id = -ROW_COUNT / 2; id < ROW_COUNT / 2; id++) {
+			ids.add(id);
+		}
+		Collections.shuffle(ids, new Random(1));
+		try (PreparedStatement ps = con.prepareStatement("INSERT INTO source (id, name) VALUES (?, ?)")) {
+			for (long id : ids) {
+				ps.setLong(1, id);
+				ps.setString(2, (id % 7 == 0) ? null : "n" + Math.floorMod(id, 10));
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		con.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void sortsInMemory() throws Exception {
+		assertEquals(0, sort(new int[] { 1 }, 64L * 1024 * 1024));
+		List<Object[]> rows = sortedRows();
+		assertEquals(ROW_COUNT, rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertEquals(-ROW_COUNT / 2 + i, ((Long)rows.get(i)[0]).longValue());
+		}
+	}
+
+	@Test
+	void mergesSpilledRuns() throws Exception {
+		assertTrue(sort(new int[] { 1 }, 16 * 1024) > 1);
+		List<Object[]> rows = sortedRows();
+		assertEquals(ROW_COUNT, rows.size());
+		for (int i = 0; i < rows.size(); i++) {
+			assertEquals(-ROW_COUNT / 2 + i, ((Long)rows.get(i)[0]).longValue());
+		}
+	}
+
+	@Test
+	void nullsFirstThenStrings() throws Exception {
+		assertTrue(sort(new int[] { 2, 1 }, 16 * 1024) > 1);
+		List<Object[]> rows = sortedRows();
+		assertEquals(ROW_COUNT, rows.size());
+		assertNull(rows.get(0)[1]);
+		for (int i = 1; i < rows.size(); i++) {
+			String previous = (String)rows.get(i - 1)[1];
+			String name = (String)rows.get(i)[1];
+			long previousId = (Long)rows.get(i - 1)[0];
+			long id = (Long)rows.get(i)[0];
+			if (previous == null) {
+				assertTrue((name != null) || (previousId < id));
+			}
+			else {
+				int order = previous.compareTo(name);
+				assertTrue((order < 0) || ((order == 0) && (previousId < id)));
+			}
+		}
+	}
+
+	// MARK: - Helpers
+	/**
+	 * export the source to a snapshot, sort it & insert the rows in order.
+	 * @param keyColumns key column indexes of the snapshot.
+	 * @param memoryBudget bytes of rows sorted in memory.
+	 * @return number of spilled runs.
+	 * @throws Exception when error.
+	 */
+	private int sort(int[] keyColumns, long memoryBudget) throws Exception {
+		File file = new File(dir, "source.snapshot");
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT id, name FROM source")) {
+			RowBuffer buffer = new RowBuffer(rs.getMetaData(), 1000);
+			try (SnapshotWriter writer = new SnapshotWriter(file, rs.getMetaData(), false)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					if (buffer.isFull()) {
+						writer.write(buffer);
+						buffer.clear();
+					}
+				}
+				writer.write(buffer);
+			}
+		}
+		try (SnapshotReader reader = new SnapshotReader(file);
+				SnapshotSorter sorter = new SnapshotSorter(reader, keyColumns, memoryBudget, FAILING_LISTENER);
+				PreparedStatement ps = con.prepareStatement("INSERT INTO sorted (id, name) VALUES (?, ?)")) {
+			sorter.sort();
+			while (sorter.next()) {
+				sorter.bind(ps, 1, 1);
+				sorter.bind(ps, 2, 2);
+				ps.executeUpdate();
+			}
+			return sorter.getRunCount();
+		}
+	}
+
+	/**
+	 * read the sorted rows in order.
+	 * @return id & name of the rows.
+	 * @throws SQLException when SQL error.
+	 */
+	private List<Object[]> sortedRows() throws SQLException {
+		List<Object[]> rows = new ArrayList<>();
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT id, name FROM sorted ORDER BY seq")) {
+			while (rs.next()) {
+				rows.add(new Object[] { rs.getLong(1), rs.getString(2) });
+			}
+		}
+		return rows;
+	}
+}
@@ -0,0 +1,212 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * snapshot writer test, rows written in row & columnar layouts are read back into embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class SnapshotWriterTest {
+
+	private static final int ROW_COUNT = 1000;
+	private static final String COLUMNS = "id, n, d, s, ts";
+
+	@TempDir
+	File dir;
+
+	private Connection con;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		con = DriverManager.getConnection("jdbc:h2:mem:snapshot;MODE=MySQL");
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("CREATE TABLE source (id BIGINT PRIMARY KEY, n INT, d DOUBLE, s VARCHAR(40), ts TIMESTAMP(6))");
+			stmt.execute("CREATE TABLE restored (id BIGINT PRIMARY KEY, n INT, d DOUBLE, s VARCHAR(40), ts TIMESTAMP(6))");
+		}
+		try (PreparedStatement ps = con.prepareStatement("INSERT INTO source (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)")) {
+			for (long id = 0; id < ROW_COUNT; id++) {
+				boolean isNull = id % 5 == 0;
+				ps.setLong(1, id);
+				if (isNull) {
+					ps.setNull(2, Types.INTEGER);
+					ps.setNull(3, Types.DOUBLE);
+					ps.setNull(4, Types.VARCHAR);
+					ps.setNull(5, Types.TIMESTAMP);
+				}
+				else {
+					ps.setInt(2, (int)(id * 3 - 1000));
+					ps.setDouble(3, id / 8.0);
+					ps.setString(4, (id % 3 == 0) ? "" : "zé\t" + id);	// empty strings are not null.
+					ps.setTimestamp(5, timestamp(id));
+				}
+				ps.addBatch();
+			}
+			ps.executeBatch();
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = con.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		con.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void rowLayoutRoundTrip() throws Exception {
+		File file = new File(dir, "row.snapshot");
+		assertEquals(ROW_COUNT, export(file, false));
+		assertEquals(ROW_COUNT, restore(file));
+		assertSameRows();
+	}
+
+	@Test
+	void columnarLayoutRoundTrip() throws Exception {
+		File file = new File(dir, "columnar.snapshot");
+		assertEquals(ROW_COUNT, export(file, true));
+		assertEquals(ROW_COUNT, restore(file));
+		assertSameRows();
+	}
+
+	@Test
+	void selectedRowsAreWritten() throws Exception {
+		File file = new File(dir, "selected.snapshot");
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT " + COLUMNS + " FROM source ORDER BY id")) {
+			RowBuffer buffer = new RowBuffer(rs.getMetaData(), ROW_COUNT);
+			while (rs.next()) {
+				buffer.add(rs);
+			}
+			int[] rows = { 999, 5, 1 };
+			try (SnapshotWriter writer = new SnapshotWriter(file, rs.getMetaData(), false)) {
+				writer.write(buffer, rows, rows.length);
+				assertEquals(3, writer.getRowCount());
+			}
+		}
+		assertEquals(3, restore(file));
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM restored WHERE id IN (1, 5, 999)")) {
+			assertTrue(rs.next());
+			assertEquals(3, rs.getInt(1));
+		}
+	}
+
+	@Test
+	void headerHasColumnNames() throws Exception {
+		File file = new File(dir, "header.snapshot");
+		export(file, true);
+		try (SnapshotReader reader = new SnapshotReader(file)) {
+			assertEquals(5, reader.getColumnCount());
+			assertEquals(4, reader.findColumn("s"));
+			assertEquals(0, reader.findColumn("missing"));
+		}
+	}
+
+	@Test
+	void otherFileIsRejected() throws Exception {
+		final File file = new File(dir, "other.snapshot");
+		try (FileOutputStream out = new FileOutputStream(file)) {
+			out.write("id,name\n1,a\n".getBytes("UTF-8"));
+		}
+		assertThrows(IOException.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				new SnapshotReader(file).close();
+			}
+		});
+	}
+
+	// MARK: - Helpers
+	/**
+	 * export the source to a snapshot in blocks of buffer size.
+	 * @param file snapshot file.
+	 * @param columnar true for columnar layout.
+	 * @return number of rows written.
+	 * @throws Exception when error.
+	 */
+	private long export(File file, boolean columnar) throws Exception {
+		try (Statement stmt = con.createStatement(); ResultSet rs = stmt.executeQuery("SELECT " + COLUMNS + " FROM source")) {
+			RowBuffer buffer = new RowBuffer(rs.getMetaData(), 300);	// blocks of 300, 300, 300 & 100 rows.
+			try (SnapshotWriter writer = new SnapshotWriter(file, rs.getMetaData(), columnar)) {
+				while (rs.next()) {
+					buffer.add(rs);
+					if (buffer.isFull()) {
+						writer.write(buffer);
+						buffer.clear();
+					}
+				}
+				writer.write(buffer);
+				return writer.getRowCount();
+			}
+		}
+	}
+
+	/**
+	 * insert the rows of a snapshot into the restored table.
+	 * @param file snapshot file.
+	 * @return number of rows read.
+	 * @throws Exception when error.
+	 */
+	private int restore(File file) throws Exception {
+		int count = 0;
+		try (SnapshotReader reader = new SnapshotReader(file);
+				PreparedStatement ps = con.prepareStatement("INSERT INTO restored (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)")) {
+			while (reader.next()) {
+				for (int columnIndex = 1; columnIndex <= reader.getColumnCount(); columnIndex++) {
+					reader.bind(ps, columnIndex, columnIndex);
+				}
+				ps.executeUpdate();
+				count++;
+			}
+			assertFalse(reader.next());
+		}
+		return count;
+	}
+
+	/**
+	 * assert the restored table has the same rows as the source.
+	 * @throws SQLException when SQL error.
+	 */
+	private void assertSameRows() throws SQLException {
+		try (Statement stmt = con.createStatement();
+				ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM source a JOIN restored b ON a.id = b.id"
+						+ " WHERE (a.n = b.n OR a.n IS NULL AND b.n IS NULL) AND (a.d = b.d OR a.d IS NULL AND b.d IS NULL)"
+						+ " AND (a.s = b.s OR a.s IS NULL AND b.s IS NULL) AND (a.ts = b.ts OR a.ts IS NULL AND b.ts IS NULL)")) {
+			assertTrue(rs.next());
+			assertEquals(ROW_COUNT, rs.getInt(1));
+		}
+	}
+
+	/**
+	 * timestamp of a row with micros, before & after the epoch.
+	 * @param id row id.
+	 * @return timestamp.
+	 */
+	private static Timestamp timestamp(long id) {
+		Timestamp timestamp = new Timestamp((id - ROW_COUNT / 2) * 86400000L);
+		timestamp.setNanos((int)(id % 1000000) * 1000 + 1000);
+		return timestamp;
+	}
+}
@@ -0,0 +1,158 @@
+package jp.co.comona.javamisc.sql;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.sql.DataSource;
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * tail record test, new rows of a source database mirrored into a target database on embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class TailRecordTest {
+
+	private static final String SOURCE_URL = "jdbc:h2:mem:tailsrc;MODE=MySQL";
+	private static final String TARGET_URL = "jdbc:h2:mem:tailtgt;MODE=MySQL";
+	private static final int BATCH_SIZE = 3;
+
+	@TempDir
+	File dir;
+
+	private Connection source;	// keep the in-memory databases while the tails own their connections.
+	private Connection target;
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		source = DriverManager.getConnection(SOURCE_URL);
+		target = DriverManager.getConnection(TARGET_URL);
+		try (Statement stmt = source.createStatement()) {
+			stmt.execute("CREATE TABLE events (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(20))");
+		}
+		try (Statement stmt = target.createStatement()) {
+			stmt.execute("CREATE TABLE events (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+		}
+		insert(5);
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		for (Connection connection : new Connection[] { source, target }) {
+			try (Statement stmt = connection.createStatement()) {
+				stmt.execute("DROP ALL OBJECTS");
+			}
+			connection.close();
+		}
+	}
+
+	// MARK: - Tests
+	@Test
+	void newRowsAreMirroredIntoTargetDatabase() throws Exception {
+		File state = new File(dir, "state");
+		assertEquals(5, tail(dataSource(TARGET_URL), state).getRecordCount());
+		assertEquals(5, count(target));
+
+		insert(4);
+		assertEquals(4, tail(dataSource(TARGET_URL), state).getRecordCount());	// continues from the state file.
+		assertEquals(9, count(target));
+	}
+
+	@Test
+	void stateIsNotSavedBeforeTargetCommit() throws Exception {
+		final File state = new File(dir, "state");
+		assertThrows(KillingDataSource.Killed.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				tail(new KillingDataSource(TARGET_URL, "events", false), state);
+			}
+		});
+		assertEquals(0, count(target));
+		assertFalse(state.exists());
+
+		assertEquals(5, tail(dataSource(TARGET_URL), state).getRecordCount());
+		assertEquals(5, count(target));
+	}
+
+	@Test
+	void rowCommittedLateIsCopiedAfterSettle() throws Exception {
+		final Connection late = DriverManager.getConnection(SOURCE_URL);
+		late.setAutoCommit(false);
+		try (Statement stmt = late.createStatement()) {
+			stmt.execute("INSERT INTO events (name) VALUES('late')");	// id 6, committed after id 7.
+		}
+		insert(1);
+		Thread committer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(300);
+					late.commit();
+				}
+				catch (InterruptedException | SQLException e) {
+					throw new IllegalStateException(e);
+				}
+			}
+		});
+		committer.start();
+		try {
+			TailRecordRequest.builder(dataSource(SOURCE_URL), "events").target("events").targetDataSource(dataSource(TARGET_URL))
+					.state(new File(dir, "state")).batchSize(BATCH_SIZE).settle(1).once().build().execute();
+		}
+		finally {
+			committer.join();
+			late.close();
+		}
+		assertEquals(7, count(target));
+	}
+
+	@Test
+	void sameTableRequiresTargetDatabase() {
+		assertThrows(IllegalArgumentException.class, new Executable() {
+			@Override
+			public void execute() {
+				TailRecordRequest.builder(dataSource(SOURCE_URL), "events").target("events").state(new File(dir, "state")).build();
+			}
+		});
+	}
+
+	// MARK: - Helpers
+	private RecordResult tail(DataSource targetDataSource, File state) throws Exception {
+		return TailRecordRequest.builder(dataSource(SOURCE_URL), "events").target("events").targetDataSource(targetDataSource)
+				.state(state).batchSize(BATCH_SIZE).once().build().execute();
+	}
+
+	private static JdbcDataSource dataSource(String url) {
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(url);
+		return dataSource;
+	}
+
+	private void insert(int rows) throws SQLException {
+		try (Statement stmt = source.createStatement()) {
+			for (int i = 0; i < rows; i++) {
+				stmt.execute("INSERT INTO events (name) VALUES('e')");
+			}
+		}
+	}
+
+	private static long count(Connection connection) throws SQLException {
+		try (Statement stmt = connection.createStatement(); ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM events")) {
+			rs.next();
+			return rs.getLong(1);
+		}
+	}
+}
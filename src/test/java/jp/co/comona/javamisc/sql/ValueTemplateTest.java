@@ -0,0 +1,112 @@
+package jp.co.comona.javamisc.sql;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * value template test.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class ValueTemplateTest {
+
+	// MARK: - Tests
+	@Test
+	void literalIsString() {
+		ValueTemplate template = ValueTemplate.parse("plain {text");
+		assertFalse(template.isNumeric());
+		assertEquals("plain {text", template.evaluate(0, 1));
+		assertEquals("", ValueTemplate.parse("").evaluate(0, 1));
+	}
+
+	@Test
+	void sequenceIsNumeric() {
+		ValueTemplate template = ValueTemplate.parse("{seq}");
+		assertTrue(template.isNumeric());
+		assertEquals(1L, template.evaluate(0, 1));
+		assertEquals(2L, template.evaluate(0, 2));
+
+		template = ValueTemplate.parse("{seq:100:-10}");
+		assertEquals(100L, template.evaluate(0, 1));
+		assertEquals(90L, template.evaluate(0, 1));
+		assertEquals(80L, template.evaluate(0, 1));
+
+		template = ValueTemplate.parse("{seq::5}");
+		assertEquals(1L, template.evaluate(0, 1));
+		assertEquals(6L, template.evaluate(0, 1));
+	}
+
+	@Test
+	void offsetAndCopy() {
+		ValueTemplate template = ValueTemplate.parse("{offset:1000}");
+		assertTrue(template.needsSourceValue());
+		assertEquals(2010L, template.evaluate(10, 2));
+		assertEquals(13L, ValueTemplate.parse("{offset}").evaluate(10, 3));
+		assertEquals(3L, ValueTemplate.parse("{copy}").evaluate(10, 3));
+		assertFalse(ValueTemplate.parse("{copy}").needsSourceValue());
+	}
+
+	@Test
+	void mixedIsString() {
+		ValueTemplate template = ValueTemplate.parse("user-{seq:7}@{copy}.example");
+		assertFalse(template.isNumeric());
+		assertEquals("user-7@1.example", template.evaluate(0, 1));
+		assertEquals("user-8@2.example", template.evaluate(0, 2));
+	}
+
+	@Test
+	void uuidIsVersion4() {
+		ValueTemplate template = ValueTemplate.parse("{uuid}");
+		assertFalse(template.isNumeric());
+		UUID uuid = UUID.fromString((String)template.evaluate(0, 1));
+		assertEquals(4, uuid.version());
+		assertEquals(2, uuid.variant());
+		assertFalse(template.evaluate(0, 2).equals(uuid.toString()));
+	}
+
+	@Test
+	void randomIsInclusive() {
+		ValueTemplate template = ValueTemplate.parse("{random:3:5}");
+		assertTrue(template.isNumeric());
+		Set<Object> values = new HashSet<>();
+		for (int i = 0; i < 1000; i++) {
+			values.add(template.evaluate(0, i));
+		}
+		assertEquals(new HashSet<Object>(Arrays.asList(3L, 4L, 5L)), values);
+		assertEquals(-2L, ValueTemplate.parse("{random:-2:-2}").evaluate(0, 1));
+	}
+
+	@Test
+	void invalidTemplatesFail() {
+		assertInvalid("{foo}", "unknown generator {foo} in {foo}");
+		assertInvalid("{seq:x}", "parameter of {seq} must be a number: x");
+		assertInvalid("{random:1}", "random requires {random:MIN:MAX} in {random:1}");
+		assertInvalid("{random:5:3}", "random MIN is greater than MAX in {random:5:3}");
+	}
+
+	// MARK: - Helpers
+	/**
+	 * assert template is invalid.
+	 * @param text template text.
+	 * @param message expected message.
+	 */
+	private static void assertInvalid(final String text, String message) {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, new Executable() {
+			@Override
+			public void execute() throws Throwable {
+				ValueTemplate.parse(text);
+			}
+		});
+		assertEquals(message, e.getMessage());
+	}
+}
@@ -0,0 +1,101 @@
+package jp.co.comona.javamisc.sql;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * verify record test, rows differ between a table & its copy on embedded H2, reported to the listener & on the result.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+class VerifyRecordTest {
+
+	private static final String URL = "jdbc:h2:mem:verify;MODE=MySQL";
+
+	private Connection keeper;	// keep the in-memory database while the verify owns its connections.
+
+	@BeforeEach
+	void setUp() throws SQLException {
+		keeper = DriverManager.getConnection(URL);
+		try (Statement stmt = keeper.createStatement()) {
+			stmt.execute("CREATE ALIAS CRC32 AS $$ long crc32(String value) { java.util.zip.CRC32 crc = new java.util.zip.CRC32();"
+					+ " crc.update(value.getBytes(java.nio.charset.StandardCharsets.UTF_8)); return crc.getValue(); } $$");	// the row hash of MySQL.
+			stmt.execute("CREATE TABLE src (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+			stmt.execute("CREATE TABLE dst (id BIGINT PRIMARY KEY, name VARCHAR(20))");
+			for (int id = 1; id <= 5; id++) {
+				stmt.execute("INSERT INTO src VALUES(" + id + ", 'n" + id + "')");
+			}
+			stmt.execute("INSERT INTO dst SELECT * FROM src WHERE id < 5");
+			stmt.execute("UPDATE dst SET name = 'changed' WHERE id = 2");
+			stmt.execute("INSERT INTO dst VALUES(6, 'n6')");
+		}
+	}
+
+	@AfterEach
+	void tearDown() throws SQLException {
+		try (Statement stmt = keeper.createStatement()) {
+			stmt.execute("DROP ALL OBJECTS");
+		}
+		keeper.close();
+	}
+
+	// MARK: - Tests
+	@Test
+	void diffsAreReportedToListenerAndResult() throws Exception {
+		final List<String> warnings = new ArrayList<>();
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(URL);
+		VerifyRecordResult result = VerifyRecordRequest.builder(dataSource, "src").target("dst").chunkSize(2).threads(2).listener(new RecordListener() {
+			@Override
+			public void info(String message) {}
+
+			@Override
+			public void warn(String message) {
+				warnings.add(message);
+			}
+
+			@Override
+			public void error(String message) {}
+		}).build().execute();
+
+		assertEquals(5, result.getRecordCount());
+		assertEquals(3, result.getDifferCount());
+		assertEquals(3, warnings.size());
+		assertDiff(result.getDiffs().get(0), RowDiff.Kind.CHANGED, 2);
+		assertDiff(result.getDiffs().get(1), RowDiff.Kind.MISSING, 5);
+		assertDiff(result.getDiffs().get(2), RowDiff.Kind.EXTRA, 6);
+		assertTrue(warnings.get(1).contains("is not in dst"), warnings.get(1));
+	}
+
+	@Test
+	void sameCopyHasNoDiff() throws Exception {
+		try (Statement stmt = keeper.createStatement()) {
+			stmt.execute("DELETE FROM dst");
+			stmt.execute("INSERT INTO dst SELECT * FROM src");
+		}
+		JdbcDataSource dataSource = new JdbcDataSource();
+		dataSource.setURL(URL);
+		VerifyRecordResult result = VerifyRecordRequest.builder(dataSource, "src").target("dst").chunkSize(2).build().execute();
+		assertTrue(result.isSame());
+		assertTrue(result.getDiffs().isEmpty());
+	}
+
+	// MARK: - Helpers
+	private static void assertDiff(RowDiff diff, RowDiff.Kind kind, long id) {
+		assertEquals(kind, diff.getKind());
+		assertEquals(Arrays.<Object>asList(id), diff.getKey());
+	}
+}
@@ -0,0 +1,20 @@
+package org.postgresql;
+
+import org.postgresql.copy.CopyManager;
+
+import java.sql.SQLException;
+
+/**
+ * stand-in of the PostgreSQL driver connection for COPY tests, the driver is not a test dependency.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public interface PGConnection {
+
+	/**
+	 * get copy API.
+	 * @return copy manager.
+	 * @throws SQLException when SQL error.
+	 */
+	CopyManager getCopyAPI() throws SQLException;
+}
@@ -0,0 +1,133 @@
+package org.postgresql.copy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * stand-in of the PostgreSQL copy API for COPY tests, text format rows are decoded & inserted into embedded H2.
+ * date: 2026/10/18
+ * @author Toru Kageyama <info@comona.co.jp>
+ */
+public class CopyManager {
+
+	private static final Pattern COPY = Pattern.compile("COPY (\\S+) \\((.+)\\) FROM STDIN");
+
+	private final Connection con;
+	private final List<String> lines = new ArrayList<>();
+	private int copyCount = 0;
+
+	/**
+	 * constructor.
+	 * @param con H2 connection.
+	 */
+	public CopyManager(Connection con) {
+		super();
+		this.con = con;
+	}
+
+	/**
+	 * get lines received by the copies.
+	 * @return lines without line breaks.
+	 */
+	public List<String> getLines() {
+		return lines;
+	}
+
+	/**
+	 * get number of copies.
+	 * @return number of copies.
+	 */
+	public int getCopyCount() {
+		return copyCount;
+	}
+
+	/**
+	 * copy text format rows into the table, \N is null & a value starting with \x is bytea hex.
+	 * @param sql COPY ... FROM STDIN SQL.
+	 * @param from rows.
+	 * @return number of rows copied.
+	 * @throws SQLException when SQL error.
+	 * @throws IOException when I/O error.
+	 */
+	public long copyIn(String sql, InputStream from) throws SQLException, IOException {
+		Matcher matcher = COPY.matcher(sql);
+		if (!matcher.matches()) {
+			throw new SQLException("syntax error in " + sql, "42601");
+		}
+		copyCount++;
+		int columnCount = matcher.group(2).split(",").length;
+		StringBuilder insert = new StringBuilder("INSERT INTO ").append(matcher.group(1)).append(" (").append(matcher.group(2)).append(") VALUES (?");
+		for (int i = 1; i < columnCount; i++) {
+			insert.append(", ?");
+		}
+		insert.append(')');
+		long count = 0;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(from, StandardCharsets.UTF_8));
+		try (PreparedStatement ps = con.prepareStatement(insert.toString())) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				lines.add(line);
+				String[] fields = line.split("\t", -1);
+				if (fields.length != columnCount) {
+					throw new SQLException("missing data for column " + (fields.length + 1), "22P04");
+				}
+				for (int i = 0; i < columnCount; i++) {
+					String value = "\\N".equals(fields[i]) ? null : unescape(fields[i]);
+					if ((value != null) && value.startsWith("\\x")) {
+						ps.setBytes(i + 1, hex(value.substring(2)));
+					}
+					else {
+						ps.setString(i + 1, value);
+					}
+				}
+				ps.executeUpdate();
+				count++;
+			}
+		}
+		return count;
+	}
+
+	private static String unescape(String value) {
+		StringBuilder sb = new StringBuilder(value.length());
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\') {
+				c = value.charAt(++i);
+				switch (c) {
+					case 't':
+						c = '\t';
+						break;
+					case 'n':
+						c = '\n';
+						break;
+					case 'r':
+						c = '\r';
+						break;
+
+					default:
+						break;
+				}
+			}
+			sb.append(c);
+		}
+		return sb.toString();
+	}
+
+	private static byte[] hex(String value) {
+		byte[] bytes = new byte[value.length() / 2];
+		for (int i = 0; i < bytes.length; i++) {
+			bytes[i] = (byte)Integer.parseInt(value.substring(i * 2, i * 2 + 2), 16);
+		}
+		return bytes;
+	}
+}